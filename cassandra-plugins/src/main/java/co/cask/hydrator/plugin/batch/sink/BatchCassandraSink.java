@@ -26,12 +26,14 @@ import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.etl.api.Emitter;
+import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
 import co.cask.cdap.etl.api.batch.BatchSink;
 import co.cask.cdap.etl.api.batch.BatchSinkContext;
 import co.cask.cdap.format.StructuredRecordStringConverter;
 import co.cask.hydrator.common.ReferenceBatchSink;
 import co.cask.hydrator.common.ReferencePluginConfig;
 import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import org.apache.cassandra.hadoop.cql3.CqlOutputFormat;
 import org.apache.cassandra.utils.ByteBufferUtil;
@@ -57,7 +59,13 @@ import javax.annotation.Nullable;
   "and converts each field to a byte buffer, then puts it in the keyspace and column family specified by the user.")
 public class BatchCassandraSink
   extends ReferenceBatchSink<StructuredRecord, Map<String, ByteBuffer>, List<ByteBuffer>> {
+  private static final String WRITER_THRIFT = "thrift";
+  private static final String WRITER_NATIVE = "native";
+
   private final CassandraBatchConfig config;
+  private final Map<Schema, Schema[]> schemaCache = new HashMap<>();
+  private List<String> primaryKeys;
+  private List<String> columns;
 
   public BatchCassandraSink(CassandraBatchConfig config) {
     super(config);
@@ -66,35 +74,75 @@ public class BatchCassandraSink
 
   @Override
   public void prepareRun(BatchSinkContext context) {
+    config.validate();
     context.addOutput(Output.of(config.referenceName, new CassandraOutputFormatProvider(config)));
   }
 
+  @Override
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
+    config.validate();
+    primaryKeys = config.getPrimaryKeys();
+    List<String> columnNames = new ArrayList<>();
+    for (String column : config.getColumns()) {
+      // The thrift writer binds the non-primary key columns, since Cassandra adds the primary keys to the UPDATE query
+      // itself. The native writer binds the primary keys followed by these columns.
+      if (!primaryKeys.contains(column)) {
+        columnNames.add(column);
+      }
+    }
+    columns = columnNames;
+  }
+
   @Override
   public void transform(StructuredRecord record,
                         Emitter<KeyValue<Map<String, ByteBuffer>, List<ByteBuffer>>> emitter) throws Exception {
-    Map<String, ByteBuffer> keys = new LinkedHashMap<>();
-    for (String key : CharMatcher.WHITESPACE.removeFrom(config.primaryKey).split(",")) {
-      Preconditions.checkNotNull(record.get(key), String.format("Primary key %s is not present in this record: %s",
-                                                                key, StructuredRecordStringConverter
-                                                                       .toDelimitedString(record, ";")));
-      keys.put(key, encodeObject(record.get(key), record.getSchema().getField(key).getSchema()));
-    }
-    emitter.emit(new KeyValue<>(keys, getColumns(record)));
-  }
+    Schema[] fieldSchemas = getFieldSchemas(record.getSchema());
+    Map<String, ByteBuffer> keys = null;
+    if (!config.isNativeWriter()) {
+      keys = new LinkedHashMap<>();
+    }
+    // the native writer binds the primary keys as the first values
+    int offset = keys == null ? primaryKeys.size() : 0;
+    ByteBuffer[] values = new ByteBuffer[offset + columns.size()];
+    for (int i = 0; i < primaryKeys.size(); i++) {
+      String key = primaryKeys.get(i);
+      Object value = record.get(key);
+      Preconditions.checkNotNull(value, String.format("Primary key %s is not present in this record: %s",
+                                                      key, StructuredRecordStringConverter
+                                                             .toDelimitedString(record, ";")));
+      ByteBuffer encoded = encodeObject(value, fieldSchemas[i]);
+      if (keys != null) {
+        keys.put(key, encoded);
+      } else {
+        values[i] = encoded;
+      }
+    }
 
-  private List<ByteBuffer> getColumns(StructuredRecord record) throws Exception {
-    List<ByteBuffer> columns = new ArrayList<>();
-    List<String> primaryKeys = Arrays.asList(CharMatcher.WHITESPACE.removeFrom(config.primaryKey).split(","));
-    for (String columnName : CharMatcher.WHITESPACE.removeFrom(config.columns).split(",")) {
+    for (int i = 0; i < columns.size(); i++) {
+      values[offset + i] = encodeObject(record.get(columns.get(i)), fieldSchemas[primaryKeys.size() + i]);
+    }
+    emitter.emit(new KeyValue<>(keys, Arrays.asList(values)));
+  }
 
-      //Cassandra allows multiple primary keys, so splitting that list on a comma
-      // and checking that the current column isn't a primary key
-      if (!primaryKeys.contains(columnName)) {
-        columns.add(encodeObject(record.get(columnName),
-                                 record.getSchema().getField(columnName).getSchema()));
+  /**
+   * Returns the schemas of the primary keys followed by the schemas of the written columns.
+   */
+  private Schema[] getFieldSchemas(Schema schema) {
+    Schema[] fieldSchemas = schemaCache.get(schema);
+    if (fieldSchemas == null) {
+      fieldSchemas = new Schema[primaryKeys.size() + columns.size()];
+      for (int i = 0; i < fieldSchemas.length; i++) {
+        String name = i < primaryKeys.size() ? primaryKeys.get(i) : columns.get(i - primaryKeys.size());
+        Schema.Field field = schema.getField(name);
+        if (field == null) {
+          throw new IllegalArgumentException(String.format("Column %s is not present in the input schema.", name));
+        }
+        fieldSchemas[i] = field.getSchema();
       }
+      schemaCache.put(schema, fieldSchemas);
     }
-    return columns;
+    return fieldSchemas;
   }
 
   private ByteBuffer encodeObject(Object object, Schema schema) throws IOException {
@@ -167,8 +215,44 @@ public class BatchCassandraSink
     @Description("A comma-separated list of primary keys. For example: \"key1,key2\".")
     private String primaryKey;
 
+    @Name(Cassandra.WRITER)
+    @Nullable
+    @Description("The protocol used to write to Cassandra, either 'thrift' or 'native'. The native writer uses a " +
+      "prepared INSERT statement over the CQL native protocol and batches rows that belong to the same replicas. " +
+      "Defaults to 'thrift'.")
+    @Macro
+    private String writer;
+
+    @Name(Cassandra.NATIVE_PORT)
+    @Nullable
+    @Description("The native transport port for Cassandra, used by the native writer. Defaults to 9042.")
+    @Macro
+    private Integer nativePort;
+
+    @Name(Cassandra.BATCH_SIZE)
+    @Nullable
+    @Description("The maximum number of rows in an unlogged batch written by the native writer. " +
+      "Rows are only batched with rows that have the same replicas. Set it to 1 to disable batching. Defaults to 20.")
+    @Macro
+    private Integer batchSize;
+
+    @Name(Cassandra.MAX_IN_FLIGHT_REQUESTS)
+    @Nullable
+    @Description("The maximum number of asynchronous write requests that the native writer keeps in flight " +
+      "per task. Defaults to 64.")
+    @Macro
+    private Integer maxInFlightRequests;
+
     public CassandraBatchConfig(String referenceName, String partitioner, @Nullable Integer port, String columnFamily,
                                 String keyspace, String initialAddress, String columns, String primaryKey) {
+      this(referenceName, partitioner, port, columnFamily, keyspace, initialAddress, columns, primaryKey,
+           null, null, null, null);
+    }
+
+    public CassandraBatchConfig(String referenceName, String partitioner, @Nullable Integer port, String columnFamily,
+                                String keyspace, String initialAddress, String columns, String primaryKey,
+                                @Nullable String writer, @Nullable Integer nativePort, @Nullable Integer batchSize,
+                                @Nullable Integer maxInFlightRequests) {
       super(referenceName);
       this.partitioner = partitioner;
       this.initialAddress = initialAddress;
@@ -177,15 +261,79 @@ public class BatchCassandraSink
       this.keyspace = keyspace;
       this.columns = columns;
       this.primaryKey = primaryKey;
+      this.writer = writer;
+      this.nativePort = nativePort;
+      this.batchSize = batchSize;
+      this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    private void validate() {
+      if (!containsMacro(Cassandra.WRITER) && writer != null && !WRITER_THRIFT.equalsIgnoreCase(writer) &&
+        !WRITER_NATIVE.equalsIgnoreCase(writer)) {
+        throw new IllegalArgumentException(String.format("Writer must be either '%s' or '%s', but was '%s'.",
+                                                         WRITER_THRIFT, WRITER_NATIVE, writer));
+      }
+      if (!containsMacro(Cassandra.BATCH_SIZE) && batchSize != null && batchSize < 1) {
+        throw new IllegalArgumentException(String.format("Batch size must be at least 1, but was %d.", batchSize));
+      }
+      if (!containsMacro(Cassandra.MAX_IN_FLIGHT_REQUESTS) && maxInFlightRequests != null &&
+        maxInFlightRequests < 1) {
+        throw new IllegalArgumentException(String.format("Max in-flight requests must be at least 1, but was %d.",
+                                                         maxInFlightRequests));
+      }
+    }
+
+    private boolean isNativeWriter() {
+      return WRITER_NATIVE.equalsIgnoreCase(writer);
+    }
+
+    private List<String> getPrimaryKeys() {
+      return Arrays.asList(CharMatcher.WHITESPACE.removeFrom(primaryKey).split(","));
+    }
+
+    private List<String> getColumns() {
+      return Arrays.asList(CharMatcher.WHITESPACE.removeFrom(columns).split(","));
+    }
+
+    /**
+     * Returns the primary keys followed by the columns that are not primary keys, which is the order in which the
+     * native writer binds the values of a row.
+     */
+    private List<String> getNativeColumns() {
+      List<String> primaryKeys = getPrimaryKeys();
+      List<String> nativeColumns = new ArrayList<>(primaryKeys);
+      for (String column : getColumns()) {
+        if (!primaryKeys.contains(column)) {
+          nativeColumns.add(column);
+        }
+      }
+      return nativeColumns;
     }
   }
 
   private static class CassandraOutputFormatProvider implements OutputFormatProvider {
     private final Map<String, String> conf;
 
+    private final String outputFormatClassName;
+
     CassandraOutputFormatProvider(CassandraBatchConfig config) {
       this.conf = new HashMap<>();
 
+      if (config.isNativeWriter()) {
+        conf.put(CassandraNativeOutputFormat.ADDRESS, config.initialAddress);
+        conf.put(CassandraNativeOutputFormat.PORT,
+                 Integer.toString(config.nativePort == null ? 9042 : config.nativePort));
+        conf.put(CassandraNativeOutputFormat.KEYSPACE, config.keyspace);
+        conf.put(CassandraNativeOutputFormat.TABLE, config.columnFamily);
+        conf.put(CassandraNativeOutputFormat.COLUMNS, Joiner.on(',').join(config.getNativeColumns()));
+        conf.put(CassandraNativeOutputFormat.BATCH_SIZE,
+                 Integer.toString(config.batchSize == null ? 20 : config.batchSize));
+        conf.put(CassandraNativeOutputFormat.MAX_IN_FLIGHT,
+                 Integer.toString(config.maxInFlightRequests == null ? 64 : config.maxInFlightRequests));
+        outputFormatClassName = CassandraNativeOutputFormat.class.getName();
+        return;
+      }
+
       conf.put("cassandra.output.thrift.port", config.port == null ? "9160" : Integer.toString(config.port));
       conf.put("cassandra.output.thrift.address", config.initialAddress);
       conf.put("cassandra.output.keyspace", config.keyspace);
@@ -203,13 +351,14 @@ public class BatchCassandraSink
       }
       query = query.substring(0, query.lastIndexOf(",")) + " "; //to remove the last comma
       conf.put("cassandra.output.cql", query);
+      // ideally, we will use CqlBulkOutputFormat once Cassandra implements the patch
+      // to make the Hadoop-CQL package compatible with Hadoop
+      outputFormatClassName = CqlOutputFormat.class.getName();
     }
 
     @Override
     public String getOutputFormatClassName() {
-      // ideally, we will use CqlBulkOutputFormat once Cassandra implements the patch
-      // to make the Hadoop-CQL package compatible with Hadoop
-      return CqlOutputFormat.class.getName();
+      return outputFormatClassName;
     }
 
     @Override
@@ -229,5 +378,9 @@ public class BatchCassandraSink
     public static final String INITIAL_ADDRESS = "initialAddress";
     public static final String COLUMNS = "columns";
     public static final String PRIMARY_KEY = "primaryKey";
+    public static final String WRITER = "writer";
+    public static final String NATIVE_PORT = "nativePort";
+    public static final String BATCH_SIZE = "batchSize";
+    public static final String MAX_IN_FLIGHT_REQUESTS = "maxInFlightRequests";
   }
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin.batch.sink;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.policies.RoundRobinPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An OutputFormat that writes rows to Cassandra with the native CQL protocol. The INSERT statement is prepared once
+ * per task, and the values of each row are bound to it in the order of {@link #COLUMNS}.
+ *
+ * Rows are grouped by the replicas of their partition key into unlogged batches of up to {@link #BATCH_SIZE} rows,
+ * which the token aware driver sends directly to one of those replicas. Batches are written asynchronously, with at
+ * most {@link #MAX_IN_FLIGHT} requests in flight at a time.
+ */
+public class CassandraNativeOutputFormat extends OutputFormat<Object, List<ByteBuffer>> {
+  public static final String ADDRESS = "cassandra.native.output.address";
+  public static final String PORT = "cassandra.native.output.port";
+  public static final String KEYSPACE = "cassandra.native.output.keyspace";
+  public static final String TABLE = "cassandra.native.output.table";
+  public static final String COLUMNS = "cassandra.native.output.columns";
+  public static final String BATCH_SIZE = "cassandra.native.output.batch.size";
+  public static final String MAX_IN_FLIGHT = "cassandra.native.output.max.inflight";
+
+  @Override
+  public RecordWriter<Object, List<ByteBuffer>> getRecordWriter(TaskAttemptContext context) throws IOException {
+    Configuration conf = context.getConfiguration();
+    return new NativeRecordWriter(conf.get(ADDRESS), conf.getInt(PORT, 9042), conf.get(KEYSPACE), conf.get(TABLE),
+                                  conf.getStrings(COLUMNS), conf.getInt(BATCH_SIZE, 1),
+                                  conf.getInt(MAX_IN_FLIGHT, 1));
+  }
+
+  @Override
+  public void checkOutputSpecs(JobContext context) {
+    // the table is checked when the INSERT statement is prepared
+  }
+
+  @Override
+  public OutputCommitter getOutputCommitter(TaskAttemptContext context) throws IOException, InterruptedException {
+    return new NullOutputFormat<>().getOutputCommitter(context);
+  }
+
+  /**
+   * Writes rows with a prepared INSERT statement.
+   */
+  private static final class NativeRecordWriter extends RecordWriter<Object, List<ByteBuffer>> {
+    private static final Logger LOG = LoggerFactory.getLogger(NativeRecordWriter.class);
+
+    private final String keyspace;
+    private final Cluster cluster;
+    private final Session session;
+    private final Metadata metadata;
+    private final PreparedStatement insert;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Map<Set<Host>, List<Statement>> batches = new HashMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final long startTime = System.nanoTime();
+    private long rows;
+
+    private NativeRecordWriter(String address, int port, String keyspace, String table, String[] columns,
+                               int batchSize, int maxInFlight) {
+      this.keyspace = keyspace;
+      this.batchSize = batchSize;
+      this.maxInFlight = maxInFlight;
+      this.inFlight = new Semaphore(maxInFlight);
+      this.cluster = Cluster.builder()
+        .addContactPoint(address)
+        .withPort(port)
+        .withLoadBalancingPolicy(new TokenAwarePolicy(new RoundRobinPolicy()))
+        .build();
+      try {
+        this.session = cluster.connect();
+        this.metadata = cluster.getMetadata();
+        StringBuilder query = new StringBuilder("INSERT INTO ").append(keyspace).append('.').append(table).append(" (");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+          query.append(i == 0 ? "" : ", ").append(columns[i]);
+          values.append(i == 0 ? "?" : ", ?");
+        }
+        query.append(") VALUES (").append(values).append(')');
+        this.insert = session.prepare(query.toString());
+      } catch (RuntimeException e) {
+        cluster.close();
+        throw e;
+      }
+    }
+
+    @Override
+    public void write(Object key, List<ByteBuffer> values) throws IOException {
+      checkFailure();
+      BoundStatement statement = insert.bind();
+      for (int i = 0; i < values.size(); i++) {
+        statement.setBytesUnsafe(i, values.get(i));
+      }
+      rows++;
+      if (batchSize <= 1) {
+        execute(statement);
+        return;
+      }
+
+      // rows with the same replicas are batched, so that each batch is only sent to nodes that own its rows
+      ByteBuffer routingKey = statement.getRoutingKey();
+      Set<Host> replicas = routingKey == null ?
+        Collections.<Host>emptySet() : metadata.getReplicas(keyspace, routingKey);
+      List<Statement> batch = batches.get(replicas);
+      if (batch == null) {
+        batch = new ArrayList<>(batchSize);
+        batches.put(replicas, batch);
+      }
+      batch.add(statement);
+      if (batch.size() >= batchSize) {
+        batches.remove(replicas);
+        executeBatch(batch);
+      }
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException {
+      try {
+        for (List<Statement> batch : batches.values()) {
+          executeBatch(batch);
+        }
+        batches.clear();
+        // wait for all requests to finish
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+        checkFailure();
+        long elapsedMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        LOG.info("Wrote {} rows to Cassandra in {} ms ({} rows/sec).", rows, elapsedMillis,
+                 rows * 1000 / elapsedMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for writes to Cassandra to finish.");
+      } finally {
+        cluster.close();
+      }
+    }
+
+    private void executeBatch(List<Statement> statements) throws IOException {
+      if (statements.size() == 1) {
+        execute(statements.get(0));
+        return;
+      }
+      BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+      batch.addAll(statements);
+      execute(batch);
+    }
+
+    private void execute(Statement statement) throws IOException {
+      try {
+        inFlight.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting to write to Cassandra.");
+      }
+      ResultSetFuture future = session.executeAsync(statement);
+      Futures.addCallback(future, new FutureCallback<ResultSet>() {
+        @Override
+        public void onSuccess(ResultSet result) {
+          inFlight.release();
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+          failure.compareAndSet(null, t);
+          inFlight.release();
+        }
+      });
+    }
+
+    private void checkFailure() throws IOException {
+      Throwable t = failure.get();
+      if (t != null) {
+        throw new IOException("Failed to write to Cassandra: " + t.getMessage(), t);
+      }
+    }
+  }
+}
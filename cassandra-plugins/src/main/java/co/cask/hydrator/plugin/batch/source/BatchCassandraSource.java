@@ -26,14 +26,17 @@ import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
+import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
 import co.cask.cdap.etl.api.batch.BatchSource;
 import co.cask.cdap.etl.api.batch.BatchSourceContext;
 import co.cask.hydrator.common.LineageRecorder;
 import co.cask.hydrator.common.ReferenceBatchSource;
 import co.cask.hydrator.common.ReferencePluginConfig;
 import co.cask.hydrator.common.SourceInputFormatProvider;
+import com.datastax.driver.core.ColumnDefinitions;
 import com.datastax.driver.core.Row;
 import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
@@ -44,6 +47,8 @@ import org.apache.hadoop.conf.Configuration;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -70,8 +75,13 @@ public class BatchCassandraSource extends ReferenceBatchSource<Long, Row, Struct
                                                                     .put(Schema.Type.INT, int.class)
                                                                     .put(Schema.Type.LONG, long.class)
                                                                     .put(Schema.Type.ENUM, String.class)
+                                                                    .put(Schema.Type.STRING, String.class)
                                                                     .build();
   private final CassandraSourceConfig config;
+  private Schema schema;
+  private ColumnDecoder[] decoders;
+  private ColumnDefinitions columnDefinitions;
+  private int[] columnIndices;
 
   public BatchCassandraSource(CassandraSourceConfig config) {
     super(config);
@@ -92,6 +102,7 @@ public class BatchCassandraSource extends ReferenceBatchSource<Long, Row, Struct
 
   @Override
   public void prepareRun(BatchSourceContext context) throws Exception {
+    config.validate();
     Configuration conf = new Configuration();
     conf.clear();
 
@@ -114,58 +125,144 @@ public class BatchCassandraSource extends ReferenceBatchSource<Long, Row, Struct
                  CharMatcher.WHITESPACE.trimFrom(pair.split(":")[1]));
       }
     }
-    CqlConfigHelper.setInputCql(conf, config.query);
+    if (config.splitSize != null) {
+      ConfigHelper.setInputSplitSize(conf, config.splitSize);
+    }
+    if (config.fetchSize != null) {
+      CqlConfigHelper.setInputCQLPageRowSize(conf, Integer.toString(config.fetchSize));
+    }
+    if (Strings.isNullOrEmpty(config.query)) {
+      // Without a query, the record reader selects the columns of the schema and restricts each split to its own
+      // token range itself
+      CqlConfigHelper.setInputColumns(conf, Joiner.on(',').join(config.getColumns()));
+    } else {
+      CqlConfigHelper.setInputCql(conf, config.query);
+    }
     LineageRecorder lineageRecorder = new LineageRecorder(context, config.referenceName);
     lineageRecorder.createExternalDataset(config.getSchema());
     context.setInput(Input.of(config.referenceName, new SourceInputFormatProvider(CqlInputFormat.class, conf)));
   }
 
+  @Override
+  public void initialize(BatchRuntimeContext context) throws Exception {
+    super.initialize(context);
+    schema = config.getSchema();
+    List<Schema.Field> fields = schema.getFields();
+    decoders = new ColumnDecoder[fields.size()];
+    for (int i = 0; i < decoders.length; i++) {
+      decoders[i] = new ColumnDecoder(fields.get(i));
+    }
+  }
+
   @Override
   public void transform(KeyValue<Long, Row> input, Emitter<StructuredRecord> emitter) throws Exception {
-    Schema schema = config.getSchema();
+    Row row = input.getValue();
+    int[] indices = getColumnIndices(row.getColumnDefinitions());
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-    for (Schema.Field field : schema.getFields()) {
-      builder.set(field.getName(), extractValue(input.getValue(), field));
+    for (int i = 0; i < decoders.length; i++) {
+      ColumnDecoder decoder = decoders[i];
+      builder.set(decoder.name, decoder.decode(row, indices[i]));
     }
     emitter.emit(builder.build());
   }
 
-  private Object extractValue(Row row, Schema.Field field) throws Exception {
-    switch (field.getSchema().getType()) {
-      case NULL:
-        return null;
-      case BOOLEAN:
-        return row.getBool(field.getName());
-      case INT:
-        return row.getInt(field.getName());
-      case LONG:
-        return row.getLong(field.getName());
-      case FLOAT:
-        return row.getFloat(field.getName());
-      case DOUBLE:
-        return row.getDouble(field.getName());
-      case BYTES:
-        return row.getBytes(field.getName());
-      case STRING:
-      case ENUM:
-        // Currently there is no standard container to represent enum type
-        return row.getString(field.getName());
-      case ARRAY:
-        return row.getList(field.getName(), TYPE_CLASS_MAP.get(field.getSchema().getType()));
-      case MAP:
-        return row.getMap(field.getName(), TYPE_CLASS_MAP.get(field.getSchema().getMapSchema().getKey().getType()),
-                          TYPE_CLASS_MAP.get(field.getSchema().getMapSchema().getValue().getType()));
-      case UNION:
-        if (field.getSchema().isNullableSimple()) {
-          try {
-            return extractValue(row, Schema.Field.of(field.getName(), field.getSchema().getNonNullable()));
-          } catch (Exception e) {
-            return null;
-          }
+  /**
+   * Returns the position of every field in the rows with the given column definitions. All rows of a query share the
+   * same definitions, so the positions are only looked up again when the definitions change.
+   */
+  private int[] getColumnIndices(ColumnDefinitions definitions) {
+    if (definitions != columnDefinitions) {
+      int[] indices = new int[decoders.length];
+      for (int i = 0; i < decoders.length; i++) {
+        indices[i] = definitions.contains(decoders[i].name) ? definitions.getIndexOf(decoders[i].name) : -1;
+      }
+      columnIndices = indices;
+      columnDefinitions = definitions;
+    }
+    return columnIndices;
+  }
+
+  /**
+   * Decodes the value of a column into the type of its field.
+   */
+  private static final class ColumnDecoder {
+    private final String name;
+    private final Schema schema;
+    private final boolean nullable;
+    private final Schema.Type type;
+    private final Class<?> elementClass;
+    private final Class<?> valueClass;
+
+    private ColumnDecoder(Schema.Field field) throws IOException {
+      Schema fieldSchema = field.getSchema();
+      this.name = field.getName();
+      this.schema = fieldSchema;
+      this.nullable = fieldSchema.isNullableSimple();
+      Schema nonNullable = nullable ? fieldSchema.getNonNullable() : fieldSchema;
+      this.type = nonNullable.getType();
+      switch (type) {
+        case NULL:
+        case BOOLEAN:
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+        case BYTES:
+        case STRING:
+        case ENUM:
+          elementClass = null;
+          valueClass = null;
+          break;
+        case ARRAY:
+          elementClass = TYPE_CLASS_MAP.get(nonNullable.getComponentSchema().getType());
+          valueClass = null;
+          break;
+        case MAP:
+          elementClass = TYPE_CLASS_MAP.get(nonNullable.getMapSchema().getKey().getType());
+          valueClass = TYPE_CLASS_MAP.get(nonNullable.getMapSchema().getValue().getType());
+          break;
+        default:
+          throw new IOException(String.format("Unsupported schema: %s for field: \'%s\'", fieldSchema, name));
+      }
+    }
+
+    @Nullable
+    private Object decode(Row row, int index) {
+      if (index < 0) {
+        if (nullable || type == Schema.Type.NULL) {
+          return null;
         }
+        throw new IllegalArgumentException(String.format("Column '%s' of non-nullable schema %s is not in the row.",
+                                                         name, schema));
+      }
+      if (nullable && row.isNull(index)) {
+        return null;
+      }
+      switch (type) {
+        case BOOLEAN:
+          return row.getBool(index);
+        case INT:
+          return row.getInt(index);
+        case LONG:
+          return row.getLong(index);
+        case FLOAT:
+          return row.getFloat(index);
+        case DOUBLE:
+          return row.getDouble(index);
+        case BYTES:
+          return row.getBytes(index);
+        case STRING:
+        case ENUM:
+          // Currently there is no standard container to represent enum type
+          return row.getString(index);
+        case ARRAY:
+          return row.getList(index, elementClass);
+        case MAP:
+          return row.getMap(index, elementClass, valueClass);
+        default:
+          return null;
+      }
     }
-    throw new IOException(String.format("Unsupported schema: %s for field: \'%s\'",
-                                        field.getSchema(), field.getName()));
   }
 
   /**
@@ -215,10 +312,25 @@ public class BatchCassandraSource extends ReferenceBatchSource<Long, Row, Struct
 
     @Name(Cassandra.QUERY)
     @Description("The query to select data on. For example: \'SELECT * from table " +
-      "where token(id) > ? and token(id) <= ?\'")
+      "where token(id) > ? and token(id) <= ?\'. If it is not specified, the columns of the schema are selected " +
+      "from the whole column family.")
+    @Nullable
     @Macro
     private String query;
 
+    @Name(Cassandra.SPLIT_SIZE)
+    @Description("The target number of rows in each input split. Every token range of the ring is divided into " +
+      "splits of about this many rows, which are read in parallel. Defaults to 65536.")
+    @Nullable
+    @Macro
+    private Integer splitSize;
+
+    @Name(Cassandra.FETCH_SIZE)
+    @Description("The number of rows fetched from Cassandra in each page while reading a split. Defaults to 1000.")
+    @Nullable
+    @Macro
+    private Integer fetchSize;
+
     @Name(Cassandra.SCHEMA)
     @Description("The schema for the data as it will be formatted in CDAP. Sample schema: {\n" +
       "    \"type\": \"record\",\n" +
@@ -244,8 +356,16 @@ public class BatchCassandraSource extends ReferenceBatchSource<Long, Row, Struct
     private String properties;
 
     public CassandraSourceConfig(String referenceName, String partitioner, Integer port, String columnFamily,
-                                 String schema, String keyspace, String initialAddress, String query,
+                                 String schema, String keyspace, String initialAddress, @Nullable String query,
                                  @Nullable String properties, @Nullable String username, @Nullable String password) {
+      this(referenceName, partitioner, port, columnFamily, schema, keyspace, initialAddress, query, properties,
+           username, password, null, null);
+    }
+
+    public CassandraSourceConfig(String referenceName, String partitioner, Integer port, String columnFamily,
+                                 String schema, String keyspace, String initialAddress, @Nullable String query,
+                                 @Nullable String properties, @Nullable String username, @Nullable String password,
+                                 @Nullable Integer splitSize, @Nullable Integer fetchSize) {
       super(referenceName);
       this.partitioner = partitioner;
       this.initialAddress = initialAddress;
@@ -257,6 +377,25 @@ public class BatchCassandraSource extends ReferenceBatchSource<Long, Row, Struct
       this.query = query;
       this.schema = schema;
       this.properties = properties;
+      this.splitSize = splitSize;
+      this.fetchSize = fetchSize;
+    }
+
+    private void validate() {
+      if (!containsMacro(Cassandra.SPLIT_SIZE) && splitSize != null && splitSize < 1) {
+        throw new IllegalArgumentException(String.format("Split size must be at least 1, but was %d.", splitSize));
+      }
+      if (!containsMacro(Cassandra.FETCH_SIZE) && fetchSize != null && fetchSize < 1) {
+        throw new IllegalArgumentException(String.format("Fetch size must be at least 1, but was %d.", fetchSize));
+      }
+    }
+
+    private List<String> getColumns() {
+      List<String> columns = new ArrayList<>();
+      for (Schema.Field field : getSchema().getFields()) {
+        columns.add(field.getName());
+      }
+      return columns;
     }
 
     @Nullable
@@ -283,6 +422,8 @@ public class BatchCassandraSource extends ReferenceBatchSource<Long, Row, Struct
     public static final String QUERY = "query";
     public static final String SCHEMA = "schema";
     public static final String PROPERTIES = "properties";
+    public static final String SPLIT_SIZE = "splitSize";
+    public static final String FETCH_SIZE = "fetchSize";
   }
 }
 
@@ -52,9 +52,11 @@ import org.apache.cassandra.hadoop.ConfigHelper;
 import org.apache.cassandra.hadoop.cql3.CqlInputFormat;
 import org.apache.cassandra.hadoop.cql3.CqlOutputFormat;
 import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.Column;
 import org.apache.cassandra.thrift.Compression;
 import org.apache.cassandra.thrift.ConsistencyLevel;
 import org.apache.cassandra.thrift.CqlResult;
+import org.apache.cassandra.thrift.CqlRow;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.hadoop.conf.Configuration;
 import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
@@ -65,6 +67,7 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -129,6 +132,12 @@ public class ETLCassandraTest extends HydratorTestBase {
       ByteBufferUtil.bytes("CREATE TABLE testtablerealtime ( name text, graduated boolean, " +
                              "id int, score double, time bigint PRIMARY KEY );"),
       Compression.NONE, ConsistencyLevel.ALL);
+    client.execute_cql3_query(
+      ByteBufferUtil.bytes("CREATE TABLE testtablenative ( ticker text PRIMARY KEY, price double, num int );"),
+      Compression.NONE, ConsistencyLevel.ALL);
+    client.execute_cql3_query(
+      ByteBufferUtil.bytes("CREATE TABLE testtablenativekeys ( ticker text PRIMARY KEY, price double, num int );"),
+      Compression.NONE, ConsistencyLevel.ALL);
   }
 
   @AfterClass
@@ -140,6 +149,7 @@ public class ETLCassandraTest extends HydratorTestBase {
   public void testCassandra() throws Exception {
     testCassandraSink();
     testCassandraSource();
+    testCassandraSourceWithProjection();
   }
 
   public void testCassandraSink() throws Exception {
@@ -202,6 +212,117 @@ public class ETLCassandraTest extends HydratorTestBase {
     Assert.assertEquals(ByteBufferUtil.bytes(212.36), result.getRows().get(1).getColumns().get(2).bufferForValue());
   }
 
+  @Test
+  public void testCassandraNativeSink() throws Exception {
+    String inputDatasetName = "input-batchnativesinktest";
+    ETLStage source = new ETLStage("source", MockSource.getPlugin(inputDatasetName));
+
+    Map<String, String> sinkProperties = new ImmutableMap.Builder<String, String>()
+      .put(Constants.Reference.REFERENCE_NAME, "TestCassNative")
+      .put(BatchCassandraSink.Cassandra.INITIAL_ADDRESS, "localhost")
+      .put(BatchCassandraSink.Cassandra.PARTITIONER, "org.apache.cassandra.dht.Murmur3Partitioner")
+      .put(BatchCassandraSink.Cassandra.KEYSPACE, "testkeyspace")
+      .put(BatchCassandraSink.Cassandra.COLUMN_FAMILY, "testtablenative")
+      .put(BatchCassandraSink.Cassandra.COLUMNS, "ticker, num, price")
+      .put(BatchCassandraSink.Cassandra.PRIMARY_KEY, "ticker")
+      .put(BatchCassandraSink.Cassandra.WRITER, "native")
+      .put(BatchCassandraSink.Cassandra.NATIVE_PORT, "9042")
+      .put(BatchCassandraSink.Cassandra.BATCH_SIZE, "2")
+      .put(BatchCassandraSink.Cassandra.MAX_IN_FLIGHT_REQUESTS, "2")
+      .build();
+    ETLStage sink = new ETLStage("sink", new ETLPlugin("Cassandra", BatchSink.PLUGIN_TYPE, sinkProperties, null));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(ETLBATCH_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("cassandraNativeSinkTest");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    List<StructuredRecord> input = ImmutableList.of(
+      StructuredRecord.builder(SCHEMA).set("ticker", "AAPL").set("num", 10).set("price", 500.32d).build(),
+      StructuredRecord.builder(SCHEMA).set("ticker", "CDAP").set("num", 13).set("price", 212.36d).build(),
+      StructuredRecord.builder(SCHEMA).set("ticker", "GOOG").set("num", 7).set("price", 802.11d).build()
+    );
+    DataSetManager<Table> inputManager = getDataset(inputDatasetName);
+    MockSource.writeInput(inputManager, input);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRuns(ProgramRunStatus.COMPLETED, 1, 5, TimeUnit.MINUTES);
+
+    CqlResult result = client.execute_cql3_query(ByteBufferUtil.bytes("SELECT ticker, num, price from testtablenative"),
+                                                 Compression.NONE, ConsistencyLevel.ALL);
+    Assert.assertEquals(3, result.getRowsSize());
+    Map<ByteBuffer, List<Column>> rows = new HashMap<>();
+    for (CqlRow row : result.getRows()) {
+      rows.put(row.getColumns().get(0).bufferForValue(), row.getColumns());
+    }
+    Assert.assertEquals(ByteBufferUtil.bytes(10), rows.get(ByteBufferUtil.bytes("AAPL")).get(1).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(500.32), rows.get(ByteBufferUtil.bytes("AAPL")).get(2).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(13), rows.get(ByteBufferUtil.bytes("CDAP")).get(1).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(212.36), rows.get(ByteBufferUtil.bytes("CDAP")).get(2).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(7), rows.get(ByteBufferUtil.bytes("GOOG")).get(1).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(802.11), rows.get(ByteBufferUtil.bytes("GOOG")).get(2).bufferForValue());
+  }
+
+  @Test
+  public void testCassandraNativeSinkWithKeyNotInColumns() throws Exception {
+    String inputDatasetName = "input-batchnativekeyssinktest";
+    ETLStage source = new ETLStage("source", MockSource.getPlugin(inputDatasetName));
+
+    // the primary key is only listed in primaryKey, which the thrift writer allows as well
+    Map<String, String> sinkProperties = new ImmutableMap.Builder<String, String>()
+      .put(Constants.Reference.REFERENCE_NAME, "TestCassNativeKeys")
+      .put(BatchCassandraSink.Cassandra.INITIAL_ADDRESS, "localhost")
+      .put(BatchCassandraSink.Cassandra.PARTITIONER, "org.apache.cassandra.dht.Murmur3Partitioner")
+      .put(BatchCassandraSink.Cassandra.KEYSPACE, "testkeyspace")
+      .put(BatchCassandraSink.Cassandra.COLUMN_FAMILY, "testtablenativekeys")
+      .put(BatchCassandraSink.Cassandra.COLUMNS, "num, price")
+      .put(BatchCassandraSink.Cassandra.PRIMARY_KEY, "ticker")
+      .put(BatchCassandraSink.Cassandra.WRITER, "native")
+      .put(BatchCassandraSink.Cassandra.NATIVE_PORT, "9042")
+      .build();
+    ETLStage sink = new ETLStage("sink", new ETLPlugin("Cassandra", BatchSink.PLUGIN_TYPE, sinkProperties, null));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(ETLBATCH_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("cassandraNativeKeysSinkTest");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    List<StructuredRecord> input = ImmutableList.of(
+      StructuredRecord.builder(SCHEMA).set("ticker", "AAPL").set("num", 10).set("price", 500.32d).build(),
+      StructuredRecord.builder(SCHEMA).set("ticker", "CDAP").set("num", 13).set("price", 212.36d).build()
+    );
+    DataSetManager<Table> inputManager = getDataset(inputDatasetName);
+    MockSource.writeInput(inputManager, input);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRuns(ProgramRunStatus.COMPLETED, 1, 5, TimeUnit.MINUTES);
+
+    CqlResult result =
+      client.execute_cql3_query(ByteBufferUtil.bytes("SELECT ticker, num, price from testtablenativekeys"),
+                                Compression.NONE, ConsistencyLevel.ALL);
+    Assert.assertEquals(2, result.getRowsSize());
+    Map<ByteBuffer, List<Column>> rows = new HashMap<>();
+    for (CqlRow row : result.getRows()) {
+      rows.put(row.getColumns().get(0).bufferForValue(), row.getColumns());
+    }
+    Assert.assertEquals(ByteBufferUtil.bytes(10), rows.get(ByteBufferUtil.bytes("AAPL")).get(1).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(500.32), rows.get(ByteBufferUtil.bytes("AAPL")).get(2).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(13), rows.get(ByteBufferUtil.bytes("CDAP")).get(1).bufferForValue());
+    Assert.assertEquals(ByteBufferUtil.bytes(212.36), rows.get(ByteBufferUtil.bytes("CDAP")).get(2).bufferForValue());
+  }
+
   private void testCassandraSource() throws Exception {
     Map<String, String> sourceProperties = new ImmutableMap.Builder<String, String>()
       .put(Constants.Reference.REFERENCE_NAME, "TestCass")
@@ -248,4 +369,52 @@ public class ETLCassandraTest extends HydratorTestBase {
     Assert.assertEquals(500.32, results.get(10), 0.000001);
     Assert.assertEquals(212.36, results.get(13), 0.000001);
   }
+
+  private void testCassandraSourceWithProjection() throws Exception {
+    Schema schema = Schema.recordOf(
+      "event",
+      Schema.Field.of("ticker", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("num", Schema.nullableOf(Schema.of(Schema.Type.INT))));
+    Map<String, String> sourceProperties = new ImmutableMap.Builder<String, String>()
+      .put(Constants.Reference.REFERENCE_NAME, "TestCassProjection")
+      .put(BatchCassandraSource.Cassandra.INITIAL_ADDRESS, "localhost")
+      .put(BatchCassandraSource.Cassandra.PARTITIONER,
+           "org.apache.cassandra.dht.Murmur3Partitioner")
+      .put(BatchCassandraSource.Cassandra.KEYSPACE, "testkeyspace")
+      .put(BatchCassandraSource.Cassandra.COLUMN_FAMILY, "testtablebatch")
+      .put(BatchCassandraSource.Cassandra.SCHEMA, schema.toString())
+      .put(BatchCassandraSource.Cassandra.SPLIT_SIZE, "1")
+      .put(BatchCassandraSource.Cassandra.FETCH_SIZE, "1")
+      .build();
+    ETLStage source =
+      new ETLStage("source", new ETLPlugin("Cassandra", BatchSource.PLUGIN_TYPE, sourceProperties, null));
+
+    String outputDatasetName = "output-batchsourceprojectiontest";
+    ETLStage sink = new ETLStage("sink", MockSink.getPlugin(outputDatasetName));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(ETLBATCH_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("CassandraSourceProjectionTest");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRuns(ProgramRunStatus.COMPLETED, 1, 5, TimeUnit.MINUTES);
+
+    DataSetManager<Table> outputManager = getDataset(outputDatasetName);
+    List<StructuredRecord> output = MockSink.readOutput(outputManager);
+
+    Assert.assertEquals(2, output.size());
+    Map<String, Integer> results = new HashMap<>();
+    for (StructuredRecord record : output) {
+      Assert.assertEquals(schema, record.getSchema());
+      results.put((String) record.get("ticker"), (Integer) record.get("num"));
+    }
+    Assert.assertEquals(ImmutableMap.of("AAPL", 10, "CDAP", 13), results);
+  }
 }
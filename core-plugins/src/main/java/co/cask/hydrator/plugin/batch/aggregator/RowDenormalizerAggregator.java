@@ -28,6 +28,7 @@ import co.cask.cdap.etl.api.batch.BatchAggregatorContext;
 import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -46,8 +47,8 @@ import java.util.Set;
 public class RowDenormalizerAggregator extends BatchAggregator<String, StructuredRecord, StructuredRecord> {
 
   private final RowDenormalizerConfig conf;
-  private Map<String, String> outputMappings;
-  private Set<String> outputFields;
+  // value of the name field -> output field it is written to, after applying aliases
+  private Map<String, String> outputFieldsByName;
   private Schema outputSchema;
   private String keyField;
   private String nameField;
@@ -72,8 +73,7 @@ public class RowDenormalizerAggregator extends BatchAggregator<String, Structure
 
   @Override
   public void initialize(BatchRuntimeContext context) throws Exception {
-    outputFields = conf.getOutputSchemaFields();
-    outputMappings = conf.getFieldAliases();
+    outputFieldsByName = getOutputFieldsByName(conf.getOutputSchemaFields(), conf.getFieldAliases());
     keyField = conf.getKeyField();
     nameField = conf.getNameField();
     valueField = conf.getValueField();
@@ -110,18 +110,34 @@ public class RowDenormalizerAggregator extends BatchAggregator<String, Structure
     builder.set(conf.getKeyField(), groupKey);
     while (iterator.hasNext()) {
       StructuredRecord record = iterator.next();
-      String outputFieldName = record.get(nameField);
-      String outputFieldValue = record.get(valueField);
-
-      outputFieldName = outputMappings.containsKey(outputFieldName) ? outputMappings.get(outputFieldName) :
-        outputFieldName;
-      if (outputFields.contains(outputFieldName)) {
-        builder.set(outputFieldName, outputFieldValue);
+      String outputFieldName = outputFieldsByName.get(record.<String>get(nameField));
+      if (outputFieldName != null) {
+        builder.set(outputFieldName, record.get(valueField));
       }
     }
     emitter.emit(builder.build());
   }
 
+  /**
+   * Resolves aliases up front, so that each row only needs a single lookup to find the output field for its name.
+   * A name that has an alias is written to the alias, any other name is written to the output field of the same name.
+   * Names that do not end up in an output field are not in the returned map.
+   */
+  private static Map<String, String> getOutputFieldsByName(Set<String> outputFields, Map<String, String> aliases) {
+    Map<String, String> outputFieldsByName = new HashMap<>();
+    for (String outputField : outputFields) {
+      if (!aliases.containsKey(outputField)) {
+        outputFieldsByName.put(outputField, outputField);
+      }
+    }
+    for (Map.Entry<String, String> alias : aliases.entrySet()) {
+      if (outputFields.contains(alias.getValue())) {
+        outputFieldsByName.put(alias.getKey(), alias.getValue());
+      }
+    }
+    return outputFieldsByName;
+  }
+
   /**
    * Builds the output schema, using output fields provided by user.
    */
@@ -76,6 +76,7 @@ public class KVTableSink extends BatchWritableSink<StructuredRecord, byte[], byt
   }
 
   private final KVTableConfig kvTableConfig;
+  private final Map<Schema, Encoding> encodings = new HashMap<>();
 
   public KVTableSink(KVTableConfig kvTableConfig) {
     super(kvTableConfig);
@@ -124,13 +125,41 @@ public class KVTableSink extends BatchWritableSink<StructuredRecord, byte[], byt
   public void transform(StructuredRecord input, Emitter<KeyValue<byte[], byte[]>> emitter) throws Exception {
     Object key = input.get(kvTableConfig.keyField);
     Preconditions.checkArgument(key != null, "Key cannot be null.");
-    byte[] keyBytes;
+    Encoding encoding = getEncoding(input.getSchema());
 
-    Schema keyFieldSchema = input.getSchema().getField(kvTableConfig.keyField).getSchema();
+    byte[] keyBytes = encoding.keyIsBytes ? toBytes(key) : Bytes.toBytes((String) key);
+    byte[] valBytes = null;
+    Object val = input.get(kvTableConfig.valueField);
+    if (val != null) {
+      valBytes = encoding.valueIsBytes ? toBytes(val) : Bytes.toBytes((String) val);
+    }
+    emitter.emit(new KeyValue<>(keyBytes, valBytes));
+  }
+
+  private static byte[] toBytes(Object value) {
+    return value instanceof ByteBuffer ? Bytes.toBytes((ByteBuffer) value) : (byte[]) value;
+  }
+
+  /**
+   * Returns how the key and value fields of records with the given schema are encoded, validating the fields the
+   * first time the schema is seen.
+   */
+  private Encoding getEncoding(Schema schema) throws Exception {
+    Encoding encoding = encodings.get(schema);
+    if (encoding != null) {
+      return encoding;
+    }
+
+    Schema.Field keyField = schema.getField(kvTableConfig.keyField);
+    if (keyField == null) {
+      throw new Exception("Key Field " + kvTableConfig.keyField + " is missing in the input record");
+    }
+    Schema keyFieldSchema = keyField.getSchema();
+    boolean keyIsBytes;
     if (keyFieldSchema.getType().equals(Schema.Type.STRING)) {
-      keyBytes = Bytes.toBytes((String) key);
+      keyIsBytes = false;
     } else if (keyFieldSchema.getType().equals(Schema.Type.BYTES)) {
-      keyBytes = key instanceof ByteBuffer ? Bytes.toBytes((ByteBuffer) key) : (byte[]) key;
+      keyIsBytes = true;
     } else if (keyFieldSchema.isNullable()) {
       throw new Exception(
         String.format("Key field %s cannot have nullable schema %s", kvTableConfig.keyField, keyFieldSchema));
@@ -140,27 +169,34 @@ public class KVTableSink extends BatchWritableSink<StructuredRecord, byte[], byt
                       kvTableConfig.keyField, keyFieldSchema));
     }
 
-    Schema.Field valueFieldSchema = input.getSchema().getField(kvTableConfig.valueField);
+    Schema.Field valueFieldSchema = schema.getField(kvTableConfig.valueField);
     if (valueFieldSchema == null) {
       throw new Exception("Value Field " + kvTableConfig.valueField + " is missing in the input record");
     }
+    Schema.Type valueFieldType =
+      valueFieldSchema.getSchema().isNullable() ? valueFieldSchema.getSchema().getNonNullable().getType() :
+        valueFieldSchema.getSchema().getType();
+    if (!valueFieldType.equals(Schema.Type.STRING) && !valueFieldType.equals(Schema.Type.BYTES)) {
+      throw new Exception(
+        String.format("Value field %s cannot have schema %s. It must of either String or Bytes",
+                      kvTableConfig.valueField, valueFieldSchema));
+    }
 
-    byte[] valBytes = null;
-    Object val = input.get(kvTableConfig.valueField);
-    if (val != null) {
-      Schema.Type valueFieldType =
-        valueFieldSchema.getSchema().isNullable() ? valueFieldSchema.getSchema().getNonNullable().getType() :
-          valueFieldSchema.getSchema().getType();
-      if (valueFieldType.equals(Schema.Type.STRING)) {
-        valBytes = Bytes.toBytes((String) val);
-      } else if (valueFieldType.equals(Schema.Type.BYTES)) {
-        valBytes = val instanceof ByteBuffer ? Bytes.toBytes((ByteBuffer) val) : (byte[]) val;
-      } else {
-        throw new Exception(
-          String.format("Value field %s cannot have schema %s. It must of either String or Bytes",
-                        kvTableConfig.valueField, valueFieldSchema));
-      }
+    encoding = new Encoding(keyIsBytes, valueFieldType.equals(Schema.Type.BYTES));
+    encodings.put(schema, encoding);
+    return encoding;
+  }
+
+  /**
+   * Whether the key and value fields of a schema are bytes or strings.
+   */
+  private static final class Encoding {
+    private final boolean keyIsBytes;
+    private final boolean valueIsBytes;
+
+    private Encoding(boolean keyIsBytes, boolean valueIsBytes) {
+      this.keyIsBytes = keyIsBytes;
+      this.valueIsBytes = valueIsBytes;
     }
-    emitter.emit(new KeyValue<>(keyBytes, valBytes));
   }
 }
@@ -82,6 +82,14 @@ public abstract class BatchReadableSource<KEY_IN, VAL_IN, OUT> extends BatchSour
                             DatasetProperties.builder().addAll(properties).build());
     }
 
-    context.setInput(Input.ofDataset(properties.get(Properties.BatchReadableWritable.NAME)));
+    context.setInput(getInput(context, properties.get(Properties.BatchReadableWritable.NAME)));
+  }
+
+  /**
+   * Returns the input to read from the dataset. By default, the whole dataset is read; subclasses can override it to
+   * only read part of the dataset.
+   */
+  protected Input getInput(BatchSourceContext context, String datasetName) {
+    return Input.ofDataset(datasetName);
   }
 }
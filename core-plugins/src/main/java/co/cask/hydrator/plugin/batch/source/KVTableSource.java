@@ -17,28 +17,37 @@
 package co.cask.hydrator.plugin.batch.source;
 
 import co.cask.cdap.api.annotation.Description;
+import co.cask.cdap.api.annotation.Macro;
 import co.cask.cdap.api.annotation.Name;
 import co.cask.cdap.api.annotation.Plugin;
 import co.cask.cdap.api.annotation.Requirements;
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.Input;
+import co.cask.cdap.api.data.batch.Split;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
 import co.cask.cdap.api.dataset.lib.KeyValueTable;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
+import co.cask.cdap.etl.api.batch.BatchSourceContext;
 import co.cask.hydrator.plugin.common.BatchReadableWritableConfig;
 import co.cask.hydrator.plugin.common.Properties;
 import com.google.common.collect.Maps;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * CDAP Key Value Table Dataset Batch Source.
  */
 @Plugin(type = "batchsource")
 @Name("KVTable")
-@Description("Reads the entire contents of a KeyValueTable. Outputs records with a 'key' field and a 'value' field. " +
-  "Both fields are of type bytes.")
+@Description("Reads the contents of a KeyValueTable, optionally restricted to a range of keys. " +
+  "Outputs records with a 'key' field and a 'value' field. Both fields are of type bytes.")
 @Requirements(datasetTypes = KeyValueTable.TYPE)
 public class KVTableSource extends BatchReadableSource<byte[], byte[], StructuredRecord> {
   private static final Schema SCHEMA = Schema.recordOf(
@@ -52,8 +61,52 @@ public class KVTableSource extends BatchReadableSource<byte[], byte[], Structure
    */
   public static class KVTableConfig extends BatchReadableWritableConfig {
 
+    @Name(Properties.KeyValueTable.START_KEY)
+    @Description("Optional key to start reading from, inclusive. The key is given as a string with \\xNN escapes " +
+      "for non-printable bytes. By default, the table is read from the first key.")
+    @Nullable
+    @Macro
+    private String startKey;
+
+    @Name(Properties.KeyValueTable.STOP_KEY)
+    @Description("Optional key to stop reading at, exclusive. The key is given as a string with \\xNN escapes " +
+      "for non-printable bytes. By default, the table is read up to the last key.")
+    @Nullable
+    @Macro
+    private String stopKey;
+
+    @Name(Properties.KeyValueTable.NUM_SPLITS)
+    @Description("Optional number of splits to divide the key range into, which are read in parallel. " +
+      "It requires both the start and the stop key. By default, the table creates its own splits, " +
+      "usually one for each region.")
+    @Nullable
+    @Macro
+    private Integer numSplits;
+
     public KVTableConfig(String name) {
+      this(name, null, null, null);
+    }
+
+    public KVTableConfig(String name, @Nullable String startKey, @Nullable String stopKey,
+                         @Nullable Integer numSplits) {
       super(name);
+      this.startKey = startKey;
+      this.stopKey = stopKey;
+      this.numSplits = numSplits;
+    }
+
+    private void validate() {
+      if (containsMacro(Properties.KeyValueTable.NUM_SPLITS) || numSplits == null) {
+        return;
+      }
+      if (numSplits < 1) {
+        throw new IllegalArgumentException(String.format("Number of splits must be at least 1, but was %d.",
+                                                         numSplits));
+      }
+      if (!containsMacro(Properties.KeyValueTable.START_KEY) && !containsMacro(Properties.KeyValueTable.STOP_KEY) &&
+        (startKey == null || stopKey == null)) {
+        throw new IllegalArgumentException("The number of splits can only be set together with a start and stop key.");
+      }
     }
   }
 
@@ -62,6 +115,7 @@ public class KVTableSource extends BatchReadableSource<byte[], byte[], Structure
   @Override
   public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
     super.configurePipeline(pipelineConfigurer);
+    kvTableConfig.validate();
     pipelineConfigurer.getStageConfigurer().setOutputSchema(SCHEMA);
   }
 
@@ -78,6 +132,32 @@ public class KVTableSource extends BatchReadableSource<byte[], byte[], Structure
     return properties;
   }
 
+  @Override
+  protected Input getInput(BatchSourceContext context, String datasetName) {
+    kvTableConfig.validate();
+    if (kvTableConfig.startKey == null && kvTableConfig.stopKey == null) {
+      return super.getInput(context, datasetName);
+    }
+    byte[] start = kvTableConfig.startKey == null ? null : Bytes.toBytesBinary(kvTableConfig.startKey);
+    byte[] stop = kvTableConfig.stopKey == null ? null : Bytes.toBytesBinary(kvTableConfig.stopKey);
+    KeyValueTable table = context.getDataset(datasetName);
+
+    List<Split> splits = new ArrayList<>();
+    byte[][] boundaries = null;
+    if (kvTableConfig.numSplits != null && kvTableConfig.numSplits > 1) {
+      // the boundaries include the start and stop key
+      boundaries = Bytes.split(start, stop, kvTableConfig.numSplits - 1);
+    }
+    if (boundaries == null) {
+      splits.addAll(table.getSplits(-1, start, stop));
+    } else {
+      for (int i = 0; i < boundaries.length - 1; i++) {
+        splits.addAll(table.getSplits(-1, boundaries[i], boundaries[i + 1]));
+      }
+    }
+    return Input.ofDataset(datasetName, Collections.<String, String>emptyMap(), splits);
+  }
+
   @Override
   public void transform(KeyValue<byte[], byte[]> input, Emitter<StructuredRecord> emitter) throws Exception {
     emitter.emit(StructuredRecord.builder(SCHEMA).set("key", input.getKey()).set("value", input.getValue()).build());
@@ -20,6 +20,9 @@ import co.cask.cdap.api.annotation.Description;
 import co.cask.cdap.api.annotation.Name;
 import co.cask.cdap.api.annotation.Plugin;
 import co.cask.cdap.api.annotation.Requirements;
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.Input;
+import co.cask.cdap.api.data.batch.Split;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
@@ -28,12 +31,16 @@ import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
+import co.cask.cdap.etl.api.batch.BatchSourceContext;
 import co.cask.hydrator.common.RowRecordTransformer;
 import co.cask.hydrator.plugin.common.Properties;
 import co.cask.hydrator.plugin.common.TableSourceConfig;
 import com.google.common.collect.Maps;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * CDAP Table Dataset Batch Source.
@@ -41,7 +48,8 @@ import java.util.Map;
 @Plugin(type = "batchsource")
 @Name("Table")
 @Requirements(datasetTypes = Table.TYPE)
-@Description("Reads the entire contents of a CDAP Table. Outputs one record for each row in the Table.")
+@Description("Reads the contents of a CDAP Table, optionally restricted to a range of rows. " +
+  "Outputs one record for each row in the Table.")
 public class TableSource extends BatchReadableSource<byte[], Row, StructuredRecord> {
   private RowRecordTransformer rowRecordTransformer;
 
@@ -75,6 +83,61 @@ public class TableSource extends BatchReadableSource<byte[], Row, StructuredReco
     }
   }
 
+  @Override
+  protected Input getInput(BatchSourceContext context, String datasetName) {
+    String startRow = tableConfig.getStartRow();
+    String stopRow = tableConfig.getStopRow();
+    if (startRow == null && stopRow == null) {
+      return super.getInput(context, datasetName);
+    }
+    // only create splits for the rows in the range, so that the rows outside of it are never scanned
+    Schema.Type rowType = getRowType(tableConfig.getSchema(), tableConfig.getRowField());
+    Table table = context.getDataset(datasetName);
+    List<Split> splits = table.getSplits(-1, startRow == null ? null : encodeRow(startRow, rowType),
+                                         stopRow == null ? null : encodeRow(stopRow, rowType));
+    return Input.ofDataset(datasetName, Collections.<String, String>emptyMap(), splits);
+  }
+
+  @Nullable
+  private static Schema.Type getRowType(@Nullable Schema schema, @Nullable String rowField) {
+    if (schema == null || rowField == null) {
+      return null;
+    }
+    Schema.Field field = schema.getField(rowField);
+    if (field == null) {
+      throw new IllegalArgumentException(String.format("Row field '%s' must be present in the schema.", rowField));
+    }
+    return field.getSchema().getType();
+  }
+
+  private static byte[] encodeRow(String value, @Nullable Schema.Type rowType) {
+    if (rowType == null) {
+      return Bytes.toBytes(value);
+    }
+    try {
+      switch (rowType) {
+        case BOOLEAN:
+          return Bytes.toBytes(Boolean.parseBoolean(value));
+        case INT:
+          return Bytes.toBytes(Integer.parseInt(value));
+        case LONG:
+          return Bytes.toBytes(Long.parseLong(value));
+        case FLOAT:
+          return Bytes.toBytes(Float.parseFloat(value));
+        case DOUBLE:
+          return Bytes.toBytes(Double.parseDouble(value));
+        case BYTES:
+          return Bytes.toBytesBinary(value);
+        case STRING:
+          return Bytes.toBytes(value);
+        default:
+          throw new IllegalArgumentException(String.format("Row keys of type %s are not supported.", rowType));
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("Invalid %s row key '%s'.", rowType, value), e);
+    }
+  }
+
   @Override
   public void initialize(BatchRuntimeContext context) throws Exception {
     super.initialize(context);
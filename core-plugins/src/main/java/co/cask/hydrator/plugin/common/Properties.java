@@ -74,6 +74,9 @@ public final class Properties {
     public static final String VALUE_FIELD = "value.field";
     public static final String DEFAULT_KEY_FIELD = "key";
     public static final String DEFAULT_VALUE_FIELD = "value";
+    public static final String START_KEY = "start.key";
+    public static final String STOP_KEY = "stop.key";
+    public static final String NUM_SPLITS = "num.splits";
   }
 
   /**
@@ -101,6 +104,8 @@ public final class Properties {
     public static final String PROPERTY_SCHEMA = co.cask.cdap.api.dataset.table.Table.PROPERTY_SCHEMA;
     public static final String PROPERTY_SCHEMA_ROW_FIELD =
       co.cask.cdap.api.dataset.table.Table.PROPERTY_SCHEMA_ROW_FIELD;
+    public static final String SCAN_START_ROW = "scan.start.row";
+    public static final String SCAN_STOP_ROW = "scan.stop.row";
   }
 
   /**
@@ -30,8 +30,11 @@ import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -78,6 +81,7 @@ public class StructuredRecordToCubeFact {
   private static final class CubeFactBuilder {
     private final TimestampResolver timestampResolver;
     private final Collection<MeasurementResolver> measurementResolvers;
+    private final Map<Schema, DimensionPlan> dimensionPlans = new HashMap<>();
 
     CubeFactBuilder(Map<String, String> properties) {
       Map<String, String> props = new HashMap<>(properties);
@@ -100,13 +104,15 @@ public class StructuredRecordToCubeFact {
       CubeFact fact = new CubeFact(timestampResolver.getTimestamp(record) / 1000);
       addMeasurements(record, fact);
 
-      for (Schema.Field field : record.getSchema().getFields()) {
-        Object value = record.get(field.getName());
+      DimensionPlan plan = dimensionPlans.get(record.getSchema());
+      if (plan == null) {
+        plan = new DimensionPlan(record.getSchema());
+        dimensionPlans.put(record.getSchema(), plan);
+      }
+      for (int i = 0; i < plan.names.length; i++) {
+        Object value = record.get(plan.names[i]);
         if (value != null) {
-          String stringValue = getStringValue(field, value);
-          if (stringValue != null) {
-            fact.addDimensionValue(field.getName(), stringValue);
-          }
+          fact.addDimensionValue(plan.names[i], plan.encoders[i].encode(value));
         }
       }
 
@@ -121,33 +127,65 @@ public class StructuredRecordToCubeFact {
         }
       }
     }
+  }
 
-    @Nullable
-    private String getStringValue(Schema.Field field, Object value) {
-      Schema.Type type = validateAndGetType(field);
-      if (type == null) {
-        return null;
+  /**
+   * The fields of a schema that are used as dimensions, with the encoder of each field. Fields that are not of a
+   * simple type are not used as dimensions.
+   */
+  private static final class DimensionPlan {
+    private final String[] names;
+    private final DimensionEncoder[] encoders;
+
+    DimensionPlan(Schema schema) {
+      List<String> names = new ArrayList<>();
+      List<DimensionEncoder> encoders = new ArrayList<>();
+      for (Schema.Field field : schema.getFields()) {
+        Schema.Type type = validateAndGetType(field);
+        if (type != null) {
+          names.add(field.getName());
+          encoders.add(type == Schema.Type.BYTES ? DimensionEncoder.BYTES : DimensionEncoder.TO_STRING);
+        }
       }
-      String dimValue;
-      switch (type) {
-        case BYTES:
-          if (value instanceof ByteBuffer) {
-            dimValue = Bytes.toString((ByteBuffer) value);
-          } else {
-            dimValue = Bytes.toStringBinary((byte[]) value);
-          }
-          break;
-        default:
-          dimValue = value.toString();
+      this.names = names.toArray(new String[names.size()]);
+      this.encoders = encoders.toArray(new DimensionEncoder[encoders.size()]);
+    }
+  }
+
+  /**
+   * Converts field values into dimension values.
+   */
+  private enum DimensionEncoder {
+    BYTES {
+      @Override
+      String encode(Object value) {
+        if (value instanceof ByteBuffer) {
+          return Bytes.toString((ByteBuffer) value);
+        }
+        return Bytes.toStringBinary((byte[]) value);
       }
+    },
+    TO_STRING {
+      @Override
+      String encode(Object value) {
+        return value.toString();
+      }
+    };
 
-      return dimValue;
-    }
+    abstract String encode(Object value);
   }
 
   private static final class TimestampResolver {
+    // number of recently parsed timestamps to keep, since records often share the same timestamp
+    private static final int CACHE_SIZE = 1024;
     private final String srcField;
     private final DateFormat dateFormat;
+    private final Map<String, Long> parsedTimestamps = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > CACHE_SIZE;
+      }
+    };
 
     TimestampResolver(Map<String, String> properties) {
       if (properties.containsKey(Properties.Cube.FACT_TS_FIELD)) {
@@ -171,13 +209,21 @@ public class StructuredRecordToCubeFact {
       if (val == null) {
         throw new IllegalArgumentException("Required field to determine timestamp is missing: " + srcField);
       }
+      if (dateFormat == null && (val instanceof Long || val instanceof Integer)) {
+        return ((Number) val).longValue();
+      }
       String valAsString = val.toString();
       if (dateFormat != null) {
-        try {
-          return dateFormat.parse(valAsString).getTime();
-        } catch (ParseException e) {
-          throw new IllegalArgumentException("Cannot parse field value to determine timestamp: " + valAsString, e);
+        Long timestamp = parsedTimestamps.get(valAsString);
+        if (timestamp == null) {
+          try {
+            timestamp = dateFormat.parse(valAsString).getTime();
+          } catch (ParseException e) {
+            throw new IllegalArgumentException("Cannot parse field value to determine timestamp: " + valAsString, e);
+          }
+          parsedTimestamps.put(valAsString, timestamp);
         }
+        return timestamp;
       }
       return Long.valueOf(valAsString);
     }
@@ -229,6 +275,10 @@ public class StructuredRecordToCubeFact {
 
     private Long getValue(StructuredRecord record) {
       Object val = record.get(name);
+      if (val instanceof Long || val instanceof Integer || val instanceof Double) {
+        // no need to go through a string, which also keeps longs that are too large for a double exact
+        return ((Number) val).longValue();
+      }
       if (val != null) {
         return Double.valueOf(val.toString()).longValue();
       }
@@ -44,10 +44,32 @@ public class TableSourceConfig extends BatchReadableWritableConfig {
   @Macro
   private String rowField;
 
+  @Name(Properties.Table.SCAN_START_ROW)
+  @Description("Optional row key to start reading from, inclusive. If a row field is given, the value is converted " +
+    "to the type of the row field; bytes are given as a string with \\xNN escapes for non-printable bytes. " +
+    "Otherwise it is encoded as a UTF-8 string. By default, the table is read from the first row.")
+  @Nullable
+  @Macro
+  private String startRow;
+
+  @Name(Properties.Table.SCAN_STOP_ROW)
+  @Description("Optional row key to stop reading at, exclusive. The value is converted the same way as the start " +
+    "row. By default, the table is read up to the last row.")
+  @Nullable
+  @Macro
+  private String stopRow;
+
   public TableSourceConfig(String name, String rowField, @Nullable String schemaStr) {
+    this(name, rowField, schemaStr, null, null);
+  }
+
+  public TableSourceConfig(String name, String rowField, @Nullable String schemaStr, @Nullable String startRow,
+                           @Nullable String stopRow) {
     super(name);
     this.rowField = rowField;
     this.schemaStr = schemaStr;
+    this.startRow = startRow;
+    this.stopRow = stopRow;
   }
 
   @Nullable
@@ -70,4 +92,14 @@ public class TableSourceConfig extends BatchReadableWritableConfig {
     }
     return null;
   }
+
+  @Nullable
+  public String getStartRow() {
+    return startRow;
+  }
+
+  @Nullable
+  public String getStopRow() {
+    return stopRow;
+  }
 }
@@ -0,0 +1,451 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin.transform;
+
+import javax.annotation.Nullable;
+
+/**
+ * Extracts the fields used by the {@link LogParserTransform} from CLF, S3 and Cloudfront access logs in a single
+ * left to right scan, without regular expressions.
+ *
+ * The tokenizer only accepts lines for which it is certain to extract the same fields as the regular expressions
+ * and date formats used by the transform: lines of printable ASCII characters, laid out the usual way, with
+ * timestamps in their fixed layout. It rejects anything else, including malformed lines, which are then left to
+ * the regular expressions. The same tokenizer is reused for every line, and is not thread safe.
+ */
+final class AccessLogTokenizer {
+  private static final String[] MONTHS = {
+    "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+  };
+  // length of a 'dd/MMM/yyyy:HH:mm:ss Z' timestamp, such as 10/Oct/2000:13:55:36 -0700
+  private static final int STRFTIME_LENGTH = 26;
+  private static final int CLOUDFRONT_FIELDS = 11;
+
+  private String uri;
+  private String ip;
+  private String userAgent;
+  private int httpStatus;
+  private long timestamp;
+  // offsets of the tokens found so far, reused for every line
+  private final int[] offsets = new int[2 * CLOUDFRONT_FIELDS];
+
+  /**
+   * Returns the URI of the request, or null if the request does not contain one.
+   */
+  @Nullable
+  String getUri() {
+    return uri;
+  }
+
+  String getIp() {
+    return ip;
+  }
+
+  String getUserAgent() {
+    return userAgent;
+  }
+
+  int getHttpStatus() {
+    return httpStatus;
+  }
+
+  long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Tokenizes a line in the Common Log Format, with referrer and user agent:
+   * <pre>ip identity user [time] "request" status size "referrer" "user agent"</pre>
+   *
+   * @return whether the line could be tokenized
+   */
+  boolean tokenizeClf(String log) {
+    int length = log.length();
+    if (!isPrintable(log)) {
+      return false;
+    }
+    int ipEnd = log.indexOf(' ');
+    if (!isIp(log, 0, ipEnd)) {
+      return false;
+    }
+    // identity and user
+    int pos = skipToken(log, ipEnd + 1);
+    pos = pos < 0 ? pos : skipToken(log, pos);
+    if (pos < 0 || pos >= length || log.charAt(pos) != '[') {
+      return false;
+    }
+    int timeStart = pos + 1;
+    int timeEnd = log.indexOf(']', timeStart);
+    if (timeEnd <= timeStart || !log.startsWith(" \"", timeEnd + 1)) {
+      return false;
+    }
+    int requestStart = timeEnd + 3;
+    int requestEnd = log.indexOf('"', requestStart);
+    if (requestEnd <= requestStart || !isStatus(log, requestEnd)) {
+      return false;
+    }
+    int sizeStart = requestEnd + 6;
+    int sizeEnd = log.indexOf(' ', sizeStart);
+    if (sizeEnd <= sizeStart || !isSize(log, sizeStart, sizeEnd) || !log.startsWith("\"", sizeEnd + 1)) {
+      return false;
+    }
+    int referrerStart = sizeEnd + 2;
+    int referrerEnd = log.indexOf('"', referrerStart);
+    if (referrerEnd <= referrerStart || !log.startsWith(" \"", referrerEnd + 1)) {
+      return false;
+    }
+    int userAgentStart = referrerEnd + 3;
+    int userAgentEnd = log.indexOf('"', userAgentStart);
+    if (userAgentEnd <= userAgentStart || userAgentEnd != length - 1) {
+      return false;
+    }
+
+    timestamp = parseStrftime(log, timeStart, timeEnd);
+    if (timestamp == Long.MIN_VALUE) {
+      return false;
+    }
+    uri = getRequestUri(log, requestStart, requestEnd);
+    ip = log.substring(0, ipEnd);
+    userAgent = log.substring(userAgentStart, userAgentEnd);
+    httpStatus = parseStatus(log, requestEnd + 2);
+    return true;
+  }
+
+  /**
+   * Tokenizes a line of an S3 server access log:
+   * <pre>owner bucket [time] ip requester id operation key "request" status error sent size time turnaround
+   * "referrer" "user agent" version...</pre>
+   * The error code and the fields after the user agent are matched loosely by the regular expression, so they
+   * could also contain brackets and quotes. Lines in which brackets or quotes appear anywhere else than around
+   * the time, request, referrer and user agent are rejected, since the greedy regular expression could split them
+   * differently.
+   *
+   * @return whether the line could be tokenized
+   */
+  boolean tokenizeS3(String log) {
+    int length = log.length();
+    int brackets = 0;
+    int quotes = 0;
+    for (int i = 0; i < length; i++) {
+      char c = log.charAt(i);
+      if (c < ' ' || c > '~') {
+        return false;
+      }
+      if (c == ']') {
+        brackets++;
+      } else if (c == '"') {
+        quotes++;
+      }
+    }
+    if (brackets != 1 || quotes != 6) {
+      return false;
+    }
+
+    // owner and bucket
+    int pos = skipToken(log, 0);
+    pos = pos < 0 ? pos : skipToken(log, pos);
+    if (pos < 0 || pos >= length || log.charAt(pos) != '[') {
+      return false;
+    }
+    int timeStart = pos + 1;
+    int timeEnd = log.indexOf(']', timeStart);
+    if (timeEnd <= timeStart || !log.startsWith(" ", timeEnd + 1)) {
+      return false;
+    }
+    int ipStart = timeEnd + 2;
+    int ipEnd = log.indexOf(' ', ipStart);
+    if (!isIp(log, ipStart, ipEnd)) {
+      return false;
+    }
+    // requester, request id, operation and key
+    pos = ipEnd + 1;
+    for (int i = 0; i < 4 && pos >= 0; i++) {
+      pos = skipToken(log, pos);
+    }
+    if (pos < 0 || pos >= length || log.charAt(pos) != '"') {
+      return false;
+    }
+    int requestStart = pos + 1;
+    int requestEnd = log.indexOf('"', requestStart);
+    if (requestEnd <= requestStart || !isStatus(log, requestEnd)) {
+      return false;
+    }
+    // the remaining four quotes must be around the referrer and the user agent
+    int referrerStart = log.indexOf('"', requestEnd + 1) + 1;
+    int referrerEnd = log.indexOf('"', referrerStart);
+    int userAgentStart = referrerEnd + 3;
+    int userAgentEnd = log.indexOf('"', userAgentStart);
+    if (referrerStart <= requestEnd + 1 || log.charAt(referrerStart - 2) != ' ' || referrerEnd <= referrerStart ||
+      !log.startsWith(" \"", referrerEnd + 1) || userAgentEnd <= userAgentStart || userAgentEnd + 2 >= length ||
+      log.charAt(userAgentEnd + 1) != ' ') {
+      return false;
+    }
+    // error code, bytes sent, object size, total time and turnaround time, where only the error code can contain
+    // spaces
+    int end = referrerStart - 2;
+    for (int i = 0; i < 4; i++) {
+      int start = log.lastIndexOf(' ', end - 1) + 1;
+      boolean valid = i == 1 ? isDigits(log, start, end) : isSize(log, start, end);
+      if (!valid) {
+        return false;
+      }
+      end = start - 1;
+    }
+    int errorStart = requestEnd + 6;
+    if (end <= errorStart) {
+      return false;
+    }
+
+    timestamp = parseStrftime(log, timeStart, timeEnd);
+    if (timestamp == Long.MIN_VALUE) {
+      return false;
+    }
+    uri = getRequestUri(log, requestStart, requestEnd);
+    ip = log.substring(ipStart, ipEnd);
+    userAgent = log.substring(userAgentStart, userAgentEnd);
+    httpStatus = parseStatus(log, requestEnd + 2);
+    return true;
+  }
+
+  /**
+   * Tokenizes a line of a Cloudfront access log, whose fields are separated by tabs:
+   * <pre>date time edge-location bytes ip method host uri status referrer user-agent ...</pre>
+   *
+   * @return whether the line could be tokenized
+   */
+  boolean tokenizeCloudfront(String log) {
+    int pos = 0;
+    for (int i = 0; i < CLOUDFRONT_FIELDS; i++) {
+      int end = log.indexOf('\t', pos);
+      if (end < 0) {
+        end = log.length();
+      }
+      offsets[2 * i] = pos;
+      offsets[2 * i + 1] = end;
+      if (end == log.length() && i < CLOUDFRONT_FIELDS - 1) {
+        return false;
+      }
+      pos = end + 1;
+    }
+    int statusStart = offsets[16];
+    int statusEnd = offsets[17];
+    // trailing empty fields are dropped when splitting the line, so the user agent must not be empty
+    if (offsets[21] == offsets[20] || statusEnd == statusStart || statusEnd - statusStart > 9 ||
+      !isDigits(log, statusStart, statusEnd)) {
+      return false;
+    }
+
+    long days = parseDate(log, offsets[0], offsets[1]);
+    long seconds = parseTime(log, offsets[2], offsets[3]);
+    if (days == Long.MIN_VALUE || seconds == Long.MIN_VALUE) {
+      return false;
+    }
+    timestamp = (days * 86400L + seconds) * 1000L;
+    uri = log.substring(offsets[14], offsets[15]);
+    ip = log.substring(offsets[8], offsets[9]);
+    userAgent = log.substring(offsets[20], offsets[21]);
+    httpStatus = 0;
+    for (int i = statusStart; i < statusEnd; i++) {
+      httpStatus = httpStatus * 10 + (log.charAt(i) - '0');
+    }
+    return true;
+  }
+
+  /**
+   * Returns the second word of a request, the same way the '(\S+)\s(\S+).*' pattern does for printable lines.
+   */
+  @Nullable
+  private static String getRequestUri(String log, int start, int end) {
+    if (log.charAt(start) == ' ') {
+      return null;
+    }
+    int uriStart = log.indexOf(' ', start) + 1;
+    if (uriStart == 0 || uriStart >= end || log.charAt(uriStart) == ' ') {
+      return null;
+    }
+    int uriEnd = log.indexOf(' ', uriStart);
+    return log.substring(uriStart, uriEnd < 0 || uriEnd > end ? end : uriEnd);
+  }
+
+  /**
+   * Parses a 'dd/MMM/yyyy:HH:mm:ss Z' timestamp. Returns Long.MIN_VALUE if it is not in that exact layout.
+   */
+  private static long parseStrftime(String log, int start, int end) {
+    if (end - start != STRFTIME_LENGTH || log.charAt(start + 2) != '/' || log.charAt(start + 6) != '/' ||
+      log.charAt(start + 11) != ':' || log.charAt(start + 20) != ' ') {
+      return Long.MIN_VALUE;
+    }
+    int month = -1;
+    for (int i = 0; i < MONTHS.length; i++) {
+      if (log.startsWith(MONTHS[i], start + 3)) {
+        month = i + 1;
+        break;
+      }
+    }
+    int day = parseNumber(log, start, 2, 1, 31);
+    int year = parseNumber(log, start + 7, 4, 1600, 9999);
+    long seconds = parseTime(log, start + 12, start + 20);
+    char sign = log.charAt(start + 21);
+    int offsetHours = parseNumber(log, start + 22, 2, 0, 23);
+    int offsetMinutes = parseNumber(log, start + 24, 2, 0, 59);
+    if (month < 0 || day < 0 || year < 0 || seconds == Long.MIN_VALUE || (sign != '+' && sign != '-') ||
+      offsetHours < 0 || offsetMinutes < 0) {
+      return Long.MIN_VALUE;
+    }
+    long offset = (offsetHours * 60L + offsetMinutes) * 60L;
+    return (getEpochDay(year, month, day) * 86400L + seconds - (sign == '+' ? offset : -offset)) * 1000L;
+  }
+
+  /**
+   * Parses a 'yyyy-MM-dd' date into a number of days since the epoch, or Long.MIN_VALUE if it is not in that
+   * exact layout.
+   */
+  private static long parseDate(String log, int start, int end) {
+    if (end - start != 10 || log.charAt(start + 4) != '-' || log.charAt(start + 7) != '-') {
+      return Long.MIN_VALUE;
+    }
+    int year = parseNumber(log, start, 4, 1600, 9999);
+    int month = parseNumber(log, start + 5, 2, 1, 12);
+    int day = parseNumber(log, start + 8, 2, 1, 31);
+    return year < 0 || month < 0 || day < 0 ? Long.MIN_VALUE : getEpochDay(year, month, day);
+  }
+
+  /**
+   * Parses a 'HH:mm:ss' time into a number of seconds since midnight, or Long.MIN_VALUE if it is not in that
+   * exact layout.
+   */
+  private static long parseTime(String log, int start, int end) {
+    if (end - start != 8 || log.charAt(start + 2) != ':' || log.charAt(start + 5) != ':') {
+      return Long.MIN_VALUE;
+    }
+    int hours = parseNumber(log, start, 2, 0, 23);
+    int minutes = parseNumber(log, start + 3, 2, 0, 59);
+    int seconds = parseNumber(log, start + 6, 2, 0, 59);
+    return hours < 0 || minutes < 0 || seconds < 0 ? Long.MIN_VALUE : (hours * 60L + minutes) * 60L + seconds;
+  }
+
+  /**
+   * Returns the number of days since the epoch of a date in the proleptic Gregorian calendar. Days past the end of
+   * the month roll over into the next month, like they do when a date is parsed leniently.
+   */
+  private static long getEpochDay(int year, int month, int day) {
+    // count years from March, so that the leap day is at the end of the year
+    long y = month <= 2 ? year - 1 : year;
+    long era = y / 400;
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    // 719468 is the number of days from 0000-03-01 to 1970-01-01
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Parses a fixed number of digits, returning -1 if they are not all digits or if the number is out of range.
+   */
+  private static int parseNumber(String log, int start, int numDigits, int min, int max) {
+    int value = 0;
+    for (int i = start; i < start + numDigits; i++) {
+      char c = log.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value < min || value > max ? -1 : value;
+  }
+
+  private static int parseStatus(String log, int start) {
+    return parseNumber(log, start, 3, 0, 999);
+  }
+
+  /**
+   * Returns whether the quote at the end of a request is followed by a space, a three digit status code and another
+   * space.
+   */
+  private static boolean isStatus(String log, int pos) {
+    return pos + 5 < log.length() && log.charAt(pos) == '"' && log.charAt(pos + 1) == ' ' &&
+      parseStatus(log, pos + 2) >= 0 && log.charAt(pos + 5) == ' ';
+  }
+
+  /**
+   * Returns the position after the space that follows a non empty token, or -1 if there is no such token.
+   */
+  private static int skipToken(String log, int start) {
+    int end = log.indexOf(' ', start);
+    return end <= start ? -1 : end + 1;
+  }
+
+  /**
+   * Returns whether the characters are an IPv4 address or '::' and a digit, the same way the regular expressions
+   * match them.
+   */
+  private static boolean isIp(String log, int start, int end) {
+    if (end <= start) {
+      return false;
+    }
+    if (end - start == 3 && log.startsWith("::", start)) {
+      char c = log.charAt(start + 2);
+      return c >= '0' && c <= '9';
+    }
+    for (int i = start; i < end; i++) {
+      char c = log.charAt(i);
+      if ((c < '0' || c > '9') && c != '.') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the characters are a non empty sequence of digits, dashes and quotes.
+   */
+  private static boolean isSize(String log, int start, int end) {
+    if (end <= start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = log.charAt(i);
+      if ((c < '0' || c > '9') && c != '-' && c != '"') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDigits(String log, int start, int end) {
+    if (end <= start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = log.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isPrintable(String log) {
+    for (int i = 0; i < log.length(); i++) {
+      char c = log.charAt(i);
+      if (c < ' ' || c > '~') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -27,6 +27,7 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.InvalidEntry;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.Transform;
+import com.google.common.annotations.VisibleForTesting;
 import net.sf.uadetector.ReadableUserAgent;
 import net.sf.uadetector.UserAgentStringParser;
 import net.sf.uadetector.service.UADetectorServiceFactory;
@@ -63,11 +64,13 @@ public class LogParserTransform extends Transform<StructuredRecord, StructuredRe
     "log information. The given field must be of type String or Bytes.";
   private static final Logger LOG = LoggerFactory.getLogger(LogParserTransform.class);
   //Regex used to parse a CLF log, each field is commented above
-  private static final Pattern CLF_LOG_PATTERN = Pattern.compile(
+  @VisibleForTesting
+  static final Pattern CLF_LOG_PATTERN = Pattern.compile(
     //   IP                    id    user      date          request     code     size    referrer    user agent
     "^([\\d.]+|[:][:][\\d]) (\\S+) (\\S+) \\[([^\\]]+)\\] \"([^\"]+)\" (\\d{3}) ([-\"\\d]+) \"([^\"]+)\" \"([^\"]+)\"");
   //Regex used to parse a S3 log, each field is commented above
-  private static final Pattern S3_LOG_PATTERN = Pattern.compile(
+  @VisibleForTesting
+  static final Pattern S3_LOG_PATTERN = Pattern.compile(
     // bucket owner name   time           ip                    req   reqID operation  key    request
     "^(\\S+) (\\S+) \\[(\\p{Print}+)\\] ([\\d.]+|[:][:][\\d]) (\\S+) (\\S+) (\\S+) (\\S+) \"([^\"]+)\" " +
       //  HTTP stat error code  bytes sent     obj size  time    turn time  referrer         user agent
@@ -75,11 +78,14 @@ public class LogParserTransform extends Transform<StructuredRecord, StructuredRe
       //  version id
       "(\\p{Print}+)");
   //Regex used to parse the request field for the URI
-  private static final Pattern REQUEST_PAGE_PATTERN = Pattern.compile("(\\S+)\\s(\\S+).*");
+  @VisibleForTesting
+  static final Pattern REQUEST_PAGE_PATTERN = Pattern.compile("(\\S+)\\s(\\S+).*");
   //Indices of which group request, time, ip, user agent, and HTTP status code are in the S3 regex
-  private static final int[] S3_INDICES = {9, 3, 4, 17, 10};
+  @VisibleForTesting
+  static final int[] S3_INDICES = {9, 3, 4, 17, 10};
   //Indices of which group request, time, ip, user agent, and HTTP status code are in the CLF regex
-  private static final int[] CLF_INDICES = {5, 4, 1, 9, 6};
+  @VisibleForTesting
+  static final int[] CLF_INDICES = {5, 4, 1, 9, 6};
   //Number of groups matched in the S3 regex
   private static final int S3_REGEX_LENGTH = 18;
   //Number of groups matched in the CLF regex
@@ -90,6 +96,8 @@ public class LogParserTransform extends Transform<StructuredRecord, StructuredRe
   private final LogParserConfig config;
   private final SimpleDateFormat sdfStrftime = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z");
   private final SimpleDateFormat sdfCloudfront = new SimpleDateFormat("yyyy-MM-dd:HH:mm:ss z");
+  // extracts the fields of well formed lines, the regular expressions are only used for the other lines
+  private final AccessLogTokenizer tokenizer = new AccessLogTokenizer();
 
   public LogParserTransform(LogParserConfig config) {
     this.config = config;
@@ -127,7 +135,10 @@ public class LogParserTransform extends Transform<StructuredRecord, StructuredRe
     }
 
     StructuredRecord output;
-    if (S3_LOG.equals(config.logFormat)) {
+    if ((S3_LOG.equals(config.logFormat) && tokenizer.tokenizeS3(log)) ||
+      (CLF_LOG.equals(config.logFormat) && tokenizer.tokenizeClf(log))) {
+      output = parseRequest(tokenizer);
+    } else if (S3_LOG.equals(config.logFormat)) {
       Matcher logMatcher = S3_LOG_PATTERN.matcher(log);
       if (!logMatcher.matches() || logMatcher.groupCount() < S3_REGEX_LENGTH) {
         LOG.debug("Couldn't parse log because log did not match the S3 format, log: {}", log);
@@ -151,24 +162,13 @@ public class LogParserTransform extends Transform<StructuredRecord, StructuredRe
         return;
       }
 
-      String[] fields = log.split("\\t");
-      String uri = fields[7];
-      String ip = fields[4];
-      long ts = sdfCloudfront.parse(String.format("%s:%s UTC", fields[0], fields[1])).getTime();
-      UserAgentStringParser parser = UADetectorServiceFactory.getResourceModuleParser();
-      ReadableUserAgent userAgent = parser.parse(fields[10]);
-      String browser = userAgent.getFamily().getName();
-      String device = userAgent.getDeviceCategory().getCategory().getName();
-      int httpStatus = Integer.parseInt(fields[8]);
-
-      output = StructuredRecord.builder(LOG_SCHEMA)
-        .set("uri", uri)
-        .set("ip", ip)
-        .set("browser", browser)
-        .set("device", device)
-        .set("httpStatus", httpStatus)
-        .set("ts", ts)
-        .build();
+      if (tokenizer.tokenizeCloudfront(log)) {
+        output = parseRequest(tokenizer);
+      } else {
+        String[] fields = log.split("\\t");
+        long ts = sdfCloudfront.parse(String.format("%s:%s UTC", fields[0], fields[1])).getTime();
+        output = createRecord(fields[7], fields[4], fields[10], Integer.parseInt(fields[8]), ts);
+      }
     }
     if (output != null) {
       emitter.emit(output);
@@ -250,12 +250,28 @@ public class LogParserTransform extends Transform<StructuredRecord, StructuredRe
                 e.getMessage());
     }
 
-    String ip = logMatcher.group(indices[2]);
+    return createRecord(uri, logMatcher.group(indices[2]), logMatcher.group(indices[3]),
+                        Integer.parseInt(logMatcher.group(indices[4])), ts);
+  }
+
+  /**
+   * Parses a request for the URI, IP, Browser, Device, and Time from the fields found by the tokenizer
+   */
+  @Nullable
+  private StructuredRecord parseRequest(AccessLogTokenizer tokenizer) {
+    if (tokenizer.getUri() == null) {
+      LOG.debug("Couldn't parse uri because request does not match request pattern");
+      return null;
+    }
+    return createRecord(tokenizer.getUri(), tokenizer.getIp(), tokenizer.getUserAgent(), tokenizer.getHttpStatus(),
+                        tokenizer.getTimestamp());
+  }
+
+  private StructuredRecord createRecord(String uri, String ip, String userAgentString, int httpStatus, long ts) {
     UserAgentStringParser parser = UADetectorServiceFactory.getResourceModuleParser();
-    ReadableUserAgent userAgent = parser.parse(logMatcher.group(indices[3]));
+    ReadableUserAgent userAgent = parser.parse(userAgentString);
     String browser = userAgent.getFamily().getName();
     String device = userAgent.getDeviceCategory().getCategory().getName();
-    int httpStatus = Integer.parseInt(logMatcher.group(indices[4]));
 
     return StructuredRecord.builder(LOG_SCHEMA)
       .set("uri", uri)
@@ -42,6 +42,7 @@ import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
@@ -106,8 +107,8 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
   private Set<String> fieldsToKeep = Sets.newHashSet();
   private BiMap<String, String> fieldsToRename = HashBiMap.create();
   private Map<String, Schema.Type> fieldsToConvert = Maps.newHashMap();
-  // cache input schema hash to output schema so we don't have to build it each time
-  private Map<Schema, Schema> schemaCache = Maps.newHashMap();
+  // cache input schema to the plan for it so we don't have to work out the output schema and conversions each time
+  private Map<Schema, ProjectionPlan> planCache = Maps.newHashMap();
 
   @Override
   public void configurePipeline(PipelineConfigurer pipelineConfigurer) throws IllegalArgumentException {
@@ -130,30 +131,18 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
 
   @Override
   public void transform(StructuredRecord valueIn, Emitter<StructuredRecord> emitter) {
-    Schema inputSchema = valueIn.getSchema();
-    Schema outputSchema = getOutputSchema(inputSchema);
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    for (Schema.Field inputField : inputSchema.getFields()) {
-      String inputFieldName = inputField.getName();
-      if (!fieldsToKeep.isEmpty() && !fieldsToKeep.contains(inputFieldName)) {
-          continue;
-      } else if (fieldsToDrop.contains(inputFieldName)) {
-        continue;
-      }
-      // get the corresponding output field name
-      String outputFieldName = fieldsToRename.get(inputFieldName);
-      if (outputFieldName == null) {
-        outputFieldName = inputFieldName;
-      }
-
-      Schema.Field outputField = outputSchema.getField(outputFieldName);
-      Object inputVal = valueIn.get(inputFieldName);
-
+    ProjectionPlan plan = getPlan(valueIn.getSchema());
+    StructuredRecord.Builder builder = StructuredRecord.builder(plan.outputSchema);
+    String[] inputNames = plan.inputNames;
+    String[] outputNames = plan.outputNames;
+    FieldConverter[] converters = plan.converters;
+    for (int i = 0; i < inputNames.length; i++) {
+      Object inputVal = valueIn.get(inputNames[i]);
       // if we need to convert the value, convert it. otherwise just pass the value through
-      if (fieldsToConvert.containsKey(inputFieldName)) {
-        convertAndSet(builder, outputFieldName, inputVal, inputField.getSchema(), outputField.getSchema());
+      if (converters[i] == null) {
+        builder.set(outputNames[i], inputVal);
       } else {
-        builder.set(outputFieldName, inputVal);
+        converters[i].convertAndSet(builder, outputNames[i], inputVal);
       }
     }
     emitter.emit(builder.build());
@@ -231,128 +220,130 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
     }
   }
 
-  private void convertAndSet(StructuredRecord.Builder builder, String fieldName, Object val,
-                             Schema inputSchema, Schema outputSchema) {
+  private static FieldConverter getConverter(Schema inputSchema, Schema outputSchema) {
     // guaranteed that if the input type is nullable, the output type is also nullable.
-    Schema.Type inputType = inputSchema.getType();
-    Schema.Type outputType = outputSchema.getType();
     if (inputSchema.isNullable()) {
-      if (val == null) {
-        builder.set(fieldName, null);
-        return;
-      }
-      inputType = inputSchema.getNonNullable().getType();
-      outputType = outputSchema.getNonNullable().getType();
+      FieldConverter nonNullConverter = getConverter(inputSchema.getNonNullable(), outputSchema.getNonNullable());
+      return (builder, fieldName, val) -> {
+        if (val == null) {
+          builder.set(fieldName, null);
+        } else {
+          nonNullConverter.convertAndSet(builder, fieldName, val);
+        }
+      };
     }
 
     // if the input is a string, try and do some sensible conversion
-    if (inputType == Schema.Type.STRING) {
-      builder.convertAndSet(fieldName, (String) val);
-    } else {
-      // otherwise, just try to cast it.
-      builder.set(fieldName, convertPrimitive(val, inputType, outputType));
+    if (inputSchema.getType() == Schema.Type.STRING) {
+      return (builder, fieldName, val) -> builder.convertAndSet(fieldName, (String) val);
     }
+    // otherwise, just try to cast it.
+    Function<Object, Object> conversion = getConversion(inputSchema.getType(), outputSchema.getType());
+    return (builder, fieldName, val) -> builder.set(fieldName, conversion.apply(val));
   }
 
-  private Object convertPrimitive(Object val, Schema.Type inputType, Schema.Type outputType) {
+  private static Function<Object, Object> getConversion(Schema.Type inputType, Schema.Type outputType) {
     if (inputType == outputType) {
-      return val;
+      return val -> val;
     }
 
     // guaranteed input and output types are non-null simple types
     switch(inputType) {
       // if input is bytes, try to convert the bytes to the correct type
       case BYTES:
-        byte[] bytesVal;
-        if (val instanceof ByteBuffer) {
-          bytesVal = Bytes.toBytes((ByteBuffer) val);
-        } else {
-          bytesVal = (byte[]) val;
-        }
         switch(outputType) {
           case BOOLEAN:
-            return Bytes.toBoolean(bytesVal);
+            return val -> Bytes.toBoolean(toBytes(val));
           case INT:
-            return Bytes.toInt(bytesVal);
+            return val -> Bytes.toInt(toBytes(val));
           case LONG:
-            return Bytes.toLong(bytesVal);
+            return val -> Bytes.toLong(toBytes(val));
           case FLOAT:
-            return Bytes.toFloat(bytesVal);
+            return val -> Bytes.toFloat(toBytes(val));
           case DOUBLE:
-            return Bytes.toDouble(bytesVal);
+            return val -> Bytes.toDouble(toBytes(val));
           case STRING:
-            return Bytes.toString(bytesVal);
+            return val -> Bytes.toString(toBytes(val));
         }
         break;
       case BOOLEAN:
-        Boolean boolVal = (Boolean) val;
         switch (outputType) {
           case STRING:
-            return String.valueOf(boolVal);
+            return val -> String.valueOf((Boolean) val);
           case BYTES:
-            return Bytes.toBytes(boolVal);
+            return val -> Bytes.toBytes((Boolean) val);
         }
         break;
       case INT:
-        Integer intVal = (Integer) val;
         switch (outputType) {
           case LONG:
-            return intVal.longValue();
+            return val -> ((Integer) val).longValue();
           case FLOAT:
-            return intVal.floatValue();
+            return val -> ((Integer) val).floatValue();
           case DOUBLE:
-            return intVal.doubleValue();
+            return val -> ((Integer) val).doubleValue();
           case STRING:
-            return String.valueOf(intVal);
+            return val -> String.valueOf((Integer) val);
           case BYTES:
-            return Bytes.toBytes(intVal);
+            return val -> Bytes.toBytes((Integer) val);
         }
         break;
       case LONG:
-        Long longVal = (Long) val;
         switch (outputType) {
           case FLOAT:
-            return longVal.floatValue();
+            return val -> ((Long) val).floatValue();
           case DOUBLE:
-            return longVal.doubleValue();
+            return val -> ((Long) val).doubleValue();
           case STRING:
-            return String.valueOf(longVal);
+            return val -> String.valueOf((Long) val);
           case BYTES:
-            return Bytes.toBytes(longVal);
+            return val -> Bytes.toBytes((Long) val);
         }
         break;
       case FLOAT:
-        Float floatVal = (Float) val;
         switch (outputType) {
           case DOUBLE:
-            return floatVal.doubleValue();
+            return val -> ((Float) val).doubleValue();
           case STRING:
-            return String.valueOf(floatVal);
+            return val -> String.valueOf((Float) val);
           case BYTES:
-            return Bytes.toBytes(floatVal);
+            return val -> Bytes.toBytes((Float) val);
         }
         break;
       case DOUBLE:
-        Double doubleVal = (Double) val;
         switch (outputType) {
           case STRING:
-            return String.valueOf(doubleVal);
+            return val -> String.valueOf((Double) val);
           case BYTES:
-            return Bytes.toBytes(doubleVal);
+            return val -> Bytes.toBytes((Double) val);
         }
         break;
     }
 
-    throw new IllegalArgumentException("Cannot convert type " + inputType + " to type " + outputType);
+    // fail when a value is converted rather than when the plan is created, so that null values pass through
+    String message = "Cannot convert type " + inputType + " to type " + outputType;
+    return val -> {
+      throw new IllegalArgumentException(message);
+    };
+  }
+
+  private static byte[] toBytes(Object val) {
+    return val instanceof ByteBuffer ? Bytes.toBytes((ByteBuffer) val) : (byte[]) val;
   }
 
   private Schema getOutputSchema(Schema inputSchema) {
-    Schema output = schemaCache.get(inputSchema);
-    if (output != null) {
-      return output;
+    return getPlan(inputSchema).outputSchema;
+  }
+
+  private ProjectionPlan getPlan(Schema inputSchema) {
+    ProjectionPlan plan = planCache.get(inputSchema);
+    if (plan != null) {
+      return plan;
     }
 
     List<Schema.Field> outputFields = Lists.newArrayList();
+    List<String> inputNames = Lists.newArrayList();
+    List<FieldConverter> converters = Lists.newArrayList();
     for (Schema.Field inputField : inputSchema.getFields()) {
       String inputFieldName = inputField.getName();
       if (fieldsToDrop.contains(inputFieldName)) {
@@ -362,6 +353,7 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
       }
 
       Schema outputFieldSchema = inputField.getSchema();
+      FieldConverter converter = null;
       // if this is a field that will be converted, figure out the desired schema
       if (fieldsToConvert.containsKey(inputFieldName)) {
         outputFieldSchema = Schema.of(fieldsToConvert.get(inputFieldName));
@@ -377,6 +369,7 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
         if (!inputFieldType.isSimpleType() || inputFieldType == Schema.Type.NULL) {
           throw new IllegalArgumentException("Field " + inputFieldName + " is of unconvertable type " + inputFieldType);
         }
+        converter = getConverter(inputFieldSchema, outputFieldSchema);
       }
 
       String outputFieldName = inputFieldName;
@@ -385,10 +378,44 @@ public class ProjectionTransform extends Transform<StructuredRecord, StructuredR
       }
 
       outputFields.add(Schema.Field.of(outputFieldName, outputFieldSchema));
+      inputNames.add(inputFieldName);
+      converters.add(converter);
     }
 
-    output = Schema.recordOf(inputSchema.getRecordName() + ".projected", outputFields);
-    schemaCache.put(inputSchema, output);
-    return output;
+    Schema outputSchema = Schema.recordOf(inputSchema.getRecordName() + ".projected", outputFields);
+    String[] outputNames = new String[outputFields.size()];
+    for (int i = 0; i < outputNames.length; i++) {
+      outputNames[i] = outputFields.get(i).getName();
+    }
+    plan = new ProjectionPlan(outputSchema, inputNames.toArray(new String[inputNames.size()]), outputNames,
+                              converters.toArray(new FieldConverter[converters.size()]));
+    planCache.put(inputSchema, plan);
+    return plan;
+  }
+
+  /**
+   * Sets a converted value in a record.
+   */
+  private interface FieldConverter {
+    void convertAndSet(StructuredRecord.Builder builder, String fieldName, @Nullable Object val);
+  }
+
+  /**
+   * How records of one input schema are projected. For each output field, in order, it has the name of the input
+   * field it is read from, and the converter for its value, or null if the value is passed through as is.
+   */
+  private static final class ProjectionPlan {
+    private final Schema outputSchema;
+    private final String[] inputNames;
+    private final String[] outputNames;
+    private final FieldConverter[] converters;
+
+    private ProjectionPlan(Schema outputSchema, String[] inputNames, String[] outputNames,
+                           FieldConverter[] converters) {
+      this.outputSchema = outputSchema;
+      this.inputNames = inputNames;
+      this.outputNames = outputNames;
+      this.converters = converters;
+    }
   }
 }
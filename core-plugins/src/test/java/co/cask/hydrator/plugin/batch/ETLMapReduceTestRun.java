@@ -123,6 +123,49 @@ public class ETLMapReduceTestRun extends ETLBatchTestBase {
     }
   }
 
+  @Test
+  public void testKVToKVWithKeyRange() throws Exception {
+    ETLStage source = new ETLStage(
+      "source", new ETLPlugin("KVTable", BatchSource.PLUGIN_TYPE,
+                              ImmutableMap.of(Properties.BatchReadableWritable.NAME, "kvRangeTable1",
+                                              Properties.KeyValueTable.START_KEY, "key100",
+                                              Properties.KeyValueTable.STOP_KEY, "key200",
+                                              Properties.KeyValueTable.NUM_SPLITS, "4"), null));
+    ETLStage sink = new ETLStage(
+      "sink", new ETLPlugin("KVTable", BatchSink.PLUGIN_TYPE,
+                            ImmutableMap.of(Properties.BatchReadableWritable.NAME, "kvRangeTable2"), null));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    ApplicationManager appManager = deployETL(etlConfig, "KVToKVWithKeyRange");
+
+    DataSetManager<KeyValueTable> table1 = getDataset("kvRangeTable1");
+    KeyValueTable inputTable = table1.get();
+    for (int i = 0; i < 300; i++) {
+      inputTable.write("key" + i, "value" + i);
+    }
+    table1.flush();
+
+    runETLOnce(appManager);
+
+    DataSetManager<KeyValueTable> table2 = getDataset("kvRangeTable2");
+    try (KeyValueTable outputTable = table2.get()) {
+      for (int i = 0; i < 300; i++) {
+        String key = "key" + i;
+        // keys are compared as bytes, so for example "key15" is in the range but "key21" is not
+        if (key.compareTo("key100") >= 0 && key.compareTo("key200") < 0) {
+          Assert.assertEquals("value" + i, Bytes.toString(outputTable.read(key)));
+        } else {
+          Assert.assertNull(outputTable.read(key));
+        }
+      }
+    }
+  }
+
   @Test
   public void testDAG() throws Exception {
 
@@ -221,6 +264,71 @@ public class ETLMapReduceTestRun extends ETLBatchTestBase {
     }
   }
 
+  @Test
+  public void testTableSourceWithRowRange() throws Exception {
+    Schema schema = Schema.recordOf(
+      "users",
+      Schema.Field.of("rowkey", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("userid", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("age", Schema.nullableOf(Schema.of(Schema.Type.LONG)))
+    );
+    ETLStage source = new ETLStage(
+      "source", new ETLPlugin("Table",
+                              BatchSource.PLUGIN_TYPE,
+                              ImmutableMap.of(
+                                Properties.BatchReadableWritable.NAME, "rangeInputTable",
+                                Properties.Table.PROPERTY_SCHEMA_ROW_FIELD, "rowkey",
+                                Properties.Table.PROPERTY_SCHEMA, schema.toString(),
+                                Properties.Table.SCAN_START_ROW, "3",
+                                Properties.Table.SCAN_STOP_ROW, "7"),
+                              null));
+    ETLStage sink = new ETLStage(
+      "sink", new ETLPlugin("Table",
+                            BatchSink.PLUGIN_TYPE,
+                            ImmutableMap.of(
+                              Properties.BatchReadableWritable.NAME, "rangeOutputTable",
+                              Properties.Table.PROPERTY_SCHEMA_ROW_FIELD, "rowkey",
+                              Properties.Table.PROPERTY_SCHEMA, schema.toString()),
+                            null));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    ApplicationManager appManager = deployETL(etlConfig, "TableRangeApp");
+
+    DataSetManager<Table> inputManager = getDataset("rangeInputTable");
+    Table inputTable = inputManager.get();
+    for (int i = 0; i < 10; i++) {
+      Put put = new Put(Bytes.toBytes(i));
+      put.add("userid", "sam" + i);
+      // only the even rows have an age, and the extra column is not in the schema
+      if (i % 2 == 0) {
+        put.add("age", (long) i * 10);
+      }
+      put.add("extra", "ignored");
+      inputTable.put(put);
+    }
+    inputManager.flush();
+
+    runETLOnce(appManager);
+
+    DataSetManager<Table> outputManager = getDataset("rangeOutputTable");
+    Table outputTable = outputManager.get();
+    for (int i = 0; i < 10; i++) {
+      Row row = outputTable.get(Bytes.toBytes(i));
+      if (i < 3 || i >= 7) {
+        Assert.assertTrue(row.isEmpty());
+        continue;
+      }
+      Assert.assertEquals("sam" + i, row.getString("userid"));
+      Assert.assertEquals(i % 2 == 0 ? Long.valueOf(i * 10) : null, row.getLong("age"));
+      Assert.assertNull(row.getString("extra"));
+    }
+  }
+
   @SuppressWarnings("ConstantConditions")
   @Test
   public void testTableToTableWithValidations() throws Exception {
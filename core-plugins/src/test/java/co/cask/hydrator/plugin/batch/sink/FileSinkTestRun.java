@@ -35,6 +35,7 @@ import co.cask.cdap.test.DataSetManager;
 import co.cask.hydrator.format.FileFormat;
 import co.cask.hydrator.plugin.batch.ETLBatchTestBase;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.avro.file.DataFileStream;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
@@ -55,8 +56,10 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import javax.annotation.Nullable;
 
@@ -161,6 +164,103 @@ public class FileSinkTestRun extends ETLBatchTestBase {
     validateDatasetSchema(FileFormat.PARQUET);
   }
 
+  @Test
+  public void testPartitionedFileSink() throws Exception {
+    String inputName = UUID.randomUUID().toString();
+    File outputDir = new File(TEMP_FOLDER.newFolder("PartitionedFileSink"), "out");
+    Map<String, String> properties = new HashMap<>();
+    properties.put("path", outputDir.getAbsolutePath());
+    properties.put("referenceName", "partitioned");
+    properties.put("format", FileFormat.JSON.name());
+    properties.put("schema", SCHEMA.toString());
+    properties.put("partitionFields", "s");
+    // only one open file, so that going back to a partition starts a new file
+    properties.put("maxOpenWriters", "1");
+
+    ETLBatchConfig conf = ETLBatchConfig.builder()
+      .addStage(new ETLStage("source", MockSource.getPlugin(inputName, SCHEMA)))
+      .addStage(new ETLStage("sink", new ETLPlugin("File", BatchSink.PLUGIN_TYPE, properties)))
+      .addConnection("source", "sink")
+      .build();
+    ApplicationManager appManager = deployETL(conf, "PartitionedFileSinkApp");
+
+    DataSetManager<Table> inputManager = getDataset(inputName);
+    List<StructuredRecord> input = new ArrayList<>();
+    input.add(StructuredRecord.builder(SCHEMA).set("i", 0).set("s", "a/b").build());
+    input.add(StructuredRecord.builder(SCHEMA).set("i", 1).set("s", "def").build());
+    input.add(StructuredRecord.builder(SCHEMA).set("i", 2).set("s", "a/b").build());
+    MockSource.writeInput(inputManager, input);
+    runETLOnce(appManager);
+
+    Map<String, Map<Integer, String>> output = new HashMap<>();
+    Map<String, Integer> numFiles = new HashMap<>();
+    File[] partitionDirs = outputDir.listFiles(File::isDirectory);
+    Assert.assertNotNull(partitionDirs);
+    for (File partitionDir : partitionDirs) {
+      File[] files = partitionDir.listFiles(file -> !file.getName().startsWith("."));
+      Assert.assertNotNull(files);
+      numFiles.put(partitionDir.getName(), files.length);
+      for (File file : files) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            StructuredRecord outputRecord = StructuredRecordStringConverter.fromJsonString(line, SCHEMA);
+            output.computeIfAbsent(partitionDir.getName(), k -> new HashMap<>())
+              .put(outputRecord.get("i"), outputRecord.get("s"));
+          }
+        }
+      }
+    }
+
+    Assert.assertEquals(ImmutableMap.of("s=a%2Fb", ImmutableMap.of(0, "a/b", 2, "a/b"),
+                                        "s=def", ImmutableMap.of(1, "def")), output);
+    Assert.assertEquals(ImmutableMap.of("s=a%2Fb", 2, "s=def", 1), numFiles);
+  }
+
+  @Test
+  public void testPartitionedFileSinkTargetSize() throws Exception {
+    String inputName = UUID.randomUUID().toString();
+    File outputDir = new File(TEMP_FOLDER.newFolder("PartitionedFileSinkTargetSize"), "out");
+    Map<String, String> properties = new HashMap<>();
+    properties.put("path", outputDir.getAbsolutePath());
+    properties.put("referenceName", "partitionedTargetSize");
+    properties.put("format", FileFormat.JSON.name());
+    properties.put("schema", SCHEMA.toString());
+    properties.put("partitionFields", "s");
+    // a few records fit in each file
+    properties.put("targetFileSize", "50");
+
+    ETLBatchConfig conf = ETLBatchConfig.builder()
+      .addStage(new ETLStage("source", MockSource.getPlugin(inputName, SCHEMA)))
+      .addStage(new ETLStage("sink", new ETLPlugin("File", BatchSink.PLUGIN_TYPE, properties)))
+      .addConnection("source", "sink")
+      .build();
+    ApplicationManager appManager = deployETL(conf, "PartitionedFileSinkTargetSizeApp");
+
+    DataSetManager<Table> inputManager = getDataset(inputName);
+    List<StructuredRecord> input = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      input.add(StructuredRecord.builder(SCHEMA).set("i", i).set("s", "a").build());
+    }
+    MockSource.writeInput(inputManager, input);
+    runETLOnce(appManager);
+
+    File[] files = new File(outputDir, "s=a").listFiles(file -> !file.getName().startsWith("."));
+    Assert.assertNotNull(files);
+    Assert.assertTrue("Expected the partition to be split into several files, but got " + files.length,
+                      files.length > 1);
+    Set<Integer> output = new HashSet<>();
+    for (File file : files) {
+      try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          output.add(StructuredRecordStringConverter.fromJsonString(line, SCHEMA).get("i"));
+        }
+      }
+    }
+    Assert.assertEquals(ImmutableSet.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), output);
+  }
+
   private void runPipeline(FileFormat format, FileConsumer fileConsumer) throws Exception {
     runPipeline(format, null, fileConsumer);
   }
@@ -16,10 +16,18 @@
 
 package co.cask.hydrator.plugin.batch.sink;
 
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.dataset.lib.KeyValue;
+import co.cask.cdap.etl.mock.common.MockEmitter;
 import co.cask.cdap.etl.mock.common.MockPipelineConfigurer;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
 /**
  *
  */
@@ -132,4 +140,39 @@ public class KVTableSinkTest {
     MockPipelineConfigurer mockPipelineConfigurer = new MockPipelineConfigurer(inputSchema);
     kvTableSink.configurePipeline(mockPipelineConfigurer);
   }
+
+  @Test
+  public void testTransformWithDifferentSchemas() throws Exception {
+    Schema stringSchema = Schema.recordOf(
+      "purchase",
+      Schema.Field.of("rowKey", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("user", Schema.nullableOf(Schema.of(Schema.Type.STRING)))
+    );
+    Schema bytesSchema = Schema.recordOf(
+      "purchaseBytes",
+      Schema.Field.of("rowKey", Schema.of(Schema.Type.BYTES)),
+      Schema.Field.of("user", Schema.of(Schema.Type.BYTES))
+    );
+
+    KVTableSink.KVTableConfig kvTableConfig = new KVTableSink.KVTableConfig("purchases", "rowKey", "user");
+    KVTableSink kvTableSink = new KVTableSink(kvTableConfig);
+    MockEmitter<KeyValue<byte[], byte[]>> emitter = new MockEmitter<>();
+
+    kvTableSink.transform(StructuredRecord.builder(stringSchema).set("rowKey", "a").set("user", "sam").build(),
+                          emitter);
+    kvTableSink.transform(StructuredRecord.builder(stringSchema).set("rowKey", "b").build(), emitter);
+    kvTableSink.transform(StructuredRecord.builder(bytesSchema)
+                            .set("rowKey", ByteBuffer.wrap(Bytes.toBytes("c")))
+                            .set("user", Bytes.toBytes("tom"))
+                            .build(), emitter);
+
+    List<KeyValue<byte[], byte[]>> emitted = emitter.getEmitted();
+    Assert.assertEquals(3, emitted.size());
+    Assert.assertArrayEquals(Bytes.toBytes("a"), emitted.get(0).getKey());
+    Assert.assertArrayEquals(Bytes.toBytes("sam"), emitted.get(0).getValue());
+    Assert.assertArrayEquals(Bytes.toBytes("b"), emitted.get(1).getKey());
+    Assert.assertNull(emitted.get(1).getValue());
+    Assert.assertArrayEquals(Bytes.toBytes("c"), emitted.get(2).getKey());
+    Assert.assertArrayEquals(Bytes.toBytes("tom"), emitted.get(2).getValue());
+  }
 }
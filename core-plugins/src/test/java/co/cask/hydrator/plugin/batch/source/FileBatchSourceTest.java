@@ -646,6 +646,47 @@ public class FileBatchSourceTest extends HydratorTestBase {
     Assert.assertEquals(expected, output);
   }
 
+  @Test
+  public void testReadDelimitedTypes() throws Exception {
+    File fileText = new File(temporaryFolder.newFolder(), "test.txt");
+    String outputDatasetName = UUID.randomUUID().toString();
+
+    Schema schema = Schema.recordOf("user",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("ts", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+                                    Schema.Field.of("active", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))),
+                                    Schema.Field.of("score", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+                                    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                    Schema.Field.of("file", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+    String appName = UUID.randomUUID().toString();
+    // multi-byte delimiter, to make sure delimiters are matched on the encoded bytes
+    String delimiter = "\u00a7";
+    ApplicationManager appManager = createSourceAndDeployApp(appName, fileText, FileFormat.DELIMITED.name(),
+                                                             outputDatasetName, schema, delimiter);
+
+    String inputStr = new StringBuilder()
+      .append("-7").append(delimiter).append("1234567890123456789").append(delimiter).append("TRUE")
+      .append(delimiter).append("1.5").append(delimiter).append("s\u00e4m\n")
+      .append("+2147483647").append(delimiter).append(delimiter).append("no").append("\n").toString();
+    FileUtils.writeStringToFile(fileText, inputStr, StandardCharsets.UTF_8);
+
+    appManager.getWorkflowManager(SmartWorkflow.NAME)
+      .startAndWaitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(schema).set("id", -7).set("ts", 1234567890123456789L).set("active", true)
+        .set("score", 1.5d).set("name", "s\u00e4m").set("file", fileText.toURI().toString()).build(),
+      StructuredRecord.builder(schema).set("id", Integer.MAX_VALUE).set("active", false)
+        .set("file", fileText.toURI().toString()).build()
+    );
+
+    DataSetManager<Table> outputManager = getDataset(outputDatasetName);
+    Set<StructuredRecord> output = new HashSet<>(MockSink.readOutput(outputManager));
+
+    Assert.assertEquals(expected, output);
+  }
+
   @Test
   public void testTextFormatWithoutOffset() throws Exception {
     File fileText = new File(temporaryFolder.newFolder(), "test.txt");
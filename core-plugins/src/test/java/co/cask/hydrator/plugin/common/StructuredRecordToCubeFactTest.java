@@ -141,6 +141,50 @@ public class StructuredRecordToCubeFactTest {
     Assert.assertTrue(1000 + tsEnd / 1000 >= transformed.getTimestamp());
   }
 
+  @Test
+  public void testMultipleSchemas() throws Exception {
+    StructuredRecordToCubeFact transform = new StructuredRecordToCubeFact(createValidConfig());
+    Schema schema1 = Schema.recordOf(
+      "record1",
+      Schema.Field.of("tsField", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("dimField1", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("metricField1", Schema.of(Schema.Type.LONG)));
+    Schema schema2 = Schema.recordOf(
+      "record2",
+      Schema.Field.of("tsField", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("bytesField", Schema.of(Schema.Type.BYTES)),
+      Schema.Field.of("arrayField", Schema.arrayOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("metricField1", Schema.of(Schema.Type.DOUBLE)));
+
+    long ts = System.currentTimeMillis();
+    String tsValue = new SimpleDateFormat(DATE_FORMAT).format(new Date(ts));
+    // records with different schemas and the same timestamp value, one after the other
+    for (int i = 0; i < 2; i++) {
+      CubeFact fact1 = transform.transform(StructuredRecord.builder(schema1)
+                                             .set("tsField", tsValue)
+                                             .set("dimField1", "dimVal" + i)
+                                             .set("metricField1", 9007199254740993L)
+                                             .build());
+      Assert.assertEquals(ts / 1000, fact1.getTimestamp());
+      Assert.assertEquals(2, fact1.getDimensionValues().size());
+      Assert.assertEquals("dimVal" + i, fact1.getDimensionValues().get("dimField1"));
+      verifyMeasurements(ImmutableList.of(new Measurement("metricField1", MeasureType.COUNTER, 9007199254740993L)),
+                         fact1.getMeasurements());
+
+      CubeFact fact2 = transform.transform(StructuredRecord.builder(schema2)
+                                             .set("tsField", tsValue)
+                                             .set("bytesField", Bytes.toBytes("foo" + i))
+                                             .set("arrayField", ImmutableList.of("a"))
+                                             .set("metricField1", 2.5d)
+                                             .build());
+      Assert.assertEquals(ts / 1000, fact2.getTimestamp());
+      Assert.assertEquals(2, fact2.getDimensionValues().size());
+      Assert.assertEquals("foo" + i, fact2.getDimensionValues().get("bytesField"));
+      verifyMeasurements(ImmutableList.of(new Measurement("metricField1", MeasureType.COUNTER, 2)),
+                         fact2.getMeasurements());
+    }
+  }
+
   private Map<String, String> createValidConfig() {
     Map<String, String> config = Maps.newHashMap();
     config.put(Properties.Cube.FACT_TS_FIELD, "tsField");
@@ -0,0 +1,237 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin.transform;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Checks that the {@link AccessLogTokenizer} extracts the same fields as the regular expressions and date formats
+ * of {@link LogParserTransform}, for well formed lines and for randomly mutated ones.
+ */
+public class AccessLogTokenizerTest {
+  private static final List<String> CLF_LOGS = Arrays.asList(
+    "127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] \"GET /apache_pb.gif HTTP/1.0\" 200 2326 " +
+      "\"http://www.example.com/start.html\" \"Mozilla/5.0 (Macintosh; Intel Mac OS X 10_10_3) " +
+      "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/43.0.2357.124 Safari/537.36\"",
+    "10.1.2.3 - - [29/Feb/2016:00:00:00 +0000] \"POST /api/v1/items?id=3&name=a%20b HTTP/1.1\" 201 - " +
+      "\"-\" \"curl/7.47.0\"",
+    "::1 user-identifier bob [31/Dec/1999:23:59:59 +1130] \"DELETE /items/[1] HTTP/1.1\" 404 \"-\" " +
+      "\"https://example.com/a?b=c\" \"Mozilla/5.0 Gecko/20100115 Firefox/3.6\"",
+    "192.168.0.10 - - [01/Jan/1970:00:00:00 -0000] \"GET /\" 304 0 \"-\" \"Googlebot/2.1\""
+  );
+  private static final List<String> S3_LOGS = Arrays.asList(
+    "79a59df900b949e55d96a1e698fbacedfd6e09d98eacf8f8d5218e7cd47ef2be awsexamplebucket " +
+      "[06/Feb/2019:00:00:38 +0000] 192.0.2.3 79a59df900b949e55d96a1e698fbace 3E57427F3EXAMPLE " +
+      "REST.GET.VERSIONING - \"GET /awsexamplebucket?versioning HTTP/1.1\" 200 - 113 - 7 - \"-\" " +
+      "\"S3Console/0.4\" - s9lzHYrFp76ZVxRcpX9+5cjAnEH2ROuNkd2BHfIa6UkFVdtjf5mKR3/eTPFvsiP/XV/VLi31234=",
+    "13a9f69e4a00effd6b4b891dcbcabef632ef9a9da7c localhost [22/Jan/2015:11:03:21 +0000] 122.122.111.11 - " +
+      "6006CA0AE4 REST.GET.OBJECT ubuntu/this/is/some/folder " +
+      "\"GET /my/uri.gif releases/dists/precise/releases/i18n/Translation-en HTTP/1.1\" " +
+      "403 AccessDenied 231 - 10 - \"-\" \"Debian APT-HTTP/1.3 (0.8.16~exp12ubuntu10.  17)\" -",
+    "13a9f69e4a00effd6b4b891dcef632ef9afe38cc8b0 localhost [31/Jan/2015:21:57:57 +0000] 133.133.133.133 - " +
+      "0E94306589 REST.GET.OBJECT downloads/this/is/another/folder/with/a/file/file.zip " +
+      "\"GET /my/uri.jpg HTTP/1.1\" 304 - - 195750039 198 - \"-\" \"Mozilla/5.0 Gecko/20100115 Firefox/3.6\" -"
+  );
+  private static final List<String> CLOUDFRONT_LOGS = Arrays.asList(
+    "2015-04-17\t13:35:48\tSFO20\t582123\t11.111.111.11\tGET\texample.cloudfront.net\t" +
+      "/coopr-standalone-vm/0.9.8/coopr-standalone-vm-0.9.8.ova\t200\t-\tMozilla/5.0%2520(compatible)\t-\tError\t" +
+      "sCmB94WPP5v-QoCyn7Jz1ZLn0kBhzIEkqfFuX2Gh5oA1SA8dsLp-kw==\texample.co\thttp\t264\t0.984",
+    "2016-02-29\t00:00:00\tLHR3\t2390\t192.0.2.100\tGET\td111111abcdef8.cloudfront.net\t/index.html\t304\t" +
+      "https://example.com/\tcurl/7.47.0"
+  );
+  // characters that are significant to the formats, or that the tokenizer treats specially
+  private static final String MUTATION_CHARS = " \t\"[]-+/:.0123456789aZ\u00e9\u0000";
+  private static final int MUTATIONS_PER_LOG = 5000;
+
+  private final SimpleDateFormat sdfStrftime = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z");
+  private final SimpleDateFormat sdfCloudfront = new SimpleDateFormat("yyyy-MM-dd:HH:mm:ss z");
+  private final AccessLogTokenizer tokenizer = new AccessLogTokenizer();
+
+  @Test
+  public void testWellFormedLogs() throws Exception {
+    for (String log : CLF_LOGS) {
+      Assert.assertTrue(log, checkClf(log));
+    }
+    for (String log : S3_LOGS) {
+      Assert.assertTrue(log, checkS3(log));
+    }
+    for (String log : CLOUDFRONT_LOGS) {
+      Assert.assertTrue(log, checkCloudfront(log));
+    }
+  }
+
+  @Test
+  public void testMutatedLogs() throws Exception {
+    Random random = new Random(0);
+    for (String log : CLF_LOGS) {
+      for (int i = 0; i < MUTATIONS_PER_LOG; i++) {
+        checkClf(mutate(log, random));
+      }
+    }
+    for (String log : S3_LOGS) {
+      for (int i = 0; i < MUTATIONS_PER_LOG; i++) {
+        checkS3(mutate(log, random));
+      }
+    }
+    for (String log : CLOUDFRONT_LOGS) {
+      for (int i = 0; i < MUTATIONS_PER_LOG; i++) {
+        checkCloudfront(mutate(log, random));
+      }
+    }
+  }
+
+  @Test
+  public void testTruncatedLogs() throws Exception {
+    // a line that ends right after the status code must be rejected, not read past its end
+    String log = "1.2.3.4 - - [10/Oct/2000:13:55:36 -0700] \"GET / HTTP/1.0\" 200";
+    Assert.assertFalse(checkClf(log));
+    Assert.assertFalse(checkS3("owner bucket [10/Oct/2000:13:55:36 -0700] 1.2.3.4 - id op key \"GET / HTTP/1.0\" 200"));
+
+    // every prefix of a line, which random edits of a few characters never produce
+    for (String clfLog : CLF_LOGS) {
+      for (int i = 0; i < clfLog.length(); i++) {
+        checkClf(clfLog.substring(0, i));
+      }
+    }
+    for (String s3Log : S3_LOGS) {
+      for (int i = 0; i < s3Log.length(); i++) {
+        checkS3(s3Log.substring(0, i));
+      }
+    }
+    for (String cloudfrontLog : CLOUDFRONT_LOGS) {
+      for (int i = 0; i < cloudfrontLog.length(); i++) {
+        checkCloudfront(cloudfrontLog.substring(0, i));
+      }
+    }
+  }
+
+  @Test
+  public void testTimestamps() throws Exception {
+    String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+    String prefix = "127.0.0.1 - - [";
+    String suffix = "] \"GET / HTTP/1.0\" 200 1 \"-\" \"-\"";
+    Random random = new Random(0);
+    for (int i = 0; i < 20000; i++) {
+      String time = String.format("%02d/%s/%04d:%02d:%02d:%02d %c%02d%02d", 1 + random.nextInt(31),
+                                  months[random.nextInt(months.length)], 1600 + random.nextInt(8400),
+                                  random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                                  random.nextBoolean() ? '+' : '-', random.nextInt(24), random.nextInt(60));
+      Assert.assertTrue(time, checkClf(prefix + time + suffix));
+    }
+  }
+
+  /**
+   * Applies one to three random edits to a line: replacing, inserting or deleting a character.
+   */
+  private static String mutate(String log, Random random) {
+    StringBuilder builder = new StringBuilder(log);
+    int edits = 1 + random.nextInt(3);
+    for (int i = 0; i < edits; i++) {
+      int pos = random.nextInt(builder.length());
+      char c = MUTATION_CHARS.charAt(random.nextInt(MUTATION_CHARS.length()));
+      switch (random.nextInt(3)) {
+        case 0:
+          builder.setCharAt(pos, c);
+          break;
+        case 1:
+          builder.insert(pos, c);
+          break;
+        default:
+          builder.deleteCharAt(pos);
+      }
+    }
+    return builder.toString();
+  }
+
+  private boolean checkClf(String log) {
+    boolean tokenized = tokenizer.tokenizeClf(log);
+    if (tokenized) {
+      List<Object> expected = parseWithRegex(log, LogParserTransform.CLF_LOG_PATTERN, LogParserTransform.CLF_INDICES);
+      Assert.assertEquals(log, expected, getTokens());
+    }
+    return tokenized;
+  }
+
+  private boolean checkS3(String log) {
+    boolean tokenized = tokenizer.tokenizeS3(log);
+    if (tokenized) {
+      List<Object> expected = parseWithRegex(log, LogParserTransform.S3_LOG_PATTERN, LogParserTransform.S3_INDICES);
+      Assert.assertEquals(log, expected, getTokens());
+    }
+    return tokenized;
+  }
+
+  private boolean checkCloudfront(String log) {
+    boolean tokenized = tokenizer.tokenizeCloudfront(log);
+    if (tokenized) {
+      Assert.assertEquals(log, parseWithSplit(log), getTokens());
+    }
+    return tokenized;
+  }
+
+  private List<Object> getTokens() {
+    return Arrays.<Object>asList(tokenizer.getUri(), tokenizer.getIp(), tokenizer.getUserAgent(),
+                                 tokenizer.getHttpStatus(), tokenizer.getTimestamp());
+  }
+
+  /**
+   * Extracts the fields of a CLF or S3 line the way the transform does when the tokenizer rejects it. Returns null if
+   * the line does not match, or if its timestamp can't be parsed, since the tokenizer must reject those lines.
+   */
+  @Nullable
+  private List<Object> parseWithRegex(String log, Pattern pattern, int[] indices) {
+    Matcher logMatcher = pattern.matcher(log);
+    if (!logMatcher.matches()) {
+      return null;
+    }
+    Matcher requestMatcher = LogParserTransform.REQUEST_PAGE_PATTERN.matcher(logMatcher.group(indices[0]));
+    String uri = requestMatcher.matches() ? requestMatcher.group(2) : null;
+    long ts;
+    try {
+      ts = sdfStrftime.parse(logMatcher.group(indices[1])).getTime();
+    } catch (ParseException e) {
+      return null;
+    }
+    return Arrays.<Object>asList(uri, logMatcher.group(indices[2]), logMatcher.group(indices[3]),
+                                 Integer.parseInt(logMatcher.group(indices[4])), ts);
+  }
+
+  /**
+   * Extracts the fields of a Cloudfront line the way the transform does when the tokenizer rejects it. Returns null
+   * if that fails.
+   */
+  @Nullable
+  private List<Object> parseWithSplit(String log) {
+    try {
+      String[] fields = log.split("\\t");
+      long ts = sdfCloudfront.parse(String.format("%s:%s UTC", fields[0], fields[1])).getTime();
+      return Arrays.<Object>asList(fields[7], fields[4], fields[10], Integer.parseInt(fields[8]), ts);
+    } catch (ParseException | RuntimeException e) {
+      return null;
+    }
+  }
+}
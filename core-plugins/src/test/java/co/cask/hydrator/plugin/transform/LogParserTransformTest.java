@@ -213,6 +213,38 @@ public class LogParserTransformTest {
     Assert.assertEquals(971211336000L, output.<Long>get("ts").longValue());
   }
 
+  @Test
+  public void testUnusualLogs() throws Exception {
+    // brackets in the key and request, and a timestamp that is not in the usual layout, are parsed the same way
+    StructuredRecord s3Record = StructuredRecord.builder(STRING_SCHEMA)
+      .set("body", "13a9f69e4a00effd6b4b891dcef632ef9afe38cc8b0 localhost " +
+        "[31/Jan/2015:21:57:57 +0000] 133.133.133.133 - 0E94306589 REST.GET.OBJECT " +
+        "downloads/[1].zip \"GET /my/[1].zip HTTP/1.1\" 304 - - 195750039 198 - " +
+        "\"-\" \"Mozilla/5.0 Gecko/20100115 Firefox/3.6\" -")
+      .build();
+    StructuredRecord clfRecord = StructuredRecord.builder(STRING_SCHEMA)
+      .set("body", "127.0.0.1 - frank [10/Oct/2000:13:55:36 GMT-07:00] \"GET /apache_pb.gif HTTP/1.0\" 200 2326 " +
+        "\"http://www.example.com/start.html\" \"Mozilla/5.0 Gecko/20100115 Firefox/3.6\"")
+      .build();
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    S3_TRANSFORM.transform(s3Record, emitter);
+    StructuredRecord output = emitter.getEmitted().get(0);
+    Assert.assertEquals("/my/[1].zip", output.get("uri"));
+    Assert.assertEquals("133.133.133.133", output.get("ip"));
+    Assert.assertEquals("Firefox", output.get("browser"));
+    Assert.assertEquals(304, output.<Integer>get("httpStatus").intValue());
+    Assert.assertEquals(1422741477000L, output.<Long>get("ts").longValue());
+
+    CLF_TRANSFORM.transform(clfRecord, emitter);
+    output = emitter.getEmitted().get(1);
+    Assert.assertEquals("/apache_pb.gif", output.get("uri"));
+    Assert.assertEquals("127.0.0.1", output.get("ip"));
+    Assert.assertEquals("Firefox", output.get("browser"));
+    Assert.assertEquals(200, output.<Integer>get("httpStatus").intValue());
+    Assert.assertEquals(971211336000L, output.<Long>get("ts").longValue());
+  }
+
   @Test
   public void testErrorDatasetForInvalidCLFLog() throws Exception {
     StructuredRecord record = StructuredRecord.builder(BYTE_SCHEMA)
@@ -25,10 +25,13 @@ import co.cask.cdap.etl.mock.common.MockEmitter;
 import co.cask.cdap.etl.mock.common.MockPipelineConfigurer;
 import co.cask.cdap.etl.mock.transform.MockTransformContext;
 import co.cask.hydrator.plugin.validator.CoreValidator;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
+
 /**
  */
 public class ProjectionTransformTest {
@@ -542,6 +545,44 @@ public class ProjectionTransformTest {
     Assert.assertNull(output.get("x"));
   }
 
+  @Test
+  public void testMultipleInputSchemas() throws Exception {
+    ProjectionTransform.ProjectionTransformConfig config = new ProjectionTransform
+      .ProjectionTransformConfig("z", "x:a", "y:string", null);
+    Transform<StructuredRecord, StructuredRecord> transform = new ProjectionTransform(config);
+    TransformContext transformContext = new MockTransformContext();
+    transform.initialize(transformContext);
+
+    Schema schema1 = Schema.recordOf("record1",
+                                     Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                     Schema.Field.of("y", Schema.of(Schema.Type.LONG)),
+                                     Schema.Field.of("z", Schema.of(Schema.Type.STRING)));
+    // same fields in a different order, with a nullable field to convert
+    Schema schema2 = Schema.recordOf("record2",
+                                     Schema.Field.of("z", Schema.of(Schema.Type.STRING)),
+                                     Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+                                     Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(schema1).set("x", 1).set("y", 2L).set("z", "z1").build(), emitter);
+    transform.transform(StructuredRecord.builder(schema2).set("x", 3).set("y", 4.5d).set("z", "z2").build(), emitter);
+    transform.transform(StructuredRecord.builder(schema2).set("x", 5).set("z", "z3").build(), emitter);
+    transform.transform(StructuredRecord.builder(schema1).set("x", 6).set("y", 7L).set("z", "z4").build(), emitter);
+
+    Schema expected1 = Schema.recordOf("record1.projected",
+                                       Schema.Field.of("a", Schema.of(Schema.Type.INT)),
+                                       Schema.Field.of("y", Schema.of(Schema.Type.STRING)));
+    Schema expected2 = Schema.recordOf("record2.projected",
+                                       Schema.Field.of("y", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                       Schema.Field.of("a", Schema.of(Schema.Type.INT)));
+    List<StructuredRecord> expected = ImmutableList.of(
+      StructuredRecord.builder(expected1).set("a", 1).set("y", "2").build(),
+      StructuredRecord.builder(expected2).set("y", "4.5").set("a", 3).build(),
+      StructuredRecord.builder(expected2).set("a", 5).build(),
+      StructuredRecord.builder(expected1).set("a", 6).set("y", "7").build());
+    Assert.assertEquals(expected, emitter.getEmitted());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testDropFieldsValidations() {
     Schema schema = Schema.recordOf("three",
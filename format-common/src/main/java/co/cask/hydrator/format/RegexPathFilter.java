@@ -18,6 +18,7 @@ package co.cask.hydrator.format;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
@@ -51,6 +52,17 @@ public class RegexPathFilter extends Configured implements PathFilter {
     }
   }
 
+  /**
+   * Same as {@link #accept(Path)}, except the status is used to tell whether the path is a directory,
+   * instead of looking it up in the FileSystem.
+   */
+  public boolean accept(FileStatus status) {
+    if (status.isDirectory()) {
+      return true;
+    }
+    return pattern == null || pattern.matcher(status.getPath().toUri().getPath()).matches();
+  }
+
   @Override
   public void setConf(Configuration conf) {
     super.setConf(conf);
@@ -18,6 +18,7 @@ package co.cask.hydrator.format.input;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
@@ -77,6 +78,27 @@ public class CombinePathTrackingInputFormat extends CombineFileInputFormat<NullW
     return splits;
   }
 
+  /**
+   * Reads the input files from the listing file if one was written by {@link FileListing},
+   * instead of listing the input paths again.
+   */
+  @Override
+  protected List<FileStatus> listStatus(JobContext job) throws IOException {
+    String listingFile = job.getConfiguration().get(FileListing.LISTING_FILE);
+    if (listingFile == null) {
+      return super.listStatus(job);
+    }
+    return FileListing.read(job.getConfiguration(), new Path(listingFile));
+  }
+
+  /**
+   * Gzip files can be split if they have an index, in addition to files that CombineFileInputFormat can split.
+   */
+  @Override
+  protected boolean isSplitable(JobContext context, Path file) {
+    return PathTrackingInputFormat.isSplitable(context.getConfiguration(), file);
+  }
+
   @Nullable
   private String getHeader(Configuration hConf, CombineFileSplit split) throws IOException {
     String header = null;
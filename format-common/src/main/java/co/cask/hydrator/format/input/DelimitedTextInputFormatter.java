@@ -17,8 +17,8 @@
 package co.cask.hydrator.format.input;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.format.UnexpectedFormatException;
 import co.cask.cdap.api.data.schema.Schema;
-import com.google.common.base.Splitter;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
@@ -26,17 +26,18 @@ import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
-import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Reads delimited text into StructuredRecords.
  */
 public class DelimitedTextInputFormatter implements FileInputFormatter {
+  private static final long NOT_PARSED = Long.MIN_VALUE;
   private final Schema schema;
   private final String delimiter;
 
@@ -54,52 +55,213 @@ public class DelimitedTextInputFormatter implements FileInputFormatter {
 
   @Override
   public RecordReader<NullWritable, StructuredRecord.Builder> create(FileSplit split, TaskAttemptContext context) {
-    RecordReader<LongWritable, Text> delegate = (new TextInputFormat()).createRecordReader(split, context);
+    RecordReader<LongWritable, Text> delegate = TextInputFormatter.createLineRecordReader(split, context);
     String delimiter = context.getConfiguration().get("delimiter");
+    return new DelimitedRecordReader(delegate, schema, delimiter);
+  }
 
-    return new RecordReader<NullWritable, StructuredRecord.Builder>() {
+  /**
+   * Reads delimited records by scanning the UTF-8 bytes of each line for the delimiter, without first converting
+   * the line to a String. Each field is decoded straight from its bytes by a decoder chosen from the schema
+   * when the reader is created, so Strings are only created for string fields and for types that have no
+   * byte level decoder.
+   */
+  static class DelimitedRecordReader extends RecordReader<NullWritable, StructuredRecord.Builder> {
+    private final RecordReader<LongWritable, Text> delegate;
+    private final Schema schema;
+    private final byte[] delimiter;
+    private final String[] fieldNames;
+    private final FieldDecoder[] decoders;
 
-      @Override
-      public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
-        delegate.initialize(split, context);
+    DelimitedRecordReader(RecordReader<LongWritable, Text> delegate, Schema schema, String delimiter) {
+      if (delimiter == null || delimiter.isEmpty()) {
+        throw new IllegalArgumentException("The delimiter must not be empty.");
       }
-
-      @Override
-      public boolean nextKeyValue() throws IOException, InterruptedException {
-        return delegate.nextKeyValue();
+      this.delegate = delegate;
+      this.schema = schema;
+      // UTF-8 is self-synchronizing, so matching the encoded delimiter on the bytes finds the same
+      // splits as matching the delimiter on the decoded line.
+      this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+      List<Schema.Field> fields = schema.getFields();
+      this.fieldNames = new String[fields.size()];
+      this.decoders = new FieldDecoder[fields.size()];
+      for (int i = 0; i < fields.size(); i++) {
+        Schema.Field field = fields.get(i);
+        fieldNames[i] = field.getName();
+        Schema fieldSchema = field.getSchema();
+        decoders[i] = getDecoder(fieldSchema.isNullable() ? fieldSchema.getNonNullable() : fieldSchema);
       }
+    }
 
-      @Override
-      public NullWritable getCurrentKey() {
-        return NullWritable.get();
-      }
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+      delegate.initialize(split, context);
+    }
 
-      @Override
-      public StructuredRecord.Builder getCurrentValue() throws IOException, InterruptedException {
-        String delimitedString = delegate.getCurrentValue().toString();
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+      return delegate.nextKeyValue();
+    }
 
-        StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-        Iterator<Schema.Field> fields = schema.getFields().iterator();
+    @Override
+    public NullWritable getCurrentKey() {
+      return NullWritable.get();
+    }
 
-        for (String part : Splitter.on(delimiter).split(delimitedString)) {
-          if (part.isEmpty()) {
-            builder.set(fields.next().getName(), null);
-          } else {
-            builder.convertAndSet(fields.next().getName(), part);
-          }
+    @Override
+    public StructuredRecord.Builder getCurrentValue() throws IOException, InterruptedException {
+      Text line = delegate.getCurrentValue();
+      byte[] bytes = line.getBytes();
+      int length = line.getLength();
+
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      int fieldIndex = 0;
+      int start = 0;
+      while (true) {
+        int end = indexOfDelimiter(bytes, start, length);
+        if (fieldIndex == fieldNames.length) {
+          throw new IOException(String.format("Found more than %d fields in line '%s'.",
+                                              fieldNames.length, line.toString()));
+        }
+        if (start == end) {
+          builder.set(fieldNames[fieldIndex], null);
+        } else {
+          decode(builder, fieldIndex, bytes, start, end);
+        }
+        fieldIndex++;
+        if (end == length) {
+          return builder;
         }
-        return builder;
+        start = end + delimiter.length;
       }
+    }
 
-      @Override
-      public float getProgress() throws IOException, InterruptedException {
-        return delegate.getProgress();
+    @Override
+    public float getProgress() throws IOException, InterruptedException {
+      return delegate.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+    /**
+     * Decodes a field, failing with the same exception as {@link StructuredRecord.Builder#convertAndSet} when
+     * the value is not a number of the field's type.
+     */
+    private void decode(StructuredRecord.Builder builder, int fieldIndex, byte[] bytes, int start, int end) {
+      try {
+        decoders[fieldIndex].decode(builder, fieldNames[fieldIndex], bytes, start, end);
+      } catch (NumberFormatException e) {
+        throw new UnexpectedFormatException(
+          String.format("Unable to convert '%s' to the type of field '%s'.",
+                        DelimitedTextInputFormatter.toString(bytes, start, end), fieldNames[fieldIndex]), e);
+      }
+    }
+
+    /**
+     * Returns the offset of the next delimiter at or after the start, or the end of the line if there is none.
+     */
+    private int indexOfDelimiter(byte[] bytes, int start, int end) {
+      byte first = delimiter[0];
+      int last = end - delimiter.length;
+      for (int i = start; i <= last; i++) {
+        if (bytes[i] != first) {
+          continue;
+        }
+        int j = 1;
+        while (j < delimiter.length && bytes[i + j] == delimiter[j]) {
+          j++;
+        }
+        if (j == delimiter.length) {
+          return i;
+        }
       }
+      return end;
+    }
+  }
+
+  /**
+   * Decodes a non-empty field from bytes and sets it in the record.
+   */
+  private interface FieldDecoder {
+    void decode(StructuredRecord.Builder builder, String fieldName, byte[] bytes, int start, int end);
+  }
+
+  private static FieldDecoder getDecoder(Schema schema) {
+    if (schema.getLogicalType() != null) {
+      return DelimitedTextInputFormatter::convertAndSet;
+    }
+    switch (schema.getType()) {
+      case STRING:
+        return (builder, fieldName, bytes, start, end) -> builder.set(fieldName, toString(bytes, start, end));
+      case BOOLEAN:
+        return (builder, fieldName, bytes, start, end) -> builder.set(fieldName, isTrue(bytes, start, end));
+      case INT:
+        return (builder, fieldName, bytes, start, end) -> {
+          // up to 9 digits always fit in an int. Anything else is left to Integer.parseInt to parse or reject.
+          long value = parseDigits(bytes, start, end, 9);
+          builder.set(fieldName, value == NOT_PARSED ?
+            Integer.parseInt(toString(bytes, start, end)) : (int) value);
+        };
+      case LONG:
+        return (builder, fieldName, bytes, start, end) -> {
+          // up to 18 digits always fit in a long. Anything else is left to Long.parseLong to parse or reject.
+          long value = parseDigits(bytes, start, end, 18);
+          builder.set(fieldName, value == NOT_PARSED ? Long.parseLong(toString(bytes, start, end)) : value);
+        };
+      case FLOAT:
+        return (builder, fieldName, bytes, start, end) ->
+          builder.set(fieldName, Float.parseFloat(toString(bytes, start, end)));
+      case DOUBLE:
+        return (builder, fieldName, bytes, start, end) ->
+          builder.set(fieldName, Double.parseDouble(toString(bytes, start, end)));
+      default:
+        return DelimitedTextInputFormatter::convertAndSet;
+    }
+  }
 
-      @Override
-      public void close() throws IOException {
-        delegate.close();
+  /**
+   * Parses an optionally signed decimal number with at most the given number of digits.
+   * Returns {@link #NOT_PARSED} if the bytes are not such a number.
+   */
+  private static long parseDigits(byte[] bytes, int start, int end, int maxDigits) {
+    boolean negative = false;
+    int i = start;
+    if (bytes[i] == '-' || bytes[i] == '+') {
+      negative = bytes[i] == '-';
+      i++;
+    }
+    if (i == end || end - i > maxDigits) {
+      return NOT_PARSED;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return NOT_PARSED;
       }
-    };
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Same as {@link Boolean#parseBoolean(String)}, which is true only for 'true' ignoring case.
+   */
+  private static boolean isTrue(byte[] bytes, int start, int end) {
+    return end - start == 4 &&
+      (bytes[start] | 0x20) == 't' && (bytes[start + 1] | 0x20) == 'r' &&
+      (bytes[start + 2] | 0x20) == 'u' && (bytes[start + 3] | 0x20) == 'e';
+  }
+
+  private static void convertAndSet(StructuredRecord.Builder builder, String fieldName,
+                                    byte[] bytes, int start, int end) {
+    builder.convertAndSet(fieldName, toString(bytes, start, end));
+  }
+
+  private static String toString(byte[] bytes, int start, int end) {
+    return new String(bytes, start, end - start, StandardCharsets.UTF_8);
   }
 }
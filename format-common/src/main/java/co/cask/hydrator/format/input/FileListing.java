@@ -0,0 +1,390 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import co.cask.hydrator.format.RegexPathFilter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Lists the files of an input path using multiple threads, so that directories are listed in parallel.
+ * Files are listed with their block locations, so that split planning does not need to look them up again.
+ *
+ * The listing can optionally be cached in a directory. The cache keeps the contents of each directory along with
+ * the modification time of the directory when it was listed. On the next listing, a directory whose modification
+ * time has not changed is not listed again. The modification time of a directory only changes when
+ * files are added, removed, or renamed in it, so the cache assumes that files are not modified in place.
+ *
+ * The result of a listing can be written to a file, which {@link PathTrackingInputFormat} and
+ * {@link CombinePathTrackingInputFormat} will read instead of listing the input again.
+ */
+public class FileListing {
+  /**
+   * Configuration property for a file written by {@link #write(Configuration, Path, List)} that input formats
+   * read the input files from instead of listing the input paths.
+   */
+  public static final String LISTING_FILE = "path.tracking.listing.file";
+  private static final Logger LOG = LoggerFactory.getLogger(FileListing.class);
+  private static final int VERSION = 1;
+  private final Configuration conf;
+  private final int parallelism;
+  private final boolean recursive;
+  private final PathFilter filter;
+  private final Path cacheDir;
+
+  /**
+   * @param conf configuration for the FileSystem
+   * @param parallelism number of directories to list at the same time
+   * @param recursive whether to list files in sub-directories
+   * @param filter filter that files and directories must pass, in addition to not being hidden
+   * @param cacheDir directory to keep the listing cache in, or null if the listing should not be cached
+   */
+  public FileListing(Configuration conf, int parallelism, boolean recursive,
+                     @Nullable PathFilter filter, @Nullable Path cacheDir) {
+    this.conf = conf;
+    this.parallelism = parallelism;
+    this.recursive = recursive;
+    this.filter = filter;
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * List all files matching the given path, which may contain a glob.
+   *
+   * @throws FileNotFoundException if the path does not exist
+   * @throws IOException if there was an error listing the files
+   */
+  public List<FileStatus> list(Path path) throws IOException, InterruptedException {
+    FileSystem fs = path.getFileSystem(conf);
+    FileStatus[] matches = fs.globStatus(path, this::acceptPath);
+    if (matches == null) {
+      throw new FileNotFoundException(String.format("Input path %s does not exist.", path));
+    }
+
+    // each input path has its own cache file
+    byte[] cacheKey = fs.makeQualified(path).toString().getBytes(StandardCharsets.UTF_8);
+    Path cacheFile = cacheDir == null ? null : new Path(cacheDir, UUID.nameUUIDFromBytes(cacheKey).toString());
+    Map<String, CachedDirectory> cache = cacheFile == null ? Collections.emptyMap() : readCache(cacheFile);
+    Map<String, CachedDirectory> newCache = new ConcurrentHashMap<>();
+
+    List<FileStatus> files = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(
+      parallelism, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("file-listing-%d").build());
+    try {
+      CompletionService<DirectoryListing> completionService = new ExecutorCompletionService<>(executor);
+      int pending = 0;
+      for (FileStatus match : matches) {
+        if (match.isDirectory()) {
+          Long modificationTime = match.getModificationTime();
+          completionService.submit(() -> listDirectory(fs, match.getPath(), modificationTime, cache, newCache));
+          pending++;
+        } else {
+          files.add(toLocatedStatus(fs, match));
+        }
+      }
+
+      while (pending > 0) {
+        DirectoryListing listing = completionService.take().get();
+        pending--;
+        for (FileStatus child : listing.children) {
+          if (!accept(child)) {
+            continue;
+          }
+          if (!child.isDirectory()) {
+            files.add(child);
+          } else if (recursive) {
+            // the modification time of a directory from the cache may be outdated, so it has to be fetched again
+            Long modificationTime = listing.fromCache ? null : child.getModificationTime();
+            completionService.submit(() -> listDirectory(fs, child.getPath(), modificationTime, cache, newCache));
+            pending++;
+          }
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to list " + path, cause);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (cacheFile != null) {
+      writeCache(cacheFile, newCache);
+    }
+    return files;
+  }
+
+  /**
+   * Write a listing to a file, so that it can be read with {@link #read(Configuration, Path)}.
+   */
+  public static void write(Configuration conf, Path file, List<FileStatus> files) throws IOException {
+    FileSystem fs = file.getFileSystem(conf);
+    try (DataOutputStream out = new DataOutputStream(
+      new BufferedOutputStream(new GZIPOutputStream(fs.create(file, true))))) {
+      out.writeInt(VERSION);
+      writeStatuses(out, files);
+    }
+  }
+
+  /**
+   * Read a listing written by {@link #write(Configuration, Path, List)}.
+   */
+  public static List<FileStatus> read(Configuration conf, Path file) throws IOException {
+    FileSystem fs = file.getFileSystem(conf);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fs.open(file))))) {
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException(String.format("Listing file %s has unsupported version %d.", file, version));
+      }
+      return readStatuses(in);
+    }
+  }
+
+  private boolean acceptPath(Path path) {
+    return !isHidden(path) && (filter == null || filter.accept(path));
+  }
+
+  private boolean accept(FileStatus status) {
+    if (isHidden(status.getPath())) {
+      return false;
+    }
+    if (filter == null) {
+      return true;
+    }
+    // the regex filter can decide based on the status, without looking the path up again
+    return filter instanceof RegexPathFilter ?
+      ((RegexPathFilter) filter).accept(status) : filter.accept(status.getPath());
+  }
+
+  /**
+   * Same as the hidden file filter used by FileInputFormat.
+   */
+  private static boolean isHidden(Path path) {
+    String name = path.getName();
+    return name.startsWith("_") || name.startsWith(".");
+  }
+
+  private DirectoryListing listDirectory(FileSystem fs, Path dir, @Nullable Long modificationTime,
+                                         Map<String, CachedDirectory> cache,
+                                         Map<String, CachedDirectory> newCache) throws IOException {
+    long dirModificationTime = modificationTime == null ?
+      fs.getFileStatus(dir).getModificationTime() : modificationTime;
+    String key = dir.toString();
+    CachedDirectory cached = cache.get(key);
+    if (cached != null && cached.modificationTime == dirModificationTime) {
+      newCache.put(key, cached);
+      return new DirectoryListing(cached.children, true);
+    }
+
+    List<FileStatus> children = new ArrayList<>();
+    RemoteIterator<LocatedFileStatus> iterator = fs.listLocatedStatus(dir);
+    while (iterator.hasNext()) {
+      children.add(iterator.next());
+    }
+    newCache.put(key, new CachedDirectory(dirModificationTime, children));
+    return new DirectoryListing(children, false);
+  }
+
+  private FileStatus toLocatedStatus(FileSystem fs, FileStatus status) throws IOException {
+    if (status instanceof LocatedFileStatus) {
+      return status;
+    }
+    return new LocatedFileStatus(status, fs.getFileBlockLocations(status, 0, status.getLen()));
+  }
+
+  private Map<String, CachedDirectory> readCache(Path cacheFile) {
+    try {
+      FileSystem fs = cacheFile.getFileSystem(conf);
+      if (!fs.exists(cacheFile)) {
+        return Collections.emptyMap();
+      }
+      try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new GZIPInputStream(fs.open(cacheFile))))) {
+        if (in.readInt() != VERSION) {
+          return Collections.emptyMap();
+        }
+        int numDirs = in.readInt();
+        Map<String, CachedDirectory> cache = new HashMap<>(numDirs);
+        for (int i = 0; i < numDirs; i++) {
+          String dir = in.readUTF();
+          long modificationTime = in.readLong();
+          cache.put(dir, new CachedDirectory(modificationTime, readStatuses(in)));
+        }
+        return cache;
+      }
+    } catch (IOException e) {
+      // the cache is only an optimization, so everything is listed again if it can't be read
+      LOG.warn("Unable to read file listing cache {}. All directories will be listed.", cacheFile, e);
+      return Collections.emptyMap();
+    }
+  }
+
+  private void writeCache(Path cacheFile, Map<String, CachedDirectory> cache) {
+    try {
+      FileSystem fs = cacheFile.getFileSystem(conf);
+      // write to a temporary file first so that a failure does not leave a partial cache behind
+      Path tmpFile = new Path(cacheFile.getParent(), "." + cacheFile.getName() + "." + UUID.randomUUID());
+      try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new GZIPOutputStream(fs.create(tmpFile, true))))) {
+        out.writeInt(VERSION);
+        out.writeInt(cache.size());
+        for (Map.Entry<String, CachedDirectory> entry : cache.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeLong(entry.getValue().modificationTime);
+          writeStatuses(out, entry.getValue().children);
+        }
+      }
+      fs.delete(cacheFile, false);
+      if (!fs.rename(tmpFile, cacheFile)) {
+        fs.delete(tmpFile, false);
+        LOG.warn("Unable to rename {} to file listing cache {}.", tmpFile, cacheFile);
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to write file listing cache {}.", cacheFile, e);
+    }
+  }
+
+  private static void writeStatuses(DataOutput out, Collection<FileStatus> statuses) throws IOException {
+    out.writeInt(statuses.size());
+    for (FileStatus status : statuses) {
+      out.writeUTF(status.getPath().toString());
+      out.writeBoolean(status.isDirectory());
+      out.writeLong(status.getLen());
+      out.writeShort(status.getReplication());
+      out.writeLong(status.getBlockSize());
+      out.writeLong(status.getModificationTime());
+      BlockLocation[] locations = status instanceof LocatedFileStatus ?
+        ((LocatedFileStatus) status).getBlockLocations() : null;
+      if (locations == null) {
+        out.writeInt(-1);
+        continue;
+      }
+      out.writeInt(locations.length);
+      for (BlockLocation location : locations) {
+        out.writeLong(location.getOffset());
+        out.writeLong(location.getLength());
+        writeStrings(out, location.getNames());
+        writeStrings(out, location.getHosts());
+      }
+    }
+  }
+
+  private static List<FileStatus> readStatuses(DataInput in) throws IOException {
+    int numStatuses = in.readInt();
+    List<FileStatus> statuses = new ArrayList<>(numStatuses);
+    for (int i = 0; i < numStatuses; i++) {
+      Path path = new Path(in.readUTF());
+      boolean isDirectory = in.readBoolean();
+      long length = in.readLong();
+      short replication = in.readShort();
+      long blockSize = in.readLong();
+      long modificationTime = in.readLong();
+      FileStatus status = new FileStatus(length, isDirectory, replication, blockSize, modificationTime, path);
+      int numLocations = in.readInt();
+      if (numLocations < 0) {
+        statuses.add(status);
+        continue;
+      }
+      BlockLocation[] locations = new BlockLocation[numLocations];
+      for (int j = 0; j < numLocations; j++) {
+        long offset = in.readLong();
+        long locationLength = in.readLong();
+        locations[j] = new BlockLocation(readStrings(in), readStrings(in), offset, locationLength);
+      }
+      statuses.add(new LocatedFileStatus(status, locations));
+    }
+    return statuses;
+  }
+
+  private static void writeStrings(DataOutput out, String[] strings) throws IOException {
+    out.writeInt(strings.length);
+    for (String str : strings) {
+      out.writeUTF(str);
+    }
+  }
+
+  private static String[] readStrings(DataInput in) throws IOException {
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    return strings;
+  }
+
+  /**
+   * The contents of a directory, along with whether they came from the cache.
+   */
+  private static class DirectoryListing {
+    private final List<FileStatus> children;
+    private final boolean fromCache;
+
+    DirectoryListing(List<FileStatus> children, boolean fromCache) {
+      this.children = children;
+      this.fromCache = fromCache;
+    }
+  }
+
+  /**
+   * The contents of a directory at the time it had the given modification time.
+   */
+  private static class CachedDirectory {
+    private final long modificationTime;
+    private final List<FileStatus> children;
+
+    CachedDirectory(long modificationTime, List<FileStatus> children) {
+      this.modificationTime = modificationTime;
+      this.children = children;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * Index of the members of a gzip file that consists of multiple gzip members, such as files written by bgzip or
+ * files created by concatenating gzip files. Each member can be decompressed on its own, which allows such files
+ * to be split at member boundaries.
+ *
+ * The index uses the same format as the .gzi index written by bgzip: the number of entries, followed by the
+ * compressed and uncompressed offset of the start of every member except the first, all as little endian
+ * unsigned 64 bit integers. An index written by bgzip next to the file is used if present. Otherwise, the index
+ * is kept in a hidden file, so that it is not read as input.
+ *
+ * Files written by a single gzip invocation consist of a single member, and cannot be split this way.
+ */
+final class GzipIndex {
+  /**
+   * Whether record readers should write an index for multi-member gzip files that do not have one.
+   */
+  static final String CREATE_INDEX = "path.tracking.gzip.create.index";
+  private static final String INDEX_EXTENSION = ".gzi";
+  // starts of all members, including the first member at 0
+  private final long[] compressedOffsets;
+  private final long[] uncompressedOffsets;
+
+  private GzipIndex(long[] compressedOffsets, long[] uncompressedOffsets) {
+    this.compressedOffsets = compressedOffsets;
+    this.uncompressedOffsets = uncompressedOffsets;
+  }
+
+  /**
+   * Creates an index from the member starts recorded while reading the file, in order, including the first member.
+   */
+  static GzipIndex of(List<long[]> memberStarts) {
+    long[] compressedOffsets = new long[memberStarts.size()];
+    long[] uncompressedOffsets = new long[memberStarts.size()];
+    for (int i = 0; i < memberStarts.size(); i++) {
+      compressedOffsets[i] = memberStarts.get(i)[0];
+      uncompressedOffsets[i] = memberStarts.get(i)[1];
+    }
+    return new GzipIndex(compressedOffsets, uncompressedOffsets);
+  }
+
+  /**
+   * Whether there is an index for the file.
+   */
+  static boolean exists(FileSystem fs, Path file) throws IOException {
+    return fs.exists(getIndexPath(file)) || fs.exists(getBgzipIndexPath(file));
+  }
+
+  /**
+   * Reads the index for the file, or returns null if there is none.
+   */
+  @Nullable
+  static GzipIndex read(FileSystem fs, Path file) throws IOException {
+    Path indexPath = getIndexPath(file);
+    if (!fs.exists(indexPath)) {
+      indexPath = getBgzipIndexPath(file);
+      if (!fs.exists(indexPath)) {
+        return null;
+      }
+    }
+    try (FSDataInputStream in = fs.open(indexPath)) {
+      int numEntries = (int) Long.reverseBytes(in.readLong());
+      long[] compressedOffsets = new long[numEntries + 1];
+      long[] uncompressedOffsets = new long[numEntries + 1];
+      for (int i = 1; i <= numEntries; i++) {
+        compressedOffsets[i] = Long.reverseBytes(in.readLong());
+        uncompressedOffsets[i] = Long.reverseBytes(in.readLong());
+      }
+      return new GzipIndex(compressedOffsets, uncompressedOffsets);
+    }
+  }
+
+  /**
+   * Writes the index for the file. It is written to a temporary file first, so that readers never see
+   * a partial index.
+   */
+  void write(FileSystem fs, Path file) throws IOException {
+    Path indexPath = getIndexPath(file);
+    Path tmpPath = new Path(indexPath.getParent(), indexPath.getName() + "." + UUID.randomUUID());
+    try (FSDataOutputStream out = fs.create(tmpPath, true)) {
+      out.writeLong(Long.reverseBytes(compressedOffsets.length - 1));
+      for (int i = 1; i < compressedOffsets.length; i++) {
+        out.writeLong(Long.reverseBytes(compressedOffsets[i]));
+        out.writeLong(Long.reverseBytes(uncompressedOffsets[i]));
+      }
+    }
+    if (!fs.rename(tmpPath, indexPath)) {
+      fs.delete(tmpPath, false);
+    }
+  }
+
+  int size() {
+    return compressedOffsets.length;
+  }
+
+  long getCompressedOffset(int member) {
+    return compressedOffsets[member];
+  }
+
+  long getUncompressedOffset(int member) {
+    return uncompressedOffsets[member];
+  }
+
+  /**
+   * Returns the first member that starts at or after the given compressed offset, or {@link #size()} if there is none.
+   */
+  int getFirstMemberAtOrAfter(long compressedOffset) {
+    int idx = Arrays.binarySearch(compressedOffsets, compressedOffset);
+    return idx >= 0 ? idx : -idx - 1;
+  }
+
+  private static Path getIndexPath(Path file) {
+    return new Path(file.getParent(), "." + file.getName() + INDEX_EXTENSION);
+  }
+
+  private static Path getBgzipIndexPath(Path file) {
+    return new Path(file.getParent(), file.getName() + INDEX_EXTENSION);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.util.LineReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads lines from a split of a gzip file, using the {@link GzipIndex} of the file to decompress only the
+ * members that start in the split. Keys are offsets in the uncompressed data.
+ *
+ * Lines are assigned to splits the same way the LineRecordReader does for uncompressed files, except that
+ * split boundaries are moved to the start of the next member. A reader skips the first line if its split
+ * does not start at the beginning of the file, and reads past the end of its split to finish its last line.
+ *
+ * Without an index, the whole file is read by the split that starts at the beginning of the file. While doing
+ * so, the reader can write the index, so that the file can be split when it is read again.
+ */
+class GzipLineRecordReader extends RecordReader<LongWritable, Text> {
+  private static final Logger LOG = LoggerFactory.getLogger(GzipLineRecordReader.class);
+  private final LongWritable key = new LongWritable();
+  private final Text value = new Text();
+  private FileSystem fs;
+  private Path file;
+  private GzipMemberInputStream gzipIn;
+  private LineReader lineReader;
+  private List<long[]> memberStarts;
+  private long fileLength;
+  // start and end of the split in the uncompressed data
+  private long start;
+  private long end;
+  private long pos;
+  private boolean done;
+  private boolean reachedEnd;
+
+  @Override
+  public void initialize(InputSplit split, TaskAttemptContext context) throws IOException {
+    FileSplit fileSplit = (FileSplit) split;
+    Configuration conf = context.getConfiguration();
+    file = fileSplit.getPath();
+    fs = file.getFileSystem(conf);
+    long splitStart = fileSplit.getStart();
+    long splitEnd = splitStart + fileSplit.getLength();
+
+    long compressedStart = 0L;
+    GzipIndex index = GzipIndex.read(fs, file);
+    if (index == null) {
+      // without an index, the file can only be read from the start
+      if (splitStart != 0L) {
+        done = true;
+        return;
+      }
+      end = Long.MAX_VALUE;
+      if (conf.getBoolean(GzipIndex.CREATE_INDEX, false)) {
+        memberStarts = new ArrayList<>();
+      }
+    } else {
+      int firstMember = index.getFirstMemberAtOrAfter(splitStart);
+      if (firstMember == index.size() || index.getCompressedOffset(firstMember) >= splitEnd) {
+        // no member starts in this split
+        done = true;
+        return;
+      }
+      int endMember = index.getFirstMemberAtOrAfter(splitEnd);
+      compressedStart = index.getCompressedOffset(firstMember);
+      start = index.getUncompressedOffset(firstMember);
+      end = endMember == index.size() ? Long.MAX_VALUE : index.getUncompressedOffset(endMember);
+    }
+
+    fileLength = fs.getFileStatus(file).getLen();
+    FSDataInputStream in = fs.open(file);
+    in.seek(compressedStart);
+    gzipIn = new GzipMemberInputStream(in, compressedStart, start, memberStarts);
+    String delimiter = conf.get("textinputformat.record.delimiter");
+    lineReader = delimiter == null ?
+      new LineReader(gzipIn, conf) : new LineReader(gzipIn, conf, delimiter.getBytes(StandardCharsets.UTF_8));
+    pos = start;
+    if (compressedStart != 0L) {
+      // the first line belongs to the previous split, even if it starts exactly at the split start
+      pos += lineReader.readLine(new Text());
+    }
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    if (done || pos > end) {
+      return false;
+    }
+    key.set(pos);
+    int numBytes = lineReader.readLine(value);
+    if (numBytes == 0) {
+      done = true;
+      reachedEnd = true;
+      return false;
+    }
+    pos += numBytes;
+    return true;
+  }
+
+  @Override
+  public LongWritable getCurrentKey() {
+    return key;
+  }
+
+  @Override
+  public Text getCurrentValue() {
+    return value;
+  }
+
+  @Override
+  public float getProgress() {
+    if (done || gzipIn == null) {
+      return 1.0f;
+    }
+    if (end == Long.MAX_VALUE) {
+      return fileLength == 0L ? 1.0f : Math.min(1.0f, gzipIn.getCompressedPosition() / (float) fileLength);
+    }
+    return end == start ? 1.0f : Math.min(1.0f, (pos - start) / (float) (end - start));
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (lineReader == null) {
+      return;
+    }
+    lineReader.close();
+    lineReader = null;
+    if (reachedEnd && memberStarts != null && memberStarts.size() > 1) {
+      // single member files can't be split, so there is no point in indexing them
+      try {
+        GzipIndex.of(memberStarts).write(fs, file);
+      } catch (IOException e) {
+        LOG.warn("Unable to write the gzip index for {}. The file will not be split when it is read again.",
+                 file, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+/**
+ * Decompresses a sequence of gzip members, starting at the beginning of a member. Unlike GZIPInputStream, it keeps
+ * track of where each member starts in the compressed and uncompressed data, which is used to build a
+ * {@link GzipIndex}.
+ */
+class GzipMemberInputStream extends InputStream {
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private final InputStream in;
+  private final List<long[]> memberStarts;
+  private final Inflater inflater;
+  private final CRC32 crc;
+  private final byte[] buffer;
+  private final byte[] singleByte;
+  // offset in the compressed data of buffer[0]
+  private long bufferOffset;
+  private int bufferPos;
+  private int bufferLength;
+  private long uncompressedPos;
+  private boolean inMember;
+  // whether the header of a member was read, so that data that is not in gzip format is only tolerated after one
+  private boolean memberRead;
+  private boolean eof;
+
+  /**
+   * @param in the compressed data, positioned at the start of a member
+   * @param compressedStart offset of the member in the compressed data
+   * @param uncompressedStart offset of the member in the uncompressed data
+   * @param memberStarts if not null, the compressed and uncompressed offset of each member read is added to it
+   */
+  GzipMemberInputStream(InputStream in, long compressedStart, long uncompressedStart,
+                        @Nullable List<long[]> memberStarts) {
+    this.in = in;
+    this.memberStarts = memberStarts;
+    this.inflater = new Inflater(true);
+    this.crc = new CRC32();
+    this.buffer = new byte[64 * 1024];
+    this.singleByte = new byte[1];
+    this.bufferOffset = compressedStart;
+    this.uncompressedPos = uncompressedStart;
+  }
+
+  /**
+   * Get the offset in the compressed data of the next byte that has not been given to the inflater.
+   */
+  long getCompressedPosition() {
+    return bufferOffset + bufferPos;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] bytes, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (!eof) {
+      if (!inMember) {
+        if (!startMember()) {
+          eof = true;
+          break;
+        }
+        continue;
+      }
+
+      if (inflater.finished()) {
+        // give back the bytes after the end of the deflate data, which start with the trailer
+        bufferPos = bufferLength - inflater.getRemaining();
+        finishMember();
+        continue;
+      }
+      if (inflater.needsInput()) {
+        if (bufferPos == bufferLength && !fill()) {
+          throw new EOFException("Unexpected end of gzip member.");
+        }
+        inflater.setInput(buffer, bufferPos, bufferLength - bufferPos);
+        bufferPos = bufferLength;
+      }
+      int inflated;
+      try {
+        inflated = inflater.inflate(bytes, off, len);
+      } catch (DataFormatException e) {
+        throw new IOException("Invalid gzip data: " + e.getMessage(), e);
+      }
+      if (inflated > 0) {
+        crc.update(bytes, off, inflated);
+        uncompressedPos += inflated;
+        return inflated;
+      }
+      if (inflater.needsDictionary()) {
+        throw new IOException("Invalid gzip data: a preset dictionary is not supported.");
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    in.close();
+  }
+
+  /**
+   * Reads the header of the next member. Returns false if there are no more members.
+   */
+  private boolean startMember() throws IOException {
+    long compressedStart = getCompressedPosition();
+    int id1 = readByte();
+    if (id1 == -1) {
+      return false;
+    }
+    int id2 = readByte();
+    if (id1 != 0x1f || id2 != 0x8b) {
+      if (!memberRead) {
+        throw new IOException("Not in gzip format.");
+      }
+      // same as GZIPInputStream, which ignores trailing data that is not another member
+      return false;
+    }
+    if (readRequiredByte() != 8) {
+      throw new IOException("Unsupported gzip compression method.");
+    }
+    int flags = readRequiredByte();
+    // modification time, extra flags, and operating system
+    skip(6);
+    if ((flags & FEXTRA) != 0) {
+      skip(readRequiredByte() | (readRequiredByte() << 8));
+    }
+    if ((flags & FNAME) != 0) {
+      while (readRequiredByte() != 0) {
+        // skip the file name
+      }
+    }
+    if ((flags & FCOMMENT) != 0) {
+      while (readRequiredByte() != 0) {
+        // skip the comment
+      }
+    }
+    if ((flags & FHCRC) != 0) {
+      skip(2);
+    }
+
+    if (memberStarts != null) {
+      memberStarts.add(new long[] { compressedStart, uncompressedPos });
+    }
+    inflater.reset();
+    crc.reset();
+    inMember = true;
+    memberRead = true;
+    return true;
+  }
+
+  /**
+   * Reads and verifies the trailer of the current member.
+   */
+  private void finishMember() throws IOException {
+    long expectedCrc = readInt();
+    long expectedSize = readInt();
+    if (expectedCrc != crc.getValue()) {
+      throw new IOException("Corrupt gzip member: CRC mismatch.");
+    }
+    // the size is stored modulo 2^32
+    if (expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+      throw new IOException("Corrupt gzip member: size mismatch.");
+    }
+    inMember = false;
+  }
+
+  private long readInt() throws IOException {
+    long value = 0;
+    for (int i = 0; i < 4; i++) {
+      value |= ((long) readRequiredByte()) << (8 * i);
+    }
+    return value;
+  }
+
+  private void skip(int numBytes) throws IOException {
+    for (int i = 0; i < numBytes; i++) {
+      readRequiredByte();
+    }
+  }
+
+  private int readRequiredByte() throws IOException {
+    int b = readByte();
+    if (b == -1) {
+      throw new EOFException("Unexpected end of gzip data.");
+    }
+    return b;
+  }
+
+  private int readByte() throws IOException {
+    if (bufferPos == bufferLength && !fill()) {
+      return -1;
+    }
+    return buffer[bufferPos++] & 0xff;
+  }
+
+  /**
+   * Reads more compressed data into the buffer. Returns false if there is no more data.
+   */
+  private boolean fill() throws IOException {
+    bufferOffset += bufferLength;
+    bufferPos = 0;
+    bufferLength = 0;
+    int numRead = in.read(buffer, 0, buffer.length);
+    if (numRead <= 0) {
+      return false;
+    }
+    bufferLength = numRead;
+    return true;
+  }
+}
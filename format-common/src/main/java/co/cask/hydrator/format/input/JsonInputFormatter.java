@@ -18,8 +18,6 @@ package co.cask.hydrator.format.input;
 
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.format.StructuredRecordStringConverter;
-import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
@@ -27,14 +25,10 @@ import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
-import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
-import javax.annotation.Nullable;
 
 /**
  * Reads json into StructuredRecords.
@@ -51,31 +45,12 @@ public class JsonInputFormatter implements FileInputFormatter {
     return Collections.emptyMap();
   }
 
-  private Schema getModifiedSchema(@Nullable String pathField) {
-    // if the path field is set, it might not be nullable
-    // if it's not nullable, decoding a string into a StructuredRecord will fail because a non-nullable
-    // field will have a null value.
-    // so in these cases, a modified schema is used where the path field is nullable
-    if (pathField == null) {
-      return schema;
-    }
-    List<Schema.Field> fieldCopies = new ArrayList<>(schema.getFields().size());
-    for (Schema.Field field : schema.getFields()) {
-      if (field.getName().equals(pathField) && !field.getSchema().isNullable()) {
-        fieldCopies.add(Schema.Field.of(field.getName(), Schema.nullableOf(field.getSchema())));
-      } else {
-        fieldCopies.add(field);
-      }
-    }
-    return Schema.recordOf(schema.getRecordName(), fieldCopies);
-  }
-
   @Override
   public RecordReader<NullWritable, StructuredRecord.Builder> create(FileSplit split, TaskAttemptContext context) {
-    RecordReader<LongWritable, Text> delegate = (new TextInputFormat()).createRecordReader(split, context);
-    Configuration hConf = context.getConfiguration();
-    String pathField = hConf.get(PathTrackingInputFormat.PATH_FIELD);
-    Schema modifiedSchema = getModifiedSchema(pathField);
+    RecordReader<LongWritable, Text> delegate = TextInputFormatter.createLineRecordReader(split, context);
+    // the record is returned as a builder without validating it, so a non-nullable path field
+    // does not need to be present in the json.
+    JsonRecordDecoder decoder = new JsonRecordDecoder(schema);
 
     return new RecordReader<NullWritable, StructuredRecord.Builder>() {
 
@@ -96,13 +71,8 @@ public class JsonInputFormatter implements FileInputFormatter {
 
       @Override
       public StructuredRecord.Builder getCurrentValue() throws IOException, InterruptedException {
-        String json = delegate.getCurrentValue().toString();
-        StructuredRecord record = StructuredRecordStringConverter.fromJsonString(json, modifiedSchema);
-        StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-        for (Schema.Field field : schema.getFields()) {
-          builder.set(field.getName(), record.get(field.getName()));
-        }
-        return builder;
+        Text json = delegate.getCurrentValue();
+        return decoder.decode(json.getBytes(), 0, json.getLength());
       }
 
       @Override
@@ -0,0 +1,359 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decodes json objects into StructuredRecords in a single pass over the json tokens.
+ *
+ * The decoders for each field, including fields of nested records, arrays, and maps, are built from the schema once
+ * when the decoder is created. Values are written directly into the record builder as they are read,
+ * and fields that are not in the schema are skipped without being decoded.
+ * The characters of each line are decoded into a buffer that is reused for every line, so an instance must only be
+ * used by one thread.
+ */
+class JsonRecordDecoder {
+  private final RecordDecoder recordDecoder;
+  // replaces invalid bytes the same way as decoding them with a reader
+  private final CharsetDecoder utf8Decoder = StandardCharsets.UTF_8.newDecoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private char[] chars = new char[1024];
+
+  JsonRecordDecoder(Schema schema) {
+    this.recordDecoder = new RecordDecoder(schema);
+  }
+
+  /**
+   * Decodes a json object from the given UTF-8 bytes.
+   * The record is returned as a builder so that fields not in the json, like the path field, can still be set.
+   *
+   * @throws IOException if the bytes are not a single json object or a value does not match its schema
+   */
+  StructuredRecord.Builder decode(byte[] bytes, int offset, int length) throws IOException {
+    JsonReader reader = new JsonReader(new CharArrayReader(chars, 0, decodeUtf8(bytes, offset, length)));
+    try {
+      StructuredRecord.Builder builder = recordDecoder.decodeBuilder(reader);
+      // the reader is strict, so this throws if there is anything but whitespace after the object
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new IOException(String.format("Unexpected content after the json object in '%s'.",
+                                            new String(bytes, offset, length, StandardCharsets.UTF_8)));
+      }
+      return builder;
+    } catch (IllegalStateException | NumberFormatException e) {
+      // thrown by the JsonReader when the next token is not the expected type
+      throw new IOException(String.format("Unable to decode json '%s': %s",
+                                          new String(bytes, offset, length, StandardCharsets.UTF_8),
+                                          e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Decodes UTF-8 bytes into the start of the reused char buffer, and returns the number of chars.
+   */
+  private int decodeUtf8(byte[] bytes, int offset, int length) throws IOException {
+    // UTF-8 never decodes to more chars than bytes
+    if (chars.length < length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
+    CharBuffer out = CharBuffer.wrap(chars);
+    utf8Decoder.reset();
+    CoderResult result = utf8Decoder.decode(ByteBuffer.wrap(bytes, offset, length), out, true);
+    if (result.isUnderflow()) {
+      result = utf8Decoder.flush(out);
+    }
+    if (!result.isUnderflow()) {
+      result.throwException();
+    }
+    return out.position();
+  }
+
+  /**
+   * Decodes a single json value.
+   */
+  private interface ValueDecoder {
+    Object decode(JsonReader reader) throws IOException;
+  }
+
+  private static ValueDecoder createDecoder(Schema schema) {
+    switch (schema.getType()) {
+      case NULL:
+        return reader -> {
+          reader.nextNull();
+          return null;
+        };
+      case BOOLEAN:
+        return JsonReader::nextBoolean;
+      case INT:
+        return JsonReader::nextInt;
+      case LONG:
+        return JsonReader::nextLong;
+      case FLOAT:
+        return reader -> (float) reader.nextDouble();
+      case DOUBLE:
+        return JsonReader::nextDouble;
+      case STRING:
+      case ENUM:
+        return JsonReader::nextString;
+      case BYTES:
+        return JsonRecordDecoder::decodeBytes;
+      case ARRAY:
+        return new ArrayDecoder(createDecoder(schema.getComponentSchema()));
+      case MAP:
+        return new MapDecoder(createDecoder(schema.getMapSchema().getValue()));
+      case RECORD:
+        return new RecordDecoder(schema);
+      case UNION:
+        return new UnionDecoder(schema);
+      default:
+        throw new IllegalArgumentException(String.format("Unsupported schema type '%s'.", schema.getType()));
+    }
+  }
+
+  /**
+   * Bytes are written as an array of numbers by CDAP's json encoder. Strings are also accepted and read as UTF-8.
+   */
+  private static ByteBuffer decodeBytes(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.STRING) {
+      return ByteBuffer.wrap(reader.nextString().getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] bytes = new byte[16];
+    int length = 0;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (length == bytes.length) {
+        byte[] grown = new byte[bytes.length * 2];
+        System.arraycopy(bytes, 0, grown, 0, length);
+        bytes = grown;
+      }
+      bytes[length++] = (byte) reader.nextInt();
+    }
+    reader.endArray();
+    return ByteBuffer.wrap(bytes, 0, length).slice();
+  }
+
+  /**
+   * Decodes json objects into records, skipping fields that are not in the schema.
+   */
+  private static class RecordDecoder implements ValueDecoder {
+    private final Schema schema;
+    private final Map<String, ValueDecoder> fieldDecoders;
+
+    RecordDecoder(Schema schema) {
+      this.schema = schema;
+      this.fieldDecoders = new HashMap<>();
+      for (Schema.Field field : schema.getFields()) {
+        fieldDecoders.put(field.getName(), createDecoder(field.getSchema()));
+      }
+    }
+
+    @Override
+    public Object decode(JsonReader reader) throws IOException {
+      return decodeBuilder(reader).build();
+    }
+
+    StructuredRecord.Builder decodeBuilder(JsonReader reader) throws IOException {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        ValueDecoder fieldDecoder = fieldDecoders.get(name);
+        if (fieldDecoder == null) {
+          reader.skipValue();
+        } else {
+          builder.set(name, fieldDecoder.decode(reader));
+        }
+      }
+      reader.endObject();
+      return builder;
+    }
+  }
+
+  /**
+   * Decodes json arrays into lists.
+   */
+  private static class ArrayDecoder implements ValueDecoder {
+    private final ValueDecoder componentDecoder;
+
+    ArrayDecoder(ValueDecoder componentDecoder) {
+      this.componentDecoder = componentDecoder;
+    }
+
+    @Override
+    public Object decode(JsonReader reader) throws IOException {
+      List<Object> list = new ArrayList<>();
+      reader.beginArray();
+      while (reader.hasNext()) {
+        list.add(componentDecoder.decode(reader));
+      }
+      reader.endArray();
+      return list;
+    }
+  }
+
+  /**
+   * Decodes json objects into maps with string keys.
+   */
+  private static class MapDecoder implements ValueDecoder {
+    private final ValueDecoder valueDecoder;
+
+    MapDecoder(ValueDecoder valueDecoder) {
+      this.valueDecoder = valueDecoder;
+    }
+
+    @Override
+    public Object decode(JsonReader reader) throws IOException {
+      Map<String, Object> map = new HashMap<>();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String key = reader.nextName();
+        map.put(key, valueDecoder.decode(reader));
+      }
+      reader.endObject();
+      return map;
+    }
+  }
+
+  /**
+   * Decodes a union by picking the first schema in the union that can hold the type of the next json token.
+   * Numbers are matched to a numeric schema by their value instead, see {@link NumberDecoder}.
+   */
+  private static class UnionDecoder implements ValueDecoder {
+    private final Map<JsonToken, ValueDecoder> decoders;
+
+    UnionDecoder(Schema schema) {
+      this.decoders = new EnumMap<>(JsonToken.class);
+      Set<Schema.Type> numberTypes = EnumSet.noneOf(Schema.Type.class);
+      for (Schema unionSchema : schema.getUnionSchemas()) {
+        ValueDecoder decoder = createDecoder(unionSchema);
+        switch (unionSchema.getType()) {
+          case NULL:
+            decoders.putIfAbsent(JsonToken.NULL, decoder);
+            break;
+          case BOOLEAN:
+            decoders.putIfAbsent(JsonToken.BOOLEAN, decoder);
+            break;
+          case INT:
+          case LONG:
+          case FLOAT:
+          case DOUBLE:
+            numberTypes.add(unionSchema.getType());
+            break;
+          case STRING:
+          case ENUM:
+            decoders.putIfAbsent(JsonToken.STRING, decoder);
+            break;
+          case BYTES:
+            decoders.putIfAbsent(JsonToken.BEGIN_ARRAY, decoder);
+            decoders.putIfAbsent(JsonToken.STRING, decoder);
+            break;
+          case ARRAY:
+            decoders.putIfAbsent(JsonToken.BEGIN_ARRAY, decoder);
+            break;
+          case MAP:
+          case RECORD:
+            decoders.putIfAbsent(JsonToken.BEGIN_OBJECT, decoder);
+            break;
+          default:
+            break;
+        }
+      }
+      if (!numberTypes.isEmpty()) {
+        decoders.put(JsonToken.NUMBER, new NumberDecoder(numberTypes));
+      }
+    }
+
+    @Override
+    public Object decode(JsonReader reader) throws IOException {
+      JsonToken token = reader.peek();
+      ValueDecoder decoder = decoders.get(token);
+      if (decoder == null) {
+        throw new IOException(String.format("Json value of type '%s' does not match any schema in the union.", token));
+      }
+      return decoder.decode(reader);
+    }
+  }
+
+  /**
+   * Decodes a json number in a union with one or more numeric schemas. An integral number is decoded as an int if it
+   * fits in one and the union has an int, otherwise as a long if it fits in one and the union has a long, and
+   * otherwise as a double or a float. A number with a fraction or an exponent is decoded as a double or a float.
+   */
+  private static class NumberDecoder implements ValueDecoder {
+    private final Set<Schema.Type> types;
+
+    NumberDecoder(Set<Schema.Type> types) {
+      this.types = types;
+    }
+
+    @Override
+    public Object decode(JsonReader reader) throws IOException {
+      String number = reader.nextString();
+      if (isIntegral(number)) {
+        try {
+          long value = Long.parseLong(number);
+          if (types.contains(Schema.Type.INT) && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int) value;
+          }
+          if (types.contains(Schema.Type.LONG)) {
+            return value;
+          }
+        } catch (NumberFormatException e) {
+          // too large for a long, so it can only be a double or a float
+        }
+      }
+      if (types.contains(Schema.Type.DOUBLE)) {
+        return Double.parseDouble(number);
+      }
+      if (types.contains(Schema.Type.FLOAT)) {
+        return (float) Double.parseDouble(number);
+      }
+      throw new IOException(String.format("Json number '%s' does not fit any numeric schema in the union %s.",
+                                          number, types));
+    }
+
+    private static boolean isIntegral(String number) {
+      for (int i = 0; i < number.length(); i++) {
+        char c = number.charAt(i);
+        if (c == '.' || c == 'e' || c == 'E') {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
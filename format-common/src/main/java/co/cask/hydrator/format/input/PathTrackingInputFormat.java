@@ -21,8 +21,13 @@ import co.cask.cdap.api.data.schema.Schema;
 import co.cask.hydrator.format.FileFormat;
 import co.cask.hydrator.format.plugin.FileSourceProperties;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.JobContext;
@@ -34,6 +39,7 @@ import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -69,6 +75,7 @@ public class PathTrackingInputFormat extends FileInputFormat<NullWritable, Struc
       conf.set(PATH_FIELD, pathField);
     }
     conf.setBoolean(FILENAME_ONLY, properties.useFilenameAsPath());
+    conf.setBoolean(GzipIndex.CREATE_INDEX, properties.shouldCreateGzipIndex());
     FileFormat format = properties.getFormat();
     if (format == null) {
       throw new IllegalArgumentException("A format must be specified.");
@@ -85,10 +92,44 @@ public class PathTrackingInputFormat extends FileInputFormat<NullWritable, Struc
     }
   }
 
+  /**
+   * Reads the input files from the listing file if one was written by {@link FileListing},
+   * instead of listing the input paths again.
+   */
+  @Override
+  protected List<FileStatus> listStatus(JobContext job) throws IOException {
+    String listingFile = job.getConfiguration().get(FileListing.LISTING_FILE);
+    if (listingFile == null) {
+      return super.listStatus(job);
+    }
+    return FileListing.read(job.getConfiguration(), new Path(listingFile));
+  }
+
   @Override
   protected boolean isSplitable(JobContext context, Path filename) {
     FileFormat fileFormat = FileFormat.valueOf(context.getConfiguration().get(FORMAT));
-    return fileFormat != FileFormat.BLOB;
+    return fileFormat != FileFormat.BLOB && isSplitable(context.getConfiguration(), filename);
+  }
+
+  /**
+   * Whether a file can be split based on its compression. Uncompressed files and files compressed with a splittable
+   * codec, like bzip2, can always be split. Gzip files can be split at member boundaries if they have a
+   * {@link GzipIndex}. Files compressed with other codecs can't be split.
+   */
+  static boolean isSplitable(Configuration conf, Path file) {
+    CompressionCodec codec = new CompressionCodecFactory(conf).getCodec(file);
+    if (codec == null || codec instanceof SplittableCompressionCodec) {
+      return true;
+    }
+    if (!(codec instanceof GzipCodec)) {
+      return false;
+    }
+    try {
+      return GzipIndex.exists(file.getFileSystem(conf), file);
+    } catch (IOException e) {
+      // reading the file as a single split is always correct
+      return false;
+    }
   }
 
   @Deprecated
@@ -21,6 +21,9 @@ import co.cask.cdap.api.data.schema.Schema;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.GzipCodec;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -49,11 +52,24 @@ public class TextInputFormatter implements FileInputFormatter {
 
   @Override
   public RecordReader<NullWritable, StructuredRecord.Builder> create(FileSplit split, TaskAttemptContext context) {
-    RecordReader<LongWritable, Text> delegate = (new TextInputFormat()).createRecordReader(split, context);
+    RecordReader<LongWritable, Text> delegate = createLineRecordReader(split, context);
     String header = context.getConfiguration().get(CombinePathTrackingInputFormat.HEADER);
     return new TextRecordReader(delegate, schema, header);
   }
 
+  /**
+   * Creates the reader for the lines of a text file. Gzip files are read by a {@link GzipLineRecordReader},
+   * so that they can be split if they have an index. Other files are read by the TextInputFormat,
+   * which can split files compressed with a splittable codec like bzip2.
+   */
+  static RecordReader<LongWritable, Text> createLineRecordReader(FileSplit split, TaskAttemptContext context) {
+    CompressionCodec codec = new CompressionCodecFactory(context.getConfiguration()).getCodec(split.getPath());
+    if (codec instanceof GzipCodec) {
+      return new GzipLineRecordReader();
+    }
+    return (new TextInputFormat()).createRecordReader(split, context);
+  }
+
   /**
    * Text record reader
    */
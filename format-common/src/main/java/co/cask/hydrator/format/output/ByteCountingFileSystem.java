@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.output;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CreateFlag;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * A FileSystem that keeps the streams of the files it creates, so that the number of bytes written to a file can
+ * be known while it is still open. HDFS only reports the length of the blocks of a file that are complete, so the
+ * length in the file status of an open file is usually far behind.
+ *
+ * Output formats open their files through the FileSystem of the path, so a configuration returned by
+ * {@link #configure(Configuration, FileSystem)} makes them use this FileSystem, which wraps the regular, cached
+ * FileSystem of that scheme. The streams are registered under an id set in the configuration, and must be released
+ * with {@link #release(String)} once the files are closed.
+ */
+final class ByteCountingFileSystem extends FilterFileSystem {
+  private static final String STREAM_ID = "partitioned.output.counting.stream.id";
+  private static final String DELEGATE_IMPL = "partitioned.output.counting.delegate.impl";
+  private static final String DELEGATE_DISABLE_CACHE = "partitioned.output.counting.delegate.disable.cache";
+  private static final ConcurrentMap<String, FSDataOutputStream> STREAMS = new ConcurrentHashMap<>();
+
+  private String streamId;
+
+  /**
+   * Changes the configuration so that files created through the FileSystem of the given scheme are counted, and
+   * returns the id of their stream.
+   */
+  static String configure(Configuration conf, FileSystem fs) throws IOException {
+    String scheme = fs.getUri().getScheme();
+    String implKey = String.format("fs.%s.impl", scheme);
+    String disableCacheKey = String.format("fs.%s.impl.disable.cache", scheme);
+    String streamId = UUID.randomUUID().toString();
+    conf.setClass(DELEGATE_IMPL, FileSystem.getFileSystemClass(scheme, conf), FileSystem.class);
+    conf.setBoolean(DELEGATE_DISABLE_CACHE, conf.getBoolean(disableCacheKey, false));
+    conf.set(STREAM_ID, streamId);
+    // a new instance is created for every lookup, since the cached instance would not have the stream id
+    conf.setClass(implKey, ByteCountingFileSystem.class, FileSystem.class);
+    conf.setBoolean(disableCacheKey, true);
+    return streamId;
+  }
+
+  /**
+   * Returns the stream of the last file created with the given id, or null if no file was created yet.
+   */
+  @Nullable
+  static FSDataOutputStream getStream(String streamId) {
+    return STREAMS.get(streamId);
+  }
+
+  static void release(String streamId) {
+    STREAMS.remove(streamId);
+  }
+
+  @Override
+  public void initialize(URI name, Configuration conf) throws IOException {
+    String scheme = name.getScheme();
+    Configuration delegateConf = new Configuration(conf);
+    delegateConf.setClass(String.format("fs.%s.impl", scheme),
+                          conf.getClass(DELEGATE_IMPL, null, FileSystem.class), FileSystem.class);
+    delegateConf.setBoolean(String.format("fs.%s.impl.disable.cache", scheme),
+                            conf.getBoolean(DELEGATE_DISABLE_CACHE, false));
+    fs = FileSystem.get(name, delegateConf);
+    streamId = conf.get(STREAM_ID);
+    super.initialize(name, conf);
+  }
+
+  @Override
+  public FSDataOutputStream create(Path f, FsPermission permission, boolean overwrite, int bufferSize,
+                                   short replication, long blockSize, Progressable progress) throws IOException {
+    return register(super.create(f, permission, overwrite, bufferSize, replication, blockSize, progress));
+  }
+
+  @Override
+  public FSDataOutputStream create(Path f, FsPermission permission, EnumSet<CreateFlag> flags, int bufferSize,
+                                   short replication, long blockSize, Progressable progress,
+                                   Options.ChecksumOpt checksumOpt) throws IOException {
+    return register(super.create(f, permission, flags, bufferSize, replication, blockSize, progress, checksumOpt));
+  }
+
+  @Override
+  public void close() throws IOException {
+    // the wrapped FileSystem is the cached instance, which is shared with everything else
+  }
+
+  private FSDataOutputStream register(FSDataOutputStream out) throws IOException {
+    // the position of the outer stream counts every byte written to the file, whether it was flushed or not
+    FSDataOutputStream countingStream = new FSDataOutputStream(out, null);
+    if (streamId != null) {
+      STREAMS.put(streamId, countingStream);
+    }
+    return countingStream;
+  }
+}
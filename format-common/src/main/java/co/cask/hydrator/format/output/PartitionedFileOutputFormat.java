@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.output;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.dataset.lib.KeyValue;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * An OutputFormat that writes each record into a partition directory under the output directory,
+ * using another file based OutputFormat to write the files in each partition.
+ *
+ * The key of each record is the relative path of its partition, as returned by
+ * {@link #getPartitionPath(StructuredRecord, List)}, and the value is the key value expected by the delegate format.
+ * The delegate format writes into the work directory of this format's committer, so files in all partitions are
+ * committed together when the task and job are committed.
+ *
+ * Each task keeps at most a configured number of writers open. When another partition needs to be written to,
+ * the least recently used writer is closed, and a new file is started if that partition is written to again.
+ * Records can optionally be buffered and sorted by partition before being written, which reduces the number of
+ * files when there are more partitions than open writers. A new file is also started once the bytes written to a
+ * file reach the target size.
+ */
+public class PartitionedFileOutputFormat extends FileOutputFormat<String, KeyValue<Object, Object>> {
+  public static final String DELEGATE_FORMAT = "partitioned.output.delegate.format";
+  public static final String MAX_OPEN_WRITERS = "partitioned.output.max.open.writers";
+  public static final String SORT_BUFFER_RECORDS = "partitioned.output.sort.buffer.records";
+  public static final String TARGET_FILE_SIZE = "partitioned.output.target.file.size";
+  public static final int DEFAULT_MAX_OPEN_WRITERS = 100;
+  // Hive and Spark use the same name for partitions of null values
+  private static final String NULL_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+  // Avro output formats use this property instead of the base output name
+  private static final String AVRO_OUTPUT_NAME = "avro.mo.config.namedOutput";
+
+  /**
+   * Get the relative path of the partition for a record, which is a 'field=value' directory for each
+   * partition field, in order. Values are escaped the same way as Hive partition values.
+   */
+  public static String getPartitionPath(StructuredRecord record, List<String> partitionFields) {
+    StringBuilder path = new StringBuilder();
+    for (String field : partitionFields) {
+      if (path.length() > 0) {
+        path.append('/');
+      }
+      escape(field, path);
+      path.append('=');
+      Object value = record.get(field);
+      if (value == null) {
+        path.append(NULL_PARTITION);
+      } else {
+        escape(value.toString(), path);
+      }
+    }
+    return path.toString();
+  }
+
+  private static void escape(String str, StringBuilder path) {
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c < ' ' || c == 0x7F || "\"#%'*/:=?\\{[]^".indexOf(c) >= 0) {
+        path.append('%').append(String.format("%02X", (int) c));
+      } else {
+        path.append(c);
+      }
+    }
+  }
+
+  @Override
+  public RecordWriter<String, KeyValue<Object, Object>> getRecordWriter(TaskAttemptContext context)
+    throws IOException, InterruptedException {
+    Configuration conf = context.getConfiguration();
+    Class<? extends OutputFormat> delegateClass = conf.getClass(DELEGATE_FORMAT, null, OutputFormat.class);
+    if (delegateClass == null) {
+      throw new IOException(String.format("The delegate output format must be set in '%s'.", DELEGATE_FORMAT));
+    }
+    @SuppressWarnings("unchecked")
+    OutputFormat<Object, Object> delegate = ReflectionUtils.newInstance(delegateClass, conf);
+    Path workPath = ((FileOutputCommitter) getOutputCommitter(context)).getWorkPath();
+    return new PartitionedRecordWriter(context, delegate, workPath,
+                                       conf.getInt(MAX_OPEN_WRITERS, DEFAULT_MAX_OPEN_WRITERS),
+                                       conf.getInt(SORT_BUFFER_RECORDS, 0),
+                                       conf.getLong(TARGET_FILE_SIZE, 0L));
+  }
+
+  /**
+   * Routes records to a writer per partition, keeping a bounded number of writers open.
+   */
+  private static class PartitionedRecordWriter extends RecordWriter<String, KeyValue<Object, Object>> {
+    private final TaskAttemptContext context;
+    private final OutputFormat<Object, Object> delegate;
+    private final Path workPath;
+    private final int maxOpenWriters;
+    private final int sortBufferRecords;
+    private final long targetFileSize;
+    // in access order, so that the first writer is always the least recently used one
+    private final LinkedHashMap<String, PartitionWriter> openWriters;
+    private final Map<String, Integer> fileCounts;
+    private final List<KeyValue<String, KeyValue<Object, Object>>> sortBuffer;
+
+    PartitionedRecordWriter(TaskAttemptContext context, OutputFormat<Object, Object> delegate, Path workPath,
+                            int maxOpenWriters, int sortBufferRecords, long targetFileSize) {
+      this.context = context;
+      this.delegate = delegate;
+      this.workPath = workPath;
+      this.maxOpenWriters = maxOpenWriters;
+      this.sortBufferRecords = sortBufferRecords;
+      this.targetFileSize = targetFileSize;
+      this.openWriters = new LinkedHashMap<>(16, 0.75f, true);
+      this.fileCounts = new HashMap<>();
+      this.sortBuffer = new ArrayList<>(Math.max(sortBufferRecords, 0));
+    }
+
+    @Override
+    public void write(String partition, KeyValue<Object, Object> value) throws IOException, InterruptedException {
+      if (sortBufferRecords <= 0) {
+        writeToPartition(partition, value);
+        return;
+      }
+      sortBuffer.add(new KeyValue<>(partition, value));
+      if (sortBuffer.size() >= sortBufferRecords) {
+        flushSortBuffer();
+      }
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException, InterruptedException {
+      flushSortBuffer();
+      IOException failure = null;
+      for (PartitionWriter writer : openWriters.values()) {
+        try {
+          writer.close();
+        } catch (IOException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      openWriters.clear();
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+    private void flushSortBuffer() throws IOException, InterruptedException {
+      // the sort is stable, so records within a partition keep their order
+      sortBuffer.sort((record1, record2) -> record1.getKey().compareTo(record2.getKey()));
+      for (KeyValue<String, KeyValue<Object, Object>> record : sortBuffer) {
+        writeToPartition(record.getKey(), record.getValue());
+      }
+      sortBuffer.clear();
+    }
+
+    private void writeToPartition(String partition, KeyValue<Object, Object> value)
+      throws IOException, InterruptedException {
+      PartitionWriter writer = openWriters.get(partition);
+      if (writer == null) {
+        if (openWriters.size() >= maxOpenWriters) {
+          Iterator<PartitionWriter> leastRecentlyUsed = openWriters.values().iterator();
+          PartitionWriter evicted = leastRecentlyUsed.next();
+          leastRecentlyUsed.remove();
+          evicted.close();
+        }
+        writer = openWriter(partition);
+        openWriters.put(partition, writer);
+      }
+      writer.write(value);
+      if (writer.isPastTargetSize()) {
+        openWriters.remove(partition);
+        writer.close();
+      }
+    }
+
+    private PartitionWriter openWriter(String partition) throws IOException, InterruptedException {
+      int fileNum = fileCounts.merge(partition, 1, Integer::sum) - 1;
+      String baseName = String.format("%s/part-%d", partition, fileNum);
+      // the delegate format names its file after the base output name,
+      // so setting it to a relative path places the file in the partition directory
+      Configuration conf = new Configuration(context.getConfiguration());
+      conf.set(BASE_OUTPUT_NAME, baseName);
+      conf.set(AVRO_OUTPUT_NAME, baseName);
+      TaskAttemptContext partitionContext = new TaskAttemptContextImpl(conf, context.getTaskAttemptID());
+      String streamId = null;
+      if (targetFileSize > 0) {
+        // the delegate format creates the file, so its size is taken from the stream it writes to
+        streamId = ByteCountingFileSystem.configure(conf, workPath.getFileSystem(conf));
+      }
+      RecordWriter<Object, Object> writer = delegate.getRecordWriter(partitionContext);
+      return new PartitionWriter(writer, partitionContext, partition, streamId, targetFileSize);
+    }
+  }
+
+  /**
+   * Writes to a single file in a partition.
+   */
+  private static class PartitionWriter {
+    private final RecordWriter<Object, Object> writer;
+    private final TaskAttemptContext context;
+    private final String partition;
+    private final String streamId;
+    private final long targetFileSize;
+
+    PartitionWriter(RecordWriter<Object, Object> writer, TaskAttemptContext context, String partition,
+                    @Nullable String streamId, long targetFileSize) {
+      this.writer = writer;
+      this.context = context;
+      this.partition = partition;
+      this.streamId = streamId;
+      this.targetFileSize = targetFileSize;
+    }
+
+    void write(KeyValue<Object, Object> value) throws IOException, InterruptedException {
+      writer.write(value.getKey(), value.getValue());
+    }
+
+    /**
+     * Returns whether the bytes written to the file have reached the target size. Formats that buffer data before
+     * writing it, like parquet, can exceed the target size by up to one buffer.
+     */
+    boolean isPastTargetSize() throws IOException {
+      if (streamId == null) {
+        return false;
+      }
+      FSDataOutputStream stream = ByteCountingFileSystem.getStream(streamId);
+      return stream != null && stream.getPos() >= targetFileSize;
+    }
+
+    void close() throws IOException {
+      try {
+        writer.close(context);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while closing the writer for partition " + partition, e);
+      } finally {
+        if (streamId != null) {
+          ByteCountingFileSystem.release(streamId);
+        }
+      }
+    }
+  }
+}
@@ -29,6 +29,7 @@ import co.cask.cdap.etl.api.batch.BatchSinkContext;
 import co.cask.hydrator.common.LineageRecorder;
 import co.cask.hydrator.common.batch.sink.SinkOutputFormatProvider;
 import co.cask.hydrator.format.output.FileOutputFormatter;
+import co.cask.hydrator.format.output.PartitionedFileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 import java.text.SimpleDateFormat;
@@ -37,6 +38,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Writes data to files on Google Cloud Storage.
@@ -47,6 +49,7 @@ public abstract class AbstractFileSink<T extends PluginConfig & FileSinkProperti
   extends BatchSink<StructuredRecord, Object, Object> {
   private final T config;
   private FileOutputFormatter<Object, Object> outputFormatter;
+  private List<String> partitionFields;
 
   protected AbstractFileSink(T config) {
     this.config = config;
@@ -55,6 +58,11 @@ public abstract class AbstractFileSink<T extends PluginConfig & FileSinkProperti
   @Override
   public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
     config.validate();
+    Schema schema = config.getSchema();
+    if (schema == null) {
+      schema = pipelineConfigurer.getStageConfigurer().getInputSchema();
+    }
+    validatePartitionFields(schema);
   }
 
   @Override
@@ -76,6 +84,7 @@ public abstract class AbstractFileSink<T extends PluginConfig & FileSinkProperti
     if (schema == null) {
       schema = context.getInputSchema();
     }
+    validatePartitionFields(schema);
     LineageRecorder lineageRecorder = new LineageRecorder(context, config.getReferenceName());
     lineageRecorder.createExternalDataset(schema);
     if (schema != null && schema.getFields() != null && !schema.getFields().isEmpty()) {
@@ -87,8 +96,21 @@ public abstract class AbstractFileSink<T extends PluginConfig & FileSinkProperti
     outputProperties.putAll(getFileSystemProperties(context));
     outputProperties.put(FileOutputFormat.OUTDIR, getOutputDir(context.getLogicalStartTime()));
 
+    String formatClassName = outputFormatter.getFormatClassName();
+    if (!config.getPartitionFields().isEmpty()) {
+      outputProperties.put(PartitionedFileOutputFormat.DELEGATE_FORMAT, formatClassName);
+      outputProperties.put(PartitionedFileOutputFormat.MAX_OPEN_WRITERS, String.valueOf(config.getMaxOpenWriters()));
+      outputProperties.put(PartitionedFileOutputFormat.SORT_BUFFER_RECORDS,
+                           String.valueOf(config.getPreSortRecords()));
+      Long targetFileSize = config.getTargetFileSize();
+      if (targetFileSize != null) {
+        outputProperties.put(PartitionedFileOutputFormat.TARGET_FILE_SIZE, String.valueOf(targetFileSize));
+      }
+      formatClassName = PartitionedFileOutputFormat.class.getName();
+    }
+
     context.addOutput(Output.of(config.getReferenceName(),
-                                new SinkOutputFormatProvider(outputFormatter.getFormatClassName(), outputProperties)));
+                                new SinkOutputFormatProvider(formatClassName, outputProperties)));
   }
 
   @Override
@@ -96,11 +118,18 @@ public abstract class AbstractFileSink<T extends PluginConfig & FileSinkProperti
     super.initialize(context);
     outputFormatter = config.getFormat().getFileOutputFormatter(config.getProperties().getProperties(),
                                                                 config.getSchema());
+    partitionFields = config.getPartitionFields();
   }
 
   @Override
   public void transform(StructuredRecord input, Emitter<KeyValue<Object, Object>> emitter) throws Exception {
-    emitter.emit(outputFormatter.transform(input));
+    if (partitionFields.isEmpty()) {
+      emitter.emit(outputFormatter.transform(input));
+    } else {
+      // the output format expects the partition path as key and the key value for the actual format as value
+      emitter.emit(new KeyValue<>(PartitionedFileOutputFormat.getPartitionPath(input, partitionFields),
+                                  outputFormatter.transform(input)));
+    }
   }
 
   /**
@@ -120,6 +149,28 @@ public abstract class AbstractFileSink<T extends PluginConfig & FileSinkProperti
                                 outputFields);
   }
 
+  /**
+   * Partition fields must be simple types, so that their values can be used as directory names.
+   */
+  private void validatePartitionFields(@Nullable Schema schema) {
+    if (schema == null || schema.getFields() == null) {
+      return;
+    }
+    for (String partitionField : config.getPartitionFields()) {
+      Schema.Field field = schema.getField(partitionField);
+      if (field == null) {
+        throw new IllegalArgumentException(String.format("Partition field '%s' does not exist in the schema.",
+                                                         partitionField));
+      }
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      if (!fieldSchema.getType().isSimpleType() || fieldSchema.getType() == Schema.Type.BYTES) {
+        throw new IllegalArgumentException(String.format(
+          "Partition field '%s' is of unsupported type '%s'. Partition fields must be a boolean, int, long, " +
+            "float, double, or string.", partitionField, fieldSchema.getType()));
+      }
+    }
+  }
+
   private String getOutputDir(long logicalStartTime) {
     String suffix = config.getSuffix();
     String timeSuffix = suffix == null || suffix.isEmpty() ? "" : new SimpleDateFormat(suffix).format(logicalStartTime);
@@ -22,9 +22,13 @@ import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.plugin.PluginConfig;
 import co.cask.hydrator.common.IdUtils;
 import co.cask.hydrator.format.FileFormat;
+import co.cask.hydrator.format.output.PartitionedFileOutputFormat;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -58,6 +62,33 @@ public abstract class AbstractFileSinkConfig extends PluginConfig implements Fil
   @Description("The schema of the data to write.")
   private String schema;
 
+  @Macro
+  @Nullable
+  @Description("Comma-separated list of fields to partition the output by. Each record is written to a " +
+    "'field=value' directory for each of these fields, in order. For example, 'date,tenant' will write records " +
+    "to directories like 'date=2018-01-01/tenant=abc'. If not specified, the output is not partitioned.")
+  private String partitionFields;
+
+  @Macro
+  @Nullable
+  @Description("The maximum number of partition files each task keeps open at the same time. When another " +
+    "partition needs to be written to, the least recently used file is closed. Defaults to 100.")
+  private Integer maxOpenWriters;
+
+  @Macro
+  @Nullable
+  @Description("The number of records each task buffers and sorts by partition before writing them. " +
+    "This reduces the number of files written when there are more partitions than open files, " +
+    "at the cost of keeping the records in memory. If not specified, records are written as they come in.")
+  private Integer preSortRecords;
+
+  @Macro
+  @Nullable
+  @Description("The size in bytes after which a new file is started in a partition. Formats that buffer data, " +
+    "like parquet, only count the data they have written, so files can be somewhat larger. " +
+    "If not specified, files are not rolled.")
+  private Long targetFileSize;
+
   public void validate() {
     IdUtils.validateId(referenceName);
     if (suffix != null && !containsMacro("suffix")) {
@@ -67,6 +98,18 @@ public abstract class AbstractFileSinkConfig extends PluginConfig implements Fil
       getFormat();
     }
     getSchema();
+    if (!containsMacro("maxOpenWriters") && getMaxOpenWriters() < 1) {
+      throw new IllegalArgumentException(String.format("Invalid maxOpenWriters %d. It must be at least 1.",
+                                                       maxOpenWriters));
+    }
+    if (!containsMacro("preSortRecords") && getPreSortRecords() < 0) {
+      throw new IllegalArgumentException(String.format("Invalid preSortRecords %d. It must not be negative.",
+                                                       preSortRecords));
+    }
+    if (!containsMacro("targetFileSize") && targetFileSize != null && targetFileSize < 1) {
+      throw new IllegalArgumentException(String.format("Invalid targetFileSize %d. It must be positive.",
+                                                       targetFileSize));
+    }
   }
 
   @Override
@@ -92,6 +135,37 @@ public abstract class AbstractFileSinkConfig extends PluginConfig implements Fil
     }
   }
 
+  @Override
+  public List<String> getPartitionFields() {
+    if (partitionFields == null || partitionFields.trim().isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> fields = new ArrayList<>();
+    for (String field : partitionFields.split(",")) {
+      field = field.trim();
+      if (!field.isEmpty()) {
+        fields.add(field);
+      }
+    }
+    return fields;
+  }
+
+  @Override
+  public int getMaxOpenWriters() {
+    return maxOpenWriters == null ? PartitionedFileOutputFormat.DEFAULT_MAX_OPEN_WRITERS : maxOpenWriters;
+  }
+
+  @Override
+  public int getPreSortRecords() {
+    return preSortRecords == null ? 0 : preSortRecords;
+  }
+
+  @Override
+  @Nullable
+  public Long getTargetFileSize() {
+    return targetFileSize;
+  }
+
   /**
    * Logically equivalent to valueOf except it throws an exception with a message that indicates what the valid
    * enum values are.
@@ -32,6 +32,7 @@ import co.cask.hydrator.format.FileFormat;
 import co.cask.hydrator.format.RegexPathFilter;
 import co.cask.hydrator.format.input.CombinePathTrackingInputFormat;
 import co.cask.hydrator.format.input.EmptyInputFormat;
+import co.cask.hydrator.format.input.FileListing;
 import co.cask.hydrator.format.input.PathTrackingInputFormat;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
@@ -40,11 +41,14 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -62,7 +66,10 @@ import java.util.stream.Collectors;
  */
 public abstract class AbstractFileSource<T extends PluginConfig & FileSourceProperties>
   extends BatchSource<NullWritable, StructuredRecord, StructuredRecord> {
+  private static final Logger LOG = LoggerFactory.getLogger(AbstractFileSource.class);
   private final T config;
+  private Configuration listingConf;
+  private Path listingFile;
 
   protected AbstractFileSource(T config) {
     this.config = config;
@@ -136,6 +143,9 @@ public abstract class AbstractFileSource<T extends PluginConfig & FileSourceProp
       }
     } else {
       FileInputFormat.addInputPath(job, path);
+      if (config.getListingParallelism() > 1 || config.getListingCacheDir() != null) {
+        listInput(context, job, path);
+      }
       FileInputFormat.setMaxInputSplitSize(job, config.getMaxSplitSize());
       PathTrackingInputFormat.configure(job, config, config.getProperties().getProperties());
       FileFormat format = config.getFormat();
@@ -154,6 +164,18 @@ public abstract class AbstractFileSource<T extends PluginConfig & FileSourceProp
     context.setInput(Input.of(config.getReferenceName(), new SourceInputFormatProvider(inputFormatClass, conf)));
   }
 
+  @Override
+  public void onRunFinish(boolean succeeded, BatchSourceContext context) {
+    super.onRunFinish(succeeded, context);
+    if (listingFile != null) {
+      try {
+        listingFile.getFileSystem(listingConf).delete(listingFile, false);
+      } catch (IOException e) {
+        LOG.warn("Unable to delete input listing file {}.", listingFile, e);
+      }
+    }
+  }
+
   @Override
   public void transform(KeyValue<NullWritable, StructuredRecord> input,
                         Emitter<StructuredRecord> emitter) throws Exception {
@@ -169,6 +191,33 @@ public abstract class AbstractFileSource<T extends PluginConfig & FileSourceProp
     return Collections.emptyMap();
   }
 
+  /**
+   * Lists the input with multiple threads and the optional listing cache, and writes the result to a file that the
+   * input format reads instead of listing the input again. The time it took is reported in the
+   * 'listing.time.ms' metric.
+   */
+  private void listInput(BatchSourceContext context, Job job, Path path) throws IOException, InterruptedException {
+    Configuration conf = job.getConfiguration();
+    String cacheDir = config.getListingCacheDir();
+    long start = System.currentTimeMillis();
+    FileListing fileListing = new FileListing(conf, config.getListingParallelism(), config.shouldReadRecursively(),
+                                              FileInputFormat.getInputPathFilter(job),
+                                              cacheDir == null ? null : new Path(cacheDir));
+    List<FileStatus> files = fileListing.list(path);
+    long listingTime = System.currentTimeMillis() - start;
+    context.getMetrics().gauge("listing.time.ms", listingTime);
+    context.getMetrics().gauge("listing.files", files.size());
+    LOG.info("Listed {} files in {} in {} ms.", files.size(), path, listingTime);
+
+    // the listing is written next to the cache if there is one, so that it is on a FileSystem that is known to work
+    Path listingDir = new Path(cacheDir == null ? conf.get("hadoop.tmp.dir") : cacheDir);
+    FileSystem listingFs = listingDir.getFileSystem(conf);
+    listingFile = listingFs.makeQualified(new Path(listingDir, "listing-" + UUID.randomUUID()));
+    listingConf = conf;
+    FileListing.write(conf, listingFile, files);
+    conf.set(FileListing.LISTING_FILE, listingFile.toString());
+  }
+
   /**
    * Override this to specify a custom field level operation name and description.
    */
@@ -90,6 +90,26 @@ public abstract class AbstractFileSourceConfig extends PluginConfig implements F
     + "is anything other than 'delimited'.")
   private String delimiter;
 
+  @Macro
+  @Nullable
+  @Description("The number of directories to list at the same time when planning the input. "
+    + "Increasing this can greatly reduce planning time for inputs with many directories. The default is 1.")
+  private Integer listingParallelism;
+
+  @Macro
+  @Nullable
+  @Description("Directory to cache the listing of the input in between runs. Directories whose modification time "
+    + "has not changed since the previous run are not listed again. This assumes that files are not modified "
+    + "in place. If not specified, the listing is not cached.")
+  private String listingCacheDir;
+
+  @Macro
+  @Nullable
+  @Description("Whether to write an index next to gzip files that consist of multiple gzip members, such as files "
+    + "written by bgzip, the first time they are read. Indexed gzip files are split when they are read again. "
+    + "The index is written to a hidden file. The default is false.")
+  private Boolean createGzipIndex;
+
   // this is a hidden property that only exists for wrangler's parse-as-csv that uses the header as the schema
   // when this is true and the format is text, the header will be the first record returned by every record reader
   @Nullable
@@ -103,6 +123,8 @@ public abstract class AbstractFileSourceConfig extends PluginConfig implements F
     recursive = false;
     filenameOnly = false;
     copyHeader = false;
+    listingParallelism = 1;
+    createGzipIndex = false;
   }
 
   public void validate() {
@@ -116,6 +138,10 @@ public abstract class AbstractFileSourceConfig extends PluginConfig implements F
     if (!containsMacro("schema")) {
       getSchema();
     }
+    if (!containsMacro("listingParallelism") && getListingParallelism() < 1) {
+      throw new IllegalArgumentException(String.format("Invalid listingParallelism %d. It must be at least 1.",
+                                                       listingParallelism));
+    }
   }
 
   @Override
@@ -169,6 +195,22 @@ public abstract class AbstractFileSourceConfig extends PluginConfig implements F
     }
   }
 
+  @Override
+  public int getListingParallelism() {
+    return listingParallelism == null ? 1 : listingParallelism;
+  }
+
+  @Nullable
+  @Override
+  public String getListingCacheDir() {
+    return listingCacheDir;
+  }
+
+  @Override
+  public boolean shouldCreateGzipIndex() {
+    return createGzipIndex != null && createGzipIndex;
+  }
+
   public boolean shouldCopyHeader() {
     return copyHeader;
   }
@@ -18,7 +18,10 @@ package co.cask.hydrator.format.plugin;
 
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.hydrator.format.FileFormat;
+import co.cask.hydrator.format.output.PartitionedFileOutputFormat;
 
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -65,4 +68,35 @@ public interface FileSinkProperties {
    */
   @Nullable
   String getSuffix();
+
+  /**
+   * Get the fields to partition the output by. Each record is written to a 'field=value' directory
+   * for each of these fields, in order. If empty, all records are written directly to the output directory.
+   */
+  default List<String> getPartitionFields() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Get the maximum number of partition files each task keeps open at the same time.
+   */
+  default int getMaxOpenWriters() {
+    return PartitionedFileOutputFormat.DEFAULT_MAX_OPEN_WRITERS;
+  }
+
+  /**
+   * Get the number of records each task buffers and sorts by partition before writing them,
+   * or 0 if records should be written as they come in.
+   */
+  default int getPreSortRecords() {
+    return 0;
+  }
+
+  /**
+   * Get the size in bytes after which a new file is started in a partition, or null if files should not be rolled.
+   */
+  @Nullable
+  default Long getTargetFileSize() {
+    return null;
+  }
 }
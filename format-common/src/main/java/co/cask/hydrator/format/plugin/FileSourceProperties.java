@@ -91,4 +91,28 @@ public interface FileSourceProperties {
    */
   @Nullable
   Schema getSchema();
+
+  /**
+   * The number of directories to list at the same time when planning the input.
+   * If this is 1 and there is no listing cache directory, the input is listed by the Hadoop input format.
+   */
+  default int getListingParallelism() {
+    return 1;
+  }
+
+  /**
+   * The directory to cache the input listing in between runs, or null if the listing should not be cached.
+   */
+  @Nullable
+  default String getListingCacheDir() {
+    return null;
+  }
+
+  /**
+   * Whether record readers should write an index for multi-member gzip files that don't have one,
+   * so that the files can be split when they are read again.
+   */
+  default boolean shouldCreateGzipIndex() {
+    return false;
+  }
 }
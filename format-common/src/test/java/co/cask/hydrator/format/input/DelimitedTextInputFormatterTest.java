@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.format.UnexpectedFormatException;
+import co.cask.cdap.api.data.schema.Schema;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DelimitedTextInputFormatter}.
+ */
+public class DelimitedTextInputFormatterTest {
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("i", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("l", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+    Schema.Field.of("d", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))));
+
+  @Test
+  public void testDecode() throws Exception {
+    StructuredRecord record = read("-12,12345678901234567890,1.5").build();
+    Assert.assertEquals(-12, (int) record.get("i"));
+    Assert.assertEquals(1.5d, record.<Double>get("d"), 0d);
+    Assert.assertNull(read("2147483647,,").build().get("l"));
+  }
+
+  @Test
+  public void testBadNumbers() throws Exception {
+    // both the digit parser and the fallback to the JDK parsers fail with the same exception as convertAndSet
+    for (String line : new String[] { "x,1,1", "2147483648,1,1", "1,1a,1", "1,99999999999999999999,1", "1,1,d" }) {
+      try {
+        read(line);
+        Assert.fail("Expected a failure for line '" + line + "'.");
+      } catch (UnexpectedFormatException e) {
+        Assert.assertTrue(e.getCause() instanceof NumberFormatException);
+      }
+    }
+  }
+
+  private static StructuredRecord.Builder read(String line) throws Exception {
+    return new DelimitedTextInputFormatter.DelimitedRecordReader(new LineReader(line), SCHEMA, ",")
+      .getCurrentValue();
+  }
+
+  /**
+   * Returns a single line as the current value.
+   */
+  private static class LineReader extends RecordReader<LongWritable, Text> {
+    private final Text line;
+
+    LineReader(String line) {
+      this.line = new Text(line);
+    }
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) {
+      // no-op
+    }
+
+    @Override
+    public boolean nextKeyValue() {
+      return false;
+    }
+
+    @Override
+    public LongWritable getCurrentKey() {
+      return new LongWritable(0L);
+    }
+
+    @Override
+    public Text getCurrentValue() {
+      return line;
+    }
+
+    @Override
+    public float getProgress() {
+      return 1f;
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import co.cask.hydrator.format.RegexPathFilter;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tests for {@link FileListing}.
+ */
+public class FileListingTest {
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testRecursiveListing() throws Exception {
+    File input = createInput();
+    Configuration conf = new Configuration();
+
+    FileListing listing = new FileListing(conf, 4, true, null, null);
+    Assert.assertEquals(ImmutableSet.of("a.txt", "b.csv", "c.txt", "d.txt"), getNames(listing.list(toPath(input))));
+
+    listing = new FileListing(conf, 4, false, null, null);
+    Assert.assertEquals(ImmutableSet.of("a.txt", "b.csv"), getNames(listing.list(toPath(input))));
+  }
+
+  @Test
+  public void testRegexFilter() throws Exception {
+    File input = createInput();
+    Configuration conf = new Configuration();
+    RegexPathFilter.configure(conf, Pattern.compile(".*\\.txt"));
+    RegexPathFilter filter = new RegexPathFilter();
+    filter.setConf(conf);
+
+    FileListing listing = new FileListing(conf, 2, true, filter, null);
+    Assert.assertEquals(ImmutableSet.of("a.txt", "c.txt", "d.txt"), getNames(listing.list(toPath(input))));
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    File input = createInput();
+    Path cacheDir = toPath(TMP_FOLDER.newFolder());
+    Configuration conf = new Configuration();
+
+    FileListing listing = new FileListing(conf, 2, true, null, cacheDir);
+    Assert.assertEquals(ImmutableSet.of("a.txt", "b.csv", "c.txt", "d.txt"), getNames(listing.list(toPath(input))));
+
+    // a file added to a sub-directory changes the modification time of only that directory,
+    // so it must be found even though its parent is listed from the cache
+    File newFile = new File(input, "sub1/sub2/e.txt");
+    writeFile(newFile);
+    Assert.assertTrue(new File(input, "sub1/sub2").setLastModified(System.currentTimeMillis() + 60000));
+    Assert.assertEquals(ImmutableSet.of("a.txt", "b.csv", "c.txt", "d.txt", "e.txt"),
+                        getNames(listing.list(toPath(input))));
+
+    // files from the cache still have block locations
+    for (FileStatus status : listing.list(toPath(input))) {
+      Assert.assertTrue(status instanceof LocatedFileStatus);
+      Assert.assertNotNull(((LocatedFileStatus) status).getBlockLocations());
+    }
+  }
+
+  @Test
+  public void testWriteRead() throws Exception {
+    File input = createInput();
+    Configuration conf = new Configuration();
+    List<FileStatus> files = new FileListing(conf, 2, true, null, null).list(toPath(input));
+
+    Path listingFile = new Path(toPath(TMP_FOLDER.newFolder()), "listing");
+    FileListing.write(conf, listingFile, files);
+    List<FileStatus> read = FileListing.read(conf, listingFile);
+    Assert.assertEquals(files.size(), read.size());
+    for (int i = 0; i < files.size(); i++) {
+      Assert.assertEquals(files.get(i).getPath(), read.get(i).getPath());
+      Assert.assertEquals(files.get(i).getLen(), read.get(i).getLen());
+      Assert.assertEquals(files.get(i).getModificationTime(), read.get(i).getModificationTime());
+    }
+  }
+
+  @Test(expected = FileNotFoundException.class)
+  public void testMissingInput() throws Exception {
+    File input = new File(TMP_FOLDER.newFolder(), "missing");
+    new FileListing(new Configuration(), 2, true, null, null).list(toPath(input));
+  }
+
+  /**
+   * Creates an input directory with the files a.txt, b.csv, sub1/c.txt, sub1/sub2/d.txt and hidden files.
+   */
+  private static File createInput() throws IOException {
+    File input = TMP_FOLDER.newFolder();
+    writeFile(new File(input, "a.txt"));
+    writeFile(new File(input, "b.csv"));
+    writeFile(new File(input, "_SUCCESS"));
+    writeFile(new File(input, ".hidden.txt"));
+    writeFile(new File(input, "sub1/c.txt"));
+    writeFile(new File(input, "sub1/sub2/d.txt"));
+    writeFile(new File(input, "_hidden/f.txt"));
+    return input;
+  }
+
+  private static void writeFile(File file) throws IOException {
+    Files.createDirectories(file.getParentFile().toPath());
+    Files.write(file.toPath(), "data".getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Path toPath(File file) {
+    return new Path(file.toURI());
+  }
+
+  private static Set<String> getNames(Collection<FileStatus> files) {
+    Set<String> names = new HashSet<>();
+    for (FileStatus file : files) {
+      names.add(file.getPath().getName());
+    }
+    return names;
+  }
+}
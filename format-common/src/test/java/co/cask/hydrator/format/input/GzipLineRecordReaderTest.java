@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for {@link GzipLineRecordReader}.
+ */
+public class GzipLineRecordReaderTest {
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testSplitWithIndex() throws Exception {
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      lines.add("line " + i);
+    }
+    // members end in the middle of a line, at the end of a line, and one member is empty
+    File file = writeGzip(lines, new int[] { 1001, 2000, 2000, 4567 });
+    Configuration conf = new Configuration();
+    conf.setBoolean(GzipIndex.CREATE_INDEX, true);
+    Path path = new Path(file.toURI());
+
+    // without an index the whole file is read by the first split, which writes the index
+    Assert.assertEquals(lines, readSplits(conf, path, file.length()));
+    Assert.assertTrue(PathTrackingInputFormat.isSplitable(conf, path));
+
+    for (long splitSize : new long[] { 1, 10, 100, 500, 1000, file.length() }) {
+      Assert.assertEquals("Wrong lines for split size " + splitSize, lines, readSplits(conf, path, splitSize));
+    }
+  }
+
+  @Test
+  public void testSingleMemberNotSplit() throws Exception {
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      lines.add("line " + i);
+    }
+    File file = writeGzip(lines, new int[0]);
+    Configuration conf = new Configuration();
+    conf.setBoolean(GzipIndex.CREATE_INDEX, true);
+    Path path = new Path(file.toURI());
+
+    // splits other than the first one don't read anything without an index
+    Assert.assertEquals(lines, readSplits(conf, path, 50));
+    // single member files are not indexed
+    Assert.assertFalse(PathTrackingInputFormat.isSplitable(conf, path));
+  }
+
+  @Test
+  public void testNotInGzipFormat() throws Exception {
+    File file = new File(TMP_FOLDER.newFolder(), "data.txt.gz");
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write("line 0\nline 1\n".getBytes(StandardCharsets.UTF_8));
+    }
+    Path path = new Path(file.toURI());
+
+    for (boolean createIndex : new boolean[] { false, true }) {
+      Configuration conf = new Configuration();
+      conf.setBoolean(GzipIndex.CREATE_INDEX, createIndex);
+      try {
+        readSplits(conf, path, file.length());
+        Assert.fail("Expected a failure for a file that is not in gzip format, with createIndex " + createIndex);
+      } catch (IOException e) {
+        Assert.assertEquals("Not in gzip format.", e.getMessage());
+      }
+    }
+  }
+
+  private static List<String> readSplits(Configuration conf, Path path, long splitSize) throws Exception {
+    long length = path.getFileSystem(conf).getFileStatus(path).getLen();
+    TaskAttemptContext context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+    List<String> lines = new ArrayList<>();
+    for (long start = 0; start < length; start += splitSize) {
+      try (GzipLineRecordReader reader = new GzipLineRecordReader()) {
+        reader.initialize(new FileSplit(path, start, Math.min(splitSize, length - start), null), context);
+        while (reader.nextKeyValue()) {
+          lines.add(reader.getCurrentValue().toString());
+        }
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Writes the lines to a gzip file, starting a new gzip member at each of the given uncompressed offsets.
+   */
+  private static File writeGzip(List<String> lines, int[] memberStarts) throws IOException {
+    StringBuilder data = new StringBuilder();
+    for (String line : lines) {
+      data.append(line).append('\n');
+    }
+    byte[] bytes = data.toString().getBytes(StandardCharsets.UTF_8);
+    File file = new File(TMP_FOLDER.newFolder(), "data.txt.gz");
+    try (OutputStream out = new FileOutputStream(file)) {
+      int start = 0;
+      for (int i = 0; i <= memberStarts.length; i++) {
+        int end = i == memberStarts.length ? bytes.length : memberStarts[i];
+        GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+        gzipOut.write(bytes, start, end - start);
+        gzipOut.finish();
+        start = end;
+      }
+    }
+    return file;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.format.input;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.format.StructuredRecordStringConverter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link JsonRecordDecoder}.
+ */
+public class JsonRecordDecoderTest {
+  private static final Schema INNER_SCHEMA = Schema.recordOf(
+    "inner",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("tags", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("i", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("f", Schema.of(Schema.Type.FLOAT)),
+    Schema.Field.of("d", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+    Schema.Field.of("b", Schema.of(Schema.Type.BOOLEAN)),
+    Schema.Field.of("s", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("m", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.INT))),
+    Schema.Field.of("inner", Schema.nullableOf(INNER_SCHEMA)),
+    Schema.Field.of("u", Schema.unionOf(Schema.of(Schema.Type.NULL), Schema.of(Schema.Type.LONG),
+                                        Schema.of(Schema.Type.STRING))));
+
+  @Test
+  public void testDecode() throws Exception {
+    StructuredRecord expected = StructuredRecord.builder(SCHEMA)
+      .set("i", 5)
+      .set("f", 1.5f)
+      .set("d", null)
+      .set("b", true)
+      .set("s", "abc")
+      .set("m", ImmutableMap.of("x", 1, "y", 2))
+      .set("inner", StructuredRecord.builder(INNER_SCHEMA)
+        .set("id", 10L)
+        .set("tags", ImmutableList.of("t1", "t2"))
+        .build())
+      .set("u", "str")
+      .build();
+    String json = StructuredRecordStringConverter.toJsonString(expected);
+
+    Assert.assertEquals(expected, decode(new JsonRecordDecoder(SCHEMA), json));
+    Assert.assertEquals(expected, StructuredRecordStringConverter.fromJsonString(json, SCHEMA));
+  }
+
+  @Test
+  public void testUnknownFieldsAreSkipped() throws Exception {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+                                    Schema.Field.of("path", Schema.of(Schema.Type.STRING)));
+    String json = "{ \"a\": { \"b\": [1, 2, { \"c\": null }] }, \"x\": 3, \"z\": \"unused\" }";
+
+    byte[] bytes = toBytes(json);
+    StructuredRecord.Builder builder = new JsonRecordDecoder(schema).decode(bytes, 0, bytes.length);
+    // a non-nullable field that is not in the json can still be set on the returned builder
+    StructuredRecord record = builder.set("path", "/tmp/file").build();
+    Assert.assertEquals(3, (int) record.get("x"));
+    Assert.assertEquals("/tmp/file", record.get("path"));
+  }
+
+  @Test
+  public void testDecodeWithOffset() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    byte[] bytes = toBytes("garbage{\"x\":7}garbage");
+
+    StructuredRecord record = new JsonRecordDecoder(schema).decode(bytes, 7, 7).build();
+    Assert.assertEquals(7, (int) record.get("x"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testTypeMismatch() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    decode(new JsonRecordDecoder(schema), "{\"x\":\"abc\"}");
+  }
+
+  @Test(expected = IOException.class)
+  public void testNullForNonNullableField() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    decode(new JsonRecordDecoder(schema), "{\"x\":null}");
+  }
+
+  @Test
+  public void testNumbersInUnions() throws Exception {
+    Schema schema = Schema.recordOf(
+      "record",
+      Schema.Field.of("id", Schema.unionOf(Schema.of(Schema.Type.INT), Schema.of(Schema.Type.DOUBLE))),
+      Schema.Field.of("il", Schema.unionOf(Schema.of(Schema.Type.INT), Schema.of(Schema.Type.LONG))),
+      Schema.Field.of("nl", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+      Schema.Field.of("lf", Schema.unionOf(Schema.of(Schema.Type.LONG), Schema.of(Schema.Type.FLOAT))));
+    JsonRecordDecoder decoder = new JsonRecordDecoder(schema);
+
+    StructuredRecord record = decode(decoder, "{\"id\":1.5,\"il\":3,\"nl\":null,\"lf\":7}");
+    Assert.assertEquals(1.5d, record.<Double>get("id"), 0d);
+    Assert.assertEquals(3, (int) record.get("il"));
+    Assert.assertNull(record.get("nl"));
+    Assert.assertEquals(7L, (long) record.get("lf"));
+
+    record = decode(decoder, "{\"id\":2,\"il\":1099511627776,\"nl\":5,\"lf\":2.5e1}");
+    Assert.assertEquals(2, (int) record.get("id"));
+    Assert.assertEquals(1099511627776L, (long) record.get("il"));
+    Assert.assertEquals(5L, (long) record.get("nl"));
+    Assert.assertEquals(25f, record.<Float>get("lf"), 0f);
+
+    // too large for an int or a long, so only the double branch can hold it
+    record = decode(decoder, "{\"id\":99999999999999999999,\"il\":0,\"nl\":null,\"lf\":0}");
+    Assert.assertEquals(1e20d, record.<Double>get("id"), 0d);
+  }
+
+  @Test(expected = IOException.class)
+  public void testNumberNotInUnion() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("x", Schema.nullableOf(Schema.of(Schema.Type.LONG))));
+    decode(new JsonRecordDecoder(schema), "{\"x\":1.5}");
+  }
+
+  @Test
+  public void testTrailingContent() throws Exception {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+    JsonRecordDecoder decoder = new JsonRecordDecoder(schema);
+    // trailing whitespace is allowed
+    Assert.assertEquals(1, (int) decode(decoder, "{\"x\":1} \r\n").get("x"));
+    for (String json : new String[] { "{\"x\":1}x", "{\"x\":1} {\"x\":2}", "{\"x\":1}]" }) {
+      try {
+        decode(decoder, json);
+        Assert.fail("Expected decoding of '" + json + "' to fail.");
+      } catch (IOException e) {
+        // expected
+      }
+    }
+  }
+
+  private static StructuredRecord decode(JsonRecordDecoder decoder, String json) throws IOException {
+    byte[] bytes = toBytes(json);
+    return decoder.decode(bytes, 0, bytes.length).build();
+  }
+
+  private static byte[] toBytes(String str) {
+    return str.getBytes(StandardCharsets.UTF_8);
+  }
+}
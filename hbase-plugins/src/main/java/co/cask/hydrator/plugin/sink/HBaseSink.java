@@ -17,20 +17,20 @@
 package co.cask.hydrator.plugin.sink;
 
 import co.cask.cdap.api.annotation.Description;
+import co.cask.cdap.api.annotation.Macro;
 import co.cask.cdap.api.annotation.Name;
 import co.cask.cdap.api.annotation.Plugin;
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.batch.Output;
 import co.cask.cdap.api.data.batch.OutputFormatProvider;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
-import co.cask.cdap.api.dataset.table.Put;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
 import co.cask.cdap.etl.api.batch.BatchSink;
 import co.cask.cdap.etl.api.batch.BatchSinkContext;
-import co.cask.cdap.format.RecordPutTransformer;
 import co.cask.hydrator.common.LineageRecorder;
 import co.cask.hydrator.common.ReferenceBatchSink;
 import co.cask.hydrator.common.SchemaValidator;
@@ -41,6 +41,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Durability;
 import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.mapreduce.KeyValueSerialization;
 import org.apache.hadoop.hbase.mapreduce.MutationSerialization;
@@ -63,7 +64,7 @@ import javax.annotation.Nullable;
 public class HBaseSink extends ReferenceBatchSink<StructuredRecord, NullWritable, Mutation> {
 
   private HBaseSinkConfig config;
-  private RecordPutTransformer recordPutTransformer;
+  private HBasePutEncoder putEncoder;
 
   public HBaseSink(HBaseSinkConfig config) {
     super(config);
@@ -98,6 +99,7 @@ public class HBaseSink extends ReferenceBatchSink<StructuredRecord, NullWritable
     super.configurePipeline(pipelineConfigurer);
     Preconditions.checkArgument(!Strings.isNullOrEmpty(config.rowField),
                                 "Row field must be given as a property.");
+    config.validate();
     Schema outputSchema =
       SchemaValidator.validateOutputSchemaAndInputSchemaIfPresent(config.schema,
                                                                   config.rowField, pipelineConfigurer);
@@ -122,6 +124,12 @@ public class HBaseSink extends ReferenceBatchSink<StructuredRecord, NullWritable
         ResultSerialization.class.getName(),
         KeyValueSerialization.class.getName() };
       conf.put("io.serializations", StringUtils.arrayToString(serializationClasses));
+      if (config.writeBufferSize != null) {
+        conf.put("hbase.client.write.buffer", String.valueOf(config.writeBufferSize));
+      }
+      if (config.flushInterval != null) {
+        conf.put(HBaseTableOutputFormat.FLUSH_INTERVAL, String.valueOf(config.flushInterval));
+      }
     }
 
     @Override
@@ -139,18 +147,15 @@ public class HBaseSink extends ReferenceBatchSink<StructuredRecord, NullWritable
   public void initialize(BatchRuntimeContext context) throws Exception {
     super.initialize(context);
     // If a schema string is present in the properties, use that to construct the outputSchema and pass it to the
-    // recordPutTransformer
-    recordPutTransformer = new RecordPutTransformer(config.rowField, config.getSchema());
+    // putEncoder
+    Durability durability = Boolean.TRUE.equals(config.disableWAL) ? Durability.SKIP_WAL : Durability.USE_DEFAULT;
+    putEncoder = new HBasePutEncoder(config.rowField, config.getSchema(), Bytes.toBytes(config.columnFamily),
+                                     durability);
   }
 
   @Override
   public void transform(StructuredRecord input, Emitter<KeyValue<NullWritable, Mutation>> emitter) throws Exception {
-    Put put = recordPutTransformer.toPut(input);
-    org.apache.hadoop.hbase.client.Put hbasePut = new org.apache.hadoop.hbase.client.Put(put.getRow());
-    for (Map.Entry<byte[], byte[]> entry : put.getValues().entrySet()) {
-      hbasePut.add(config.columnFamily.getBytes(), entry.getKey(), entry.getValue());
-    }
-    emitter.emit(new KeyValue<NullWritable, Mutation>(NullWritable.get(), hbasePut));
+    emitter.emit(new KeyValue<NullWritable, Mutation>(NullWritable.get(), putEncoder.toPut(input)));
   }
 
   /**
@@ -161,6 +166,25 @@ public class HBaseSink extends ReferenceBatchSink<StructuredRecord, NullWritable
     @Nullable
     private String zkNodeParent;
 
+    @Description("Size in bytes of the client side buffer that puts are written to before they are sent to HBase. " +
+      "Defaults to the 'hbase.client.write.buffer' setting, which is 2MB by default.")
+    @Nullable
+    @Macro
+    private Long writeBufferSize;
+
+    @Description("Maximum time in milliseconds that puts stay in the write buffer before they are sent to HBase. " +
+      "By default, puts are only sent when the buffer is full and at the end of the run.")
+    @Nullable
+    @Macro
+    private Long flushInterval;
+
+    @Description("Whether to skip the HBase write-ahead log. This makes writes faster, but data that was not yet " +
+      "flushed to disk is lost if a region server fails, so it should only be used for loads that can be rerun. " +
+      "Defaults to false.")
+    @Nullable
+    @Macro
+    private Boolean disableWAL;
+
     public HBaseSinkConfig(String tableName, String rowField, @Nullable String schema) {
       super(String.format("HBase_%s", tableName), tableName, rowField, schema);
     }
@@ -168,5 +192,16 @@ public class HBaseSink extends ReferenceBatchSink<StructuredRecord, NullWritable
     public HBaseSinkConfig(String referenceName, String tableName, String rowField, @Nullable String schema) {
       super(referenceName, tableName, rowField, schema);
     }
+
+    private void validate() {
+      if (!containsMacro("writeBufferSize") && writeBufferSize != null && writeBufferSize <= 0) {
+        throw new IllegalArgumentException(
+          String.format("Write buffer size must be positive, but is %d.", writeBufferSize));
+      }
+      if (!containsMacro("flushInterval") && flushInterval != null && flushInterval <= 0) {
+        throw new IllegalArgumentException(
+          String.format("Flush interval must be positive, but is %d.", flushInterval));
+      }
+    }
   }
 }
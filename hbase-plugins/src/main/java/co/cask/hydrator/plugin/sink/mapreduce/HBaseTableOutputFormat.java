@@ -17,26 +17,107 @@
 package co.cask.hydrator.plugin.sink.mapreduce;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.mapreduce.TableOutputFormat;
+import org.apache.hadoop.hbase.zookeeper.ZKUtil;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
 
 /**
  * A wrapper class around TableOutputFormat, that sets the current class's classloader as the classloader of the
  * Configuration object used by TableOutputFormat.
  *
+ * Mutations are written to the table's client side write buffer without being copied. The buffer is sent to HBase
+ * when it is full, when the writer is closed, and, if {@link #FLUSH_INTERVAL} is set, when the given number of
+ * milliseconds passed since it was last sent. The size of the buffer is set with 'hbase.client.write.buffer'.
+ *
  * @param <KEY> Type of Key
  */
 public class HBaseTableOutputFormat<KEY> extends TableOutputFormat<KEY> {
+  public static final String FLUSH_INTERVAL = "hydrator.hbase.sink.flush.interval.ms";
+
+  private Configuration conf;
 
   @Override
   public void setConf(Configuration otherConf) {
     // To resolve CDAP-12731, set the current class's classloader to the thread's context classloader,
-    // so that it gets picked up when the super.setConf() calls HBaseConfiguration.create(Configuration)
+    // so that it gets picked up when HBaseConfiguration.create(Configuration) is called
     ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
     Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
     try {
-      super.setConf(otherConf);
+      conf = HBaseConfiguration.create(otherConf);
     } finally {
       Thread.currentThread().setContextClassLoader(originalClassLoader);
     }
+    String tableName = conf.get(OUTPUT_TABLE);
+    if (tableName == null || tableName.isEmpty()) {
+      throw new IllegalArgumentException("Must specify table name");
+    }
+    String address = conf.get(QUORUM_ADDRESS);
+    if (address != null) {
+      try {
+        ZKUtil.applyClusterKeyToConf(conf, address);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(String.format("Invalid quorum address '%s'.", address), e);
+      }
+    }
+  }
+
+  @Override
+  public Configuration getConf() {
+    return conf;
+  }
+
+  @Override
+  public RecordWriter<KEY, Mutation> getRecordWriter(TaskAttemptContext context) throws IOException {
+    HTable table = new HTable(conf, conf.get(OUTPUT_TABLE));
+    table.setAutoFlush(false, true);
+    return new BufferedTableRecordWriter<>(table, conf.getLong(FLUSH_INTERVAL, 0L));
+  }
+
+  /**
+   * Writes mutations to the write buffer of a table, and sends the buffer to HBase when the flush interval passed.
+   *
+   * @param <KEY> Type of Key
+   */
+  private static final class BufferedTableRecordWriter<KEY> extends RecordWriter<KEY, Mutation> {
+    private final HTable table;
+    private final long flushInterval;
+    private long lastFlush;
+
+    private BufferedTableRecordWriter(HTable table, long flushInterval) {
+      this.table = table;
+      this.flushInterval = flushInterval;
+      this.lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public void write(KEY key, Mutation value) throws IOException {
+      if (value instanceof Put) {
+        table.put((Put) value);
+      } else if (value instanceof Delete) {
+        table.delete((Delete) value);
+      } else {
+        throw new IOException("Pass a Delete or a Put");
+      }
+      if (flushInterval > 0) {
+        long now = System.currentTimeMillis();
+        if (now - lastFlush >= flushInterval) {
+          table.flushCommits();
+          lastFlush = now;
+        }
+      }
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException {
+      table.close();
+    }
   }
 }
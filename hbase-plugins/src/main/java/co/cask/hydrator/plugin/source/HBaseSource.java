@@ -17,13 +17,14 @@
 package co.cask.hydrator.plugin.source;
 
 import co.cask.cdap.api.annotation.Description;
+import co.cask.cdap.api.annotation.Macro;
 import co.cask.cdap.api.annotation.Name;
 import co.cask.cdap.api.annotation.Plugin;
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.batch.Input;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValue;
-import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.batch.BatchRuntimeContext;
@@ -36,11 +37,24 @@ import co.cask.hydrator.plugin.source.mapreduce.HBaseTableInputFormat;
 import com.google.common.base.Strings;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.mapreduce.KeyValueSerialization;
 import org.apache.hadoop.hbase.mapreduce.MutationSerialization;
 import org.apache.hadoop.hbase.mapreduce.ResultSerialization;
 import org.apache.hadoop.hbase.mapreduce.TableInputFormat;
+import org.apache.hadoop.hbase.mapreduce.TableMapReduceUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  *
@@ -50,9 +64,10 @@ import org.apache.hadoop.hbase.mapreduce.TableInputFormat;
 @Description("Read from an HBase table in batch")
 public class HBaseSource extends ReferenceBatchSource<ImmutableBytesWritable, Result, StructuredRecord> {
   private RowRecordTransformer rowRecordTransformer;
-  private HBaseConfig config;
+  private byte[] columnFamily;
+  private HBaseSourceConfig config;
 
-  public HBaseSource(HBaseConfig config) {
+  public HBaseSource(HBaseSourceConfig config) {
     super(config);
     this.config = config;
   }
@@ -64,7 +79,7 @@ public class HBaseSource extends ReferenceBatchSource<ImmutableBytesWritable, Re
     conf.clear();
 
     conf.set(TableInputFormat.INPUT_TABLE, config.tableName);
-    conf.set(TableInputFormat.SCAN_COLUMN_FAMILY, config.columnFamily);
+    conf.set(TableInputFormat.SCAN, TableMapReduceUtil.convertScanToString(config.createScan()));
     String zkQuorum = !Strings.isNullOrEmpty(config.zkQuorum) ? config.zkQuorum : "localhost";
     String zkClientPort = !Strings.isNullOrEmpty(config.zkClientPort) ? config.zkClientPort : "2181";
     conf.set("hbase.zookeeper.quorum", zkQuorum);
@@ -85,6 +100,7 @@ public class HBaseSource extends ReferenceBatchSource<ImmutableBytesWritable, Re
     } catch (Exception e) {
       throw new IllegalArgumentException("Invalid output schema: " + e.getMessage(), e);
     }
+    config.validate();
   }
 
   @Override
@@ -92,14 +108,247 @@ public class HBaseSource extends ReferenceBatchSource<ImmutableBytesWritable, Re
     super.initialize(context);
     Schema schema = Schema.parseJson(config.schema);
     rowRecordTransformer = new RowRecordTransformer(schema, config.rowField);
+    columnFamily = Bytes.toBytes(config.columnFamily);
   }
 
   @Override
   public void transform(KeyValue<ImmutableBytesWritable, Result> input, Emitter<StructuredRecord> emitter)
     throws Exception {
-    Row cdapRow = new co.cask.cdap.api.dataset.table.Result(
-      input.getValue().getRow(), input.getValue().getFamilyMap(config.columnFamily.getBytes()));
-    StructuredRecord record = rowRecordTransformer.toRecord(cdapRow);
-    emitter.emit(record);
+    emitter.emit(rowRecordTransformer.toRecord(input.getValue(), columnFamily));
+  }
+
+  /**
+   * Config for the HBase source.
+   */
+  public static class HBaseSourceConfig extends HBaseConfig {
+    private static final String[] OPERATORS = { "!=", "<=", ">=", "=", "<", ">" };
+    private static final CompareFilter.CompareOp[] COMPARE_OPS = {
+      CompareFilter.CompareOp.NOT_EQUAL, CompareFilter.CompareOp.LESS_OR_EQUAL,
+      CompareFilter.CompareOp.GREATER_OR_EQUAL, CompareFilter.CompareOp.EQUAL,
+      CompareFilter.CompareOp.LESS, CompareFilter.CompareOp.GREATER
+    };
+
+    @Description("The first row key to read, inclusive. The value is converted to the type of the row field, " +
+      "where bytes are given as a string with \\xNN escapes for non-printable bytes. " +
+      "By default, the table is read from the first row.")
+    @Nullable
+    @Macro
+    private String startRow;
+
+    @Description("The row key to stop reading at, exclusive. The value is converted the same way as the start row. " +
+      "By default, the table is read up to the last row.")
+    @Nullable
+    @Macro
+    private String stopRow;
+
+    @Description("Only read rows whose key starts with this prefix. The prefix is encoded as a UTF-8 string, " +
+      "or as a string with \\xNN escapes if the row field is of type bytes. Cannot be used together with the " +
+      "start and stop row.")
+    @Nullable
+    @Macro
+    private String rowPrefix;
+
+    @Description("Number of rows fetched from the region server in each call. Larger values make scans faster but " +
+      "use more memory. Defaults to the 'hbase.client.scanner.caching' setting.")
+    @Nullable
+    @Macro
+    private Integer scanCaching;
+
+    @Description("Comma-separated list of conditions on column values that are evaluated by the region servers, " +
+      "for example 'status=active,country!=US'. A row is read only if it matches all conditions, and rows " +
+      "without a column that has a condition are skipped. The column must be in the schema and cannot be the " +
+      "row field. The supported operators are '=' and '!=', and also '<', '<=', '>' and '>=' for string columns, " +
+      "which compare the UTF-8 bytes of the values.")
+    @Nullable
+    @Macro
+    private String filters;
+
+    @Description("Whether to only read the columns that are in the schema, instead of the whole column family. " +
+      "This reads less data when the family has many more columns than the schema, but rows that have none of " +
+      "the schema's columns are then skipped instead of being read with null fields. Defaults to false.")
+    @Nullable
+    @Macro
+    private Boolean projectColumns;
+
+    public HBaseSourceConfig(String referenceName, String tableName, String rowField, @Nullable String schema) {
+      super(referenceName, tableName, rowField, schema);
+    }
+
+    private void validate() {
+      if (!containsMacro("scanCaching") && scanCaching != null && scanCaching <= 0) {
+        throw new IllegalArgumentException(
+          String.format("Scan caching must be positive, but is %d.", scanCaching));
+      }
+      if (!containsMacro("rowPrefix") && rowPrefix != null &&
+        (containsMacro("startRow") || startRow != null || containsMacro("stopRow") || stopRow != null)) {
+        throw new IllegalArgumentException("The row prefix cannot be used together with the start or stop row.");
+      }
+      if (!containsMacro("schema") && !containsMacro("columnFamily") && !containsMacro("startRow") &&
+        !containsMacro("stopRow") && !containsMacro("rowPrefix") && !containsMacro("filters")) {
+        createScan();
+      }
+    }
+
+    /**
+     * Creates the scan that reads the column family, or only the columns of the schema if they are projected, from
+     * the configured row range, with the configured filters.
+     */
+    private Scan createScan() {
+      Schema schema = getSchema();
+      Schema.Type rowType = null;
+      if (rowField != null) {
+        Schema.Field field = schema.getField(rowField);
+        if (field == null) {
+          throw new IllegalArgumentException(String.format("Row field '%s' is not in the schema.", rowField));
+        }
+        rowType = getType(field);
+      }
+
+      Scan scan = new Scan();
+      // the blocks read by a full scan would only evict the blocks used by other clients
+      scan.setCacheBlocks(false);
+      if (scanCaching != null) {
+        scan.setCaching(scanCaching);
+      }
+      if (rowPrefix != null) {
+        if (startRow != null || stopRow != null) {
+          throw new IllegalArgumentException("The row prefix cannot be used together with the start or stop row.");
+        }
+        byte[] prefix = rowType == Schema.Type.BYTES ? Bytes.toBytesBinary(rowPrefix) : Bytes.toBytes(rowPrefix);
+        scan.setStartRow(prefix);
+        scan.setStopRow(getPrefixStopRow(prefix));
+      }
+      if (startRow != null) {
+        scan.setStartRow(encodeRow(startRow, rowType));
+      }
+      if (stopRow != null) {
+        scan.setStopRow(encodeRow(stopRow, rowType));
+      }
+
+      byte[] family = Bytes.toBytes(columnFamily);
+      List<Filter> scanFilters = new ArrayList<>();
+      boolean hasColumns = false;
+      for (Schema.Field field : schema.getFields()) {
+        if (!field.getName().equals(rowField)) {
+          hasColumns = true;
+        }
+      }
+      if (hasColumns && projectColumns != null && projectColumns) {
+        // rows that have none of these columns are not returned by the region servers
+        for (Schema.Field field : schema.getFields()) {
+          if (!field.getName().equals(rowField)) {
+            scan.addColumn(family, Bytes.toBytes(field.getName()));
+          }
+        }
+      } else {
+        scan.addFamily(family);
+        if (!hasColumns) {
+          // only the row keys are read, so there is no need to read more than one cell of each row
+          scanFilters.add(new FirstKeyOnlyFilter());
+        }
+      }
+
+      if (filters != null) {
+        for (String condition : filters.split(",")) {
+          condition = condition.trim();
+          if (!condition.isEmpty()) {
+            scanFilters.add(createFilter(condition, schema, family));
+          }
+        }
+      }
+      if (scanFilters.size() == 1) {
+        scan.setFilter(scanFilters.get(0));
+      } else if (!scanFilters.isEmpty()) {
+        scan.setFilter(new FilterList(FilterList.Operator.MUST_PASS_ALL, scanFilters));
+      }
+      return scan;
+    }
+
+    private Filter createFilter(String condition, Schema schema, byte[] family) {
+      int operatorIndex = -1;
+      int operatorPos = -1;
+      for (int i = 0; i < OPERATORS.length; i++) {
+        int pos = condition.indexOf(OPERATORS[i]);
+        // '!=', '<=' and '>=' are checked first, so they are not mistaken for '=', '<' or '>'
+        if (pos > 0 && (operatorPos == -1 || pos < operatorPos)) {
+          operatorIndex = i;
+          operatorPos = pos;
+        }
+      }
+      if (operatorIndex == -1) {
+        throw new IllegalArgumentException(
+          String.format("Invalid filter '%s'. Filters must be of the form 'column=value'.", condition));
+      }
+      String column = condition.substring(0, operatorPos).trim();
+      String value = condition.substring(operatorPos + OPERATORS[operatorIndex].length()).trim();
+      CompareFilter.CompareOp op = COMPARE_OPS[operatorIndex];
+
+      Schema.Field field = schema.getField(column);
+      if (field == null || column.equals(rowField)) {
+        throw new IllegalArgumentException(
+          String.format("Invalid filter '%s'. Column '%s' must be a field of the schema other than the row field.",
+                        condition, column));
+      }
+      Schema.Type type = getType(field);
+      if (type != Schema.Type.STRING && op != CompareFilter.CompareOp.EQUAL &&
+        op != CompareFilter.CompareOp.NOT_EQUAL) {
+        throw new IllegalArgumentException(
+          String.format("Invalid filter '%s'. Only '=' and '!=' are supported for columns of type %s.",
+                        condition, type));
+      }
+      SingleColumnValueFilter filter = new SingleColumnValueFilter(family, Bytes.toBytes(column), op,
+                                                                   new BinaryComparator(encodeValue(value, type)));
+      filter.setFilterIfMissing(true);
+      return filter;
+    }
+
+    private static Schema.Type getType(Schema.Field field) {
+      Schema schema = field.getSchema();
+      return schema.isNullable() ? schema.getNonNullable().getType() : schema.getType();
+    }
+
+    private static byte[] encodeRow(String value, @Nullable Schema.Type rowType) {
+      return rowType == null ? Bytes.toBytes(value) : encodeValue(value, rowType);
+    }
+
+    private static byte[] encodeValue(String value, Schema.Type type) {
+      try {
+        switch (type) {
+          case BOOLEAN:
+            return Bytes.toBytes(Boolean.parseBoolean(value));
+          case INT:
+            return Bytes.toBytes(Integer.parseInt(value));
+          case LONG:
+            return Bytes.toBytes(Long.parseLong(value));
+          case FLOAT:
+            return Bytes.toBytes(Float.parseFloat(value));
+          case DOUBLE:
+            return Bytes.toBytes(Double.parseDouble(value));
+          case BYTES:
+            return Bytes.toBytesBinary(value);
+          case STRING:
+            return Bytes.toBytes(value);
+          default:
+            throw new IllegalArgumentException(String.format("Values of type %s are not supported.", type));
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(String.format("Invalid %s value '%s'.", type, value), e);
+      }
+    }
+
+    /**
+     * Returns the first row key after all the keys that start with the prefix, or an empty array if there is no
+     * such key.
+     */
+    private static byte[] getPrefixStopRow(byte[] prefix) {
+      for (int i = prefix.length - 1; i >= 0; i--) {
+        if (prefix[i] != (byte) 0xff) {
+          byte[] stopRow = Arrays.copyOf(prefix, i + 1);
+          stopRow[i]++;
+          return stopRow;
+        }
+      }
+      return new byte[0];
+    }
   }
 }
@@ -21,6 +21,14 @@ import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.table.Row;
 import com.google.common.base.Preconditions;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * Transforms Rows into Records.
@@ -28,6 +36,9 @@ import com.google.common.base.Preconditions;
 public class RowRecordTransformer {
   private final Schema schema;
   private final Schema.Field rowField;
+  // fields that are read from columns, sorted by qualifier in the order HBase returns the cells of a row
+  private final Schema.Field[] columnFields;
+  private final byte[][] qualifiers;
 
   public RowRecordTransformer(Schema schema, String rowFieldName) {
     validateSchema(schema);
@@ -41,6 +52,67 @@ public class RowRecordTransformer {
     } else {
       rowField = null;
     }
+
+    List<Schema.Field> fields = new ArrayList<>();
+    for (Schema.Field field : schema.getFields()) {
+      if (rowField == null || !field.getName().equals(rowField.getName())) {
+        fields.add(field);
+      }
+    }
+    Collections.sort(fields, new Comparator<Schema.Field>() {
+      @Override
+      public int compare(Schema.Field field1, Schema.Field field2) {
+        return Bytes.compareTo(Bytes.toBytes(field1.getName()), Bytes.toBytes(field2.getName()));
+      }
+    });
+    columnFields = fields.toArray(new Schema.Field[fields.size()]);
+    qualifiers = new byte[columnFields.length][];
+    for (int i = 0; i < columnFields.length; i++) {
+      qualifiers[i] = Bytes.toBytes(columnFields[i].getName());
+    }
+  }
+
+  /**
+   * Transforms the cells of the given column family of an HBase result into a record. The cells and the columns of
+   * the schema are both sorted by qualifier, so they are matched in a single pass, without looking up each column.
+   */
+  public StructuredRecord toRecord(Result result, byte[] family) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    if (rowField != null) {
+      setField(builder, rowField, result.getRow());
+    }
+
+    Cell[] cells = result.rawCells();
+    int column = 0;
+    if (cells != null) {
+      for (Cell cell : cells) {
+        if (column == columnFields.length) {
+          break;
+        }
+        if (!CellUtil.matchingFamily(cell, family)) {
+          continue;
+        }
+        int cmp = compareQualifier(qualifiers[column], cell);
+        while (cmp < 0) {
+          // the column is not in the row
+          setColumnField(builder, columnFields[column], null);
+          column++;
+          if (column == columnFields.length) {
+            break;
+          }
+          cmp = compareQualifier(qualifiers[column], cell);
+        }
+        // cells of columns that are not in the schema and older versions of a column are skipped
+        if (cmp == 0) {
+          setColumnField(builder, columnFields[column], cell);
+          column++;
+        }
+      }
+    }
+    for (; column < columnFields.length; column++) {
+      setColumnField(builder, columnFields[column], null);
+    }
+    return builder.build();
   }
 
   public StructuredRecord toRecord(Row row) {
@@ -78,6 +150,68 @@ public class RowRecordTransformer {
     }
   }
 
+  private static int compareQualifier(byte[] qualifier, Cell cell) {
+    return Bytes.compareTo(qualifier, 0, qualifier.length,
+                           cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+  }
+
+  private void setColumnField(StructuredRecord.Builder builder, Schema.Field field, Cell cell) {
+    String fieldName = field.getName();
+    Schema fieldSchema = field.getSchema();
+    if (cell == null) {
+      if (!fieldSchema.isNullable()) {
+        throw new IllegalArgumentException("null value found for non-nullable field " + fieldName);
+      }
+      return;
+    }
+    Schema.Type fieldType = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
+    byte[] bytes = cell.getValueArray();
+    int offset = cell.getValueOffset();
+    int length = cell.getValueLength();
+
+    // the lengths are checked the same way as when decoding a copy of the value
+    switch (fieldType) {
+      case BOOLEAN:
+        if (length != 1) {
+          throw new IllegalArgumentException("Array has wrong size: " + length);
+        }
+        builder.set(fieldName, bytes[offset] != (byte) 0);
+        break;
+      case INT:
+        checkLength(length, Bytes.SIZEOF_INT);
+        builder.set(fieldName, Bytes.toInt(bytes, offset, Bytes.SIZEOF_INT));
+        break;
+      case LONG:
+        checkLength(length, Bytes.SIZEOF_LONG);
+        builder.set(fieldName, Bytes.toLong(bytes, offset, Bytes.SIZEOF_LONG));
+        break;
+      case FLOAT:
+        checkLength(length, Bytes.SIZEOF_FLOAT);
+        builder.set(fieldName, Bytes.toFloat(bytes, offset));
+        break;
+      case DOUBLE:
+        checkLength(length, Bytes.SIZEOF_DOUBLE);
+        builder.set(fieldName, Bytes.toDouble(bytes, offset));
+        break;
+      case BYTES:
+        builder.set(fieldName, CellUtil.cloneValue(cell));
+        break;
+      case STRING:
+        builder.set(fieldName, Bytes.toString(bytes, offset, length));
+        break;
+      default:
+        // shouldn't ever happen
+        throw new IllegalArgumentException("Unsupported type " + fieldType + " for field " + fieldName);
+    }
+  }
+
+  private static void checkLength(int length, int expectedLength) {
+    if (length < expectedLength) {
+      throw new IllegalArgumentException(
+        String.format("Wrong length %d, expected a value of at least %d bytes.", length, expectedLength));
+    }
+  }
+
   private void setField(StructuredRecord.Builder builder, Schema.Field field, byte[] fieldBytes) {
     String fieldName = field.getName();
     Schema fieldSchema = field.getSchema();
@@ -16,12 +16,24 @@
 
 package co.cask.hydrator.plugin;
 
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.etl.mock.common.MockPipelineConfigurer;
+import co.cask.cdap.format.RecordPutTransformer;
+import co.cask.hydrator.plugin.sink.HBasePutEncoder;
 import co.cask.hydrator.plugin.sink.HBaseSink;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Put;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Tests for hbase sink, with valid and invalid (input, output) schemas
  */
@@ -177,4 +189,63 @@ public class HBaseSinkTest {
     tableSink.configurePipeline(mockPipelineConfigurer);
     Assert.assertEquals(outputSchema, mockPipelineConfigurer.getOutputSchema());
   }
+
+  @Test
+  public void testPutEncoder() {
+    Schema outputSchema = Schema.recordOf(
+      "purchase",
+      Schema.Field.of("rowkey", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("count", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)),
+      Schema.Field.of("weight", Schema.of(Schema.Type.FLOAT)),
+      Schema.Field.of("valid", Schema.of(Schema.Type.BOOLEAN)),
+      Schema.Field.of("data", Schema.of(Schema.Type.BYTES)),
+      Schema.Field.of("note", Schema.nullableOf(Schema.of(Schema.Type.STRING)))
+    );
+    Schema inputSchema = Schema.recordOf(
+      "input",
+      Schema.Field.of("skipped", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("data", Schema.of(Schema.Type.BYTES)),
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("rowkey", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("count", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)),
+      Schema.Field.of("weight", Schema.of(Schema.Type.FLOAT)),
+      Schema.Field.of("valid", Schema.of(Schema.Type.BOOLEAN)),
+      Schema.Field.of("note", Schema.nullableOf(Schema.of(Schema.Type.STRING)))
+    );
+    RecordPutTransformer transformer = new RecordPutTransformer("rowkey", outputSchema);
+    HBasePutEncoder encoder = new HBasePutEncoder("rowkey", outputSchema, Bytes.toBytes("cf"), Durability.SKIP_WAL);
+
+    for (String note : new String[] { "some note", null }) {
+      StructuredRecord record = StructuredRecord.builder(inputSchema)
+        .set("skipped", "not written")
+        .set("data", ByteBuffer.wrap(new byte[] { 1, 2, 3 }))
+        .set("user", "samuel")
+        .set("rowkey", 5L)
+        .set("count", 10)
+        .set("price", 2.5d)
+        .set("weight", 1.25f)
+        .set("valid", true)
+        .set("note", note)
+        .build();
+
+      co.cask.cdap.api.dataset.table.Put expected = transformer.toPut(record);
+      Put put = encoder.toPut(record);
+      Assert.assertArrayEquals(expected.getRow(), put.getRow());
+      Assert.assertEquals(Durability.SKIP_WAL, put.getDurability());
+      List<Cell> cells = put.getFamilyCellMap().get(Bytes.toBytes("cf"));
+      Assert.assertEquals(expected.getValues().size(), cells.size());
+      for (Cell cell : cells) {
+        byte[] expectedValue = null;
+        for (Map.Entry<byte[], byte[]> entry : expected.getValues().entrySet()) {
+          if (Bytes.equals(entry.getKey(), CellUtil.cloneQualifier(cell))) {
+            expectedValue = entry.getValue();
+          }
+        }
+        Assert.assertArrayEquals(expectedValue, CellUtil.cloneValue(cell));
+      }
+    }
+  }
 }
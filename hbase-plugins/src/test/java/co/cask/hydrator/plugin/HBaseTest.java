@@ -245,4 +245,119 @@ public class HBaseTest extends HydratorTestBase {
     Assert.assertEquals(VAL1, row2.get(COL1));
     Assert.assertEquals(VAL2, row2.get(COL2));
   }
+
+  @Test
+  public void testHBaseSourceWithScanOptions() throws Exception {
+    htable.put(new Put("row3".getBytes()).add(HBASE_FAMILY_COLUMN.getBytes(), COL1.getBytes(), "other".getBytes()));
+    htable.put(new Put("row3".getBytes()).add(HBASE_FAMILY_COLUMN.getBytes(), COL2.getBytes(), VAL2.getBytes()));
+    htable.put(new Put("row4".getBytes()).add(HBASE_FAMILY_COLUMN.getBytes(), COL1.getBytes(), VAL1.getBytes()));
+    // only reads the col2 column
+    Schema schema = Schema.recordOf(
+      "event",
+      Schema.Field.of("ticker", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("col2", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+    Map<String, String> hBaseProps = new HashMap<>();
+    hBaseProps.put("tableName", HBASE_TABLE_NAME);
+    hBaseProps.put("columnFamily", HBASE_FAMILY_COLUMN);
+    hBaseProps.put("zkClientPort", Integer.toString(testUtil.getZkCluster().getClientPort()));
+    hBaseProps.put("schema", schema.toString());
+    hBaseProps.put("rowField", "ticker");
+    hBaseProps.put("startRow", ROW2);
+    hBaseProps.put("scanCaching", "10");
+    hBaseProps.put("filters", "col2 = " + VAL2);
+    hBaseProps.put("projectColumns", "true");
+    hBaseProps.put(Constants.Reference.REFERENCE_NAME, "HBaseSourceScanTest");
+
+    ETLStage source = new ETLStage("HBase", new ETLPlugin("HBase", BatchSource.PLUGIN_TYPE, hBaseProps, null));
+    String outputDatasetName = "output-hbasesourcescantest";
+    ETLStage sink = new ETLStage("sink", MockSink.getPlugin(outputDatasetName));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(BATCH_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("HBaseSourceScanTest");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRuns(ProgramRunStatus.COMPLETED, 1, 5, TimeUnit.MINUTES);
+
+    // row1 is before the start row, and row4 has no col2 column
+    DataSetManager<Table> outputManager = getDataset(outputDatasetName);
+    List<StructuredRecord> outputRecords = MockSink.readOutput(outputManager);
+    Assert.assertEquals(2, outputRecords.size());
+    String rowkey = outputRecords.get(0).get("ticker");
+    StructuredRecord row2 = ROW2.equals(rowkey) ? outputRecords.get(0) : outputRecords.get(1);
+    StructuredRecord row3 = ROW2.equals(rowkey) ? outputRecords.get(1) : outputRecords.get(0);
+    Assert.assertEquals(ROW2, row2.get("ticker"));
+    Assert.assertEquals(VAL2, row2.get(COL2));
+    Assert.assertEquals("row3", row3.get("ticker"));
+    Assert.assertEquals(VAL2, row3.get(COL2));
+    Assert.assertNull(row3.getSchema().getField(COL1));
+  }
+
+  @Test
+  public void testHBaseSourceColumnProjection() throws Exception {
+    htable.put(new Put("row3".getBytes()).add(HBASE_FAMILY_COLUMN.getBytes(), COL1.getBytes(), VAL1.getBytes()));
+    Schema schema = Schema.recordOf(
+      "event",
+      Schema.Field.of("ticker", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("col2", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+    // by default the whole family is read, so row3 is read even though it has no col2 column
+    List<StructuredRecord> outputRecords = runSource("HBaseSourceFamilyTest", schema, false);
+    Assert.assertEquals(3, outputRecords.size());
+    for (StructuredRecord record : outputRecords) {
+      if ("row3".equals(record.get("ticker"))) {
+        Assert.assertNull(record.get(COL2));
+      } else {
+        Assert.assertEquals(VAL2, record.get(COL2));
+      }
+    }
+
+    // only col2 is read when the columns are projected, so row3 is skipped
+    outputRecords = runSource("HBaseSourceProjectionTest", schema, true);
+    Assert.assertEquals(2, outputRecords.size());
+    for (StructuredRecord record : outputRecords) {
+      Assert.assertNotEquals("row3", record.get("ticker"));
+      Assert.assertEquals(VAL2, record.get(COL2));
+    }
+  }
+
+  private List<StructuredRecord> runSource(String name, Schema schema, boolean projectColumns) throws Exception {
+    Map<String, String> hBaseProps = new HashMap<>();
+    hBaseProps.put("tableName", HBASE_TABLE_NAME);
+    hBaseProps.put("columnFamily", HBASE_FAMILY_COLUMN);
+    hBaseProps.put("zkClientPort", Integer.toString(testUtil.getZkCluster().getClientPort()));
+    hBaseProps.put("schema", schema.toString());
+    hBaseProps.put("rowField", "ticker");
+    hBaseProps.put("projectColumns", Boolean.toString(projectColumns));
+    hBaseProps.put(Constants.Reference.REFERENCE_NAME, name);
+
+    ETLStage source = new ETLStage("HBase", new ETLPlugin("HBase", BatchSource.PLUGIN_TYPE, hBaseProps, null));
+    String outputDatasetName = "output-" + name;
+    ETLStage sink = new ETLStage("sink", MockSink.getPlugin(outputDatasetName));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(sink)
+      .addConnection(source.getName(), sink.getName())
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(BATCH_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app(name);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRuns(ProgramRunStatus.COMPLETED, 1, 5, TimeUnit.MINUTES);
+
+    DataSetManager<Table> outputManager = getDataset(outputDatasetName);
+    return MockSink.readOutput(outputManager);
+  }
 }
@@ -21,20 +21,36 @@ import co.cask.cdap.api.data.schema.Schema;
 import org.apache.commons.codec.binary.Hex;
 
 import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.Locale;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 
 /**
  * Encrypts and decrypts fields based on their schema.
+ * <p/>
+ * Each thread gets its own cipher, so that the same encryptor can be used by several threads. With the GCM mode,
+ * such as AES/GCM/NoPadding, every value is encrypted with a new random IV, which is stored in front of the
+ * encrypted value, and values are authenticated when they are decrypted. With other modes, every value is encrypted
+ * with the same IV, if any.
  */
 public abstract class FieldEncryptor {
+  private static final int GCM_IV_LENGTH = 12;
+  private static final int GCM_TAG_LENGTH = 128;
   private final KeystoreConf conf;
   private int mode;
-  private Cipher cipher;
+  private Key key;
+  private boolean gcm;
+  private IvParameterSpec ivParameterSpec;
+  private SecureRandom random;
+  private ThreadLocal<Cipher> ciphers;
 
   public FieldEncryptor(KeystoreConf conf, int mode) {
     this.mode = mode;
@@ -46,15 +62,40 @@ public abstract class FieldEncryptor {
     try (InputStream keystoreStream = getKeystoreInputStream(conf.getKeystorePath())) {
       keystore.load(keystoreStream, conf.getKeystorePassword().toCharArray());
     }
-    Key key = keystore.getKey(conf.getKeyAlias(), conf.getKeyPassword().toCharArray());
-    cipher = Cipher.getInstance(conf.getTransformation());
-    if (conf.getIvHex() != null) {
-      byte[] ivBytes = Hex.decodeHex(conf.getIvHex().toCharArray());
-      IvParameterSpec ivParameterSpec = new IvParameterSpec(ivBytes);
+    key = keystore.getKey(conf.getKeyAlias(), conf.getKeyPassword().toCharArray());
+    gcm = conf.getTransformation().toUpperCase(Locale.ROOT).contains("/GCM/");
+    if (gcm) {
+      if (conf.getIvHex() != null) {
+        throw new IllegalArgumentException("An IV must not be given with the GCM mode, since a random IV is " +
+                                             "generated for every value.");
+      }
+      random = new SecureRandom();
+    } else if (conf.getIvHex() != null) {
+      ivParameterSpec = new IvParameterSpec(Hex.decodeHex(conf.getIvHex().toCharArray()));
+    }
+    // create a cipher right away, so that an invalid configuration fails here instead of on the first record
+    createCipher();
+    ciphers = ThreadLocal.withInitial(() -> {
+      try {
+        return createCipher();
+      } catch (GeneralSecurityException e) {
+        // cannot happen since a cipher was already created with the same configuration
+        throw new IllegalStateException("Unable to create a cipher: " + e.getMessage(), e);
+      }
+    });
+  }
+
+  private Cipher createCipher() throws GeneralSecurityException {
+    Cipher cipher = Cipher.getInstance(conf.getTransformation());
+    if (gcm) {
+      // initialized with a new IV for every value, this only checks the key
+      cipher.init(mode, key, new GCMParameterSpec(GCM_TAG_LENGTH, new byte[GCM_IV_LENGTH]));
+    } else if (ivParameterSpec != null) {
       cipher.init(mode, key, ivParameterSpec);
     } else {
       cipher.init(mode, key);
     }
+    return cipher;
   }
 
   public abstract InputStream getKeystoreInputStream(String keystorePath) throws Exception;
@@ -88,7 +129,21 @@ public abstract class FieldEncryptor {
       default:
         throw new IllegalArgumentException("field type " + fieldType + " is not supported.");
     }
-    return cipher.doFinal(fieldBytes);
+
+    Cipher cipher = ciphers.get();
+    if (!gcm) {
+      return cipher.doFinal(fieldBytes);
+    }
+    byte[] encrypted = new byte[GCM_IV_LENGTH + fieldBytes.length + GCM_TAG_LENGTH / 8];
+    random.nextBytes(encrypted);
+    initGcm(cipher, encrypted);
+    try {
+      cipher.doFinal(fieldBytes, 0, fieldBytes.length, encrypted, GCM_IV_LENGTH);
+    } catch (ShortBufferException e) {
+      // cannot happen since GCM only adds the tag to the encrypted bytes
+      throw new IllegalStateException(e);
+    }
+    return encrypted;
   }
 
   public Object decrypt(byte[] fieldBytes, Schema fieldSchema) throws BadPaddingException, IllegalBlockSizeException {
@@ -97,7 +152,16 @@ public abstract class FieldEncryptor {
     }
 
     Schema.Type fieldType = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
-    fieldBytes = cipher.doFinal(fieldBytes);
+    Cipher cipher = ciphers.get();
+    if (gcm) {
+      if (fieldBytes.length < GCM_IV_LENGTH) {
+        throw new IllegalBlockSizeException("Encrypted value is too short to contain an IV.");
+      }
+      initGcm(cipher, fieldBytes);
+      fieldBytes = cipher.doFinal(fieldBytes, GCM_IV_LENGTH, fieldBytes.length - GCM_IV_LENGTH);
+    } else {
+      fieldBytes = cipher.doFinal(fieldBytes);
+    }
     switch (fieldType) {
       case INT:
         return Bytes.toInt(fieldBytes);
@@ -116,4 +180,15 @@ public abstract class FieldEncryptor {
     }
   }
 
+  /**
+   * Initializes a GCM cipher with the IV at the start of the given bytes.
+   */
+  private void initGcm(Cipher cipher, byte[] bytes) {
+    try {
+      cipher.init(mode, key, new GCMParameterSpec(GCM_TAG_LENGTH, bytes, 0, GCM_IV_LENGTH));
+    } catch (GeneralSecurityException e) {
+      // cannot happen since the key and parameters were already accepted by the first cipher
+      throw new IllegalStateException("Unable to initialize the cipher: " + e.getMessage(), e);
+    }
+  }
 }
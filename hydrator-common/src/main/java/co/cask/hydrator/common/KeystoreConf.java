@@ -32,7 +32,8 @@ public class KeystoreConf extends PluginConfig {
   private String transformation;
 
   @Nullable
-  @Description("Initialization vector if using CBC mode")
+  @Description("Initialization vector if using CBC mode; not used with GCM mode, where a random initialization " +
+    "vector is generated for every value")
   @Macro
   private String ivHex;
 
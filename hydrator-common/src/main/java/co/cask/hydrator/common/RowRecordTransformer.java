@@ -22,12 +22,33 @@ import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.table.Row;
 import com.google.common.base.Preconditions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
 /**
- * Transforms Rows into Records.
+ * Transforms Rows into Records. The column qualifier and the value decoder of every field are computed once from the
+ * schema, so that a row is decoded in a single pass over its columns.
  */
 public class RowRecordTransformer {
+  private static final Map<Schema.Type, ValueDecoder> DECODERS = new EnumMap<>(Schema.Type.class);
+
+  static {
+    for (ValueDecoder decoder : ValueDecoder.values()) {
+      DECODERS.put(Schema.Type.valueOf(decoder.name()), decoder);
+    }
+  }
+
   private final Schema schema;
   private final Schema.Field rowField;
+  private final FieldDecoder rowDecoder;
+  // decoders of the column fields, sorted by qualifier
+  private final FieldDecoder[] columnDecoders;
+  private final byte[][] qualifiers;
 
   public RowRecordTransformer(Schema schema, String rowFieldName) {
     validateSchema(schema);
@@ -38,24 +59,55 @@ public class RowRecordTransformer {
       // if row field was given, it must be present in the schema and it must be a simple type
       Preconditions.checkArgument(rowField != null, "Row field must be present in the schema.");
       Preconditions.checkArgument(rowField.getSchema().getType().isSimpleType(), "Row field must be a simple type.");
+      rowDecoder = new FieldDecoder(rowField);
     } else {
       rowField = null;
+      rowDecoder = null;
+    }
+
+    List<FieldDecoder> decoders = new ArrayList<>();
+    for (Schema.Field field : schema.getFields()) {
+      if (rowField == null || !field.getName().equals(rowField.getName())) {
+        decoders.add(new FieldDecoder(field));
+      }
+    }
+    Collections.sort(decoders);
+    columnDecoders = decoders.toArray(new FieldDecoder[decoders.size()]);
+    qualifiers = new byte[columnDecoders.length][];
+    for (int i = 0; i < columnDecoders.length; i++) {
+      qualifiers[i] = columnDecoders[i].qualifier;
     }
   }
 
   public StructuredRecord toRecord(Row row) {
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-    if (rowField != null) {
-      setField(builder, rowField, row.getRow());
+    if (rowDecoder != null) {
+      rowDecoder.decode(builder, row.getRow());
     }
 
-    for (Schema.Field field : schema.getFields()) {
-      if (rowField != null && field.getName().equals(rowField.getName())) {
-        continue;
+    Map<byte[], byte[]> columns = row.getColumns();
+    if (columns.size() > columnDecoders.length) {
+      // the row has columns that are not in the schema, look up the ones that are instead of skipping the others
+      for (FieldDecoder decoder : columnDecoders) {
+        decoder.decode(builder, row.get(decoder.qualifier));
       }
-      setField(builder, field, row.get(field.getName()));
+      return builder.build();
     }
 
+    boolean[] decoded = new boolean[columnDecoders.length];
+    for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
+      int index = Arrays.binarySearch(qualifiers, column.getKey(), Bytes.BYTES_COMPARATOR);
+      if (index >= 0) {
+        columnDecoders[index].decode(builder, column.getValue());
+        decoded[index] = true;
+      }
+    }
+    // fields without a column must be nullable
+    for (int i = 0; i < decoded.length; i++) {
+      if (!decoded[i]) {
+        columnDecoders[i].decode(builder, null);
+      }
+    }
     return builder.build();
   }
 
@@ -78,42 +130,93 @@ public class RowRecordTransformer {
     }
   }
 
-  private void setField(StructuredRecord.Builder builder, Schema.Field field, byte[] fieldBytes) {
-    String fieldName = field.getName();
-    Schema fieldSchema = field.getSchema();
-    if (fieldBytes == null) {
-      if (!fieldSchema.isNullable()) {
-        throw new IllegalArgumentException("null value found for non-nullable field " + fieldName);
-      }
-      return;
+  /**
+   * Decodes the bytes of a field, using a decoder chosen by the type of the field.
+   */
+  private static final class FieldDecoder implements Comparable<FieldDecoder> {
+    private final String name;
+    private final byte[] qualifier;
+    private final boolean nullable;
+    private final Schema.Type fieldType;
+    private final ValueDecoder type;
+
+    private FieldDecoder(Schema.Field field) {
+      Schema fieldSchema = field.getSchema();
+      this.name = field.getName();
+      this.qualifier = Bytes.toBytes(name);
+      this.nullable = fieldSchema.isNullable();
+      this.fieldType = nullable && fieldSchema.getType() == Schema.Type.UNION ?
+        fieldSchema.getNonNullable().getType() : fieldSchema.getType();
+      this.type = DECODERS.get(fieldType);
     }
-    Schema.Type fieldType = fieldSchema.isNullable() ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
-
-    switch (fieldType) {
-      case BOOLEAN:
-        builder.set(fieldName, Bytes.toBoolean(fieldBytes));
-        break;
-      case INT:
-        builder.set(fieldName, Bytes.toInt(fieldBytes));
-        break;
-      case LONG:
-        builder.set(fieldName, Bytes.toLong(fieldBytes));
-        break;
-      case FLOAT:
-        builder.set(fieldName, Bytes.toFloat(fieldBytes));
-        break;
-      case DOUBLE:
-        builder.set(fieldName, Bytes.toDouble(fieldBytes));
-        break;
-      case BYTES:
-        builder.set(fieldName, fieldBytes);
-        break;
-      case STRING:
-        builder.set(fieldName, Bytes.toString(fieldBytes));
-        break;
-      default:
+
+    private void decode(StructuredRecord.Builder builder, @Nullable byte[] fieldBytes) {
+      if (fieldBytes == null) {
+        if (!nullable) {
+          throw new IllegalArgumentException("null value found for non-nullable field " + name);
+        }
+        return;
+      }
+      if (type == null) {
         // shouldn't ever happen
-        throw new IllegalArgumentException("Unsupported type " + fieldType + " for field " + fieldName);
+        throw new IllegalArgumentException("Unsupported type " + fieldType + " for field " + name);
+      }
+      builder.set(name, type.decode(fieldBytes));
     }
+
+    @Override
+    public int compareTo(FieldDecoder other) {
+      return Bytes.compareTo(qualifier, other.qualifier);
+    }
+  }
+
+  /**
+   * Decodes the bytes of a schema type.
+   */
+  private enum ValueDecoder {
+    BOOLEAN {
+      @Override
+      Object decode(byte[] bytes) {
+        return Bytes.toBoolean(bytes);
+      }
+    },
+    INT {
+      @Override
+      Object decode(byte[] bytes) {
+        return Bytes.toInt(bytes);
+      }
+    },
+    LONG {
+      @Override
+      Object decode(byte[] bytes) {
+        return Bytes.toLong(bytes);
+      }
+    },
+    FLOAT {
+      @Override
+      Object decode(byte[] bytes) {
+        return Bytes.toFloat(bytes);
+      }
+    },
+    DOUBLE {
+      @Override
+      Object decode(byte[] bytes) {
+        return Bytes.toDouble(bytes);
+      }
+    },
+    BYTES {
+      @Override
+      Object decode(byte[] bytes) {
+        return bytes;
+      }
+    },
+    STRING {
+      @Override
+      Object decode(byte[] bytes) {
+        return Bytes.toString(bytes);
+      }
+    };
+
+    abstract Object decode(byte[] bytes);
   }
 }
@@ -17,12 +17,18 @@
 package co.cask.hydrator.common.http;
 
 import co.cask.cdap.api.annotation.Description;
+import co.cask.cdap.api.annotation.Macro;
 import co.cask.cdap.api.annotation.Name;
 import co.cask.hydrator.common.Constants;
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -44,6 +50,21 @@ public class HTTPPollConfig extends HTTPConfig {
   @Nullable
   private Integer readTimeout;
 
+  @Description("Additional URLs to fetch data from, separated by newlines. Each URL is polled independently at the " +
+    "configured interval, so a slow URL does not delay the others.")
+  @Nullable
+  @Macro
+  private String urls;
+
+  @Description("The maximum number of URLs to poll at the same time. Defaults to 10.")
+  @Nullable
+  private Integer maxConcurrentPolls;
+
+  @Description("Whether to send conditional requests based on the ETag and Last-Modified headers of the previous " +
+    "response, and skip responses that indicate the content has not changed. Defaults to false.")
+  @Nullable
+  private Boolean skipUnchanged;
+
   public HTTPPollConfig() {
     this("", null, 60);
   }
@@ -58,6 +79,8 @@ public class HTTPPollConfig extends HTTPConfig {
     this.charset = Charsets.UTF_8.name();
     this.readTimeout = 60 * 1000;
     this.referenceName = referenceName;
+    this.maxConcurrentPolls = 10;
+    this.skipUnchanged = false;
   }
 
   public long getInterval() {
@@ -72,6 +95,31 @@ public class HTTPPollConfig extends HTTPConfig {
     return readTimeout;
   }
 
+  /**
+   * @return the url followed by any additional urls
+   */
+  public List<String> getUrls() {
+    List<String> allUrls = new ArrayList<>();
+    allUrls.add(getUrl());
+    if (!Strings.isNullOrEmpty(urls)) {
+      for (String additionalUrl : urls.split("\n")) {
+        additionalUrl = additionalUrl.trim();
+        if (!additionalUrl.isEmpty()) {
+          allUrls.add(additionalUrl);
+        }
+      }
+    }
+    return allUrls;
+  }
+
+  public int getMaxConcurrentPolls() {
+    return maxConcurrentPolls == null ? 10 : maxConcurrentPolls;
+  }
+
+  public boolean shouldSkipUnchanged() {
+    return skipUnchanged != null && skipUnchanged;
+  }
+
   @SuppressWarnings("ConstantConditions")
   public void validate() {
     super.validate();
@@ -88,5 +136,18 @@ public class HTTPPollConfig extends HTTPConfig {
     } catch (UnsupportedCharsetException e) {
       throw new IllegalArgumentException(String.format("Invalid charset %s.", charset));
     }
+    if (maxConcurrentPolls != null && maxConcurrentPolls <= 0) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid maxConcurrentPolls %d. It must be greater than 0.", maxConcurrentPolls));
+    }
+    if (!containsMacro("url") && !containsMacro("urls")) {
+      for (String pollUrl : getUrls()) {
+        try {
+          new URL(pollUrl);
+        } catch (MalformedURLException e) {
+          throw new IllegalArgumentException(String.format("URL '%s' is malformed: %s", pollUrl, e.getMessage()), e);
+        }
+      }
+    }
   }
 }
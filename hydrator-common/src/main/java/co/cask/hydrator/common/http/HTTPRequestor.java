@@ -20,9 +20,9 @@ import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.io.CharStreams;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.HttpURLConnection;
@@ -30,9 +30,11 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Utility code for performing a get request and formatting it as a StructuredRecord.
+ * Instances keep state about the last response, so each instance should only be used by one thread at a time.
  */
 public class HTTPRequestor {
   public static final Schema SCHEMA = Schema.recordOf(
@@ -43,16 +45,38 @@ public class HTTPRequestor {
     Schema.Field.of("headers", Schema.mapOf(Schema.of(Schema.Type.STRING), Schema.of(Schema.Type.STRING))),
     Schema.Field.of("body", Schema.of(Schema.Type.STRING))
   );
+  // upper bound on how much to presize the response body based on the content length
+  private static final int MAX_PRESIZE = 16 * 1024 * 1024;
   private final HTTPPollConfig config;
+  private final String url;
+  private final char[] buffer;
+  // validators of the last response, only used when skipping unchanged responses
+  private String eTag;
+  private String lastModified;
 
   public HTTPRequestor(HTTPPollConfig config) {
+    this(config, config.getUrl());
+  }
+
+  public HTTPRequestor(HTTPPollConfig config, String url) {
     this.config = config;
+    this.url = url;
+    this.buffer = new char[8192];
+  }
+
+  public String getUrl() {
+    return url;
   }
 
+  /**
+   * Performs a get request. The connection is not explicitly disconnected, so that the underlying socket can be
+   * reused by subsequent requests to the same host.
+   *
+   * @return the response as a record, or null if skipping unchanged responses and the content has not changed
+   */
+  @Nullable
   public StructuredRecord get() throws IOException {
-    URL url = new URL(config.getUrl());
-    String response = "";
-    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
     connection.setRequestMethod("GET");
     connection.setConnectTimeout(config.getConnectTimeout());
     connection.setReadTimeout(config.getReadTimeout());
@@ -61,19 +85,32 @@ public class HTTPRequestor {
     for (Map.Entry<String, String> requestHeader : config.getRequestHeadersMap().entrySet()) {
       connection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
     }
+    if (config.shouldSkipUnchanged()) {
+      if (eTag != null) {
+        connection.setRequestProperty("If-None-Match", eTag);
+      }
+      if (lastModified != null) {
+        connection.setRequestProperty("If-Modified-Since", lastModified);
+      }
+    }
     int responseCode = connection.getResponseCode();
-    try {
-      if (connection.getErrorStream() != null) {
-        try (Reader reader = new InputStreamReader(connection.getErrorStream(), config.getCharset())) {
-          response = CharStreams.toString(reader);
-        }
-      } else if (connection.getInputStream() != null) {
-        try (Reader reader = new InputStreamReader(connection.getInputStream(), config.getCharset())) {
-          response = CharStreams.toString(reader);
-        }
+    String response = "";
+    InputStream responseStream = connection.getErrorStream();
+    if (responseStream == null) {
+      responseStream = connection.getInputStream();
+    }
+    if (responseStream != null) {
+      try (Reader reader = new InputStreamReader(responseStream, config.getCharset())) {
+        response = read(reader, connection.getContentLength());
+      }
+    }
+
+    if (config.shouldSkipUnchanged()) {
+      if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        return null;
       }
-    } finally {
-      connection.disconnect();
+      eTag = connection.getHeaderField("ETag");
+      lastModified = connection.getHeaderField("Last-Modified");
     }
 
     Map<String, List<String>> headers = connection.getHeaderFields();
@@ -87,13 +124,23 @@ public class HTTPRequestor {
     return createStructuredRecord(response, flattenedHeaders, responseCode);
   }
 
+  // reads the entire body through the reusable buffer, presizing the result if the content length is known
+  private String read(Reader reader, int contentLength) throws IOException {
+    StringBuilder response = new StringBuilder(contentLength > 0 ? Math.min(contentLength, MAX_PRESIZE) : buffer.length);
+    int len;
+    while ((len = reader.read(buffer)) != -1) {
+      response.append(buffer, 0, len);
+    }
+    return response.toString();
+  }
+
   private StructuredRecord createStructuredRecord(String response,
                                                   Map<String, String> headerFields,
                                                   int responseCode) {
     StructuredRecord.Builder recordBuilder = StructuredRecord.builder(SCHEMA);
     recordBuilder
       .set("ts", System.currentTimeMillis())
-      .set("url", config.getUrl())
+      .set("url", url)
       .set("responseCode", responseCode)
       .set("headers", headerFields)
       .set("body", response);
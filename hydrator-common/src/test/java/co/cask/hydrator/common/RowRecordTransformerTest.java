@@ -86,4 +86,50 @@ public class RowRecordTransformerTest {
     // this was a nullable field and no data was set for it
     Assert.assertNull(actual.get("doubleField"));
   }
+
+  @Test
+  public void testTransformWithoutExtraColumns() throws Exception {
+    final Schema schema = Schema.recordOf(
+      "record",
+      Schema.Field.of("stringField", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("intField", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+      Schema.Field.of("doubleField", Schema.of(Schema.Type.DOUBLE)),
+      Schema.Field.of("bytesField", Schema.nullableOf(Schema.of(Schema.Type.BYTES)))
+    );
+
+    Map<byte[], byte[]> inputColumns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    inputColumns.put(Bytes.toBytes("stringField"), Bytes.toBytes("rock"));
+    inputColumns.put(Bytes.toBytes("doubleField"), Bytes.toBytes(2.5d));
+    inputColumns.put(Bytes.toBytes("bytesField"), Bytes.toBytes("foo"));
+
+    RowRecordTransformer transformer = new RowRecordTransformer(schema, null);
+    StructuredRecord actual = transformer.toRecord(new Result(Bytes.toBytes("row"), inputColumns));
+    Assert.assertEquals("rock", actual.get("stringField"));
+    Assert.assertNull(actual.get("intField"));
+    Assert.assertEquals(2.5d, actual.<Double>get("doubleField"), 0.000001d);
+    Assert.assertEquals("foo", Bytes.toString((byte[]) actual.get("bytesField")));
+
+    // the same transformer is used for rows with more columns than the schema
+    inputColumns.put(Bytes.toBytes("intField"), Bytes.toBytes(5));
+    inputColumns.put(Bytes.toBytes("extraField1"), Bytes.toBytes("bar"));
+    inputColumns.put(Bytes.toBytes("extraField2"), Bytes.toBytes("baz"));
+    actual = transformer.toRecord(new Result(Bytes.toBytes("row"), inputColumns));
+    Assert.assertEquals("rock", actual.get("stringField"));
+    Assert.assertEquals(5, actual.<Integer>get("intField").intValue());
+    Assert.assertEquals(2.5d, actual.<Double>get("doubleField"), 0.000001d);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingNonNullableColumnThrowsException() throws Exception {
+    final Schema schema = Schema.recordOf(
+      "record",
+      Schema.Field.of("stringField", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("intField", Schema.of(Schema.Type.INT))
+    );
+
+    Map<byte[], byte[]> inputColumns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    inputColumns.put(Bytes.toBytes("stringField"), Bytes.toBytes("rock"));
+
+    new RowRecordTransformer(schema, null).toRecord(new Result(Bytes.toBytes("row"), inputColumns));
+  }
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin.spark;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.hydrator.format.input.PathTrackingInputFormat;
+import com.google.common.io.Files;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.rdd.RDD;
+import org.apache.spark.streaming.StreamingContext;
+import org.apache.spark.streaming.Time;
+import org.apache.spark.streaming.dstream.InputDStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.Option;
+import scala.reflect.ClassTag;
+import scala.reflect.ClassTag$;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An InputDStream that reads new files in a directory using the {@link PathTrackingInputFormat}, which delegates to
+ * the readers of the configured format. Large files are split into multiple partitions based on the max split size.
+ *
+ * Files that have already been read are tracked in an index directory, which consists of one file per batch that
+ * found new files. Each index file is named after the time of its batch and contains the paths of the files read in
+ * that batch, one per line. If a batch is computed again, for example after recovering from a checkpoint, the files
+ * in its index file are read again instead of listing the directory. Once there are too many batch index files, all
+ * but the one of the current batch are compacted into a single file that only contains paths that still exist.
+ */
+public class FileFormatInputDStream extends InputDStream<StructuredRecord> {
+  private static final Logger LOG = LoggerFactory.getLogger(FileFormatInputDStream.class);
+  static final ClassTag<StructuredRecord> CLASS_TAG = ClassTag$.MODULE$.apply(StructuredRecord.class);
+  private static final String INDEX_FILE_PREFIX = "batch-";
+  private static final String COMPACTED_FILE_PREFIX = "compacted-";
+  private static final int MAX_INDEX_FILES = 100;
+  private final String path;
+  private final String indexPath;
+  private final Set<String> extensions;
+  private final long maxSplitSize;
+  private final long minFileAgeMillis;
+  private final Map<String, String> formatConfig;
+  // loaded from the index directory the first time a batch is computed, including after recovering from a checkpoint
+  private transient Set<String> processedFiles;
+  // files read by each batch that still has its own index file, keyed by batch time
+  private transient Map<Long, List<String>> batchFiles;
+
+  /**
+   * @param ssc the streaming context
+   * @param path the directory to read new files from
+   * @param indexPath the directory to keep track of processed files in
+   * @param extensions extensions of the files to read. If empty, all files will be read
+   * @param maxSplitSize maximum size in bytes of each partition
+   * @param minFileAgeMillis files modified less than this many milliseconds before the batch time are not read yet
+   * @param formatConfig Hadoop configuration for the {@link PathTrackingInputFormat}
+   */
+  public FileFormatInputDStream(StreamingContext ssc, String path, String indexPath, Set<String> extensions,
+                                long maxSplitSize, long minFileAgeMillis, Map<String, String> formatConfig) {
+    super(ssc, CLASS_TAG);
+    this.path = path;
+    this.indexPath = indexPath;
+    this.extensions = extensions;
+    this.maxSplitSize = maxSplitSize;
+    this.minFileAgeMillis = minFileAgeMillis;
+    this.formatConfig = formatConfig;
+  }
+
+  @Override
+  public void start() {
+    // no-op
+  }
+
+  @Override
+  public void stop() {
+    // no-op
+  }
+
+  @Override
+  public Option<RDD<StructuredRecord>> compute(Time validTime) {
+    Configuration hConf = new Configuration(context().sparkContext().hadoopConfiguration());
+    List<Path> newFiles;
+    try {
+      newFiles = findNewFiles(hConf, validTime);
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Unable to find new files in %s.", path), e);
+    }
+
+    if (newFiles.isEmpty()) {
+      return Option.<RDD<StructuredRecord>>apply(context().sparkContext().emptyRDD(CLASS_TAG));
+    }
+
+    Job job;
+    try {
+      job = Job.getInstance(hConf);
+      FileInputFormat.setInputPaths(job, newFiles.toArray(new Path[newFiles.size()]));
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to configure the input format.", e);
+    }
+    Configuration jobConf = job.getConfiguration();
+    for (Map.Entry<String, String> entry : formatConfig.entrySet()) {
+      jobConf.set(entry.getKey(), entry.getValue());
+    }
+    FileInputFormat.setMaxInputSplitSize(job, maxSplitSize);
+
+    RDD<StructuredRecord> rdd = JavaSparkContext.fromSparkContext(context().sparkContext())
+      .newAPIHadoopRDD(jobConf, PathTrackingInputFormat.class, NullWritable.class, StructuredRecord.class)
+      .values()
+      .rdd();
+    return Option.apply(rdd);
+  }
+
+  /**
+   * Returns the files to read in the batch at the given time. If the batch was already computed, the files recorded
+   * in its index file are returned. Otherwise, the directory is listed for files that have not been processed, and
+   * they are added to the index.
+   */
+  private List<Path> findNewFiles(Configuration hConf, Time validTime) throws IOException {
+    Path dir = new Path(path);
+    FileSystem fs = dir.getFileSystem(hConf);
+    Path indexDir = new Path(indexPath);
+    FileSystem indexFs = indexDir.getFileSystem(hConf);
+    if (processedFiles == null) {
+      loadIndex(indexFs, indexDir);
+    }
+
+    long batchTime = validTime.milliseconds();
+    List<String> batchFileNames = batchFiles.get(batchTime);
+    if (batchFileNames != null) {
+      LOG.debug("Reusing the {} files found in {} for batch {}.", batchFileNames.size(), path, validTime);
+      List<Path> files = new ArrayList<>(batchFileNames.size());
+      for (String file : batchFileNames) {
+        files.add(new Path(file));
+      }
+      return files;
+    }
+
+    Set<String> existingFiles = new HashSet<>();
+    List<Path> newFiles = new ArrayList<>();
+    FileStatus[] statuses = fs.listStatus(dir);
+    for (FileStatus status : statuses) {
+      Path filePath = status.getPath();
+      String name = filePath.getName();
+      if (status.isDirectory() || name.startsWith(".") || name.startsWith("_") ||
+        (!extensions.isEmpty() && !extensions.contains(Files.getFileExtension(name)))) {
+        continue;
+      }
+      String file = filePath.toString();
+      existingFiles.add(file);
+      // files that were modified recently may still be being written, so they are left for a later batch
+      if (!processedFiles.contains(file) &&
+        (minFileAgeMillis <= 0 || status.getModificationTime() <= batchTime - minFileAgeMillis)) {
+        newFiles.add(filePath);
+      }
+    }
+
+    if (newFiles.isEmpty()) {
+      return newFiles;
+    }
+
+    List<String> newFileNames = new ArrayList<>(newFiles.size());
+    for (Path newFile : newFiles) {
+      newFileNames.add(newFile.toString());
+    }
+    writeIndexFile(indexFs, new Path(indexDir, INDEX_FILE_PREFIX + batchTime), newFileNames);
+    processedFiles.addAll(newFileNames);
+    batchFiles.put(batchTime, newFileNames);
+    if (batchFiles.size() >= MAX_INDEX_FILES) {
+      compactIndex(indexFs, indexDir, batchTime, existingFiles);
+    }
+    LOG.debug("Found {} new files in {} for batch {}.", newFiles.size(), path, validTime);
+    return newFiles;
+  }
+
+  private void loadIndex(FileSystem indexFs, Path indexDir) throws IOException {
+    processedFiles = new HashSet<>();
+    batchFiles = new HashMap<>();
+    if (!indexFs.exists(indexDir)) {
+      indexFs.mkdirs(indexDir);
+      return;
+    }
+    for (FileStatus status : indexFs.listStatus(indexDir)) {
+      String name = status.getPath().getName();
+      boolean isBatchFile = name.startsWith(INDEX_FILE_PREFIX);
+      if (!isBatchFile && !name.startsWith(COMPACTED_FILE_PREFIX)) {
+        continue;
+      }
+      List<String> files = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(indexFs.open(status.getPath()), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (!line.isEmpty()) {
+            files.add(line);
+          }
+        }
+      }
+      processedFiles.addAll(files);
+      if (isBatchFile) {
+        batchFiles.put(Long.parseLong(name.substring(INDEX_FILE_PREFIX.length())), files);
+      }
+    }
+  }
+
+  /**
+   * Replaces all index files except the one of the current batch with a single file, dropping files that no longer
+   * exist in the directory. The index file of the current batch is kept so that the batch can still be computed
+   * again. The new compacted file is written before the old files are deleted, so a failure in between only leaves
+   * duplicates.
+   */
+  private void compactIndex(FileSystem indexFs, Path indexDir, long batchTime,
+                            Set<String> existingFiles) throws IOException {
+    processedFiles.retainAll(existingFiles);
+    List<String> currentFiles = batchFiles.get(batchTime);
+    Set<String> compactedFiles = new HashSet<>(processedFiles);
+    compactedFiles.removeAll(currentFiles);
+    String compactedName = COMPACTED_FILE_PREFIX + batchTime;
+    String currentName = INDEX_FILE_PREFIX + batchTime;
+    writeIndexFile(indexFs, new Path(indexDir, compactedName), compactedFiles);
+    for (FileStatus status : indexFs.listStatus(indexDir)) {
+      Path oldIndexFile = status.getPath();
+      String name = oldIndexFile.getName();
+      if ((name.startsWith(INDEX_FILE_PREFIX) && !name.equals(currentName)) ||
+        (name.startsWith(COMPACTED_FILE_PREFIX) && !name.equals(compactedName))) {
+        indexFs.delete(oldIndexFile, false);
+      }
+    }
+    batchFiles.clear();
+    batchFiles.put(batchTime, currentFiles);
+  }
+
+  private void writeIndexFile(FileSystem indexFs, Path indexFile, Iterable<String> files) throws IOException {
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(indexFs.create(indexFile, true),
+                                                                   StandardCharsets.UTF_8))) {
+      for (String file : files) {
+        writer.write(file);
+        writer.write('\n');
+      }
+    }
+  }
+}
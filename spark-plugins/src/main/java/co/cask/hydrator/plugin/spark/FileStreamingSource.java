@@ -30,13 +30,18 @@ import co.cask.cdap.etl.api.streaming.StreamingContext;
 import co.cask.cdap.etl.api.streaming.StreamingSource;
 import co.cask.cdap.format.RecordFormats;
 import co.cask.hydrator.common.ReferencePluginConfig;
+import co.cask.hydrator.format.FileFormat;
+import co.cask.hydrator.format.input.PathTrackingInputFormat;
+import co.cask.hydrator.format.plugin.FileSourceProperties;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Files;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.streaming.api.java.JavaDStream;
@@ -47,7 +52,9 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
 /**
@@ -81,12 +88,34 @@ public class FileStreamingSource extends ReferenceStreamingSource<StructuredReco
     Function<Path, Boolean> filter =
       conf.extensions == null ? new NoFilter() : new ExtensionFilter(conf.getExtensions());
 
+    if (conf.processedFilesIndex != null) {
+      FileFormatInputDStream stream = new FileFormatInputDStream(jsc.ssc(), conf.path, conf.processedFilesIndex,
+                                                                 conf.getExtensions(), conf.getMaxSplitSize(),
+                                                                 conf.getMinFileAge() * 1000L, getFormatConfig());
+      return new JavaDStream<>(stream, FileFormatInputDStream.CLASS_TAG);
+    }
+
     jsc.ssc().conf().set("spark.streaming.fileStream.minRememberDuration", conf.ignoreThreshold + "s");
     return jsc.fileStream(conf.path, LongWritable.class, Text.class,
                           TextInputFormat.class, filter, false)
       .map(new FormatFunction(conf.format, conf.schema));
   }
 
+  /**
+   * Returns the Hadoop configuration that the {@link PathTrackingInputFormat} needs to read the configured format.
+   */
+  private Map<String, String> getFormatConfig() throws IOException {
+    // don't load defaults so that only the entries set by the input format are returned
+    Job job = Job.getInstance(new Configuration(false));
+    PathTrackingInputFormat.configure(job, new StreamingFileSourceProperties(conf),
+                                      conf.getProperties().getProperties());
+    Map<String, String> formatConfig = new HashMap<>();
+    for (Map.Entry<String, String> entry : job.getConfiguration()) {
+      formatConfig.put(entry.getKey(), entry.getValue());
+    }
+    return formatConfig;
+  }
+
   /**
    * Doesn't filter any files.
    */
@@ -148,14 +177,84 @@ public class FileStreamingSource extends ReferenceStreamingSource<StructuredReco
     }
   }
 
+  /**
+   * Exposes the source config as {@link FileSourceProperties} so that the format-common input formats can be used.
+   */
+  private static class StreamingFileSourceProperties implements FileSourceProperties {
+    private final Conf conf;
+
+    StreamingFileSourceProperties(Conf conf) {
+      this.conf = conf;
+    }
+
+    @Override
+    public void validate() {
+      conf.validate();
+    }
+
+    @Override
+    public String getReferenceName() {
+      return conf.referenceName;
+    }
+
+    @Override
+    public String getPath() {
+      return conf.path;
+    }
+
+    @Override
+    public FileFormat getFormat() {
+      return conf.getFileFormat();
+    }
+
+    @Nullable
+    @Override
+    public Pattern getFilePattern() {
+      return null;
+    }
+
+    @Override
+    public long getMaxSplitSize() {
+      return conf.getMaxSplitSize();
+    }
+
+    @Override
+    public boolean shouldAllowEmptyInput() {
+      return true;
+    }
+
+    @Override
+    public boolean shouldReadRecursively() {
+      return false;
+    }
+
+    @Nullable
+    @Override
+    public String getPathField() {
+      return null;
+    }
+
+    @Override
+    public boolean useFilenameAsPath() {
+      return false;
+    }
+
+    @Override
+    public Schema getSchema() {
+      return conf.getSchema();
+    }
+  }
+
   /**
    * Configuration for the source.
    */
   public static class Conf extends ReferencePluginConfig {
     private static final Set<String> FORMATS = ImmutableSet.of("text", "csv", "tsv", "clf", "grok", "syslog");
+    private static final long DEFAULT_MAX_SPLIT_SIZE = 128L * 1024 * 1024;
 
     @Macro
-    @Description("The format of the source files. Must be text, csv, tsv, clf, grok, or syslog. Defaults to text.")
+    @Description("The format of the source files. Must be text, csv, tsv, clf, grok, or syslog. Defaults to text. " +
+      "If a processed files index is given, must be avro, blob, csv, delimited, json, parquet, text, or tsv instead.")
     @Nullable
     private String format;
 
@@ -177,6 +276,32 @@ public class FileStreamingSource extends ReferenceStreamingSource<StructuredReco
     @Nullable
     private String extensions;
 
+    @Macro
+    @Description("Directory used to keep track of the files that have already been read. If specified, files are " +
+      "read with the shared file format readers, and every file in the directory that is not in the index is " +
+      "read, regardless of the ignore threshold. The directory is created if it does not exist.")
+    @Nullable
+    private String processedFilesIndex;
+
+    @Macro
+    @Description("The delimiter to use if the format is 'delimited'. Only used if a processed files index is given.")
+    @Nullable
+    private String delimiter;
+
+    @Macro
+    @Description("Maximum size in bytes of each partition when reading files. Large files are split into multiple " +
+      "partitions so that they can be read in parallel. Only used if a processed files index is given. " +
+      "Defaults to 128MB.")
+    @Nullable
+    private Long maxSplitSize;
+
+    @Macro
+    @Description("Files that were modified less than this many seconds ago are not read until a later batch, so " +
+      "that files that are still being written are not read. Only used if a processed files index is given. " +
+      "Defaults to 0, which reads every new file.")
+    @Nullable
+    private Integer minFileAge;
+
     public Conf() {
       super(null);
       this.path = "";
@@ -184,9 +309,28 @@ public class FileStreamingSource extends ReferenceStreamingSource<StructuredReco
       this.schema = null;
       this.ignoreThreshold = 60;
       this.extensions = null;
+      this.processedFilesIndex = null;
+      this.delimiter = null;
+      this.maxSplitSize = DEFAULT_MAX_SPLIT_SIZE;
+      this.minFileAge = 0;
     }
 
     private void validate() {
+      if (processedFilesIndex != null || containsMacro("processedFilesIndex")) {
+        if (!containsMacro("format")) {
+          getFileFormat().getFileInputFormatter(getProperties().getProperties(), getSchema());
+        }
+        if (!containsMacro("maxSplitSize") && maxSplitSize != null && maxSplitSize <= 0) {
+          throw new IllegalArgumentException(
+            String.format("Invalid maxSplitSize %d. It must be greater than 0.", maxSplitSize));
+        }
+        if (!containsMacro("minFileAge") && minFileAge != null && minFileAge < 0) {
+          throw new IllegalArgumentException(
+            String.format("Invalid minFileAge %d. It must not be negative.", minFileAge));
+        }
+        getSchema();
+        return;
+      }
       if (!containsMacro(format) && !FORMATS.contains(format)) {
         throw new IllegalArgumentException(
           String.format("Invalid format '%s'. Must be one of %s", format, Joiner.on(',').join(FORMATS)));
@@ -202,6 +346,18 @@ public class FileStreamingSource extends ReferenceStreamingSource<StructuredReco
       }
     }
 
+    private FileFormat getFileFormat() {
+      return FileFormat.from(format == null ? "text" : format, FileFormat::canRead);
+    }
+
+    private long getMaxSplitSize() {
+      return maxSplitSize == null ? DEFAULT_MAX_SPLIT_SIZE : maxSplitSize;
+    }
+
+    private int getMinFileAge() {
+      return minFileAge == null ? 0 : minFileAge;
+    }
+
     private Set<String> getExtensions() {
       Set<String> extensionsSet = new HashSet<>();
       if (extensions == null) {
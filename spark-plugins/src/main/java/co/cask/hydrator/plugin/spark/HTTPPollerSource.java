@@ -20,20 +20,25 @@ import co.cask.cdap.api.annotation.Description;
 import co.cask.cdap.api.annotation.Name;
 import co.cask.cdap.api.annotation.Plugin;
 import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.streaming.StreamingContext;
 import co.cask.cdap.etl.api.streaming.StreamingSource;
 import co.cask.hydrator.common.http.HTTPPollConfig;
 import co.cask.hydrator.common.http.HTTPRequestor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.spark.storage.StorageLevel;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.receiver.Receiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Polls a http endpoints and outputs a record for each url response.
+ * Polls http endpoints and outputs a record for each url response.
  */
 @Plugin(type = StreamingSource.PLUGIN_TYPE)
 @Name("HTTPPoller")
@@ -49,47 +54,67 @@ public class HTTPPollerSource extends StreamingSource<StructuredRecord> {
   @Override
   public JavaDStream<StructuredRecord> getStream(StreamingContext streamingContext) throws Exception {
     return streamingContext.getSparkStreamingContext()
-      .receiverStream(new Receiver<StructuredRecord>(StorageLevel.MEMORY_ONLY()) {
-
-        @Override
-        public StorageLevel storageLevel() {
-          return StorageLevel.MEMORY_ONLY();
-        }
-
-        @Override
-        public void onStart() {
-          new Thread() {
+      .receiverStream(new HTTPPollReceiver(conf, streamingContext.getMetrics()));
+  }
 
-            @Override
-            public void run() {
-              HTTPRequestor httpRequestor = new HTTPRequestor(conf);
-              while (!isStopped()) {
+  /**
+   * Receiver that polls each url on its own schedule, using a bounded pool of threads. A slow url only delays the
+   * next poll of that url, not the polls of other urls.
+   */
+  private static class HTTPPollReceiver extends Receiver<StructuredRecord> {
+    private final HTTPPollConfig conf;
+    private final StageMetrics metrics;
+    private transient ScheduledExecutorService executor;
 
-                try {
-                  store(httpRequestor.get());
-                } catch (Exception e) {
-                  LOG.error("Error getting content from {}.", conf.getUrl(), e);
-                }
+    HTTPPollReceiver(HTTPPollConfig conf, StageMetrics metrics) {
+      super(StorageLevel.MEMORY_ONLY());
+      this.conf = conf;
+      this.metrics = metrics;
+    }
 
-                try {
-                  TimeUnit.SECONDS.sleep(conf.getInterval());
-                } catch (InterruptedException e) {
-                  throw new RuntimeException(e);
-                }
-              }
-            }
+    @Override
+    public StorageLevel storageLevel() {
+      return StorageLevel.MEMORY_ONLY();
+    }
 
-            @Override
-            public void interrupt() {
-              super.interrupt();
-            }
-          }.start();
-        }
+    @Override
+    public void onStart() {
+      List<String> urls = conf.getUrls();
+      executor = Executors.newScheduledThreadPool(
+        Math.min(urls.size(), conf.getMaxConcurrentPolls()),
+        new ThreadFactoryBuilder().setNameFormat("http-poller-%d").setDaemon(true).build());
+      for (String url : urls) {
+        HTTPRequestor httpRequestor = new HTTPRequestor(conf, url);
+        String latencyMetric = "poll.latency.ms." + url.replaceAll("[^A-Za-z0-9]+", "_");
+        executor.scheduleWithFixedDelay(() -> poll(httpRequestor, latencyMetric),
+                                        0, conf.getInterval(), TimeUnit.SECONDS);
+      }
+    }
 
-        @Override
-        public void onStop() {
+    @Override
+    public void onStop() {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
 
+    private void poll(HTTPRequestor httpRequestor, String latencyMetric) {
+      if (isStopped()) {
+        return;
+      }
+      long start = System.nanoTime();
+      try {
+        StructuredRecord record = httpRequestor.get();
+        metrics.gauge(latencyMetric, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (record == null) {
+          metrics.count("poll.unchanged", 1);
+        } else {
+          store(record);
         }
-      });
+      } catch (Exception e) {
+        metrics.count("poll.errors", 1);
+        LOG.error("Error getting content from {}.", httpRequestor.getUrl(), e);
+      }
+    }
   }
 }
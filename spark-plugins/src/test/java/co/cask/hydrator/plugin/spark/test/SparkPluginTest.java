@@ -183,6 +183,56 @@ public class SparkPluginTest extends HydratorTestBase {
     sparkManager.stop();
   }
 
+  @Test
+  public void testHttpStreamingSourceMultipleUrls() throws Exception {
+    Assert.assertEquals(200, resetFeeds());
+    final String actors = "samuel jackson\ndwayne johnson";
+    final String directors = "quentin tarantino\nmartin scorsese";
+    Assert.assertEquals(200, writeFeed("actors", actors));
+    Assert.assertEquals(200, writeFeed("directors", directors));
+
+    Map<String, String> properties = ImmutableMap.of(
+      "referenceName", "multiFeed",
+      "url", httpBase + "/feeds/actors",
+      "urls", httpBase + "/feeds/directors\n" + httpBase + "/feeds/missing",
+      "interval", "1",
+      "skipUnchanged", "true"
+    );
+
+    DataStreamsConfig pipelineConfig = DataStreamsConfig.builder()
+      .addStage(new ETLStage("source", new ETLPlugin("HTTPPoller", StreamingSource.PLUGIN_TYPE, properties, null)))
+      .addStage(new ETLStage("sink", MockSink.getPlugin("httpMultiOutput")))
+      .addConnection("source", "sink")
+      .setBatchInterval("1s")
+      .build();
+    AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(DATASTREAMS_ARTIFACT, pipelineConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("HTTPMultiSourceApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    SparkManager sparkManager = appManager.getSparkManager(DataStreamsSparkLauncher.NAME);
+    sparkManager.start();
+    sparkManager.waitForStatus(true, 10, 1);
+
+    final DataSetManager<Table> outputManager = getDataset("httpMultiOutput");
+    Tasks.waitFor(
+      true,
+      () -> {
+        outputManager.flush();
+        Map<String, Integer> responseCodes = new HashMap<>();
+        Set<String> contents = new HashSet<>();
+        for (StructuredRecord record : MockSink.readOutput(outputManager)) {
+          responseCodes.put(record.get("url"), record.get("responseCode"));
+          contents.add(record.get("body"));
+        }
+        return responseCodes.size() == 3 && responseCodes.get(httpBase + "/feeds/missing") == 404
+          && contents.contains(actors) && contents.contains(directors);
+      },
+      4,
+      TimeUnit.MINUTES);
+
+    sparkManager.stop();
+  }
+
   @Test
   public void testFileSource() throws Exception {
     Schema schema = Schema.recordOf(
@@ -278,6 +328,97 @@ public class SparkPluginTest extends HydratorTestBase {
     sparkManager.stop();
   }
 
+  @Test
+  public void testFileSourceWithProcessedFilesIndex() throws Exception {
+    Schema schema = Schema.recordOf(
+      "user",
+      Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("first", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("last", Schema.of(Schema.Type.STRING)));
+
+    File folder = tmpFolder.newFolder("indexedFileSourceTest");
+    File indexFolder = new File(tmpFolder.newFolder("indexedFileSourceIndex"), "index");
+
+    File input1 = new File(folder, "input1.json");
+    File ignore1 = new File(folder, "input1.json.done");
+    CharStreams.write("{\"id\":1,\"first\":\"samuel\",\"last\":\"jackson\"}\n" +
+                        "{\"id\":2,\"first\":\"dwayne\",\"last\":\"johnson\"}",
+                      Files.newWriterSupplier(input1, Charsets.UTF_8));
+    CharStreams.write("{\"id\":0,\"first\":\"nicolas\",\"last\":\"cage\"}",
+                      Files.newWriterSupplier(ignore1, Charsets.UTF_8));
+    // files are read regardless of how old they are when an index is used
+    Assert.assertTrue(input1.setLastModified(0L));
+    // files that were modified too recently are not read
+    File pending = new File(folder, "pending.json");
+    CharStreams.write("{\"id\":4,\"first\":\"tom\",\"last\":\"hanks\"}",
+                      Files.newWriterSupplier(pending, Charsets.UTF_8));
+    Assert.assertTrue(pending.setLastModified(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+
+    Map<String, String> properties = ImmutableMap.<String, String>builder()
+      .put("path", folder.getAbsolutePath())
+      .put("format", "json")
+      .put("schema", schema.toString())
+      .put("referenceName", "indexedFileSourceTestInput")
+      .put("extensions", "json")
+      .put("processedFilesIndex", indexFolder.getAbsolutePath())
+      .put("minFileAge", "1")
+      .build();
+
+    DataStreamsConfig pipelineCfg = DataStreamsConfig.builder()
+      .addStage(new ETLStage("source", new ETLPlugin("File", StreamingSource.PLUGIN_TYPE, properties, null)))
+      .addStage(new ETLStage("sink", MockSink.getPlugin("indexedFileOutput")))
+      .addConnection("source", "sink")
+      .setBatchInterval("1s")
+      .build();
+
+    AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(DATASTREAMS_ARTIFACT, pipelineCfg);
+
+    ApplicationId appId = NamespaceId.DEFAULT.app("IndexedFileSourceApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    SparkManager sparkManager = appManager.getSparkManager(DataStreamsSparkLauncher.NAME);
+    sparkManager.start();
+    sparkManager.waitForRun(ProgramRunStatus.RUNNING, 1, TimeUnit.MINUTES);
+
+    final DataSetManager<Table> outputManager = getDataset("indexedFileOutput");
+    Tasks.waitFor(
+      true,
+      () -> {
+        outputManager.flush();
+        Map<Long, String> actual = new HashMap<>();
+        for (StructuredRecord outputRecord : MockSink.readOutput(outputManager)) {
+          actual.put(outputRecord.get("id"), outputRecord.get("first") + " " + outputRecord.get("last"));
+        }
+        return ImmutableMap.of(1L, "samuel jackson", 2L, "dwayne johnson").equals(actual);
+      },
+      4,
+      TimeUnit.MINUTES);
+
+    // write a new file and make sure only it is read, since the first file is in the index
+    File input2 = new File(folder, "input2.json");
+    CharStreams.write("{\"id\":3,\"first\":\"christopher\",\"last\":\"walken\"}",
+                      Files.newWriterSupplier(input2, Charsets.UTF_8));
+    Assert.assertTrue(input2.setLastModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1)));
+
+    Tasks.waitFor(
+      true,
+      () -> {
+        outputManager.flush();
+        List<Long> ids = new ArrayList<>();
+        for (StructuredRecord outputRecord : MockSink.readOutput(outputManager)) {
+          ids.add(outputRecord.get("id"));
+        }
+        return ids.size() == 3 && ids.contains(3L) && !ids.contains(4L);
+      },
+      4,
+      TimeUnit.MINUTES);
+
+    sparkManager.stop();
+    String[] indexFiles = indexFolder.list((dir, name) -> name.startsWith("batch-"));
+    Assert.assertNotNull(indexFiles);
+    Assert.assertEquals(2, indexFiles.length);
+  }
+
 
   private int resetFeeds() throws IOException {
     URL url = new URL(httpBase + "/feeds");
@@ -38,6 +38,7 @@ import org.apache.commons.csv.CSVRecord;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -228,6 +229,8 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
     try {
       if (body == null) {
         emitter.emit(createStructuredRecord(null, in));
+      } else if (config.isStreaming()) {
+        emitRecords(body, in, emitter);
       } else {
         org.apache.commons.csv.CSVParser parser = org.apache.commons.csv.CSVParser.parse(body, csvFormat);
         List<CSVRecord> records = parser.getRecords();
@@ -240,6 +243,49 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
     }
   }
 
+  /**
+   * Parses the body lazily and emits each record as soon as it is parsed, so that a large body never has all of its
+   * records in memory at once. Records that can't be converted to the output schema are emitted as errors. Once more
+   * than the configured maximum number of errors were found in the body, the rest of it is skipped.
+   *
+   * A record that can't be parsed is emitted as an error and the rest of the body is skipped, since the parser would
+   * otherwise continue in the middle of the malformed record and emit its remainder as records of their own.
+   */
+  private void emitRecords(String body, StructuredRecord in, Emitter<StructuredRecord> emitter) throws IOException {
+    int maxErrors = config.getMaxErrors();
+    int numErrors = 0;
+    try (org.apache.commons.csv.CSVParser parser = org.apache.commons.csv.CSVParser.parse(body, csvFormat)) {
+      Iterator<CSVRecord> records = parser.iterator();
+      while (numErrors <= maxErrors) {
+        CSVRecord record;
+        try {
+          if (!records.hasNext()) {
+            return;
+          }
+          record = records.next();
+        } catch (RuntimeException e) {
+          // the iterator wraps the IOException thrown for a malformed record
+          Throwable cause = e.getCause() instanceof IOException ? e.getCause() : e;
+          emitter.emitError(new InvalidEntry<>(31, String.format("Unable to parse CSV record %d: %s",
+                                                                 parser.getRecordNumber() + 1, cause.getMessage()),
+                                               in));
+          return;
+        }
+
+        StructuredRecord output;
+        try {
+          output = createStructuredRecord(record, in);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+          numErrors++;
+          emitter.emitError(new InvalidEntry<>(31, String.format("Unable to convert CSV record %d: %s",
+                                                                 record.getRecordNumber(), e.getMessage()), in));
+          continue;
+        }
+        emitter.emit(output);
+      }
+    }
+  }
+
   private StructuredRecord createStructuredRecord(@Nullable CSVRecord record, StructuredRecord in) {
     StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
     int i = 0;
@@ -304,16 +350,46 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
     @Description("Specifies the schema that has to be output.")
     private String schema;
 
+    @Nullable
+    @Description("Whether to emit each CSV record as soon as it is parsed, instead of parsing all the records in the " +
+      "field first. This keeps memory use constant when the field contains a large number of records, such as a " +
+      "whole file. In this mode, records that cannot be parsed or converted to the output schema are emitted as " +
+      "errors. Defaults to false.")
+    private Boolean streaming;
+
+    @Nullable
+    @Description("The maximum number of records that cannot be converted to the output schema to allow in the field " +
+      "of a single input record when streaming. Once there are more errors than this, the rest of the field is " +
+      "skipped. A record that cannot be parsed always causes the rest of the field to be skipped. Defaults to 0.")
+    private Integer maxErrors;
+
     public Config(@Nullable String format, @Nullable Character delimiter, String field, String schema) {
+      this(format, delimiter, field, schema, false, 0);
+    }
+
+    public Config(@Nullable String format, @Nullable Character delimiter, String field, String schema,
+                  @Nullable Boolean streaming, @Nullable Integer maxErrors) {
       this.format = format == null ? "DEFAULT" : format;
       this.delimiter = delimiter;
       this.field = field;
       this.schema = schema;
+      this.streaming = streaming;
+      this.maxErrors = maxErrors;
     }
 
     //Constructor to assign default value to format
     public Config() {
       format = "DEFAULT";
+      streaming = false;
+      maxErrors = 0;
+    }
+
+    boolean isStreaming() {
+      return streaming != null && streaming;
+    }
+
+    int getMaxErrors() {
+      return maxErrors == null ? 0 : maxErrors;
     }
 
     private void validate() {
@@ -334,6 +410,10 @@ public final class CSVParser extends Transform<StructuredRecord, StructuredRecor
       if (!format.equalsIgnoreCase("Custom") && delimiter != null && delimiter != 0) {
         throw new IllegalArgumentException("Custom delimiter can only be used for format option 'Custom'.");
       }
+      if (getMaxErrors() < 0) {
+        throw new IllegalArgumentException(String.format("Invalid maxErrors %d. It must not be negative.",
+                                                         maxErrors));
+      }
     }
   }
 }
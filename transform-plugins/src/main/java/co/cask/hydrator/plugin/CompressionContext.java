@@ -0,0 +1,414 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses field values for the {@link Compressor} and {@link Decompressor}, reusing the same
+ * deflaters, inflater and buffers for every value. There is one context per thread, shared by all plugin instances
+ * that run in that thread.
+ *
+ * Each method writes its result into the output buffer, which is only valid until the next call, and returns the
+ * number of bytes written. The gzip and zip data written is laid out the same way GZIPOutputStream and
+ * ZipOutputStream write it, with a single zip entry named 'c', and anything those streams can read can be read here.
+ */
+final class CompressionContext {
+  private static final ThreadLocal<CompressionContext> CONTEXTS = ThreadLocal.withInitial(CompressionContext::new);
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int GZIP_TRAILER_LENGTH = 8;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private static final int ZIP_LOCAL_HEADER = 0x04034b50;
+  private static final int ZIP_CENTRAL_HEADER = 0x02014b50;
+  private static final int ZIP_END_HEADER = 0x06054b50;
+  private static final int ZIP_DATA_DESCRIPTOR = 0x08074b50;
+  private static final int ZIP_LOCAL_HEADER_LENGTH = 30;
+  private static final int ZIP_CENTRAL_HEADER_LENGTH = 46;
+  private static final int ZIP_END_HEADER_LENGTH = 22;
+  private static final int ZIP_VERSION = 20;
+  private static final int ZIP_STORED = 0;
+  private static final int ZIP_DEFLATED = 8;
+  private static final int ZIP_FLAG_DATA_DESCRIPTOR = 8;
+  private static final int ZIP_FLAG_UTF8 = 0x800;
+  private static final int ZIP_DATA_DESCRIPTOR_LENGTH = 16;
+  private static final int ZIP64_EXTRA_ID = 1;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  // MS-DOS time of 1980-01-01 00:00, the earliest time that can be stored
+  private static final int ZIP_MIN_DOS_TIME = (1 << 21) | (1 << 16);
+  private static final byte[] ZIP_ENTRY_NAME = { 'c' };
+
+  private final Deflater gzipDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final Deflater zipDeflater = new Deflater(9, true);
+  private final Inflater inflater = new Inflater(true);
+  private final CRC32 crc = new CRC32();
+  private byte[] output = new byte[8192];
+  private byte[] input = new byte[0];
+
+  private CompressionContext() {
+    // use get()
+  }
+
+  /**
+   * Get the context for the current thread.
+   */
+  static CompressionContext get() {
+    return CONTEXTS.get();
+  }
+
+  /**
+   * Get the buffer that holds the result of the last call.
+   */
+  byte[] getOutput() {
+    return output;
+  }
+
+  /**
+   * Get the bytes of a BYTES field value without copying them, unless the value is a ByteBuffer that is not
+   * backed by an array. The returned buffer's position and limit give the range of the bytes in its array.
+   */
+  ByteBuffer wrap(Object value) {
+    if (value instanceof byte[]) {
+      return ByteBuffer.wrap((byte[]) value);
+    }
+    ByteBuffer buffer = (ByteBuffer) value;
+    if (buffer.hasArray()) {
+      return ByteBuffer.wrap(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+    if (input.length < buffer.remaining()) {
+      input = new byte[buffer.remaining()];
+    }
+    buffer.duplicate().get(input, 0, buffer.remaining());
+    return ByteBuffer.wrap(input, 0, buffer.remaining());
+  }
+
+  int snappy(byte[] bytes, int offset, int length) throws IOException {
+    ensureCapacity(Snappy.maxCompressedLength(length));
+    return Snappy.compress(bytes, offset, length, output, 0);
+  }
+
+  int unsnappy(byte[] bytes, int offset, int length) throws IOException {
+    ensureCapacity(Snappy.uncompressedLength(bytes, offset, length));
+    return Snappy.uncompress(bytes, offset, length, output, 0);
+  }
+
+  int gzip(byte[] bytes, int offset, int length) {
+    // magic, deflate, and no flags, time, extra flags or operating system, like GZIPOutputStream in Java 8
+    int pos = 0;
+    ensureCapacity(10);
+    pos = writeShort(pos, GZIP_MAGIC);
+    output[pos++] = Deflater.DEFLATED;
+    Arrays.fill(output, pos, pos + 7, (byte) 0);
+    pos += 7;
+    pos = deflate(gzipDeflater, bytes, offset, length, pos);
+    crc.reset();
+    crc.update(bytes, offset, length);
+    ensureCapacity(pos + GZIP_TRAILER_LENGTH);
+    pos = writeInt(pos, (int) crc.getValue());
+    return writeInt(pos, length);
+  }
+
+  int gunzip(byte[] bytes, int offset, int length) throws IOException {
+    int end = offset + length;
+    int pos = offset;
+    int outputLength = 0;
+    // GZIPInputStream reads concatenated members, and ignores trailing data that is not another member
+    do {
+      pos = skipGzipHeader(bytes, pos, end);
+      int memberStart = outputLength;
+      inflater.reset();
+      inflater.setInput(bytes, pos, end - pos);
+      outputLength = inflate(outputLength);
+      pos = end - inflater.getRemaining();
+      if (end - pos < GZIP_TRAILER_LENGTH) {
+        throw new IOException("Unexpected end of gzip data.");
+      }
+      crc.reset();
+      crc.update(output, memberStart, outputLength - memberStart);
+      if (readInt(bytes, pos) != (int) crc.getValue() || readInt(bytes, pos + 4) != outputLength - memberStart) {
+        throw new IOException("Corrupt gzip data.");
+      }
+      pos += GZIP_TRAILER_LENGTH;
+    } while (end - pos >= 10 && readShort(bytes, pos) == GZIP_MAGIC);
+    return outputLength;
+  }
+
+  int zip(byte[] bytes, int offset, int length) {
+    int dataStart = ZIP_LOCAL_HEADER_LENGTH + ZIP_ENTRY_NAME.length;
+    ensureCapacity(dataStart);
+    int dataEnd = deflate(zipDeflater, bytes, offset, length, dataStart);
+    int compressedSize = dataEnd - dataStart;
+    crc.reset();
+    crc.update(bytes, offset, length);
+    int checksum = (int) crc.getValue();
+    int dosTime = toDosTime(System.currentTimeMillis());
+
+    // like ZipOutputStream, the crc and sizes are left out of the local header and written after the data
+    int pos = writeInt(0, ZIP_LOCAL_HEADER);
+    pos = writeEntryHeader(pos, dosTime, 0, 0, 0);
+    System.arraycopy(ZIP_ENTRY_NAME, 0, output, pos, ZIP_ENTRY_NAME.length);
+
+    int centralStart = dataEnd + ZIP_DATA_DESCRIPTOR_LENGTH;
+    ensureCapacity(centralStart + ZIP_CENTRAL_HEADER_LENGTH + ZIP_ENTRY_NAME.length + ZIP_END_HEADER_LENGTH);
+    pos = writeInt(dataEnd, ZIP_DATA_DESCRIPTOR);
+    pos = writeInt(pos, checksum);
+    pos = writeInt(pos, compressedSize);
+    pos = writeInt(pos, length);
+
+    pos = writeInt(pos, ZIP_CENTRAL_HEADER);
+    // version made by
+    pos = writeShort(pos, ZIP_VERSION);
+    pos = writeEntryHeader(pos, dosTime, checksum, compressedSize, length);
+    // comment length, disk number, internal and external attributes, offset of the local header
+    Arrays.fill(output, pos, pos + 14, (byte) 0);
+    pos += 14;
+    System.arraycopy(ZIP_ENTRY_NAME, 0, output, pos, ZIP_ENTRY_NAME.length);
+    pos += ZIP_ENTRY_NAME.length;
+
+    pos = writeInt(pos, ZIP_END_HEADER);
+    // disk numbers
+    pos = writeInt(pos, 0);
+    // entries on this disk and in total
+    pos = writeShort(pos, 1);
+    pos = writeShort(pos, 1);
+    pos = writeInt(pos, ZIP_CENTRAL_HEADER_LENGTH + ZIP_ENTRY_NAME.length);
+    pos = writeInt(pos, centralStart);
+    // comment length
+    return writeShort(pos, 0);
+  }
+
+  /**
+   * Decompresses the data of all entries in a zip file, one after the other, the same way the Decompressor always
+   * read zip files with ZipInputStream.
+   */
+  int unzip(byte[] bytes, int offset, int length) throws IOException {
+    int end = offset + length;
+    int pos = offset;
+    int outputLength = 0;
+    while (end - pos >= ZIP_LOCAL_HEADER_LENGTH && readInt(bytes, pos) == ZIP_LOCAL_HEADER) {
+      int flags = readShort(bytes, pos + 6);
+      int method = readShort(bytes, pos + 8);
+      long compressedSize = readInt(bytes, pos + 18) & ZIP64_MAGIC;
+      long size = readInt(bytes, pos + 22) & ZIP64_MAGIC;
+      int extraStart = pos + ZIP_LOCAL_HEADER_LENGTH + readShort(bytes, pos + 26);
+      pos = extraStart + readShort(bytes, pos + 28);
+      if (pos > end) {
+        throw new IOException("Unexpected end of zip data.");
+      }
+      // the sizes are in the zip64 extra field if they don't fit in the header, and the data descriptor then
+      // has 8 byte sizes as well
+      int zip64Extra = findZip64Extra(bytes, extraStart, pos);
+      boolean zip64 = zip64Extra >= 0 || compressedSize == ZIP64_MAGIC || size == ZIP64_MAGIC;
+      if (zip64Extra >= 0 && compressedSize == ZIP64_MAGIC && size == ZIP64_MAGIC) {
+        compressedSize = readLong(bytes, zip64Extra + 8);
+      }
+      boolean hasDataDescriptor = (flags & ZIP_FLAG_DATA_DESCRIPTOR) != 0;
+
+      if (method == ZIP_STORED) {
+        if (hasDataDescriptor) {
+          throw new IOException("Stored zip entries can not have a data descriptor.");
+        }
+        if (compressedSize > end - pos) {
+          throw new IOException("Unexpected end of zip data.");
+        }
+        ensureCapacity(outputLength + (int) compressedSize);
+        System.arraycopy(bytes, pos, output, outputLength, (int) compressedSize);
+        outputLength += (int) compressedSize;
+        pos += (int) compressedSize;
+      } else if (method == ZIP_DEFLATED) {
+        inflater.reset();
+        inflater.setInput(bytes, pos, end - pos);
+        outputLength = inflate(outputLength);
+        pos = end - inflater.getRemaining();
+      } else {
+        throw new IOException("Unsupported zip compression method " + method);
+      }
+      if (hasDataDescriptor) {
+        // crc and sizes, optionally preceded by a signature
+        if (end - pos >= 4 && readInt(bytes, pos) == ZIP_DATA_DESCRIPTOR) {
+          pos += 4;
+        }
+        pos += zip64 ? 20 : 12;
+        if (pos > end) {
+          throw new IOException("Unexpected end of zip data.");
+        }
+      }
+    }
+    return outputLength;
+  }
+
+  private int deflate(Deflater deflater, byte[] bytes, int offset, int length, int outputOffset) {
+    deflater.reset();
+    deflater.setInput(bytes, offset, length);
+    deflater.finish();
+    int pos = outputOffset;
+    // deflate can expand incompressible data slightly
+    ensureCapacity(pos + length + (length >> 8) + 64);
+    while (!deflater.finished()) {
+      if (pos == output.length) {
+        ensureCapacity(pos + 1);
+      }
+      pos += deflater.deflate(output, pos, output.length - pos);
+    }
+    return pos;
+  }
+
+  private int inflate(int outputOffset) throws IOException {
+    int pos = outputOffset;
+    try {
+      while (!inflater.finished()) {
+        if (pos == output.length) {
+          ensureCapacity(pos + 1);
+        }
+        int inflated = inflater.inflate(output, pos, output.length - pos);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IOException("Unexpected end of compressed data.");
+        }
+        pos += inflated;
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Invalid compressed data: " + e.getMessage(), e);
+    }
+    return pos;
+  }
+
+  private static int skipGzipHeader(byte[] bytes, int offset, int end) throws IOException {
+    if (end - offset < 10 || readShort(bytes, offset) != GZIP_MAGIC) {
+      throw new IOException("Not in gzip format.");
+    }
+    if (bytes[offset + 2] != Deflater.DEFLATED) {
+      throw new IOException("Unsupported gzip compression method.");
+    }
+    int flags = bytes[offset + 3] & 0xff;
+    int pos = offset + 10;
+    if ((flags & FEXTRA) != 0) {
+      if (end - pos < 2) {
+        throw new IOException("Unexpected end of gzip data.");
+      }
+      pos += 2 + readShort(bytes, pos);
+    }
+    if ((flags & FNAME) != 0) {
+      pos = skipZeroTerminated(bytes, pos, end);
+    }
+    if ((flags & FCOMMENT) != 0) {
+      pos = skipZeroTerminated(bytes, pos, end);
+    }
+    if ((flags & FHCRC) != 0) {
+      pos += 2;
+    }
+    if (pos > end) {
+      throw new IOException("Unexpected end of gzip data.");
+    }
+    return pos;
+  }
+
+  /**
+   * Returns the position of the data of the zip64 extra field in the given range of extra fields, or -1 if there is
+   * none.
+   */
+  private static int findZip64Extra(byte[] bytes, int offset, int end) {
+    int pos = offset;
+    while (end - pos >= 4) {
+      int id = readShort(bytes, pos);
+      int dataLength = readShort(bytes, pos + 2);
+      pos += 4;
+      if (id == ZIP64_EXTRA_ID && dataLength >= 16 && end - pos >= 16) {
+        return pos;
+      }
+      pos += dataLength;
+    }
+    return -1;
+  }
+
+  private static int skipZeroTerminated(byte[] bytes, int offset, int end) {
+    int pos = offset;
+    while (pos < end && bytes[pos] != 0) {
+      pos++;
+    }
+    return pos + 1;
+  }
+
+  /**
+   * Writes the fields that the local and central zip headers have in common, and returns the position of the name.
+   */
+  private int writeEntryHeader(int offset, int dosTime, int checksum, int compressedSize, int size) {
+    int pos = writeShort(offset, ZIP_VERSION);
+    pos = writeShort(pos, ZIP_FLAG_DATA_DESCRIPTOR | ZIP_FLAG_UTF8);
+    pos = writeShort(pos, ZIP_DEFLATED);
+    pos = writeInt(pos, dosTime);
+    pos = writeInt(pos, checksum);
+    pos = writeInt(pos, compressedSize);
+    pos = writeInt(pos, size);
+    pos = writeShort(pos, ZIP_ENTRY_NAME.length);
+    // extra field length
+    return writeShort(pos, 0);
+  }
+
+  /**
+   * Converts a time to the MS-DOS time and date stored in zip headers, in the local time zone like ZipEntry does.
+   */
+  private static int toDosTime(long time) {
+    LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+    if (dateTime.getYear() < 1980) {
+      return ZIP_MIN_DOS_TIME;
+    }
+    return (dateTime.getYear() - 1980) << 25 | dateTime.getMonthValue() << 21 | dateTime.getDayOfMonth() << 16
+      | dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (output.length < capacity) {
+      output = Arrays.copyOf(output, Math.max(capacity, output.length * 2));
+    }
+  }
+
+  private int writeShort(int offset, int value) {
+    output[offset] = (byte) value;
+    output[offset + 1] = (byte) (value >>> 8);
+    return offset + 2;
+  }
+
+  private int writeInt(int offset, int value) {
+    writeShort(offset, value);
+    return writeShort(offset + 2, value >>> 16);
+  }
+
+  private static int readShort(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return readShort(bytes, offset) | (readShort(bytes, offset + 2) << 16);
+  }
+
+  private static long readLong(byte[] bytes, int offset) {
+    return (readInt(bytes, offset) & ZIP64_MAGIC) | ((long) readInt(bytes, offset + 4) << 32);
+  }
+}
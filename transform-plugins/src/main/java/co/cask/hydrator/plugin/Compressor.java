@@ -31,15 +31,12 @@ import co.cask.cdap.etl.api.TransformContext;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xerial.snappy.Snappy;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Compresses the configured fields using the algorithms specified.
@@ -172,25 +169,17 @@ public final class Compressor extends Transform<StructuredRecord, StructuredReco
         builder.set(name, in.get(name));
       } else {
         // Now, the input field could be of type String or byte[], so transform everything
-        // to byte[] 
-        byte[] obj = new byte[0];
+        // to bytes. byte[] and ByteBuffer values are compressed in place.
+        ByteBuffer obj = ByteBuffer.wrap(new byte[0]);
         if (field.getSchema().getType() == Schema.Type.BYTES) {
-          obj = in.get(name);
+          obj = CompressionContext.get().wrap(in.get(name));
         } else if (field.getSchema().getType() == Schema.Type.STRING) {
-          obj = Bytes.toBytes((String) in.get(name));
+          obj = ByteBuffer.wrap(Bytes.toBytes((String) in.get(name)));
         }
 
         // Now, based on the compressor type configured for the field - compress the byte[] of the
         // value.
-        byte[] outValue = new byte[0];
-        CompressorType type = compMap.get(name);
-        if (type == CompressorType.SNAPPY) {
-          outValue = Snappy.compress(obj);
-        } else if (type == CompressorType.ZIP) {
-          outValue = zip(obj);
-        } else if (type == CompressorType.GZIP) {
-          outValue = gzip(obj);
-        }
+        byte[] outValue = compress(compMap.get(name), obj);
 
         // Depending on the output field type, either convert it to 
         // Bytes or to String. 
@@ -207,54 +196,25 @@ public final class Compressor extends Transform<StructuredRecord, StructuredReco
     emitter.emit(builder.build());
   }
 
-  private static byte[] gzip(byte[] input) {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    GZIPOutputStream gzip = null;
-    try {
-      gzip = new GZIPOutputStream(out);
-      gzip.write(input, 0, input.length);
-    } catch (IOException e) {
-      // These are all in memory operations, so this should not happen. 
-      // But, if it happens then we just return null. Logging anything 
-      // here can be noise.
-      return null;
-    } finally {
-      if (gzip != null) {
-        try {
-          gzip.close();
-        } catch (IOException e) {
-          return null;
-        }
-      }
-    }
-
-    return out.toByteArray();
-  }
-
-  private byte[] zip(byte[] input) {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    ZipOutputStream zos = new ZipOutputStream(out);
-    try {
-      zos.setLevel(9);
-      zos.putNextEntry(new ZipEntry("c"));
-      zos.write(input, 0, input.length);
-      zos.finish();
-    } catch (IOException e) {
-      // These are all in memory operations, so this should not happen. 
-      // But, if it happens then we just return null. Logging anything 
-      // here can be noise. 
-      return null;
-    } finally {
-      try {
-        if (zos != null) {
-          zos.close();
-        }
-      } catch (IOException e) {
-        return null;
-      }
+  private static byte[] compress(CompressorType type, ByteBuffer input) throws IOException {
+    CompressionContext context = CompressionContext.get();
+    byte[] bytes = input.array();
+    int length;
+    switch (type) {
+      case SNAPPY:
+        length = context.snappy(bytes, input.position(), input.remaining());
+        break;
+      case ZIP:
+        length = context.zip(bytes, input.position(), input.remaining());
+        break;
+      case GZIP:
+        length = context.gzip(bytes, input.position(), input.remaining());
+        break;
+      default:
+        return new byte[0];
     }
-
-    return out.toByteArray();
+    // the context's buffer is reused for the next value
+    return Arrays.copyOf(context.getOutput(), length);
   }
 
   /**
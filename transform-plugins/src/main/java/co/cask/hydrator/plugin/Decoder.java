@@ -27,36 +27,35 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
-import org.apache.commons.codec.binary.Base32;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import javax.annotation.Nullable;
 
 /**
- * Decodes the input fields as BASE64, BASE32 or HEX.
+ * Decodes the input fields as BASE64, BASE64_URL, BASE32, HEX or BASE85.
  * Please note that Encoder and Decoder might look the same right now, but in near future they will diverge.
  */
 @Plugin(type = "transform")
 @Name("Decoder")
-@Description("Decodes the input field(s) using Base64, Base32, or Hex")
+@Description("Decodes the input field(s) using Base64, URL safe Base64, Base32, Hex or Base85")
 public final class Decoder extends Transform<StructuredRecord, StructuredRecord> {
   private static final Logger LOG = LoggerFactory.getLogger(Decoder.class);
   private final Config config;
   // Mapping of input field to decoder type.
   private final Map<String, DecoderType> decodeMap = new TreeMap<>();
-  // Decoder handlers.
-  private final Base64 base64Decoder = new Base64();
-  private final Base32 base32Decoder = new Base32();
-  private final Hex hexDecoder = new Hex();
-  // Output Field name to type map
-  private final Map<String, Schema.Type> outSchemaMap = new HashMap<>();
+  // Output field names, the decoding of each output field or null if it is copied as is, and whether the
+  // decoded value is written as a string or as bytes.
+  private String[] fieldNames;
+  private FieldCodec.Algorithm[] fieldAlgorithms;
+  private boolean[] fieldAsString;
+  // Decoder handlers, one per thread.
+  private ThreadLocal<FieldCodec> codecs;
   // Output Schema associated with transform output.
   private Schema outSchema;
 
@@ -125,67 +124,49 @@ public final class Decoder extends Transform<StructuredRecord, StructuredRecord>
     parseConfiguration(config.decode);
     try {
       outSchema = Schema.parseJson(config.schema);
-      List<Field> outFields = outSchema.getFields();
-      for (Field field : outFields) {
-        outSchemaMap.put(field.getName(), field.getSchema().getType());
-      }
     } catch (IOException e) {
       throw new IllegalArgumentException("Format of schema specified is invalid. Please check the format.");
     }
+
+    List<String> names = new ArrayList<>();
+    List<FieldCodec.Algorithm> algorithms = new ArrayList<>();
+    List<Boolean> asString = new ArrayList<>();
+    for (Field field : outSchema.getFields()) {
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      DecoderType type = decodeMap.get(field.getName());
+      FieldCodec.Algorithm algorithm = type == null ? null : type.algorithm;
+      Schema.Type outFieldType = fieldSchema.getType();
+      // output fields that are neither bytes nor strings can't hold the result, so they are left unset
+      if (algorithm != null && outFieldType != Schema.Type.STRING && outFieldType != Schema.Type.BYTES) {
+        continue;
+      }
+      names.add(field.getName());
+      algorithms.add(algorithm);
+      asString.add(outFieldType == Schema.Type.STRING);
+    }
+    fieldNames = names.toArray(new String[names.size()]);
+    fieldAlgorithms = algorithms.toArray(new FieldCodec.Algorithm[algorithms.size()]);
+    fieldAsString = new boolean[asString.size()];
+    for (int i = 0; i < fieldAsString.length; i++) {
+      fieldAsString[i] = asString.get(i);
+    }
+    codecs = ThreadLocal.withInitial(FieldCodec::new);
   }
 
   @Override
   public void transform(StructuredRecord in, Emitter<StructuredRecord> emitter) throws Exception {
     StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
-    Schema inSchema = in.getSchema();
-    List<Field> inFields = inSchema.getFields();
-    // Iterate through input fields. Check if field name is present
-    // in the fields that need to be decoded, if it's not then write
-    // to output as it is.
-    for (Field field : inFields) {
-      String name = field.getName();
-
-      // Check if the output schema has the field, if it's not there
-      // then skip and move to processing the next field.
-      if (!outSchemaMap.containsKey(name)) {
-        continue;
-      }
-      Schema.Type outFieldType = outSchemaMap.get(name);
+    FieldCodec codec = codecs.get();
 
-      // Check if the input field name is configured to be decoded. If the field is not
-      // present or is defined as none, then pass through the field as is.
-      if (!decodeMap.containsKey(name) || decodeMap.get(name) == DecoderType.NONE) {
-        builder.set(name, in.get(name));
-      } else {
-        // Now, the input field could be of type String or byte[], so transform everything
-        // to byte[]
-        byte[] obj = new byte[0];
-        if (field.getSchema().getType() == Schema.Type.STRING) {
-          obj = ((String) in.get(name)).getBytes();
-        } else if (field.getSchema().getType() == Schema.Type.BYTES) {
-          obj = in.get(name);
-        }
-
-        // Now, based on the decode type configured for the field - decode the byte[] of the
-        // value.
-        byte[] outValue = new byte[0];
-        DecoderType type = decodeMap.get(name);
-        if (type == DecoderType.STRING_BASE32 || type == DecoderType.BASE32) {
-          outValue = base32Decoder.decode(obj);
-        } else if (type == DecoderType.STRING_BASE64 || type == DecoderType.BASE64) {
-          outValue = base64Decoder.decode(obj);
-        } else if (type == DecoderType.HEX) {
-          outValue = hexDecoder.decode(obj);
-        }
-
-        // Depending on the output field type, either convert it to
-        // Bytes or to String.
-        if (outFieldType == Schema.Type.BYTES) {
-          builder.set(name, outValue);
-        } else if (outFieldType == Schema.Type.STRING) {
-          builder.set(name, new String(outValue, "UTF-8"));
-        }
+    // Iterate through the output fields. Fields that are not in the input record are skipped, fields
+    // that are not configured to be decoded are passed through as is.
+    for (int i = 0; i < fieldNames.length; i++) {
+      Object value = in.get(fieldNames[i]);
+      if (value == null) {
+        continue;
       }
+      FieldCodec.Algorithm algorithm = fieldAlgorithms[i];
+      builder.set(fieldNames[i], algorithm == null ? value : codec.decode(value, algorithm, fieldAsString[i]));
     }
     emitter.emit(builder.build());
   }
@@ -194,17 +175,21 @@ public final class Decoder extends Transform<StructuredRecord, StructuredRecord>
    * Defines decoding types supported.
    */
   private enum DecoderType {
-    BASE64("BASE64"),
-    BASE32("BASE32"),
-    STRING_BASE32("STRING_BASE32"),
-    STRING_BASE64("STRING_BASE64"),
-    HEX("HEX"),
-    NONE("NONE");
+    BASE64("BASE64", FieldCodec.Algorithm.BASE64),
+    BASE32("BASE32", FieldCodec.Algorithm.BASE32),
+    STRING_BASE32("STRING_BASE32", FieldCodec.Algorithm.BASE32),
+    STRING_BASE64("STRING_BASE64", FieldCodec.Algorithm.BASE64),
+    HEX("HEX", FieldCodec.Algorithm.HEX),
+    BASE64_URL("BASE64_URL", FieldCodec.Algorithm.BASE64_URL),
+    BASE85("BASE85", FieldCodec.Algorithm.BASE85),
+    NONE("NONE", null);
 
     private String type;
+    private final FieldCodec.Algorithm algorithm;
 
-    DecoderType(String type) {
+    DecoderType(String type, @Nullable FieldCodec.Algorithm algorithm) {
       this.type = type;
+      this.algorithm = algorithm;
     }
 
     String getType() {
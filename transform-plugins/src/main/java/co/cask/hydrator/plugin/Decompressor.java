@@ -29,18 +29,15 @@ import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xerial.snappy.Snappy;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
  * Decompreses the configured fields using the algorithms specified.
@@ -178,9 +175,9 @@ public final class Decompressor extends Transform<StructuredRecord, StructuredRe
         builder.set(name, in.get(name));
       } else {
         // Now, the input field should be of type byte[]
-        byte[] obj = new byte[0];
+        ByteBuffer obj;
         if (field.getSchema().getType() == Schema.Type.BYTES) {
-          obj = in.get(name);
+          obj = CompressionContext.get().wrap(in.get(name));
         } else {
           LOG.error("Input field '" + name + "' should be of type BYTES to decompress. It is currently of type " +
                       "'" + field.getSchema().getType().toString() + "'");
@@ -189,23 +186,16 @@ public final class Decompressor extends Transform<StructuredRecord, StructuredRe
 
         // Now, based on the encode type configured for the field - encode the byte[] of the
         // value.
-        byte[] outValue = new byte[0];
-        DecompressorType type = deCompMap.get(name);
-        if (type == DecompressorType.SNAPPY) {
-          outValue = Snappy.uncompress(obj);
-        } else if (type == DecompressorType.ZIP) {
-          outValue = unzip(obj);
-        } else if (type == DecompressorType.GZIP) {
-          outValue = ungzip(obj);
-        }
+        int outLength = decompress(deCompMap.get(name), obj);
 
         // Depending on the output field type, either convert it to
         // Bytes or to String.
-        if (outValue != null) {
+        if (outLength >= 0) {
+          byte[] outValue = CompressionContext.get().getOutput();
           if (outFieldType == Schema.Type.BYTES) {
-            builder.set(name, outValue);
+            builder.set(name, Arrays.copyOf(outValue, outLength));
           } else if (outFieldType == Schema.Type.STRING) {
-            builder.set(name, new String(outValue, "UTF-8"));
+            builder.set(name, new String(outValue, 0, outLength, StandardCharsets.UTF_8));
           }
         }
       }
@@ -214,50 +204,27 @@ public final class Decompressor extends Transform<StructuredRecord, StructuredRe
   }
 
   /**
-   * Decompresses using GZIP Algorithm. 
+   * Decompresses the value into the buffer of the thread's {@link CompressionContext}, and returns the number of
+   * bytes decompressed, or -1 if the value is not valid zip or gzip data.
    */
-  private byte[] ungzip(byte[] body) {
-    ByteArrayInputStream bytein = new ByteArrayInputStream(body);
-    try (GZIPInputStream gzin = new GZIPInputStream(bytein);
-         ByteArrayOutputStream byteout = new ByteArrayOutputStream()) {
-      int res = 0;
-      byte buf[] = new byte[1024];
-      while (res >= 0) {
-        res = gzin.read(buf, 0, buf.length);
-        if (res > 0) {
-          byteout.write(buf, 0, res);
-        }
-      }
-      byte uncompressed[] = byteout.toByteArray();
-      return uncompressed;
-    } catch (IOException e) {
-      // Most of operations here are in memory. So, we shouldn't get here.
-      // Logging here is not an option.
+  private static int decompress(DecompressorType type, ByteBuffer input) throws IOException {
+    CompressionContext context = CompressionContext.get();
+    byte[] bytes = input.array();
+    if (type == DecompressorType.SNAPPY) {
+      return context.unsnappy(bytes, input.position(), input.remaining());
     }
-    return null;
-  }
-
-  /**
-   * Decompresses using ZIP Algorithm.
-   */
-  private byte[] unzip(byte[] body)  {
-    ZipEntry ze;
-    byte buf[] = new byte[1024];
-    try (ByteArrayOutputStream bao = new ByteArrayOutputStream();
-         ByteArrayInputStream bytein = new ByteArrayInputStream(body);
-         ZipInputStream zis = new ZipInputStream(bytein)) {
-      while ((ze = zis.getNextEntry()) != null) {
-        int l = 0;
-        while ((l = zis.read(buf)) > 0) {
-          bao.write(buf, 0, l);
-        }
+    try {
+      if (type == DecompressorType.ZIP) {
+        return context.unzip(bytes, input.position(), input.remaining());
+      } else if (type == DecompressorType.GZIP) {
+        return context.gunzip(bytes, input.position(), input.remaining());
       }
-      return bao.toByteArray();
     } catch (IOException e) {
-      // Most of operations here are in memory. So, we shouldn't get here.
-      // Logging here is not an option.       
+      // Most of operations here are in memory, so this means the data is corrupt.
+      // Logging here is not an option.
+      return -1;
     }
-    return null;
+    return 0;
   }
 
   /**
@@ -27,24 +27,22 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
-import org.apache.commons.codec.binary.Base32;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import javax.annotation.Nullable;
 
 /**
- * Encodes the input fields as BASE64, BASE32 or HEX.
+ * Encodes the input fields as BASE64, BASE64_URL, BASE32, HEX or BASE85.
  */
 @Plugin(type = "transform")
 @Name("Encoder")
-@Description("Encodes the input field(s) using Base64, Base32 or Hex")
+@Description("Encodes the input field(s) using Base64, URL safe Base64, Base32, Hex or Base85")
 public final class Encoder extends Transform<StructuredRecord, StructuredRecord> {
   private static final Logger LOG = LoggerFactory.getLogger(Encoder.class);
   private final Config config;
@@ -55,13 +53,14 @@ public final class Encoder extends Transform<StructuredRecord, StructuredRecord>
   // Mapping of input field to encoder type. 
   private final Map<String, EncodeType> encodeMap = new TreeMap<>();
 
-  // Encoder handlers.
-  private final Base64 base64Encoder = new Base64();
-  private final Base32 base32Encoder = new Base32();
-  private final Hex hexEncoder = new Hex();
+  // Output field names, the encoding of each output field or null if it is copied as is, and whether the
+  // encoded value is written as a string or as bytes.
+  private String[] fieldNames;
+  private FieldCodec.Algorithm[] fieldAlgorithms;
+  private boolean[] fieldAsString;
 
-  // Output Field name to type map
-  private final Map<String, Schema.Type> outSchemaMap = new HashMap<>();
+  // Encoder handlers, one per thread.
+  private ThreadLocal<FieldCodec> codecs;
 
   // This is used only for tests, otherwise this is being injected by the ingestion framework.
   public Encoder(Config config) {
@@ -127,74 +126,49 @@ public final class Encoder extends Transform<StructuredRecord, StructuredRecord>
     parseConfiguration(config.encode);
     try {
       outSchema = Schema.parseJson(config.schema);
-      List<Field> outFields = outSchema.getFields();
-      for (Field field : outFields) {
-        outSchemaMap.put(field.getName(), field.getSchema().getType());
-      }
     } catch (IOException e) {
       throw new IllegalArgumentException("Format of schema specified is invalid. Please check the format.");
     }
+
+    List<String> names = new ArrayList<>();
+    List<FieldCodec.Algorithm> algorithms = new ArrayList<>();
+    List<Boolean> asString = new ArrayList<>();
+    for (Field field : outSchema.getFields()) {
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      EncodeType type = encodeMap.get(field.getName());
+      FieldCodec.Algorithm algorithm = type == null ? null : type.algorithm;
+      Schema.Type outFieldType = fieldSchema.getType();
+      // output fields that are neither bytes nor strings can't hold the result, so they are left unset
+      if (algorithm != null && outFieldType != Schema.Type.STRING && outFieldType != Schema.Type.BYTES) {
+        continue;
+      }
+      names.add(field.getName());
+      algorithms.add(algorithm);
+      asString.add(outFieldType == Schema.Type.STRING);
+    }
+    fieldNames = names.toArray(new String[names.size()]);
+    fieldAlgorithms = algorithms.toArray(new FieldCodec.Algorithm[algorithms.size()]);
+    fieldAsString = new boolean[asString.size()];
+    for (int i = 0; i < fieldAsString.length; i++) {
+      fieldAsString[i] = asString.get(i);
+    }
+    codecs = ThreadLocal.withInitial(FieldCodec::new);
   }
 
   @Override
   public void transform(StructuredRecord in, Emitter<StructuredRecord> emitter) throws Exception {
     StructuredRecord.Builder builder = StructuredRecord.builder(outSchema);
+    FieldCodec codec = codecs.get();
 
-    Schema inSchema = in.getSchema();
-    List<Field> inFields = inSchema.getFields();
-
-    // Iterate through input fields. Check if field name is present 
-    // in the fields that need to be encoded, if it's not then write 
-    // to output as it is. 
-    for (Field field : inFields) {
-      String name = field.getName();
-
-      // Check if output schema also have the same field name. If it's not 
-      // then throw an exception. 
-      if (!outSchemaMap.containsKey(name)) {
+    // Iterate through the output fields. Fields that are not in the input record are skipped, fields
+    // that are not configured to be encoded are passed through as is.
+    for (int i = 0; i < fieldNames.length; i++) {
+      Object value = in.get(fieldNames[i]);
+      if (value == null) {
         continue;
       }
-
-      Schema.Type outFieldType = outSchemaMap.get(name);
-
-      // Check if the input field name is configured to be encoded. If the field is not 
-      // present or is defined as none, then pass through the field as is. 
-      if (!encodeMap.containsKey(name) || encodeMap.get(name) == EncodeType.NONE) {
-        builder.set(name, in.get(name));
-      } else {
-        // Now, the input field could be of type String or byte[], so transform everything
-        // to byte[] 
-        byte[] obj = new byte[0];
-        if (field.getSchema().getType() == Schema.Type.STRING) {
-          obj = ((String) in.get(name)).getBytes();
-        } else if (field.getSchema().getType() == Schema.Type.BYTES) {
-          obj = in.get(name);
-        }
-
-        // Now, based on the encode type configured for the field - encode the byte[] of the 
-        // value.
-        byte[] outValue = new byte[0];
-        EncodeType type = encodeMap.get(name);
-        if (type == EncodeType.STRING_BASE32) {
-          outValue = base32Encoder.encodeAsString(obj).getBytes();
-        } else if (type == EncodeType.BASE32) {
-          outValue = base32Encoder.encode(obj);
-        } else if (type == EncodeType.STRING_BASE64) {
-          outValue = base64Encoder.encodeAsString(obj).getBytes();
-        } else if (type == EncodeType.BASE64) {
-          outValue = base64Encoder.encode(obj);
-        } else if (type == EncodeType.HEX) {
-          outValue = hexEncoder.encode(obj);
-        }
-
-        // Depending on the output field type, either convert it to 
-        // Bytes or to String. 
-        if (outFieldType == Schema.Type.BYTES) {
-          builder.set(name, outValue);
-        } else if (outFieldType == Schema.Type.STRING) {
-          builder.set(name, new String(outValue, "UTF-8"));
-        }
-      }
+      FieldCodec.Algorithm algorithm = fieldAlgorithms[i];
+      builder.set(fieldNames[i], algorithm == null ? value : codec.encode(value, algorithm, fieldAsString[i]));
     }
     emitter.emit(builder.build());
   }
@@ -203,17 +177,21 @@ public final class Encoder extends Transform<StructuredRecord, StructuredRecord>
    * Defines encoding types supported.  
    */
   private enum EncodeType {
-    STRING_BASE64("STRING_BASE64"),
-    STRING_BASE32("STRING_BASE32"),
-    BASE64("BASE64"),
-    BASE32("BASE32"),
-    HEX("HEX"),
-    NONE("NONE");
+    STRING_BASE64("STRING_BASE64", FieldCodec.Algorithm.BASE64),
+    STRING_BASE32("STRING_BASE32", FieldCodec.Algorithm.BASE32),
+    BASE64("BASE64", FieldCodec.Algorithm.BASE64),
+    BASE32("BASE32", FieldCodec.Algorithm.BASE32),
+    HEX("HEX", FieldCodec.Algorithm.HEX),
+    BASE64_URL("BASE64_URL", FieldCodec.Algorithm.BASE64_URL),
+    BASE85("BASE85", FieldCodec.Algorithm.BASE85),
+    NONE("NONE", null);
 
     private String type;
+    private final FieldCodec.Algorithm algorithm;
 
-    EncodeType(String type) {
+    EncodeType(String type, @Nullable FieldCodec.Algorithm algorithm) {
       this.type = type;
+      this.algorithm = algorithm;
     }
 
     String getType() {
@@ -35,8 +35,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.crypto.Cipher;
 
@@ -49,6 +51,7 @@ import javax.crypto.Cipher;
 public final class Encryptor extends Transform<StructuredRecord, StructuredRecord> {
   private static final Logger LOG = LoggerFactory.getLogger(Encryptor.class);
   private final Conf conf;
+  private final Map<Schema, Schema> schemaCache = new HashMap<>();
   private Set<String> encryptFields;
   private FieldEncryptor fieldEncryptor;
 
@@ -74,7 +77,11 @@ public final class Encryptor extends Transform<StructuredRecord, StructuredRecor
 
   @Override
   public void transform(StructuredRecord in, Emitter<StructuredRecord> emitter) throws Exception {
-    Schema schema = getOutputSchema(in.getSchema());
+    Schema schema = schemaCache.get(in.getSchema());
+    if (schema == null) {
+      schema = getOutputSchema(in.getSchema());
+      schemaCache.put(in.getSchema(), schema);
+    }
     StructuredRecord.Builder recordBuilder = StructuredRecord.builder(schema);
     for (Field field : in.getSchema().getFields()) {
       if (encryptFields.contains(field.getName())) {
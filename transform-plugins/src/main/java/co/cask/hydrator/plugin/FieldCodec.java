@@ -0,0 +1,406 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes and decodes field values for the {@link Encoder} and {@link Decoder} with table driven Base64, Base32, Hex
+ * and Base85 codecs, reusing the same buffers for every value. The Encoder and Decoder keep one per thread, and the
+ * result of one call never refers to those buffers.
+ *
+ * Values can be strings, byte arrays or {@link ByteBuffer ByteBuffers}. Strings are encoded as their UTF-8 bytes, and
+ * decoded values are converted to strings as UTF-8. Base64 and Base32 are encoded with padding, except for URL safe
+ * Base64, and decoded leniently like commons-codec does: characters outside of the alphabet are skipped, decoding
+ * stops at the first padding character, and Base64 accepts both the standard and the URL safe alphabet. Hex is
+ * encoded in lower case and decoding fails on invalid characters. Base85 is the Ascii85 variant without the
+ * {@code <~ ~>} delimiters, where a group of four zero bytes is encoded as {@code z}.
+ */
+final class FieldCodec {
+  private static final byte[] BASE64 =
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] BASE64_URL =
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] BASE32 = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] BASE64_DECODE = new byte[256];
+  private static final byte[] BASE32_DECODE = new byte[256];
+  private static final byte[] HEX_DECODE = new byte[256];
+  private static final byte PAD = '=';
+
+  static {
+    Arrays.fill(BASE64_DECODE, (byte) -1);
+    Arrays.fill(BASE32_DECODE, (byte) -1);
+    Arrays.fill(HEX_DECODE, (byte) -1);
+    for (int i = 0; i < BASE64.length; i++) {
+      BASE64_DECODE[BASE64[i]] = (byte) i;
+      BASE64_DECODE[BASE64_URL[i]] = (byte) i;
+    }
+    for (int i = 0; i < BASE32.length; i++) {
+      BASE32_DECODE[BASE32[i]] = (byte) i;
+      BASE32_DECODE[Character.toLowerCase(BASE32[i])] = (byte) i;
+    }
+    for (int i = 0; i < HEX.length; i++) {
+      HEX_DECODE[HEX[i]] = (byte) i;
+      HEX_DECODE[Character.toUpperCase(HEX[i])] = (byte) i;
+    }
+  }
+
+  /**
+   * Supported encodings.
+   */
+  enum Algorithm {
+    BASE64,
+    BASE64_URL,
+    BASE32,
+    HEX,
+    BASE85
+  }
+
+  private byte[] input = new byte[256];
+  private byte[] output = new byte[256];
+  // the bytes of the value that is being encoded or decoded
+  private byte[] source;
+  private int sourceOffset;
+
+  /**
+   * Returns the encoded value, as a string or as bytes.
+   *
+   * @param value a non-null string, byte array or ByteBuffer
+   */
+  Object encode(Object value, Algorithm algorithm, boolean asString) {
+    int length = setSource(value);
+    byte[] src = source;
+    int offset = sourceOffset;
+    int maxLength = encodedLength(algorithm, length);
+    if (!asString) {
+      byte[] encoded = new byte[maxLength];
+      int encodedLength = encode(algorithm, src, offset, length, encoded);
+      return encodedLength == maxLength ? encoded : Arrays.copyOf(encoded, encodedLength);
+    }
+    output = Utf8Bytes.ensureCapacity(output, maxLength);
+    return new String(output, 0, encode(algorithm, src, offset, length, output), StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Returns the decoded value, as a UTF-8 string or as bytes.
+   *
+   * @param value a non-null string, byte array or ByteBuffer
+   * @throws IllegalArgumentException if the value cannot be decoded
+   */
+  Object decode(Object value, Algorithm algorithm, boolean asString) {
+    int length = setSource(value);
+    byte[] src = source;
+    int offset = sourceOffset;
+    output = Utf8Bytes.ensureCapacity(output, decodedLength(algorithm, length));
+    int decodedLength;
+    switch (algorithm) {
+      case BASE64:
+      case BASE64_URL:
+        decodedLength = decodeBits(src, offset, length, BASE64_DECODE, 6);
+        break;
+      case BASE32:
+        decodedLength = decodeBits(src, offset, length, BASE32_DECODE, 5);
+        break;
+      case HEX:
+        decodedLength = decodeHex(src, offset, length);
+        break;
+      case BASE85:
+        decodedLength = decodeBase85(src, offset, length);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported encoding " + algorithm);
+    }
+    return asString ?
+      new String(output, 0, decodedLength, StandardCharsets.UTF_8) : Arrays.copyOf(output, decodedLength);
+  }
+
+  /**
+   * Points the source to the bytes of the value, without copying byte arrays and heap ByteBuffers, and returns the
+   * number of bytes.
+   */
+  private int setSource(Object value) {
+    if (value instanceof String) {
+      int length = encodeUtf8((String) value);
+      source = input;
+      sourceOffset = 0;
+      return length;
+    }
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = (ByteBuffer) value;
+      if (buffer.hasArray()) {
+        source = buffer.array();
+        sourceOffset = buffer.arrayOffset() + buffer.position();
+        return buffer.remaining();
+      }
+      int length = buffer.remaining();
+      input = Utf8Bytes.ensureCapacity(input, length);
+      buffer.duplicate().get(input, 0, length);
+      source = input;
+      sourceOffset = 0;
+      return length;
+    }
+    source = (byte[]) value;
+    sourceOffset = 0;
+    return source.length;
+  }
+
+  private static int encodedLength(Algorithm algorithm, int length) {
+    switch (algorithm) {
+      case BASE64:
+        return (length + 2) / 3 * 4;
+      case BASE64_URL:
+        return (length * 4 + 2) / 3;
+      case BASE32:
+        return (length + 4) / 5 * 8;
+      case HEX:
+        return length * 2;
+      case BASE85:
+        return length / 4 * 5 + (length % 4 == 0 ? 0 : length % 4 + 1);
+      default:
+        throw new IllegalArgumentException("Unsupported encoding " + algorithm);
+    }
+  }
+
+  private static int decodedLength(Algorithm algorithm, int length) {
+    switch (algorithm) {
+      case BASE64:
+      case BASE64_URL:
+        return length / 4 * 3 + 3;
+      case BASE32:
+        return length / 8 * 5 + 5;
+      case HEX:
+        return length / 2;
+      case BASE85:
+        // every 'z' decodes to four bytes
+        return length * 4;
+      default:
+        throw new IllegalArgumentException("Unsupported encoding " + algorithm);
+    }
+  }
+
+  private static int encode(Algorithm algorithm, byte[] src, int offset, int length, byte[] dst) {
+    switch (algorithm) {
+      case BASE64:
+        return encodeBase64(src, offset, length, dst, BASE64, true);
+      case BASE64_URL:
+        return encodeBase64(src, offset, length, dst, BASE64_URL, false);
+      case BASE32:
+        return encodeBase32(src, offset, length, dst);
+      case HEX:
+        return encodeHex(src, offset, length, dst);
+      case BASE85:
+        return encodeBase85(src, offset, length, dst);
+      default:
+        throw new IllegalArgumentException("Unsupported encoding " + algorithm);
+    }
+  }
+
+  private static int encodeBase64(byte[] src, int offset, int length, byte[] dst, byte[] alphabet, boolean pad) {
+    int end = offset + length;
+    int i = offset;
+    int pos = 0;
+    for (; end - i >= 3; i += 3) {
+      int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+      dst[pos++] = alphabet[bits >>> 18];
+      dst[pos++] = alphabet[(bits >>> 12) & 0x3f];
+      dst[pos++] = alphabet[(bits >>> 6) & 0x3f];
+      dst[pos++] = alphabet[bits & 0x3f];
+    }
+    int remaining = end - i;
+    if (remaining > 0) {
+      int bits = (src[i] & 0xff) << 16 | (remaining == 2 ? (src[i + 1] & 0xff) << 8 : 0);
+      dst[pos++] = alphabet[bits >>> 18];
+      dst[pos++] = alphabet[(bits >>> 12) & 0x3f];
+      if (remaining == 2) {
+        dst[pos++] = alphabet[(bits >>> 6) & 0x3f];
+      } else if (pad) {
+        dst[pos++] = PAD;
+      }
+      if (pad) {
+        dst[pos++] = PAD;
+      }
+    }
+    return pos;
+  }
+
+  private static int encodeBase32(byte[] src, int offset, int length, byte[] dst) {
+    int end = offset + length;
+    int pos = 0;
+    int buffer = 0;
+    int bits = 0;
+    for (int i = offset; i < end; i++) {
+      buffer = (buffer << 8) | (src[i] & 0xff);
+      bits += 8;
+      while (bits >= 5) {
+        bits -= 5;
+        dst[pos++] = BASE32[(buffer >>> bits) & 0x1f];
+      }
+      buffer &= (1 << bits) - 1;
+    }
+    if (bits > 0) {
+      dst[pos++] = BASE32[(buffer << (5 - bits)) & 0x1f];
+    }
+    while (pos % 8 != 0) {
+      dst[pos++] = PAD;
+    }
+    return pos;
+  }
+
+  private static int encodeHex(byte[] src, int offset, int length, byte[] dst) {
+    int pos = 0;
+    for (int i = offset; i < offset + length; i++) {
+      dst[pos++] = HEX[(src[i] >> 4) & 0x0f];
+      dst[pos++] = HEX[src[i] & 0x0f];
+    }
+    return pos;
+  }
+
+  private static int encodeBase85(byte[] src, int offset, int length, byte[] dst) {
+    int end = offset + length;
+    int pos = 0;
+    for (int i = offset; i < end; i += 4) {
+      int groupLength = Math.min(4, end - i);
+      long group = 0;
+      for (int j = 0; j < 4; j++) {
+        group = (group << 8) | (j < groupLength ? src[i + j] & 0xff : 0);
+      }
+      if (group == 0 && groupLength == 4) {
+        dst[pos++] = 'z';
+        continue;
+      }
+      // a partial group of n bytes is written as the first n + 1 characters of its zero padded encoding
+      for (int j = 4; j >= 0; j--) {
+        if (j <= groupLength) {
+          dst[pos + j] = (byte) ('!' + group % 85);
+        }
+        group /= 85;
+      }
+      pos += groupLength + 1;
+    }
+    return pos;
+  }
+
+  /**
+   * Decodes an alphabet with the given number of bits per character into the output buffer, skipping characters that
+   * are not in the alphabet and stopping at the first padding character.
+   */
+  private int decodeBits(byte[] src, int offset, int length, byte[] table, int bitsPerChar) {
+    int end = offset + length;
+    int pos = 0;
+    int buffer = 0;
+    int bits = 0;
+    for (int i = offset; i < end; i++) {
+      byte c = src[i];
+      if (c == PAD) {
+        break;
+      }
+      int value = table[c & 0xff];
+      if (value < 0) {
+        continue;
+      }
+      buffer = (buffer << bitsPerChar) | value;
+      bits += bitsPerChar;
+      if (bits >= 8) {
+        bits -= 8;
+        output[pos++] = (byte) (buffer >>> bits);
+        buffer &= (1 << bits) - 1;
+      }
+    }
+    return pos;
+  }
+
+  private int decodeHex(byte[] src, int offset, int length) {
+    if ((length & 1) != 0) {
+      throw new IllegalArgumentException("Odd number of characters in hex value.");
+    }
+    int pos = 0;
+    for (int i = offset; i < offset + length; i += 2) {
+      int high = HEX_DECODE[src[i] & 0xff];
+      int low = HEX_DECODE[src[i + 1] & 0xff];
+      if (high < 0 || low < 0) {
+        throw new IllegalArgumentException("Illegal hexadecimal character at index " + (i - offset) + ".");
+      }
+      output[pos++] = (byte) (high << 4 | low);
+    }
+    return pos;
+  }
+
+  private int decodeBase85(byte[] src, int offset, int length) {
+    int end = offset + length;
+    int i = offset;
+    if (length >= 2 && src[i] == '<' && src[i + 1] == '~') {
+      i += 2;
+    }
+    int pos = 0;
+    long group = 0;
+    int count = 0;
+    for (; i < end; i++) {
+      byte c = src[i];
+      if (c == '~') {
+        break;
+      }
+      if (Character.isWhitespace(c)) {
+        continue;
+      }
+      if (c == 'z' && count == 0) {
+        output[pos++] = 0;
+        output[pos++] = 0;
+        output[pos++] = 0;
+        output[pos++] = 0;
+        continue;
+      }
+      if (c < '!' || c > 'u') {
+        throw new IllegalArgumentException("Illegal Base85 character at index " + (i - offset) + ".");
+      }
+      group = group * 85 + (c - '!');
+      if (++count == 5) {
+        pos = writeBase85Group(group, 4, pos);
+        group = 0;
+        count = 0;
+      }
+    }
+    if (count == 1) {
+      throw new IllegalArgumentException("Base85 value ends with a single character.");
+    }
+    if (count > 1) {
+      // a partial group is padded with the highest digit and decoded into one byte less than its characters
+      for (int j = count; j < 5; j++) {
+        group = group * 85 + 84;
+      }
+      pos = writeBase85Group(group, count - 1, pos);
+    }
+    return pos;
+  }
+
+  private int writeBase85Group(long group, int bytes, int pos) {
+    if (group > 0xffffffffL) {
+      throw new IllegalArgumentException("Base85 group is out of range.");
+    }
+    for (int j = 0; j < bytes; j++) {
+      output[pos++] = (byte) (group >>> (24 - 8 * j));
+    }
+    return pos;
+  }
+
+  private int encodeUtf8(String str) {
+    input = Utf8Bytes.ensureCapacity(input, str);
+    return Utf8Bytes.encode(str, input);
+  }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin;
+
+import co.cask.cdap.api.data.schema.Schema;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Hashes field values for the {@link Hasher} into lower case hex strings, reusing the same digest and buffers for
+ * every value. The Hasher creates one for each thread, since the digest and buffers hold the state of the value that
+ * is being hashed.
+ *
+ * Strings are hashed as their UTF-8 bytes, and numbers as the UTF-8 bytes of their string representation, so that
+ * the number 42 hashes to the same value as the string "42". The XXHASH64 hash is written as its 64 bit value, and
+ * the MURMUR3_128 hash as its 16 bytes, the same way Guava's HashCode prints it.
+ */
+final class FieldHasher {
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final long XX_PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long XX_PRIME2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long XX_PRIME3 = 0x165667B19E3779F9L;
+  private static final long XX_PRIME4 = 0x85EBCA77C2B2AE63L;
+  private static final long XX_PRIME5 = 0x27D4EB2F165667C5L;
+  private static final long MURMUR_C1 = 0x87c37b91114253d5L;
+  private static final long MURMUR_C2 = 0x4cf5ad432745937fL;
+
+  /**
+   * Supported hash algorithms.
+   */
+  enum Algorithm {
+    MD2("MD2"),
+    MD5("MD5"),
+    SHA1("SHA-1"),
+    SHA256("SHA-256"),
+    SHA384("SHA-384"),
+    SHA512("SHA-512"),
+    XXHASH64(null),
+    MURMUR3_128(null),
+    HMAC_SHA256("HmacSHA256"),
+    HMAC_SHA512("HmacSHA512");
+
+    private final String jcaName;
+
+    Algorithm(@Nullable String jcaName) {
+      this.jcaName = jcaName;
+    }
+
+    boolean isHmac() {
+      return this == HMAC_SHA256 || this == HMAC_SHA512;
+    }
+
+    /**
+     * Returns the algorithm with the given case insensitive name, or null if there is no such algorithm.
+     */
+    @Nullable
+    static Algorithm fromName(String name) {
+      try {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+  }
+
+  private final Algorithm algorithm;
+  private final MessageDigest digest;
+  private final Mac mac;
+  private final byte[] hash;
+  private final char[] hex;
+  private byte[] buffer = new byte[256];
+
+  /**
+   * @param algorithm the hash algorithm
+   * @param key the secret key for the HMAC algorithms, ignored by the others
+   * @throws GeneralSecurityException if the algorithm is not available or the key is invalid
+   */
+  FieldHasher(Algorithm algorithm, @Nullable byte[] key) throws GeneralSecurityException {
+    this.algorithm = algorithm;
+    int hashLength;
+    if (algorithm.isHmac()) {
+      if (key == null || key.length == 0) {
+        throw new IllegalArgumentException("A key is required for the " + algorithm + " hash.");
+      }
+      mac = Mac.getInstance(algorithm.jcaName);
+      mac.init(new SecretKeySpec(key, algorithm.jcaName));
+      digest = null;
+      hashLength = mac.getMacLength();
+    } else if (algorithm.jcaName != null) {
+      digest = MessageDigest.getInstance(algorithm.jcaName);
+      mac = null;
+      hashLength = digest.getDigestLength();
+    } else {
+      digest = null;
+      mac = null;
+      hashLength = algorithm == Algorithm.XXHASH64 ? 8 : 16;
+    }
+    hash = new byte[hashLength];
+    hex = new char[hashLength * 2];
+  }
+
+  /**
+   * Returns the hex encoded hash of a non-null value of the given type.
+   *
+   * @param value the value to hash
+   * @param type the type of the value, one of STRING, BYTES, INT, LONG, FLOAT or DOUBLE
+   */
+  String hash(Object value, Schema.Type type) {
+    switch (type) {
+      case STRING:
+        return hashUtf8((String) value);
+      case BYTES:
+        if (value instanceof byte[]) {
+          byte[] bytes = (byte[]) value;
+          return hash(bytes, 0, bytes.length);
+        }
+        ByteBuffer byteBuffer = (ByteBuffer) value;
+        if (byteBuffer.hasArray()) {
+          return hash(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+        }
+        int length = byteBuffer.remaining();
+        buffer = Utf8Bytes.ensureCapacity(buffer, length);
+        byteBuffer.duplicate().get(buffer, 0, length);
+        return hash(buffer, 0, length);
+      case INT:
+      case LONG:
+        int longLength = encodeLong(((Number) value).longValue());
+        return hash(buffer, 0, longLength);
+      case FLOAT:
+      case DOUBLE:
+        return hashUtf8(value.toString());
+      default:
+        throw new IllegalArgumentException("Values of type " + type + " cannot be hashed.");
+    }
+  }
+
+  private String hash(byte[] bytes, int offset, int length) {
+    try {
+      switch (algorithm) {
+        case XXHASH64:
+          long value = xxHash64(bytes, offset, length);
+          for (int i = 0; i < 8; i++) {
+            hash[i] = (byte) (value >>> (56 - 8 * i));
+          }
+          break;
+        case MURMUR3_128:
+          murmur3Hash128(bytes, offset, length);
+          break;
+        default:
+          if (mac != null) {
+            mac.update(bytes, offset, length);
+            mac.doFinal(hash, 0);
+          } else {
+            digest.update(bytes, offset, length);
+            digest.digest(hash, 0, hash.length);
+          }
+      }
+    } catch (GeneralSecurityException e) {
+      // can't happen, the hash buffer is always large enough
+      throw new IllegalStateException("Failed to hash value with " + algorithm, e);
+    }
+    for (int i = 0; i < hash.length; i++) {
+      hex[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+      hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0x0f];
+    }
+    return new String(hex);
+  }
+
+  private String hashUtf8(String str) {
+    // encoding can replace the buffer, so it must be done before the buffer is passed on
+    int length = encodeUtf8(str);
+    return hash(buffer, 0, length);
+  }
+
+  private int encodeUtf8(String str) {
+    buffer = Utf8Bytes.ensureCapacity(buffer, str);
+    return Utf8Bytes.encode(str, buffer);
+  }
+
+  /**
+   * Writes the decimal string representation of the value into the buffer and returns the number of bytes written.
+   */
+  private int encodeLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      return encodeUtf8(Long.toString(value));
+    }
+    int length = value < 0 ? 1 : 0;
+    long remaining = Math.abs(value);
+    do {
+      length++;
+      remaining /= 10;
+    } while (remaining != 0);
+
+    remaining = Math.abs(value);
+    for (int pos = length - 1; pos >= (value < 0 ? 1 : 0); pos--) {
+      buffer[pos] = (byte) ('0' + remaining % 10);
+      remaining /= 10;
+    }
+    if (value < 0) {
+      buffer[0] = '-';
+    }
+    return length;
+  }
+
+  /**
+   * Computes the 64 bit xxHash of the bytes, with seed 0.
+   */
+  private static long xxHash64(byte[] bytes, int offset, int length) {
+    int pos = offset;
+    int end = offset + length;
+    long hash;
+    if (length >= 32) {
+      long v1 = XX_PRIME1 + XX_PRIME2;
+      long v2 = XX_PRIME2;
+      long v3 = 0;
+      long v4 = -XX_PRIME1;
+      do {
+        v1 = xxRound(v1, getLong(bytes, pos));
+        v2 = xxRound(v2, getLong(bytes, pos + 8));
+        v3 = xxRound(v3, getLong(bytes, pos + 16));
+        v4 = xxRound(v4, getLong(bytes, pos + 24));
+        pos += 32;
+      } while (pos <= end - 32);
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      hash = xxMergeRound(hash, v1);
+      hash = xxMergeRound(hash, v2);
+      hash = xxMergeRound(hash, v3);
+      hash = xxMergeRound(hash, v4);
+    } else {
+      hash = XX_PRIME5;
+    }
+    hash += length;
+
+    for (; pos <= end - 8; pos += 8) {
+      hash ^= xxRound(0, getLong(bytes, pos));
+      hash = Long.rotateLeft(hash, 27) * XX_PRIME1 + XX_PRIME4;
+    }
+    if (pos <= end - 4) {
+      hash ^= (getInt(bytes, pos) & 0xffffffffL) * XX_PRIME1;
+      hash = Long.rotateLeft(hash, 23) * XX_PRIME2 + XX_PRIME3;
+      pos += 4;
+    }
+    for (; pos < end; pos++) {
+      hash ^= (bytes[pos] & 0xff) * XX_PRIME5;
+      hash = Long.rotateLeft(hash, 11) * XX_PRIME1;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= XX_PRIME2;
+    hash ^= hash >>> 29;
+    hash *= XX_PRIME3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  private static long xxRound(long acc, long input) {
+    return Long.rotateLeft(acc + input * XX_PRIME2, 31) * XX_PRIME1;
+  }
+
+  private static long xxMergeRound(long acc, long value) {
+    return (acc ^ xxRound(0, value)) * XX_PRIME1 + XX_PRIME4;
+  }
+
+  /**
+   * Computes the 128 bit x64 variant of MurmurHash3 of the bytes, with seed 0, and writes it into the hash buffer.
+   */
+  private void murmur3Hash128(byte[] bytes, int offset, int length) {
+    long h1 = 0;
+    long h2 = 0;
+    int pos = offset;
+    int end = offset + length;
+    for (; pos <= end - 16; pos += 16) {
+      h1 ^= murmurMixK1(getLong(bytes, pos));
+      h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+      h2 ^= murmurMixK2(getLong(bytes, pos + 8));
+      h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+    }
+
+    int tail = end - pos;
+    if (tail > 8) {
+      long k2 = 0;
+      for (int i = tail - 1; i >= 8; i--) {
+        k2 ^= (long) (bytes[pos + i] & 0xff) << (8 * (i - 8));
+      }
+      h2 ^= murmurMixK2(k2);
+    }
+    if (tail > 0) {
+      long k1 = 0;
+      for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+        k1 ^= (long) (bytes[pos + i] & 0xff) << (8 * i);
+      }
+      h1 ^= murmurMixK1(k1);
+    }
+
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = murmurFinalMix(h1);
+    h2 = murmurFinalMix(h2);
+    h1 += h2;
+    h2 += h1;
+    for (int i = 0; i < 8; i++) {
+      hash[i] = (byte) (h1 >>> (8 * i));
+      hash[i + 8] = (byte) (h2 >>> (8 * i));
+    }
+  }
+
+  private static long murmurMixK1(long k1) {
+    return Long.rotateLeft(k1 * MURMUR_C1, 31) * MURMUR_C2;
+  }
+
+  private static long murmurMixK2(long k2) {
+    return Long.rotateLeft(k2 * MURMUR_C2, 33) * MURMUR_C1;
+  }
+
+  private static long murmurFinalMix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  /**
+   * Reads a little endian long.
+   */
+  private static long getLong(byte[] bytes, int pos) {
+    return (getInt(bytes, pos) & 0xffffffffL) | ((long) getInt(bytes, pos + 4) << 32);
+  }
+
+  /**
+   * Reads a little endian int.
+   */
+  private static int getInt(byte[] bytes, int pos) {
+    return (bytes[pos] & 0xff) | ((bytes[pos + 1] & 0xff) << 8) | ((bytes[pos + 2] & 0xff) << 16) |
+      ((bytes[pos + 3] & 0xff) << 24);
+  }
+}
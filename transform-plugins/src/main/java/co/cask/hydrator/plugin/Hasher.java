@@ -17,6 +17,7 @@
 package co.cask.hydrator.plugin;
 
 import co.cask.cdap.api.annotation.Description;
+import co.cask.cdap.api.annotation.Macro;
 import co.cask.cdap.api.annotation.Name;
 import co.cask.cdap.api.annotation.Plugin;
 import co.cask.cdap.api.data.format.StructuredRecord;
@@ -26,10 +27,16 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
-import org.apache.commons.codec.digest.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 
@@ -38,11 +45,17 @@ import javax.annotation.Nullable;
  */
 @Plugin(type = "transform")
 @Name("Hasher")
-@Description("Encodes field values using one of the digest algorithms. MD2, MD5, SHA1, SHA256, " +
-  "SHA384 and SHA512 are the supported message digest algorithms.")
+@Description("Encodes field values using one of the hash algorithms. MD2, MD5, SHA1, SHA256, " +
+  "SHA384 and SHA512 are the supported message digest algorithms, XXHASH64 and MURMUR3_128 are fast " +
+  "non-cryptographic hashes, and HMAC_SHA256 and HMAC_SHA512 are keyed hashes.")
 public final class Hasher extends Transform<StructuredRecord, StructuredRecord> {
+  private static final Set<Schema.Type> HASHABLE_TYPES =
+    EnumSet.of(Schema.Type.STRING, Schema.Type.BYTES, Schema.Type.INT, Schema.Type.LONG,
+               Schema.Type.FLOAT, Schema.Type.DOUBLE);
   private final Config config;
+  private final Map<Schema, HashPlan> plans = new HashMap<>();
   private Set<String> fieldSet = new HashSet<>();
+  private ThreadLocal<FieldHasher> hashers;
 
 
   // For testing purpose only.
@@ -59,51 +72,85 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
     for (String field : fields) {
       fieldSet.add(field);
     }
+
+    FieldHasher.Algorithm algorithm = FieldHasher.Algorithm.fromName(config.hash);
+    byte[] key = config.key == null ? null : config.key.getBytes(StandardCharsets.UTF_8);
+    // fail here if the algorithm is not available or the key is invalid
+    new FieldHasher(algorithm, key);
+    hashers = ThreadLocal.withInitial(() -> {
+      try {
+        return new FieldHasher(algorithm, key);
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("Failed to initialize the " + algorithm + " hash.", e);
+      }
+    });
   }
 
   @Override
   public void configurePipeline(PipelineConfigurer pipelineConfigurer) throws IllegalArgumentException {
     super.configurePipeline(pipelineConfigurer);
     config.validate();
-    pipelineConfigurer.getStageConfigurer().setOutputSchema(pipelineConfigurer.getStageConfigurer().getInputSchema());
+    Schema inputSchema = pipelineConfigurer.getStageConfigurer().getInputSchema();
+    Schema outputSchema = null;
+    if (inputSchema != null) {
+      outputSchema = new HashPlan(inputSchema, new HashSet<>(Arrays.asList(config.fields.split(",")))).outputSchema;
+    }
+    pipelineConfigurer.getStageConfigurer().setOutputSchema(outputSchema);
   }
 
   @Override
   public void transform(StructuredRecord in, Emitter<StructuredRecord> emitter) throws Exception {
-    StructuredRecord.Builder builder = StructuredRecord.builder(in.getSchema());
-    
+    HashPlan plan = plans.get(in.getSchema());
+    if (plan == null) {
+      plan = new HashPlan(in.getSchema(), fieldSet);
+      plans.put(in.getSchema(), plan);
+    }
+    FieldHasher hasher = hashers.get();
+    StructuredRecord.Builder builder = StructuredRecord.builder(plan.outputSchema);
+
     List<Schema.Field> fields = in.getSchema().getFields();
-    for (Schema.Field field : fields) {
-      String name = field.getName();
-      if (fieldSet.contains(name) && field.getSchema().getType() == Schema.Type.STRING) {
-        String value = in.get(name);
-        String digest = value;
-        switch(config.hash.toLowerCase()) {
-          case "md2":
-            digest = DigestUtils.md2Hex(value);
-            break;
-          case "md5":
-            digest = DigestUtils.md5Hex(value);
-            break;
-          case "sha1":
-            digest = DigestUtils.sha1Hex(value);
-            break;
-          case "sha256":
-            digest = DigestUtils.sha256Hex(value);
-            break;
-          case "sha384":
-            digest = DigestUtils.sha384Hex(value);
-            break;
-          case "sha512":
-            digest = DigestUtils.sha512Hex(value);
-            break;
+    for (int i = 0; i < fields.size(); i++) {
+      String name = fields.get(i).getName();
+      Object value = in.get(name);
+      Schema.Type hashType = plan.hashTypes[i];
+      builder.set(name, hashType == null || value == null ? value : hasher.hash(value, hashType));
+    }
+    emitter.emit(builder.build());
+  }
+
+  /**
+   * The fields of an input schema that are hashed, and the output schema, where every hashed field is a string.
+   */
+  private static final class HashPlan {
+    private final Schema outputSchema;
+    // type of each field that is hashed, null for the fields that are copied as is
+    private final Schema.Type[] hashTypes;
+
+    private HashPlan(Schema inputSchema, Set<String> hashedFields) {
+      List<Schema.Field> fields = inputSchema.getFields();
+      List<Schema.Field> outputFields = new ArrayList<>(fields.size());
+      hashTypes = new Schema.Type[fields.size()];
+      boolean changed = false;
+      for (int i = 0; i < fields.size(); i++) {
+        Schema.Field field = fields.get(i);
+        Schema fieldSchema = field.getSchema();
+        boolean nullable = fieldSchema.isNullable();
+        Schema.Type type = nullable ? fieldSchema.getNonNullable().getType() : fieldSchema.getType();
+        if (!hashedFields.contains(field.getName()) || !HASHABLE_TYPES.contains(type)) {
+          outputFields.add(field);
+          continue;
+        }
+        hashTypes[i] = type;
+        if (type == Schema.Type.STRING) {
+          outputFields.add(field);
+        } else {
+          Schema stringSchema = Schema.of(Schema.Type.STRING);
+          outputFields.add(Schema.Field.of(field.getName(), nullable ? Schema.nullableOf(stringSchema) : stringSchema));
+          changed = true;
         }
-        builder.set(name, digest);
-      } else {
-        builder.set(name, in.get(name));
       }
+      outputSchema = changed ? Schema.recordOf(inputSchema.getRecordName(), outputFields) : inputSchema;
     }
-    emitter.emit(builder.build());
   }
 
   /**
@@ -116,23 +163,37 @@ public final class Hasher extends Transform<StructuredRecord, StructuredRecord>
     private final String hash;
     
     @Name("fields")
-    @Description("List of fields to hash. Only string fields are allowed")
+    @Description("List of fields to hash. String, bytes, int, long, float and double fields are allowed. " +
+      "Fields that are not strings are changed to strings in the output.")
     private final String fields;
-    
+
+    @Name("key")
+    @Description("Secret key for the HMAC_SHA256 and HMAC_SHA512 hashes. The UTF-8 bytes of the key are used.")
+    @Nullable
+    @Macro
+    private final String key;
+
     public Config(String hash, String fields) {
+      this(hash, fields, null);
+    }
+
+    public Config(String hash, String fields, @Nullable String key) {
       this.hash = hash;
       this.fields = fields;
+      this.key = key;
     }
 
     private void validate() {
       // Checks if hash specified is one of the supported types.
-      if (!hash.equalsIgnoreCase("md2") && !hash.equalsIgnoreCase("md5") &&
-        !hash.equalsIgnoreCase("sha1") && !hash.equalsIgnoreCase("sha256") &&
-        !hash.equalsIgnoreCase("sha384") && !hash.equalsIgnoreCase("sha512")) {
+      FieldHasher.Algorithm algorithm = hash == null ? null : FieldHasher.Algorithm.fromName(hash);
+      if (algorithm == null) {
         throw new IllegalArgumentException("Invalid hasher '" + hash + "' specified. Allowed hashers are md2, " +
-                                             "md5, sha1, sha256, sha384 and sha512");
+                                             "md5, sha1, sha256, sha384, sha512, xxhash64, murmur3_128, " +
+                                             "hmac_sha256 and hmac_sha512");
+      }
+      if (algorithm.isHmac() && !containsMacro("key") && (key == null || key.isEmpty())) {
+        throw new IllegalArgumentException("A key must be specified for the '" + hash + "' hasher.");
       }
     }
   }
 }
-
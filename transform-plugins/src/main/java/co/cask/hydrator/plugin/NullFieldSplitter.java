@@ -49,8 +49,8 @@ public class NullFieldSplitter extends SplitterTransform<StructuredRecord, Struc
   public static final String NULL_PORT = "null";
   public static final String NON_NULL_PORT = "nonnull";
   private final Conf conf;
-  // only used when input schema is variable
-  private Map<Schema, Schema> schemaMap;
+  // input schema -> non-null output schema and the fields to copy into it
+  private Map<Schema, CopyPlan> copyPlans;
 
   public NullFieldSplitter(Conf conf) {
     this.conf = conf;
@@ -67,31 +67,29 @@ public class NullFieldSplitter extends SplitterTransform<StructuredRecord, Struc
 
   @Override
   public void initialize(TransformContext context) throws Exception {
-    schemaMap = new HashMap<>();
+    copyPlans = new HashMap<>();
     Schema inputSchema = context.getInputSchema();
-    if (inputSchema != null) {
-      Schema nonNullSchema = getNonNullSchema(context.getInputSchema(), conf.field);
-      schemaMap.put(inputSchema, nonNullSchema);
+    if (inputSchema != null && conf.modifySchema) {
+      copyPlans.put(inputSchema, new CopyPlan(inputSchema, conf.field));
     }
   }
 
   @Override
   public void transform(StructuredRecord record, MultiOutputEmitter<StructuredRecord> emitter) {
-    Schema recordSchema = record.getSchema();
     Object val = record.get(conf.field);
     if (val == null) {
       emitter.emit(NULL_PORT, record);
     } else if (!conf.modifySchema) {
       emitter.emit(NON_NULL_PORT, record);
     } else {
-      Schema outputSchema = schemaMap.get(recordSchema);
-      if (outputSchema == null) {
-        outputSchema = getNonNullSchema(recordSchema, conf.field);
-        schemaMap.put(recordSchema, outputSchema);
+      Schema recordSchema = record.getSchema();
+      CopyPlan copyPlan = copyPlans.get(recordSchema);
+      if (copyPlan == null) {
+        copyPlan = new CopyPlan(recordSchema, conf.field);
+        copyPlans.put(recordSchema, copyPlan);
       }
-      StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-      for (Schema.Field recordField : record.getSchema().getFields()) {
-        String fieldName = recordField.getName();
+      StructuredRecord.Builder builder = StructuredRecord.builder(copyPlan.outputSchema);
+      for (String fieldName : copyPlan.fieldNames) {
         builder.set(fieldName, record.get(fieldName));
       }
       emitter.emit(NON_NULL_PORT, builder.build());
@@ -145,6 +143,23 @@ public class NullFieldSplitter extends SplitterTransform<StructuredRecord, Struc
     return Schema.recordOf(nullableSchema.getRecordName() + ".nonnull", fields);
   }
 
+  /**
+   * Non-null output schema for an input schema, along with the names of the fields to copy, computed once per schema.
+   */
+  private static class CopyPlan {
+    private final Schema outputSchema;
+    private final String[] fieldNames;
+
+    private CopyPlan(Schema inputSchema, String fieldName) {
+      this.outputSchema = getNonNullSchema(inputSchema, fieldName);
+      List<Schema.Field> fields = inputSchema.getFields();
+      this.fieldNames = new String[fields.size()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        fieldNames[i] = fields.get(i).getName();
+      }
+    }
+  }
+
   /**
    * Request to get output schemas
    */
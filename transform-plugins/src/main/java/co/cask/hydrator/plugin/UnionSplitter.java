@@ -27,11 +27,13 @@ import co.cask.cdap.etl.api.MultiOutputEmitter;
 import co.cask.cdap.etl.api.MultiOutputPipelineConfigurer;
 import co.cask.cdap.etl.api.MultiOutputStageConfigurer;
 import co.cask.cdap.etl.api.SplitterTransform;
+import co.cask.cdap.etl.api.TransformContext;
 import com.google.common.annotations.VisibleForTesting;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +51,8 @@ import javax.ws.rs.Path;
   "bool, int, long, float, double, or string).")
 public class UnionSplitter extends SplitterTransform<StructuredRecord, StructuredRecord> {
   private final Conf conf;
+  // input schema -> plan for splitting records of that schema
+  private Map<Schema, SplitPlan> splitPlans;
 
   public UnionSplitter(Conf conf) {
     this.conf = conf;
@@ -65,6 +69,15 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
     stageConfigurer.setOutputSchemas(getOutputSchemas(inputSchema, conf.unionField, conf.modifySchema));
   }
 
+  @Override
+  public void initialize(TransformContext context) throws Exception {
+    splitPlans = new HashMap<>();
+    Schema inputSchema = context.getInputSchema();
+    if (inputSchema != null && conf.unionField != null) {
+      splitPlans.put(inputSchema, new SplitPlan(inputSchema, conf.unionField, conf.modifySchema));
+    }
+  }
+
   @Override
   public void transform(StructuredRecord record, MultiOutputEmitter<StructuredRecord> emitter) throws Exception {
     if (conf.unionField == null) {
@@ -72,13 +85,14 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
       return;
     }
 
-    Schema.Field schemaField = record.getSchema().getField(conf.unionField);
-    if (schemaField == null) {
+    Schema inputSchema = record.getSchema();
+    SplitPlan splitPlan = getSplitPlan(inputSchema);
+    if (splitPlan.unionSchemaField == null) {
       emitter.emitError(new InvalidEntry<>(100, String.format("Field '%s' does not exist.", conf.unionField), record));
       return;
     }
 
-    Schema fieldSchema = schemaField.getSchema();
+    Schema fieldSchema = splitPlan.unionSchemaField.getSchema();
     if (fieldSchema.getType() != Schema.Type.UNION) {
       emitter.emitError(new InvalidEntry<>(200, String.format("Field '%s' is not of type union, but is of type '%s'.",
                                                               conf.unionField, fieldSchema.getType()), record));
@@ -86,25 +100,25 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
     }
 
     Object val = record.get(conf.unionField);
-    Schema valSchema;
+    Schema.Type valType;
     if (val == null) {
-      valSchema = Schema.of(Schema.Type.NULL);
+      valType = Schema.Type.NULL;
     } else if (val instanceof Boolean) {
-      valSchema = Schema.of(Schema.Type.BOOLEAN);
+      valType = Schema.Type.BOOLEAN;
     } else if (val instanceof ByteBuffer || val instanceof byte[] || val instanceof Byte[]) {
-      valSchema = Schema.of(Schema.Type.BYTES);
+      valType = Schema.Type.BYTES;
     } else if (val instanceof Integer) {
-      valSchema = Schema.of(Schema.Type.INT);
+      valType = Schema.Type.INT;
     } else if (val instanceof Long) {
-      valSchema = Schema.of(Schema.Type.LONG);
+      valType = Schema.Type.LONG;
     } else if (val instanceof Float) {
-      valSchema = Schema.of(Schema.Type.FLOAT);
+      valType = Schema.Type.FLOAT;
     } else if (val instanceof Double) {
-      valSchema = Schema.of(Schema.Type.DOUBLE);
+      valType = Schema.Type.DOUBLE;
     } else if (val instanceof String) {
-      valSchema = Schema.of(Schema.Type.STRING);
+      valType = Schema.Type.STRING;
     } else if (val instanceof StructuredRecord) {
-      valSchema = ((StructuredRecord) val).getSchema();
+      valType = Schema.Type.RECORD;
     } else if (val.getClass().isEnum()) {
       emitter.emitError(
         new InvalidEntry<>(300, String.format("Field '%s' is an Enum, which is not supported.", conf.unionField),
@@ -128,41 +142,35 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
       return;
     }
 
-    boolean foundSchema = false;
-    for (Schema unionSchema : fieldSchema.getUnionSchemas()) {
-      // if the schema in the union matches the value's schema
-      if (unionSchema.equals(valSchema)) {
-        foundSchema = true;
-      }
-    }
-    if (!foundSchema) {
+    PortPlan portPlan = valType == Schema.Type.RECORD ?
+      splitPlan.recordPorts.get(((StructuredRecord) val).getSchema()) : splitPlan.simplePorts.get(valType);
+    if (portPlan == null) {
+      Schema valSchema = valType == Schema.Type.RECORD ? ((StructuredRecord) val).getSchema() : Schema.of(valType);
       emitter.emitError(
         new InvalidEntry<>(400, String.format("Field '%s' has schema '%s', which is not in its union schema.",
                                               conf.unionField, valSchema), record));
       return;
     }
 
-    Schema inputSchema = record.getSchema();
-    List<Schema.Field> fields = new ArrayList<>(inputSchema.getFields().size());
-    for (Schema.Field inputSchemaField : inputSchema.getFields()) {
-      String fieldName = inputSchemaField.getName();
-      if (fieldName.equals(conf.unionField)) {
-        fields.add(Schema.Field.of(fieldName, valSchema));
-      } else {
-        fields.add(inputSchemaField);
-      }
+    if (!conf.modifySchema) {
+      emitter.emit(portPlan.port, record);
+      return;
     }
 
-    Schema.Type valType = valSchema.getType();
-    String port = valType == Schema.Type.RECORD ? valSchema.getRecordName() : valType.name().toLowerCase();
-    Schema outputSchema = conf.modifySchema ?
-      Schema.recordOf(inputSchema.getRecordName() + "." + port, fields) : inputSchema;
-    StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
-    for (Schema.Field inputSchemaField : inputSchema.getFields()) {
-      String fieldName = inputSchemaField.getName();
+    StructuredRecord.Builder builder = StructuredRecord.builder(portPlan.outputSchema);
+    for (String fieldName : splitPlan.fieldNames) {
       builder.set(fieldName, record.get(fieldName));
     }
-    emitter.emit(port, builder.build());
+    emitter.emit(portPlan.port, builder.build());
+  }
+
+  private SplitPlan getSplitPlan(Schema inputSchema) {
+    SplitPlan splitPlan = splitPlans.get(inputSchema);
+    if (splitPlan == null) {
+      splitPlan = new SplitPlan(inputSchema, conf.unionField, conf.modifySchema);
+      splitPlans.put(inputSchema, splitPlan);
+    }
+    return splitPlan;
   }
 
   @Path("outputSchema")
@@ -221,6 +229,67 @@ public class UnionSplitter extends SplitterTransform<StructuredRecord, Structure
     return outputPortSchemas;
   }
 
+  /**
+   * Everything needed to split records of a single input schema, computed once per schema.
+   * Holds the output port and schema for each branch of the union, as well as the names of the fields to copy
+   * into output records.
+   */
+  private static class SplitPlan {
+    private final Schema.Field unionSchemaField;
+    private final String[] fieldNames;
+    private final Map<Schema.Type, PortPlan> simplePorts;
+    private final Map<Schema, PortPlan> recordPorts;
+
+    private SplitPlan(Schema inputSchema, String unionField, boolean modifySchema) {
+      this.unionSchemaField = inputSchema.getField(unionField);
+      this.simplePorts = new EnumMap<>(Schema.Type.class);
+      this.recordPorts = new HashMap<>();
+
+      List<Schema.Field> inputFields = inputSchema.getFields();
+      this.fieldNames = new String[inputFields.size()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        fieldNames[i] = inputFields.get(i).getName();
+      }
+
+      if (unionSchemaField == null || unionSchemaField.getSchema().getType() != Schema.Type.UNION) {
+        return;
+      }
+
+      for (Schema schema : unionSchemaField.getSchema().getUnionSchemas()) {
+        Schema.Type type = schema.getType();
+        String port = type == Schema.Type.RECORD ? schema.getRecordName() : type.name().toLowerCase();
+        Schema outputSchema = inputSchema;
+        if (modifySchema) {
+          List<Schema.Field> fields = new ArrayList<>(inputFields.size());
+          for (Schema.Field inputField : inputFields) {
+            fields.add(inputField.getName().equals(unionField) ? Schema.Field.of(unionField, schema) : inputField);
+          }
+          outputSchema = Schema.recordOf(inputSchema.getRecordName() + "." + port, fields);
+        }
+
+        PortPlan portPlan = new PortPlan(port, outputSchema);
+        if (type == Schema.Type.RECORD) {
+          recordPorts.put(schema, portPlan);
+        } else {
+          simplePorts.put(type, portPlan);
+        }
+      }
+    }
+  }
+
+  /**
+   * Output port and schema for one branch of the union.
+   */
+  private static class PortPlan {
+    private final String port;
+    private final Schema outputSchema;
+
+    private PortPlan(String port, Schema outputSchema) {
+      this.port = port;
+      this.outputSchema = outputSchema;
+    }
+  }
+
   /**
    * Request to get output schemas.
    */
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin;
+
+/**
+ * Writes the UTF-8 bytes of strings into byte arrays that the caller reuses across values, so that converting a
+ * string does not allocate a new array each time.
+ */
+final class Utf8Bytes {
+
+  private Utf8Bytes() {
+    // static methods only
+  }
+
+  /**
+   * Returns the given buffer if it holds at least the given number of bytes, or a new, larger one otherwise.
+   * The content of the buffer is not copied.
+   */
+  static byte[] ensureCapacity(byte[] buffer, int length) {
+    return buffer.length < length ? new byte[Math.max(length, buffer.length * 2)] : buffer;
+  }
+
+  /**
+   * Returns a buffer that can hold the UTF-8 bytes of the string, which is the given buffer if it is large enough.
+   */
+  static byte[] ensureCapacity(byte[] buffer, String str) {
+    return ensureCapacity(buffer, str.length() * 3);
+  }
+
+  /**
+   * Writes the UTF-8 bytes of the string to the start of the buffer and returns the number of bytes written.
+   * The bytes are the same as the ones returned by {@link String#getBytes} for UTF-8, including the replacement
+   * of unpaired surrogates with '?'.
+   *
+   * @param buffer a buffer returned by {@link #ensureCapacity(byte[], String)} for the same string
+   */
+  static int encode(String str, byte[] buffer) {
+    int length = str.length();
+    int pos = 0;
+    for (int i = 0; i < length; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) {
+        buffer[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[pos++] = (byte) (0xc0 | (c >> 6));
+        buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, str.charAt(++i));
+          buffer[pos++] = (byte) (0xf0 | (codePoint >> 18));
+          buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+          buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+          buffer[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else {
+          buffer[pos++] = '?';
+        }
+      } else {
+        buffer[pos++] = (byte) (0xe0 | (c >> 12));
+        buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    return pos;
+  }
+}
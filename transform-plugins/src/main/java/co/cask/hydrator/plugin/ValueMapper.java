@@ -26,13 +26,18 @@ import co.cask.cdap.etl.api.Emitter;
 import co.cask.cdap.etl.api.Lookup;
 import co.cask.cdap.etl.api.LookupTableConfig;
 import co.cask.cdap.etl.api.PipelineConfigurer;
+import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Transforms records using custom mapping provided by the config.
@@ -46,7 +51,8 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
   private final Map<Schema, Schema> schemaCache = new HashMap<>();
   private static final Map<String, ValueMapping> mappingValues = new HashMap<>();
   private static Map<String, String> defaultsMapping = new HashMap<>();
-  private Map<String, Lookup<String>> lookupTableCache = new HashMap<String, Lookup<String>>();
+  private Map<String, MappingLookup> lookupTableCache = new HashMap<>();
+  private StageMetrics metrics;
 
   //for unit tests, otherwise config is injected by plugin framework.
   public ValueMapper(Config config) {
@@ -73,9 +79,24 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
             "For example: lang_code:English,country_code:Britain")
     private final String defaults;
 
+    @Nullable
+    @Description("Maximum number of mappings to keep in memory for each mapping table, so that frequent values " +
+      "are not looked up again for every record. Values are looked up once per record and table, all at once, " +
+      "whether or not the cache is enabled. Defaults to 0, which disables the cache.")
+    private final Integer cacheSize;
+
     public Config(String mapping, String defaults) {
+      this(mapping, defaults, null);
+    }
+
+    public Config(String mapping, String defaults, @Nullable Integer cacheSize) {
       this.mapping = mapping;
       this.defaults = defaults;
+      this.cacheSize = cacheSize;
+    }
+
+    private int getCacheSize() {
+      return cacheSize == null ? 0 : cacheSize;
     }
 
     /**
@@ -85,6 +106,10 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
      * subsequent methods.
      */
     private void parseConfiguration() {
+      if (getCacheSize() < 0) {
+        throw new IllegalArgumentException("Invalid cache size " + cacheSize +
+                                             ". The cache size must not be negative.");
+      }
       if (!defaults.isEmpty()) {
         String[] defaultsList = this.defaults.split(",");
         for (String defaultValue : defaultsList) {
@@ -170,47 +195,79 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
       if (!lookupTableCache.containsKey(lookupTableName)) {
         LookupTableConfig tableConfig = new LookupTableConfig(LookupTableConfig.TableType.DATASET);
         Lookup<String> lookupTable = context.provide(lookupTableName, tableConfig.getDatasetProperties());
-        lookupTableCache.put(lookupTableName, lookupTable);
+        lookupTableCache.put(lookupTableName, new MappingLookup(lookupTable, config.getCacheSize()));
       }
     }
   }
 
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) throws Exception {
-    StructuredRecord.Builder builder = StructuredRecord.builder(getOutputSchema(input.getSchema()));
-    for (Schema.Field sourceField : input.getSchema().getFields()) {
-      String sourceFieldName = sourceField.getName();
-      if (mappingValues.containsKey(sourceFieldName)) {
-        ValueMapping mapping = mappingValues.get(sourceFieldName);
-        String sourceVal = input.get(sourceFieldName);
-        if (sourceVal == null || sourceVal.isEmpty()) {
-          if (mapping.getDefaultValue() != null) {
-            builder.set(mapping.getTargetField(), mapping.getDefaultValue());
+    // checks the types of the mapped fields before their values are read as strings
+    Schema outputSchema = getOutputSchema(input.getSchema());
+    int hits = 0;
+    int misses = 0;
+    try {
+      // collect the values of all mapped fields first, so that each table is only looked up once for the record
+      for (Schema.Field sourceField : input.getSchema().getFields()) {
+        ValueMapping mapping = mappingValues.get(sourceField.getName());
+        String sourceVal = mapping == null ? null : input.get(sourceField.getName());
+        if (sourceVal != null && !sourceVal.isEmpty()) {
+          lookupTableCache.get(mapping.getLookupTableName()).add(sourceVal);
+        }
+      }
+      for (MappingLookup mappingLookup : lookupTableCache.values()) {
+        mappingLookup.lookupAll();
+      }
+
+      StructuredRecord.Builder builder = StructuredRecord.builder(outputSchema);
+      for (Schema.Field sourceField : input.getSchema().getFields()) {
+        String sourceFieldName = sourceField.getName();
+        if (mappingValues.containsKey(sourceFieldName)) {
+          ValueMapping mapping = mappingValues.get(sourceFieldName);
+          String sourceVal = input.get(sourceFieldName);
+          if (sourceVal == null || sourceVal.isEmpty()) {
+            if (mapping.getDefaultValue() != null) {
+              builder.set(mapping.getTargetField(), mapping.getDefaultValue());
+            } else {
+              builder.set(mapping.getTargetField(), sourceVal);
+            }
           } else {
-            builder.set(mapping.getTargetField(), sourceVal);
+            // for those source field whose values are neither NULL nor EMPTY
+            String lookupValue = lookupTableCache.get(mapping.getLookupTableName()).get(sourceVal);
+            if (!lookupValue.isEmpty()) {
+              builder.set(mapping.getTargetField(), lookupValue);
+            } else {
+              builder.set(mapping.getTargetField(), mapping.getDefaultValue());
+            }
           }
         } else {
-          // for those source field whose values are neither NULL nor EMPTY
-          Lookup<String> valueMapperLookUp = lookupTableCache.get(mapping.getLookupTableName());
-          String lookupValue = valueMapperLookUp.lookup(sourceVal);
-          if (lookupValue != null && !lookupValue.isEmpty()) {
-            builder.set(mapping.getTargetField(), lookupValue);
-          } else {
-            builder.set(mapping.getTargetField(), mapping.getDefaultValue());
-          }
+          // for the fields except source fields
+          builder.set(sourceFieldName, input.get(sourceFieldName));
         }
-      } else {
-        // for the fields except source fields
-        builder.set(sourceFieldName, input.get(sourceFieldName));
+      }
+
+      emitter.emit(builder.build());
+    } finally {
+      // the values of a record that failed must not be used for the next one
+      for (MappingLookup mappingLookup : lookupTableCache.values()) {
+        hits += mappingLookup.hits;
+        misses += mappingLookup.misses;
+        mappingLookup.clear();
       }
     }
 
-    emitter.emit(builder.build());
+    if (hits > 0) {
+      metrics.count("lookup.cache.hits", hits);
+    }
+    if (misses > 0 && config.getCacheSize() > 0) {
+      metrics.count("lookup.cache.misses", misses);
+    }
   }
 
   @Override
   public void initialize(TransformContext context) throws Exception {
     super.initialize(context);
+    metrics = context.getMetrics();
     createLookupTableData(context);
   }
 
@@ -229,6 +286,85 @@ public class ValueMapper extends Transform<StructuredRecord, StructuredRecord> {
     pipelineConfigurer.getStageConfigurer().setOutputSchema(outputSchema);
   }
 
+  /**
+   * Looks up the values of a record in a mapping table, with a single lookup for all the values of the record that
+   * are not in the cache. Missing mappings are kept as empty strings, since they are treated the same way.
+   */
+  private static final class MappingLookup {
+    private final Lookup<String> lookup;
+    private final Map<String, String> cache;
+    private final Set<String> pending = new HashSet<>();
+    private final Map<String, String> values = new HashMap<>();
+    private int hits;
+    private int misses;
+
+    private MappingLookup(Lookup<String> lookup, final int cacheSize) {
+      this.lookup = lookup;
+      // access ordered, so that the least recently used mapping is evicted first
+      this.cache = cacheSize == 0 ? null : new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+          return size() > cacheSize;
+        }
+      };
+    }
+
+    private void add(String key) {
+      if (values.containsKey(key) || pending.contains(key)) {
+        return;
+      }
+      String value = cache == null ? null : cache.get(key);
+      if (value == null) {
+        pending.add(key);
+      } else {
+        hits++;
+        values.put(key, value);
+      }
+    }
+
+    private void lookupAll() {
+      if (pending.isEmpty()) {
+        return;
+      }
+      misses += pending.size();
+      try {
+        if (pending.size() == 1) {
+          String key = pending.iterator().next();
+          put(key, lookup.lookup(key));
+        } else {
+          Map<String, String> result = lookup.lookup(pending);
+          for (String key : pending) {
+            put(key, result.get(key));
+          }
+        }
+      } finally {
+        pending.clear();
+      }
+    }
+
+    private void put(String key, @Nullable String value) {
+      String mappedValue = value == null ? "" : value;
+      values.put(key, mappedValue);
+      if (cache != null) {
+        cache.put(key, mappedValue);
+      }
+    }
+
+    /**
+     * Returns the mapping of a value added for the current record, or an empty string if there is none.
+     */
+    private String get(String key) {
+      return values.get(key);
+    }
+
+    private void clear() {
+      pending.clear();
+      values.clear();
+      hits = 0;
+      misses = 0;
+    }
+  }
+
   /**
    * Object used to keep input mapping corresponding to each source field
    */
@@ -40,12 +40,19 @@ import org.xml.sax.SAXException;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -65,6 +72,10 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
   private Schema schema;
   private XPathExpression xPathExpression;
   private Set<String> fieldNames;
+  // only used in streaming mode
+  private XMLInputFactory xmlInputFactory;
+  private String[] elementPath;
+  private Map<String, String> fieldValues;
 
   public XMLMultiParser(Config config) {
     this.config = config;
@@ -86,6 +97,12 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
     for (Schema.Field field : schema.getFields()) {
       fieldNames.add(field.getName());
     }
+    if (config.isStreaming()) {
+      xmlInputFactory = XMLInputFactory.newInstance();
+      xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+      elementPath = config.getElementPath();
+      fieldValues = new HashMap<>();
+    }
   }
 
   @Override
@@ -96,6 +113,11 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       return;
     }
 
+    if (config.isStreaming()) {
+      streamRecords(input, xmlStr, emitter);
+      return;
+    }
+
     try (Reader reader = new StringReader((String) input.get(config.field))) {
       InputSource source = new InputSource(reader);
       source.setEncoding(config.encoding);
@@ -148,11 +170,106 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
     }
   }
 
+  /**
+   * Parses the document with a single pass of a {@link XMLStreamReader}, emitting a record as soon as the end tag of
+   * each element matching the element path is read. Only the child values of the current element are kept in memory.
+   * If the document is malformed, records that were read before the error are still emitted.
+   */
+  private void streamRecords(StructuredRecord input, String xmlStr,
+                             Emitter<StructuredRecord> emitter) throws IOException {
+    XMLStreamReader reader = null;
+    try (Reader stringReader = new StringReader(xmlStr)) {
+      reader = xmlInputFactory.createXMLStreamReader(stringReader);
+      // depth of the current element, with the root element at depth 1
+      int depth = 0;
+      // number of elements on the current path that match the beginning of the element path
+      int matchedDepth = 0;
+      boolean inRecord = false;
+      String currentField = null;
+      StringBuilder text = new StringBuilder();
+
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            String name = getName(reader);
+            if (inRecord) {
+              if (depth == elementPath.length + 1 && fieldNames.contains(name)) {
+                currentField = name;
+                text.setLength(0);
+              }
+            } else if (matchedDepth == depth - 1 && depth <= elementPath.length
+              && name.equals(elementPath[depth - 1])) {
+              matchedDepth = depth;
+              if (depth == elementPath.length) {
+                inRecord = true;
+                fieldValues.clear();
+              }
+            }
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if (currentField != null) {
+              text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (currentField != null && depth == elementPath.length + 1) {
+              fieldValues.put(currentField, text.toString());
+              currentField = null;
+            } else if (inRecord && depth == elementPath.length) {
+              emitRecord(input, emitter);
+              inRecord = false;
+            }
+            if (matchedDepth == depth) {
+              matchedDepth--;
+            }
+            depth--;
+            break;
+        }
+      }
+    } catch (XMLStreamException e) {
+      LOG.error("Unable to parse the xml document. This record will be dropped.", e);
+      emitter.emitError(new InvalidEntry<>(31, "Unable to parse the xml document. This record will be dropped.",
+                                           input));
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          LOG.debug("Unable to close xml stream reader.", e);
+        }
+      }
+    }
+  }
+
+  private void emitRecord(StructuredRecord input, Emitter<StructuredRecord> emitter) {
+    try {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      for (Map.Entry<String, String> fieldValue : fieldValues.entrySet()) {
+        builder.convertAndSet(fieldValue.getKey(), fieldValue.getValue());
+      }
+      emitter.emit(builder.build());
+    } catch (Exception e) {
+      LOG.error("Unable to create a record from the xpath element. This record will be dropped.", e);
+      emitter.emitError(new InvalidEntry<>(31, "Unable to create a record from the xpath element. This record " +
+        "will be dropped.", input));
+    }
+  }
+
+  // same as the node name of a DOM element, which includes the prefix if there is one
+  private static String getName(XMLStreamReader reader) {
+    String prefix = reader.getPrefix();
+    return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+  }
+
   /**
    * Configuration for the XMLParser transform..
    */
   public static class Config extends PluginConfig {
     private static final XPathFactory X_PATH_FACTORY = XPathFactory.newInstance();
+    private static final Pattern ELEMENT_PATH = Pattern.compile("(/[^/\\[\\]()@*|=\\s]+)+");
 
     @Description("The field containing the XML document to parse.")
     @Macro
@@ -172,15 +289,26 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       "The field names must match the node names in the given xpath.")
     private final String schema;
 
+    @Nullable
+    @Description("Whether to parse the document in a single streaming pass instead of building it in memory. " +
+      "Records are emitted as soon as their element has been read, so memory use does not depend on the size of " +
+      "the document. Requires the xpath to be a simple element path, such as /rss/channel/item. Defaults to false.")
+    private final Boolean streaming;
+
     public Config() {
-      this("", Charsets.UTF_8.name(), "", "");
+      this("", Charsets.UTF_8.name(), "", "", false);
     }
 
     public Config(String field, String encoding, String xPath, String schema) {
+      this(field, encoding, xPath, schema, false);
+    }
+
+    public Config(String field, String encoding, String xPath, String schema, Boolean streaming) {
       this.field = field;
       this.encoding = encoding;
       this.xPath = xPath;
       this.schema = schema;
+      this.streaming = streaming;
     }
 
     public void validate(@Nullable Schema inputSchema) {
@@ -193,6 +321,9 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
 
       if (!containsMacro(xPath)) {
         getXPathExpression();
+        if (isStreaming()) {
+          getElementPath();
+        }
       }
 
       for (Schema.Field field : getSchema().getFields()) {
@@ -214,6 +345,22 @@ public class XMLMultiParser extends Transform<StructuredRecord, StructuredRecord
       }
     }
 
+    public boolean isStreaming() {
+      return streaming != null && streaming;
+    }
+
+    /**
+     * @return the names of the elements in the xpath, which must be a simple element path such as /rss/channel/item
+     */
+    public String[] getElementPath() {
+      if (!ELEMENT_PATH.matcher(xPath).matches()) {
+        throw new IllegalArgumentException(String.format(
+          "Streaming mode requires the xpath to be a simple element path such as /rss/channel/item, but was %s.",
+          xPath));
+      }
+      return xPath.substring(1).split("/");
+    }
+
     public Schema getSchema() {
       try {
         return Schema.parseJson(schema);
@@ -401,4 +401,71 @@ public class CSVParserTest {
     Assert.assertEquals("offset", 1, invalidEntry.getInvalidRecord().<Integer>get("offset").intValue());
     Assert.assertEquals("body", "0,\"020\"1,\"BS:12345  ORDER:111\"4", invalidEntry.getInvalidRecord().get("body"));
   }
+
+  @Test
+  public void testStreaming() throws Exception {
+    String body = "1,a,2,1.5,true\nx,b,3,2.5,false\n4,c,5,3.5,true\n6,d,y,4.5,true\n7,e,8,5.5,true";
+    StructuredRecord inputRecord = StructuredRecord.builder(INPUT1).set("body", body).build();
+
+    // the fourth record exceeds the error budget, so the last record is not emitted
+    CSVParser.Config config = new CSVParser.Config("DEFAULT", null, "body", OUTPUT2.toString(), true, 1);
+    Transform<StructuredRecord, StructuredRecord> transform = new CSVParser(config);
+    transform.initialize(new MockTransformContext());
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(inputRecord, emitter);
+    Assert.assertEquals(2, emitter.getEmitted().size());
+    Assert.assertEquals(1L, emitter.getEmitted().get(0).<Long>get("a").longValue());
+    Assert.assertEquals(4L, emitter.getEmitted().get(1).<Long>get("a").longValue());
+    Assert.assertEquals(2, emitter.getErrors().size());
+    Assert.assertEquals(31, emitter.getErrors().get(0).getErrorCode());
+    Assert.assertEquals(body, emitter.getErrors().get(0).getInvalidRecord().get("body"));
+
+    config = new CSVParser.Config("DEFAULT", null, "body", OUTPUT2.toString(), true, 5);
+    transform = new CSVParser(config);
+    transform.initialize(new MockTransformContext());
+    emitter = new MockEmitter<>();
+    transform.transform(inputRecord, emitter);
+    Assert.assertEquals(3, emitter.getEmitted().size());
+    Assert.assertEquals(7L, emitter.getEmitted().get(2).<Long>get("a").longValue());
+    Assert.assertEquals(2, emitter.getErrors().size());
+  }
+
+  @Test
+  public void testStreamingParseError() throws Exception {
+    Schema outputSchema = Schema.recordOf("output",
+                                          Schema.Field.of("x", Schema.of(Schema.Type.STRING)),
+                                          Schema.Field.of("y", Schema.of(Schema.Type.STRING)));
+    CSVParser.Config config = new CSVParser.Config("DEFAULT", null, "body", outputSchema.toString(), true, 0);
+    Transform<StructuredRecord, StructuredRecord> transform = new CSVParser(config);
+    transform.initialize(new MockTransformContext());
+    StructuredRecord inputRecord = StructuredRecord.builder(INPUT1).set("body", "a,1\n0,\"020\"1\nb,2").build();
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(inputRecord, emitter);
+    // records before the malformed one are emitted, and parsing stops at the first error
+    Assert.assertEquals(1, emitter.getEmitted().size());
+    Assert.assertEquals("a", emitter.getEmitted().get(0).get("x"));
+    Assert.assertEquals(1, emitter.getErrors().size());
+    Assert.assertEquals(31, emitter.getErrors().get(0).getErrorCode());
+  }
+
+  @Test
+  public void testStreamingParseErrorWithErrorBudget() throws Exception {
+    Schema outputSchema = Schema.recordOf("output",
+                                          Schema.Field.of("x", Schema.of(Schema.Type.STRING)),
+                                          Schema.Field.of("y", Schema.of(Schema.Type.INT)));
+    CSVParser.Config config = new CSVParser.Config("DEFAULT", null, "body", outputSchema.toString(), true, 5);
+    Transform<StructuredRecord, StructuredRecord> transform = new CSVParser(config);
+    transform.initialize(new MockTransformContext());
+    StructuredRecord inputRecord = StructuredRecord.builder(INPUT1)
+      .set("body", "a,1\nb,z\nc,3\n0,\"020\"1\nd,4").build();
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(inputRecord, emitter);
+    // the record that can't be converted is within the error budget, but parsing stops at the malformed record
+    // instead of emitting its remainder as a record of its own
+    Assert.assertEquals(2, emitter.getEmitted().size());
+    Assert.assertEquals("a", emitter.getEmitted().get(0).get("x"));
+    Assert.assertEquals("c", emitter.getEmitted().get(1).get("x"));
+    Assert.assertEquals(2, emitter.getErrors().size());
+    Assert.assertEquals(31, emitter.getErrors().get(1).getErrorCode());
+  }
 }
@@ -0,0 +1,340 @@
+/*
+ * Copyright © 2018 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.hydrator.plugin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Tests {@link CompressionContext} against the gzip and zip streams of the JDK.
+ */
+public class CompressionContextTest {
+  private static final byte[] TEXT =
+    "This is a test for testing gzip and zip compression, repeated. This is a test for testing gzip and zip."
+      .getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void testGzipRoundTrip() throws Exception {
+    CompressionContext context = CompressionContext.get();
+    for (byte[] data : testData()) {
+      int length = context.gzip(data, 0, data.length);
+      byte[] compressed = Arrays.copyOf(context.getOutput(), length);
+      Assert.assertArrayEquals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+      Assert.assertArrayEquals(data, gunzip(compressed));
+      Assert.assertArrayEquals(data, gunzip(gzipWithJdk(data)));
+    }
+  }
+
+  @Test
+  public void testGunzipHeaderFields() throws Exception {
+    byte[] deflated = deflate(TEXT);
+    CRC32 crc = new CRC32();
+    crc.update(TEXT);
+
+    // FHCRC, FEXTRA, FNAME and FCOMMENT
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    os.write(new byte[] { 0x1f, (byte) 0x8b, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, 3 });
+    os.write(new byte[] { 3, 0, 'a', 'b', 'c' });
+    os.write("name.txt\0".getBytes(StandardCharsets.UTF_8));
+    os.write("comment\0".getBytes(StandardCharsets.UTF_8));
+    CRC32 headerCrc = new CRC32();
+    headerCrc.update(os.toByteArray());
+    writeShort(os, (int) headerCrc.getValue());
+    os.write(deflated);
+    writeInt(os, (int) crc.getValue());
+    writeInt(os, TEXT.length);
+    byte[] gzipped = os.toByteArray();
+
+    Assert.assertArrayEquals(TEXT, readAll(new GZIPInputStream(new ByteArrayInputStream(gzipped))));
+    Assert.assertArrayEquals(TEXT, gunzip(gzipped));
+  }
+
+  @Test
+  public void testGunzipConcatenatedMembers() throws Exception {
+    byte[] first = "first member ".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "second member".getBytes(StandardCharsets.UTF_8);
+    byte[] concatenated = concat(gzipWithJdk(first), gzipWithJdk(second));
+
+    byte[] expected = concat(first, second);
+    Assert.assertArrayEquals(expected, readAll(new GZIPInputStream(new ByteArrayInputStream(concatenated))));
+    Assert.assertArrayEquals(expected, gunzip(concatenated));
+
+    // trailing data that is not another member is ignored, like GZIPInputStream does
+    Assert.assertArrayEquals(expected, gunzip(concat(concatenated, new byte[] { 1, 2, 3 })));
+  }
+
+  @Test
+  public void testGunzipTruncated() throws Exception {
+    byte[] gzipped = gzipWithJdk(TEXT);
+    // in the header, in the compressed data and in the trailer
+    for (int length : new int[] { 0, 2, 9, 15, gzipped.length - 8, gzipped.length - 1 }) {
+      assertGunzipFails(Arrays.copyOf(gzipped, length));
+    }
+
+    // an extra field whose length is cut off, or longer than the data
+    assertGunzipFails(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, 3, 1 });
+    assertGunzipFails(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, 3, 100, 0, 1, 2 });
+    // a file name without the terminating zero
+    assertGunzipFails(new byte[] { 0x1f, (byte) 0x8b, 8, 8, 0, 0, 0, 0, 0, 3, 'a', 'b' });
+    // not gzip
+    assertGunzipFails(TEXT);
+  }
+
+  @Test
+  public void testGunzipCorrupt() throws Exception {
+    byte[] gzipped = gzipWithJdk(TEXT);
+    // the crc in the trailer
+    gzipped[gzipped.length - 8] ^= 1;
+    assertGunzipFails(gzipped);
+  }
+
+  @Test
+  public void testZipRoundTrip() throws Exception {
+    CompressionContext context = CompressionContext.get();
+    for (byte[] data : testData()) {
+      int length = context.zip(data, 0, data.length);
+      byte[] compressed = Arrays.copyOf(context.getOutput(), length);
+      try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(compressed))) {
+        ZipEntry entry = zis.getNextEntry();
+        Assert.assertNotNull(entry);
+        Assert.assertEquals("c", entry.getName());
+        Assert.assertArrayEquals(data, readAll(zis));
+        Assert.assertNull(zis.getNextEntry());
+      }
+      Assert.assertArrayEquals(data, unzip(compressed));
+    }
+  }
+
+  @Test
+  public void testUnzipMultipleEntries() throws Exception {
+    byte[] first = "first entry ".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "second entry".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (ZipOutputStream zos = new ZipOutputStream(os)) {
+      zos.putNextEntry(new ZipEntry("first"));
+      zos.write(first);
+      zos.closeEntry();
+
+      // stored entries have their sizes in the local header instead of a data descriptor
+      ZipEntry stored = new ZipEntry("second");
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(second.length);
+      CRC32 crc = new CRC32();
+      crc.update(second);
+      stored.setCrc(crc.getValue());
+      zos.putNextEntry(stored);
+      zos.write(second);
+      zos.closeEntry();
+
+      zos.putNextEntry(new ZipEntry("empty"));
+      zos.closeEntry();
+    }
+    Assert.assertArrayEquals(concat(first, second), unzip(os.toByteArray()));
+  }
+
+  @Test
+  public void testUnzipZip64DataDescriptor() throws Exception {
+    byte[] first = "first entry ".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "second entry".getBytes(StandardCharsets.UTF_8);
+    byte[] zipped = concat(zip64Entry("first", first), zip64Entry("second", second));
+    Assert.assertArrayEquals(concat(first, second), unzip(zipped));
+  }
+
+  @Test
+  public void testUnzipTruncated() throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (ZipOutputStream zos = new ZipOutputStream(os)) {
+      zos.putNextEntry(new ZipEntry("entry"));
+      zos.write(TEXT);
+      zos.closeEntry();
+    }
+    byte[] zipped = os.toByteArray();
+    // the data descriptor is right before the central directory
+    int centralStart = 0;
+    while (zipped[centralStart] != 'P' || zipped[centralStart + 1] != 'K' || zipped[centralStart + 2] != 1 ||
+      zipped[centralStart + 3] != 2) {
+      centralStart++;
+    }
+    // in the file name, in the compressed data and in the data descriptor
+    for (int length : new int[] { 32, 40, centralStart - 4 }) {
+      try {
+        unzip(Arrays.copyOf(zipped, length));
+        Assert.fail("Expected truncated zip data of length " + length + " to fail.");
+      } catch (IOException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testWrap() throws Exception {
+    CompressionContext context = CompressionContext.get();
+    byte[] gzipped = gzipWithJdk(TEXT);
+
+    // a heap buffer whose content starts at an offset in its array
+    byte[] array = new byte[gzipped.length + 20];
+    System.arraycopy(gzipped, 0, array, 7, gzipped.length);
+    ByteBuffer heap = ByteBuffer.wrap(array, 5, gzipped.length + 10);
+    heap.position(7);
+    heap.limit(7 + gzipped.length);
+    ByteBuffer sliced = heap.slice();
+    Assert.assertArrayEquals(TEXT, gunzip(context.wrap(sliced)));
+    Assert.assertEquals(0, sliced.position());
+
+    // a direct buffer, which is copied
+    ByteBuffer direct = ByteBuffer.allocateDirect(gzipped.length + 4);
+    direct.put(new byte[] { 1, 2 }).put(gzipped).flip();
+    direct.position(2);
+    Assert.assertArrayEquals(TEXT, gunzip(context.wrap(direct)));
+    Assert.assertEquals(2, direct.position());
+
+    Assert.assertArrayEquals(TEXT, gunzip(context.wrap(gzipped)));
+  }
+
+  private static byte[][] testData() {
+    byte[] random = new byte[100000];
+    new Random(0).nextBytes(random);
+    byte[] repeated = new byte[100000];
+    for (int i = 0; i < repeated.length; i++) {
+      repeated[i] = TEXT[i % TEXT.length];
+    }
+    return new byte[][] { new byte[0], TEXT, random, repeated };
+  }
+
+  private static byte[] gunzip(byte[] bytes) throws IOException {
+    return gunzip(ByteBuffer.wrap(bytes));
+  }
+
+  private static byte[] gunzip(ByteBuffer buffer) throws IOException {
+    CompressionContext context = CompressionContext.get();
+    int length = context.gunzip(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    return Arrays.copyOf(context.getOutput(), length);
+  }
+
+  private static byte[] unzip(byte[] bytes) throws IOException {
+    CompressionContext context = CompressionContext.get();
+    int length = context.unzip(bytes, 0, bytes.length);
+    return Arrays.copyOf(context.getOutput(), length);
+  }
+
+  private static void assertGunzipFails(byte[] bytes) {
+    try {
+      gunzip(bytes);
+      Assert.fail("Expected gunzip of " + Arrays.toString(bytes) + " to fail.");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  private static byte[] gzipWithJdk(byte[] data) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(os)) {
+      gzip.write(data);
+    }
+    return os.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] data) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(data);
+    deflater.finish();
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    while (!deflater.finished()) {
+      os.write(buffer, 0, deflater.deflate(buffer));
+    }
+    deflater.end();
+    return os.toByteArray();
+  }
+
+  /**
+   * Returns a local zip entry with a zip64 extra field, followed by a data descriptor with 8 byte sizes, the way
+   * streaming zip64 writers lay them out.
+   */
+  private static byte[] zip64Entry(String name, byte[] data) throws IOException {
+    byte[] deflated = deflate(data);
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writeInt(os, 0x04034b50);
+    writeShort(os, 45);
+    writeShort(os, 8);
+    writeShort(os, 8);
+    writeInt(os, 0);
+    writeInt(os, 0);
+    writeInt(os, 0xFFFFFFFF);
+    writeInt(os, 0xFFFFFFFF);
+    writeShort(os, nameBytes.length);
+    writeShort(os, 20);
+    os.write(nameBytes);
+    writeShort(os, 1);
+    writeShort(os, 16);
+    os.write(new byte[16]);
+    os.write(deflated);
+    writeInt(os, 0x08074b50);
+    writeInt(os, (int) crc.getValue());
+    writeInt(os, deflated.length);
+    writeInt(os, 0);
+    writeInt(os, data.length);
+    writeInt(os, 0);
+    return os.toByteArray();
+  }
+
+  private static byte[] readAll(InputStream is) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read = is.read(buffer)) >= 0) {
+      os.write(buffer, 0, read);
+    }
+    return os.toByteArray();
+  }
+
+  private static byte[] concat(byte[] first, byte[] second) {
+    byte[] result = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+
+  private static void writeShort(ByteArrayOutputStream os, int value) {
+    os.write(value);
+    os.write(value >>> 8);
+  }
+
+  private static void writeInt(ByteArrayOutputStream os, int value) {
+    writeShort(os, value);
+    writeShort(os, value >>> 16);
+  }
+}
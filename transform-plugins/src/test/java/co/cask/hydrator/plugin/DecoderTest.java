@@ -27,6 +27,8 @@ import org.apache.commons.codec.binary.Hex;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 /**
  * Tests {@link Decoder}
  */
@@ -196,6 +198,46 @@ public class DecoderTest {
     Assert.assertEquals(test, emitterDecoded.getEmitted().get(0).get("a"));
   }
 
+  @Test
+  public void testBase64UrlDecoder() throws Exception {
+    String test = "This is a test for testing url safe base64 decoding ??>>";
+    Transform<StructuredRecord, StructuredRecord> encoder =
+      new Encoder(new Encoder.Config("a:BASE64_URL", OUTPUT.toString()));
+    encoder.initialize(null);
+
+    MockEmitter<StructuredRecord> emitterEncoded = new MockEmitter<>();
+    encoder.transform(StructuredRecord.builder(INPUT)
+                        .set("a", test)
+                        .set("b", "2")
+                        .set("c", "3")
+                        .set("d", "4")
+                        .set("e", "5").build(), emitterEncoded);
+
+    Transform<StructuredRecord, StructuredRecord> decoder =
+      new Decoder(new Decoder.Config("a:BASE64_URL", OUTPUTSTR.toString()));
+    decoder.initialize(null);
+    MockEmitter<StructuredRecord> emitterDecoded = new MockEmitter<>();
+    decoder.transform(emitterEncoded.getEmitted().get(0), emitterDecoded);
+    Assert.assertEquals(test, emitterDecoded.getEmitted().get(0).get("a"));
+  }
+
+  @Test
+  public void testBase85DecoderWithByteBuffer() throws Exception {
+    Schema input = Schema.recordOf("input",
+                                   Schema.Field.of("a", Schema.of(Schema.Type.BYTES)),
+                                   Schema.Field.of("b", Schema.of(Schema.Type.STRING)));
+    Transform<StructuredRecord, StructuredRecord> decoder =
+      new Decoder(new Decoder.Config("a:BASE85", OUTPUTSTR.toString()));
+    decoder.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    decoder.transform(StructuredRecord.builder(input)
+                        .set("a", ByteBuffer.wrap("<~9jqo^F*2M7/c~>".getBytes("UTF-8")))
+                        .set("b", "2").build(), emitter);
+    Assert.assertEquals("Man sure.", emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals("2", emitter.getEmitted().get(0).get("b"));
+  }
+
   @Test
   public void testSchemaValidation() throws Exception {
     Transform<StructuredRecord, StructuredRecord> decoder =
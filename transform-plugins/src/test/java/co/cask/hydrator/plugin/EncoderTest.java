@@ -156,6 +156,65 @@ public class EncoderTest {
     Assert.assertArrayEquals(expected, actual);
   }
 
+  @Test
+  public void testBase64UrlEncoder() throws Exception {
+    String test = "This is a test for testing url safe base64 encoding ??>>";
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Encoder(new Encoder.Config("a:BASE64_URL", OUTPUTSTR.toString()));
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", test)
+                          .set("b", "2")
+                          .set("c", "3")
+                          .set("d", "4")
+                          .set("e", "5").build(), emitter);
+
+    String expected = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(test.getBytes("UTF-8"));
+    String actual = emitter.getEmitted().get(0).get("a");
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testBase85Encoder() throws Exception {
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Encoder(new Encoder.Config("a:BASE85", OUTPUTSTR.toString()));
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", "Man sure.")
+                          .set("b", "2")
+                          .set("c", "3")
+                          .set("d", "4")
+                          .set("e", "5").build(), emitter);
+
+    Assert.assertEquals("9jqo^F*2M7/c", emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals("2", emitter.getEmitted().get(0).get("b"));
+  }
+
+  @Test
+  public void testEncodedFieldWithNonStringOutputIsLeftUnset() throws Exception {
+    Schema output = Schema.recordOf("output",
+                                    Schema.Field.of("a", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+                                    Schema.Field.of("b", Schema.of(Schema.Type.STRING)));
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Encoder(new Encoder.Config("a:BASE64", output.toString()));
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", "1")
+                          .set("b", "2")
+                          .set("c", "3")
+                          .set("d", "4")
+                          .set("e", "5").build(), emitter);
+
+    Assert.assertNull(emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals("2", emitter.getEmitted().get(0).get("b"));
+  }
+
   @Test
   public void testSchemaValidation() throws Exception {
     Transform<StructuredRecord, StructuredRecord> transform =
@@ -28,6 +28,8 @@ import org.junit.rules.TemporaryFolder;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.security.KeyStore;
+import java.util.Arrays;
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
@@ -75,4 +77,31 @@ public class FieldEncryptorTest {
     Assert.assertEquals("abc", decryptor.decrypt(encryptor.encrypt("abc", fieldSchema), fieldSchema));
   }
 
+  @Test
+  public void testGcmEncryption() throws Exception {
+    KeystoreConf gcmConf = new KeystoreConf("AES/GCM/NoPadding", null, keystoreConf.getKeystorePath(),
+                                            keystoreConf.getKeystorePassword(), keystoreConf.getKeystoreType(),
+                                            keystoreConf.getKeyAlias(), keystoreConf.getKeyPassword());
+    FieldEncryptor encryptor = new FileBasedFieldEncryptor(gcmConf, Cipher.ENCRYPT_MODE);
+    encryptor.initialize();
+    FieldEncryptor decryptor = new FileBasedFieldEncryptor(gcmConf, Cipher.DECRYPT_MODE);
+    decryptor.initialize();
+
+    Schema fieldSchema = Schema.of(Schema.Type.LONG);
+    byte[] encrypted1 = encryptor.encrypt(5L, fieldSchema);
+    byte[] encrypted2 = encryptor.encrypt(5L, fieldSchema);
+    // every value is encrypted with a different IV
+    Assert.assertFalse(Arrays.equals(encrypted1, encrypted2));
+    Assert.assertEquals(5L, decryptor.decrypt(encrypted1, fieldSchema));
+    Assert.assertEquals(5L, decryptor.decrypt(encrypted2, fieldSchema));
+
+    encrypted1[encrypted1.length - 1] ^= 1;
+    try {
+      decryptor.decrypt(encrypted1, fieldSchema);
+      Assert.fail("Decrypting a modified value should fail");
+    } catch (AEADBadTagException e) {
+      // expected
+    }
+  }
+
 }
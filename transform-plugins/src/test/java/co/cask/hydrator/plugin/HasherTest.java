@@ -16,15 +16,21 @@
 
 package co.cask.hydrator.plugin;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.mock.common.MockEmitter;
 import co.cask.cdap.etl.mock.common.MockPipelineConfigurer;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 /**
  * Tests {@link Hasher}
  */
@@ -174,6 +180,121 @@ public class HasherTest {
     Assert.assertEquals(DigestUtils.sha512Hex("Field E"), emitter.getEmitted().get(0).get("e"));
   }
 
+  @Test
+  public void testHasherFieldTypes() throws Exception {
+    Schema input = Schema.recordOf("input",
+                                   Schema.Field.of("a", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                   Schema.Field.of("b", Schema.of(Schema.Type.BYTES)),
+                                   Schema.Field.of("c", Schema.of(Schema.Type.LONG)),
+                                   Schema.Field.of("d", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+                                   Schema.Field.of("e", Schema.of(Schema.Type.BOOLEAN)));
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Hasher(new Hasher.Config("SHA256", "a,b,c,d,e"));
+    MockPipelineConfigurer mockPipelineConfigurer = new MockPipelineConfigurer(input);
+    transform.configurePipeline(mockPipelineConfigurer);
+    Schema expectedSchema = Schema.recordOf("input",
+                                            Schema.Field.of("a", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                            Schema.Field.of("b", Schema.of(Schema.Type.STRING)),
+                                            Schema.Field.of("c", Schema.of(Schema.Type.STRING)),
+                                            Schema.Field.of("d", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                                            Schema.Field.of("e", Schema.of(Schema.Type.BOOLEAN)));
+    Assert.assertEquals(expectedSchema, mockPipelineConfigurer.getOutputSchema());
+
+    transform.initialize(null);
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(input)
+                          .set("a", "Field A")
+                          .set("b", ByteBuffer.wrap(Bytes.toBytes("Field B")))
+                          .set("c", -42L)
+                          .set("e", true).build(), emitter);
+
+    StructuredRecord output = emitter.getEmitted().get(0);
+    Assert.assertEquals(expectedSchema, output.getSchema());
+    Assert.assertEquals(DigestUtils.sha256Hex("Field A"), output.get("a"));
+    Assert.assertEquals(DigestUtils.sha256Hex("Field B"), output.get("b"));
+    Assert.assertEquals(DigestUtils.sha256Hex("-42"), output.get("c"));
+    Assert.assertNull(output.get("d"));
+    Assert.assertTrue(output.<Boolean>get("e"));
+  }
+
+  @Test
+  public void testHasherLongAndNonAsciiValues() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      builder.append("Feld \u00e4 \u20ac \ud83d\ude00 ");
+    }
+    // longer than the initial buffer, with two, three and four byte characters and an unpaired surrogate
+    String longValue = builder.append('\ud83d').toString();
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Hasher(new Hasher.Config("SHA256", "a,b"));
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", longValue)
+                          .set("b", "\u00e4\u20ac\ud83d\ude00")
+                          .set("c", "Field C")
+                          .set("d", 4)
+                          .set("e", "Field E").build(), emitter);
+    Assert.assertEquals(DigestUtils.sha256Hex(longValue), emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals(DigestUtils.sha256Hex("\u00e4\u20ac\ud83d\ude00"), emitter.getEmitted().get(0).get("b"));
+  }
+
+  @Test
+  public void testFastHashes() throws Exception {
+    Transform<StructuredRecord, StructuredRecord> transform = new Hasher(new Hasher.Config("xxhash64", "a,e"));
+    transform.initialize(null);
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", "abc")
+                          .set("b", "Field B")
+                          .set("c", "Field C")
+                          .set("d", 4)
+                          .set("e", "Nobody inspects the spammish repetition").build(), emitter);
+    Assert.assertEquals("44bc2cf5ad770999", emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals("fbcea83c8a378bf1", emitter.getEmitted().get(0).get("e"));
+
+    transform = new Hasher(new Hasher.Config("MURMUR3_128", "a,e"));
+    transform.initialize(null);
+    emitter.clear();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", "")
+                          .set("b", "Field B")
+                          .set("c", "Field C")
+                          .set("d", 4)
+                          .set("e", "The quick brown fox jumps over the lazy dog").build(), emitter);
+    Assert.assertEquals("00000000000000000000000000000000", emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", emitter.getEmitted().get(0).get("e"));
+  }
+
+  @Test
+  public void testHasherHmac() throws Exception {
+    Transform<StructuredRecord, StructuredRecord> transform =
+      new Hasher(new Hasher.Config("HMAC_SHA256", "a,b,e", "secret"));
+    transform.initialize(null);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    transform.transform(StructuredRecord.builder(INPUT)
+                          .set("a", "Field A")
+                          .set("b", "Field B")
+                          .set("c", "Field C")
+                          .set("d", 4)
+                          .set("e", "Field E").build(), emitter);
+
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(Bytes.toBytes("secret"), "HmacSHA256"));
+    Assert.assertEquals(Hex.encodeHexString(mac.doFinal(Bytes.toBytes("Field A"))),
+                        emitter.getEmitted().get(0).get("a"));
+    Assert.assertEquals(Hex.encodeHexString(mac.doFinal(Bytes.toBytes("Field E"))),
+                        emitter.getEmitted().get(0).get("e"));
+    Assert.assertEquals("Field C", emitter.getEmitted().get(0).get("c"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHmacWithoutKey() throws Exception {
+    new Hasher(new Hasher.Config("HMAC_SHA512", "a")).initialize(null);
+  }
+
   @Test
   public void testSchemaValidation() throws Exception {
     Transform<StructuredRecord, StructuredRecord> transform =
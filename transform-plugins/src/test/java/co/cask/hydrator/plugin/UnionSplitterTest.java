@@ -293,4 +293,44 @@ public class UnionSplitterTest {
     Map<String, List<Object>> actual = mockEmitter.getEmitted();
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void testVariableInputSchemas() throws Exception {
+    Schema schema1 = Schema.recordOf("union",
+                                     Schema.Field.of("a", Schema.of(Schema.Type.LONG)),
+                                     Schema.Field.of("b", Schema.unionOf(Schema.of(Schema.Type.INT),
+                                                                         Schema.of(Schema.Type.STRING))));
+    Schema schema2 = Schema.recordOf("union",
+                                     Schema.Field.of("b", Schema.unionOf(Schema.of(Schema.Type.INT),
+                                                                         Schema.of(Schema.Type.STRING))),
+                                     Schema.Field.of("c", Schema.of(Schema.Type.BOOLEAN)));
+    Schema intSchema1 = Schema.recordOf("union.int",
+                                        Schema.Field.of("a", Schema.of(Schema.Type.LONG)),
+                                        Schema.Field.of("b", Schema.of(Schema.Type.INT)));
+    Schema intSchema2 = Schema.recordOf("union.int",
+                                        Schema.Field.of("b", Schema.of(Schema.Type.INT)),
+                                        Schema.Field.of("c", Schema.of(Schema.Type.BOOLEAN)));
+    Schema stringSchema2 = Schema.recordOf("union.string",
+                                           Schema.Field.of("b", Schema.of(Schema.Type.STRING)),
+                                           Schema.Field.of("c", Schema.of(Schema.Type.BOOLEAN)));
+
+    UnionSplitter unionSplitter = new UnionSplitter(new UnionSplitter.Conf("b", true));
+    unionSplitter.initialize(new MockTransformContext());
+
+    MockMultiOutputEmitter<StructuredRecord> mockEmitter = new MockMultiOutputEmitter<>();
+    unionSplitter.transform(StructuredRecord.builder(schema1).set("a", 0L).set("b", 5).build(), mockEmitter);
+    unionSplitter.transform(StructuredRecord.builder(schema2).set("b", 6).set("c", true).build(), mockEmitter);
+    unionSplitter.transform(StructuredRecord.builder(schema2).set("b", "7").set("c", false).build(), mockEmitter);
+    unionSplitter.transform(StructuredRecord.builder(schema1).set("a", 1L).set("b", 8).build(), mockEmitter);
+
+    Map<String, List<StructuredRecord>> expected = new HashMap<>();
+    expected.put("int", ImmutableList.of(StructuredRecord.builder(intSchema1).set("a", 0L).set("b", 5).build(),
+                                         StructuredRecord.builder(intSchema2).set("b", 6).set("c", true).build(),
+                                         StructuredRecord.builder(intSchema1).set("a", 1L).set("b", 8).build()));
+    expected.put("string", ImmutableList.of(
+      StructuredRecord.builder(stringSchema2).set("b", "7").set("c", false).build()));
+
+    Map<String, List<Object>> actual = mockEmitter.getEmitted();
+    Assert.assertEquals(expected, actual);
+  }
 }
@@ -20,6 +20,8 @@ import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.dataset.lib.KeyValueTable;
 import co.cask.cdap.api.dataset.table.Table;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.utils.Tasks;
 import co.cask.cdap.datapipeline.SmartWorkflow;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.mock.batch.MockSink;
@@ -44,6 +46,7 @@ import org.junit.Test;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -315,6 +318,110 @@ public class ValueMapperTest extends TransformPluginsTestBase {
       .get(SALARYDESC));
   }
 
+  @Test
+  public void testWithLookupCache() throws Exception {
+    String inputTable = "input_table_with_cache";
+    ETLStage source = new ETLStage("source", MockSource.getPlugin(inputTable));
+
+    // both fields use the same table, and the cache is smaller than the number of keys
+    Map<String, String> sourceproperties = new ImmutableMap.Builder<String, String>()
+      .put("mapping", "designationid:lookup_table_with_cache:designationName," +
+        "salary:lookup_table_with_cache:salaryDesc")
+      .put("defaults", "designationid:DefaultID")
+      .put("cacheSize", "2")
+      .build();
+
+    ETLStage transform = new ETLStage("transform",
+                                      new ETLPlugin("ValueMapper", Transform.PLUGIN_TYPE, sourceproperties, null));
+
+    String sinkTable = "output_table_with_cache";
+    ETLStage sink = new ETLStage("sink", MockSink.getPlugin(sinkTable));
+
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder("* * * * *")
+      .addStage(source)
+      .addStage(transform)
+      .addStage(sink)
+      .addConnection(source.getName(), transform.getName())
+      .addConnection(transform.getName(), sink.getName())
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(BATCH_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("valuemappertest_with_cache");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    addDatasetInstance(KeyValueTable.class.getName(), "lookup_table_with_cache");
+    DataSetManager<KeyValueTable> dataSetManager = getDataset("lookup_table_with_cache");
+    KeyValueTable keyValueTable = dataSetManager.get();
+    keyValueTable.write("1".getBytes(Charsets.UTF_8), "SE".getBytes(Charsets.UTF_8));
+    keyValueTable.write("2".getBytes(Charsets.UTF_8), "SSE".getBytes(Charsets.UTF_8));
+    keyValueTable.write("1000".getBytes(Charsets.UTF_8), "Low".getBytes(Charsets.UTF_8));
+    keyValueTable.write("2000".getBytes(Charsets.UTF_8), "Medium".getBytes(Charsets.UTF_8));
+    dataSetManager.flush();
+
+    DataSetManager<Table> inputManager = getDataset(inputTable);
+    List<StructuredRecord> input = ImmutableList.of(
+      StructuredRecord.builder(SOURCE_SCHEMA).set(ID, "100").set(NAME, "John").set(SALARY, "1000")
+        .set(DESIGNATIONID, "1").build(),
+      StructuredRecord.builder(SOURCE_SCHEMA).set(ID, "101").set(NAME, "Kerry").set(SALARY, "1000")
+        .set(DESIGNATIONID, "1").build(),
+      StructuredRecord.builder(SOURCE_SCHEMA).set(ID, "102").set(NAME, "Mathew").set(SALARY, "2000")
+        .set(DESIGNATIONID, "4").build(),
+      StructuredRecord.builder(SOURCE_SCHEMA).set(ID, "103").set(NAME, "Allie").set(SALARY, "1000")
+        .set(DESIGNATIONID, "2").build(),
+      StructuredRecord.builder(SOURCE_SCHEMA).set(ID, "104").set(NAME, "Tom").set(SALARY, "3000")
+        .set(DESIGNATIONID, "4").build(),
+      // both fields have the same key, which must only be looked up once
+      StructuredRecord.builder(SOURCE_SCHEMA).set(ID, "105").set(NAME, "Sam").set(SALARY, "1000")
+        .set(DESIGNATIONID, "1000").build()
+    );
+    MockSource.writeInput(inputManager, input);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRuns(ProgramRunStatus.COMPLETED, 1, 5, TimeUnit.MINUTES);
+
+    DataSetManager<Table> outputManager = getDataset(sinkTable);
+    List<StructuredRecord> outputRecords = MockSink.readOutput(outputManager);
+
+    Map<String, String> nameDesignationMap = new HashMap<>();
+    nameDesignationMap.put("John", "SE");
+    nameDesignationMap.put("Kerry", "SE");
+    nameDesignationMap.put("Mathew", "DefaultID");
+    nameDesignationMap.put("Allie", "SSE");
+    nameDesignationMap.put("Tom", "DefaultID");
+    nameDesignationMap.put("Sam", "Low");
+
+    Map<String, String> nameSalaryMap = new HashMap<>();
+    nameSalaryMap.put("John", "Low");
+    nameSalaryMap.put("Kerry", "Low");
+    nameSalaryMap.put("Mathew", "Medium");
+    nameSalaryMap.put("Allie", "Low");
+    nameSalaryMap.put("Tom", null);
+    nameSalaryMap.put("Sam", "Low");
+
+    Assert.assertEquals(6, outputRecords.size());
+    for (StructuredRecord outputRecord : outputRecords) {
+      String name = outputRecord.get(NAME);
+      Assert.assertEquals(nameDesignationMap.get(name), outputRecord.get(DESIGNATIONNAME));
+      Assert.assertEquals(nameSalaryMap.get(name), outputRecord.get(SALARYDESC));
+    }
+
+    // every distinct key of a record is either a hit or a miss: two for each record, and one for Sam's.
+    // Whatever the order of the records, two of the four records with salary 1000 are consecutive, so there are hits.
+    final Map<String, String> tags = ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, appId.getNamespace(),
+                                                     Constants.Metrics.Tag.APP, appId.getEntityName(),
+                                                     Constants.Metrics.Tag.WORKFLOW, SmartWorkflow.NAME);
+    Tasks.waitFor(11L, new Callable<Long>() {
+      @Override
+      public Long call() throws Exception {
+        return getMetricsManager().getTotalMetric(tags, "user.transform.lookup.cache.hits") +
+          getMetricsManager().getTotalMetric(tags, "user.transform.lookup.cache.misses");
+      }
+    }, 20, TimeUnit.SECONDS);
+    Assert.assertTrue(getMetricsManager().getTotalMetric(tags, "user.transform.lookup.cache.hits") > 0);
+    Assert.assertTrue(getMetricsManager().getTotalMetric(tags, "user.transform.lookup.cache.misses") > 0);
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testStringHandling() throws Exception {
     Schema inputSchema = Schema.recordOf("sourceRecord",
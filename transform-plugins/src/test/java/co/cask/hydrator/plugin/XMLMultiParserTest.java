@@ -96,4 +96,76 @@ public class XMLMultiParserTest {
     Assert.assertEquals(31, invalidEntry.getErrorCode());
     Assert.assertEquals(input, invalidEntry.getInvalidRecord());
   }
+
+  @Test
+  public void testStreaming() throws Exception {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("price", Schema.of(Schema.Type.DOUBLE)),
+                                    Schema.Field.of("desc", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    XMLMultiParser.Config config = new XMLMultiParser.Config("body", "UTF-8", "/items/item", schema.toString(), true);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    Schema inputSchema = Schema.recordOf("input", Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    StructuredRecord input = StructuredRecord.builder(inputSchema)
+      .set("body",
+           "<items>" +
+             "<item><id>0</id><name>Burrito</name><price>7.77</price><desc><![CDATA[<delicious>]]></desc></item>" +
+             "<other><item><id>50</id><name>Nested</name><price>1.0</price></item></other>" +
+             "<item><id>100</id><name>Tortilla <b>Chips</b></name><price>0.99</price></item>" +
+             "<item><id>abc</id><name>Bad Id</name><price>1.99</price></item>" +
+             "<item><id>200</id><name>Water</name><price>2.99</price></item>" +
+             "</items>")
+      .build();
+
+    XMLMultiParser parser = new XMLMultiParser(config);
+    parser.initialize(new MockTransformContext("stage"));
+    parser.transform(input, emitter);
+
+    List<StructuredRecord> expected = ImmutableList.of(
+      StructuredRecord.builder(schema)
+        .set("id", 0L).set("name", "Burrito").set("price", 7.77d).set("desc", "<delicious>").build(),
+      StructuredRecord.builder(schema).set("id", 100L).set("name", "Tortilla Chips").set("price", 0.99d).build(),
+      StructuredRecord.builder(schema).set("id", 200L).set("name", "Water").set("price", 2.99d).build()
+    );
+    Assert.assertEquals(expected, emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+    Assert.assertEquals(31, emitter.getErrors().get(0).getErrorCode());
+  }
+
+  @Test
+  public void testStreamingInvalidXml() throws Exception {
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+    XMLMultiParser.Config config = new XMLMultiParser.Config("body", "UTF-8", "/items/item", schema.toString(), true);
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    Schema inputSchema = Schema.recordOf("input", Schema.Field.of("body", Schema.of(Schema.Type.STRING)));
+    StructuredRecord input = StructuredRecord.builder(inputSchema)
+      .set("body",
+           "<items>" +
+             "<item><id>0</id><name>Burrito</name></item>" +
+             "<item><id>100</id><name>Tortilla Chips</name>" +
+             "</items>")
+      .build();
+
+    XMLMultiParser parser = new XMLMultiParser(config);
+    parser.initialize(new MockTransformContext("stage"));
+    parser.transform(input, emitter);
+
+    Assert.assertEquals(ImmutableList.of(StructuredRecord.builder(schema).set("id", 0L).set("name", "Burrito").build()),
+                        emitter.getEmitted());
+    Assert.assertEquals(1, emitter.getErrors().size());
+    InvalidEntry<StructuredRecord> invalidEntry = emitter.getErrors().get(0);
+    Assert.assertEquals(31, invalidEntry.getErrorCode());
+    Assert.assertEquals(input, invalidEntry.getInvalidRecord());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testStreamingRequiresElementPath() {
+    Schema schema = Schema.recordOf("record", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+    new XMLMultiParser.Config("body", "UTF-8", "//item[id > 5]", schema.toString(), true).getElementPath();
+  }
 }